@@ -0,0 +1,78 @@
+package org.home.productivity.traverse.actuator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.actuate.health.Health;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Downstream health checks against a local stub, probed on every call and
+ * served from the cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HealthBenchmark {
+
+    @Param({ "1", "5" })
+    int downstreams;
+
+    private HttpServer server;
+    private CustomHealthIndicator uncached;
+    private CustomHealthIndicator cached;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        var urls = new String[downstreams];
+        for (var i = 0; i < downstreams; i++) {
+            urls[i] = "http://localhost:" + server.getAddress().getPort() + "/up" + i;
+        }
+        uncached = new CustomHealthIndicator(new SimpleMeterRegistry(), urls, Duration.ofSeconds(5), Duration.ZERO,
+                false);
+        cached = new CustomHealthIndicator(new SimpleMeterRegistry(), urls, Duration.ofSeconds(5), Duration.ofHours(1),
+                false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Health probe() {
+        return uncached.health();
+    }
+
+    @Benchmark
+    public Health cachedProbe() {
+        return cached.health();
+    }
+}
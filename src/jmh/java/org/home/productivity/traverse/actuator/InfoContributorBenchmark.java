@@ -0,0 +1,93 @@
+package org.home.productivity.traverse.actuator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.home.productivity.traverse.benchmark.SyntheticContext;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.ComponentGraph;
+import org.home.productivity.traverse.graph.GraphExporter;
+import org.home.productivity.traverse.graph.GraphExporter.Format;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Each stage of describing a live application context: /info beans and
+ * mappings, serializing the /info snapshot, building the application graph and
+ * streaming it out
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InfoContributorBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    int beans;
+
+    private AnnotationConfigApplicationContext context;
+    private CustomInfoContributor infoContributor;
+    private GraphStore graphStore;
+    private GraphExporter graphExporter;
+    private ObjectMapper objectMapper;
+    private PackageMatcher packageMatcher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SyntheticContext.create(beans);
+        infoContributor = context.getBean(CustomInfoContributor.class);
+        graphStore = context.getBean(GraphStore.class);
+        graphExporter = context.getBean(GraphExporter.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        packageMatcher = context.getBean(PackageMatcher.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object infoBeans() {
+        return ReflectionTestUtils.invokeMethod(infoContributor, "getBeans");
+    }
+
+    @Benchmark
+    public Object infoMappings() {
+        return ReflectionTestUtils.invokeMethod(infoContributor, "getMappings");
+    }
+
+    @Benchmark
+    public byte[] serializeInfoSnapshot() throws IOException {
+        return objectMapper.writeValueAsBytes(infoContributor.getSnapshot());
+    }
+
+    @Benchmark
+    public ComponentGraph buildApplicationGraph() {
+        return ReflectionTestUtils.invokeMethod(graphStore, "buildApplicationGraph");
+    }
+
+    @Benchmark
+    public void exportApplicationGraph() throws IOException {
+        graphExporter.export(OutputStream.nullOutputStream(), Format.JSON, packageMatcher);
+    }
+}
@@ -0,0 +1,210 @@
+package org.home.productivity.traverse.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.home.productivity.traverse.TraverseApplication;
+import org.home.productivity.traverse.commons.VirtualThreads;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Load test of the running application with platform threads and with virtual
+ * threads (application.threads.virtual), one after the other in this JVM.
+ * <p>
+ * Each mode starts the application on a random port with an in memory
+ * database and a downstream stub that answers after a delay, so /actuator/health
+ * blocks its request thread the way real downstream services would. Then
+ * /status, /actuator/info, /actuator/health and /api/v1/traverse (scanning
+ * this project's classes) are each hit with a fixed number of requests, at
+ * most concurrency of them in flight, after a warm up round. Reported are
+ * throughput, latency percentiles and any responses other than 2xx, i.e. 429s
+ * from a full scan queue.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec@load-test, passing options
+ * with -Dload.args, i.e. -Dload.args="requests=50000 concurrency=2000
+ * modes=virtual". Virtual threads need a Java 21 runtime, on older ones that
+ * mode falls back to platform threads and says so
+ */
+public final class LoadTest {
+
+    private static final String CONTEXT_PATH = "/traverse";
+
+    private final int requests;
+    private final int concurrency;
+    private final Duration downstreamDelay;
+    private final Path scanTarget;
+    private final HttpClient client;
+    private final String authorization = "Basic "
+            + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    private LoadTest(int requests, int concurrency, Duration downstreamDelay, Path scanTarget) {
+        this.requests = requests;
+        this.concurrency = concurrency;
+        this.downstreamDelay = downstreamDelay;
+        this.scanTarget = scanTarget;
+        // the client gets its own threads, it should not be what limits either mode
+        this.client = HttpClient.newBuilder()
+                .version(Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = new LinkedHashMap<String, String>();
+        options.put("requests", "20000");
+        options.put("concurrency", "1000");
+        options.put("modes", "platform,virtual");
+        options.put("downstream.delay", "50ms");
+        options.put("scan.target", "target/classes");
+        for (var arg : args) {
+            var option = arg.split("=", 2);
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option: " + arg + ", known options are: " + options);
+            }
+            options.put(option[0], option[1]);
+        }
+        var loadTest = new LoadTest(Integer.parseInt(options.get("requests")),
+                Integer.parseInt(options.get("concurrency")),
+                DurationStyle.detectAndParse(options.get("downstream.delay")),
+                Path.of(options.get("scan.target")).toAbsolutePath());
+        // devtools would restart this main class rather than the application
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        System.out.println("Load test with: " + options + " on Java " + Runtime.version());
+        for (var mode : options.get("modes").split(",")) {
+            loadTest.run(mode.strip());
+        }
+        System.exit(0);
+    }
+
+    private void run(String mode) throws IOException, InterruptedException {
+        var virtual = switch (mode) {
+            case "platform" -> false;
+            case "virtual" -> true;
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode + ", expected platform or virtual");
+        };
+        var downstream = downstream();
+        var context = SpringApplication.run(TraverseApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--application.threads.virtual=" + virtual,
+                "--application.actuator.downstream.service.urls=http://localhost:"
+                        + downstream.getAddress().getPort() + "/up",
+                "--application.actuator.downstream.service.cache.ttl=0s");
+        try {
+            var port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            var baseUrl = "http://localhost:" + port + CONTEXT_PATH;
+            System.out.printf("%nMode: %s, virtual threads %s%n", mode,
+                    virtual && VirtualThreads.isSupported() ? "active"
+                            : virtual ? "NOT supported by this runtime, ran on platform threads" : "off");
+            System.out.printf("%-18s %10s %10s %10s %10s %10s %10s  %s%n", "endpoint", "requests", "req/s", "p50 ms",
+                    "p99 ms", "p99.9 ms", "max ms", "other than 2xx");
+            var endpoints = new LinkedHashMap<String, String>();
+            endpoints.put("/status", "/status");
+            endpoints.put("/actuator/info", "/actuator/info");
+            endpoints.put("/actuator/health", "/actuator/health");
+            endpoints.put("/api/v1/traverse", "/api/v1/traverse?path=" + scanTarget.toString().replace('\\', '/'));
+            for (var endpoint : endpoints.entrySet()) {
+                // scans are a lot heavier than the rest, fewer of them still tell merging and queueing apart
+                var count = endpoint.getKey().startsWith("/api") ? Math.max(requests / 20, concurrency) : requests;
+                load(URI.create(baseUrl + endpoint.getValue()), Math.max(count / 5, 1));
+                var result = load(URI.create(baseUrl + endpoint.getValue()), count);
+                System.out.printf("%-18s %10d %10.0f %10.2f %10.2f %10.2f %10.2f  %s%n", endpoint.getKey(), count,
+                        result.throughput(), result.percentile(0.5), result.percentile(0.99), result.percentile(0.999),
+                        result.percentile(1), result.failures.isEmpty() ? "none" : result.failures);
+            }
+        } finally {
+            context.close();
+            downstream.stop(0);
+        }
+    }
+
+    private Result load(URI uri, int count) throws InterruptedException {
+        var latencies = new long[count];
+        var failures = new ConcurrentHashMap<String, LongAdder>();
+        var inFlight = new Semaphore(concurrency);
+        var done = new AtomicInteger();
+        var request = HttpRequest.newBuilder(uri)
+                .header("Authorization", authorization)
+                .timeout(Duration.ofMinutes(2))
+                .GET()
+                .build();
+        var start = System.nanoTime();
+        for (var i = 0; i < count; i++) {
+            inFlight.acquire();
+            var index = i;
+            var sent = System.nanoTime();
+            client.sendAsync(request, BodyHandlers.discarding()).whenComplete((response, e) -> {
+                latencies[index] = System.nanoTime() - sent;
+                if (e != null) {
+                    failures.computeIfAbsent(e.getClass().getSimpleName(), key -> new LongAdder()).increment();
+                } else if (response.statusCode() / 100 != 2) {
+                    failures.computeIfAbsent(String.valueOf(response.statusCode()), key -> new LongAdder()).increment();
+                }
+                done.incrementAndGet();
+                inFlight.release();
+            });
+        }
+        // all permits back means every response is in
+        inFlight.acquire(concurrency);
+        inFlight.release(concurrency);
+        var elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        var failed = new TreeMap<String, Long>();
+        failures.forEach((key, value) -> failed.put(key, value.sum()));
+        return new Result(latencies, done.get(), elapsed, failed);
+    }
+
+    private HttpServer downstream() throws IOException {
+        var server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(downstreamDelay.toMillis());
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private record Result(long[] latencies, int completed, long elapsed, Map<String, Long> failures) {
+
+        double throughput() {
+            return completed / (elapsed / 1e9);
+        }
+
+        double percentile(double percentile) {
+            var index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
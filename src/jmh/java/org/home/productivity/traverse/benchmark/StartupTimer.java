@@ -0,0 +1,136 @@
+package org.home.productivity.traverse.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Start up times of the application as built by the fast-start profile
+ * against the current configuration, every configuration started a number of
+ * times in a JVM of its own:
+ * <ul>
+ * <li>default: the executable jar as is</li>
+ * <li>fast-start: the fast-start Spring profile, lazy beans and JPA
+ * bootstrapped in the background</li>
+ * <li>fast-start + AOT: also with the AOT processed context</li>
+ * <li>fast-start + AOT + CDS: also with the class data sharing archive</li>
+ * </ul>
+ * Each run counts until the application logs it started, both as seen from
+ * here and as the application says the JVM was running for, then it is
+ * stopped. Every run gets an empty file database.
+ * <p>
+ * Run after mvn -Pfast-start package with: mvn -Pbenchmark test-compile
+ * exec:exec@startup-times, passing options with -Dstartup.args, i.e.
+ * -Dstartup.args="runs=10"
+ */
+public final class StartupTimer {
+
+    private static final Pattern STARTED = Pattern
+            .compile("Started TraverseApplication in ([0-9.]+) seconds \\(process running for ([0-9.]+)\\)");
+
+    private final Path build;
+    private final int runs;
+    private final Path databases;
+
+    private StartupTimer(Path build, int runs) throws IOException {
+        this.build = build;
+        this.runs = runs;
+        this.databases = Files.createTempDirectory("traverse-startup");
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = new LinkedHashMap<String, String>();
+        options.put("build", "target/traverse-0.0.1-SNAPSHOT");
+        options.put("runs", "5");
+        for (var arg : args) {
+            var option = arg.split("=", 2);
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option: " + arg + ", known options are: " + options);
+            }
+            options.put(option[0], option[1]);
+        }
+        var timer = new StartupTimer(Path.of(options.get("build")).toAbsolutePath(),
+                Integer.parseInt(options.get("runs")));
+        System.out.println("Start up times with: " + options + " on Java " + Runtime.version());
+        System.out.printf("%-24s %12s %12s %12s %12s%n", "configuration", "min ms", "median ms", "max ms",
+                "jvm median ms");
+        for (var configuration : timer.configurations().entrySet()) {
+            timer.time(configuration.getKey(), configuration.getValue());
+        }
+    }
+
+    private Map<String, List<String>> configurations() throws IOException {
+        var executableJar = build.resolveSibling(build.getFileName() + "-exec.jar");
+        var jar = build.resolveSibling(build.getFileName() + ".jar");
+        var classpath = jar + File.pathSeparator
+                + Files.readString(build.resolveSibling("classpath.txt"), StandardCharsets.UTF_8).strip();
+        var archive = build.resolveSibling("traverse.jsa");
+        var mainClass = "org.home.productivity.traverse.TraverseApplication";
+        for (var required : List.of(executableJar, jar, archive)) {
+            if (!Files.exists(required)) {
+                throw new IllegalStateException("Missing: " + required + ", build with: mvn -Pfast-start package");
+            }
+        }
+
+        var configurations = new LinkedHashMap<String, List<String>>();
+        configurations.put("default", List.of("-jar", executableJar.toString()));
+        configurations.put("fast-start", List.of("-Dspring.profiles.active=fast-start",
+                "-cp", classpath, mainClass));
+        configurations.put("fast-start + AOT", List.of("-Dspring.profiles.active=fast-start",
+                "-Dspring.aot.enabled=true", "-cp", classpath, mainClass));
+        configurations.put("fast-start + AOT + CDS", List.of("-XX:SharedArchiveFile=" + archive,
+                "-Xlog:cds=error", "-Dspring.profiles.active=fast-start", "-Dspring.aot.enabled=true",
+                "-cp", classpath, mainClass));
+        return configurations;
+    }
+
+    private void time(String configuration, List<String> arguments) throws IOException, InterruptedException {
+        var wall = new long[runs];
+        var jvm = new long[runs];
+        for (var run = 0; run < runs; run++) {
+            var command = new ArrayList<String>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-Dserver.port=0");
+            command.add("-Dspring.datasource.url=jdbc:h2:file:"
+                    + databases.resolve(configuration.replaceAll("\\W+", "-") + "-" + run));
+            command.addAll(arguments);
+            var start = System.nanoTime();
+            var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (var reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    var matcher = STARTED.matcher(line);
+                    if (matcher.find()) {
+                        wall[run] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        jvm[run] = (long) (Double.parseDouble(matcher.group(2)) * 1000);
+                        break;
+                    }
+                }
+            } finally {
+                process.destroy();
+                if (!process.waitFor(1, TimeUnit.MINUTES)) {
+                    process.destroyForcibly();
+                }
+            }
+            if (wall[run] == 0) {
+                throw new IllegalStateException("Configuration: " + configuration + " did not start, with: " + command);
+            }
+        }
+        Arrays.sort(wall);
+        Arrays.sort(jvm);
+        System.out.printf("%-24s %12d %12d %12d %12d%n", configuration, wall[0], wall[runs / 2], wall[runs - 1],
+                jvm[runs / 2]);
+    }
+}
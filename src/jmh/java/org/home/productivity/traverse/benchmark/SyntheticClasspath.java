@@ -0,0 +1,173 @@
+package org.home.productivity.traverse.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Opcodes;
+
+/**
+ * Generates class files that look enough like a Spring application to keep the
+ * scanner busy: a third are services with an injected field and constructor,
+ * one in twenty is a configuration with a @Bean method, one in twenty a
+ * controller with a @GetMapping method and the rest carry no annotations at all
+ * (and should be skipped before being parsed).
+ * <p>
+ * Every class has a handle method calling the handle method of the two classes
+ * below it in a binary tree, so a call graph scan has calls to follow and
+ * controllers near the root reach far more components than those near the
+ * leaves
+ */
+public final class SyntheticClasspath {
+
+    public static final String PACKAGE = "synthetic/app";
+
+    private static final String SERVICE = "Lorg/springframework/stereotype/Service;";
+    private static final String CONFIGURATION = "Lorg/springframework/context/annotation/Configuration;";
+    private static final String AUTOWIRED = "Lorg/springframework/beans/factory/annotation/Autowired;";
+    private static final String BEAN = "Lorg/springframework/context/annotation/Bean;";
+    private static final String REST_CONTROLLER = "Lorg/springframework/web/bind/annotation/RestController;";
+    private static final String GET_MAPPING = "Lorg/springframework/web/bind/annotation/GetMapping;";
+
+    private SyntheticClasspath() {
+    }
+
+    /**
+     * Write classes into an exploded classes directory
+     *
+     * @param directory
+     * @param classes
+     * @return directory
+     * @throws IOException
+     */
+    public static Path directory(Path directory, int classes) throws IOException {
+        for (var i = 0; i < classes; i++) {
+            var file = directory.resolve(internalName(i) + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, classFile(i, classes));
+        }
+        return directory;
+    }
+
+    /**
+     * Write classes into a Spring Boot style fat jar, half in BOOT-INF/classes and
+     * half spread over nested jars stored uncompressed in BOOT-INF/lib
+     *
+     * @param jar
+     * @param classes
+     * @return jar
+     * @throws IOException
+     */
+    public static Path fatJar(Path jar, int classes) throws IOException {
+        var libs = Math.max(1, classes / 500);
+        var libBytes = new ByteArrayOutputStream[libs];
+        var libOuts = new ZipOutputStream[libs];
+        for (var lib = 0; lib < libs; lib++) {
+            libBytes[lib] = new ByteArrayOutputStream();
+            libOuts[lib] = new ZipOutputStream(libBytes[lib]);
+        }
+        try (var zipOut = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (var i = 0; i < classes; i++) {
+                if (i % 2 == 0) {
+                    write(zipOut, "BOOT-INF/classes/" + internalName(i) + ".class", classFile(i, classes), false);
+                } else {
+                    write(libOuts[i % libs], internalName(i) + ".class", classFile(i, classes), false);
+                }
+            }
+            for (var lib = 0; lib < libs; lib++) {
+                libOuts[lib].close();
+                write(zipOut, "BOOT-INF/lib/lib" + lib + ".jar", libBytes[lib].toByteArray(), true);
+            }
+        }
+        return jar;
+    }
+
+    public static String className(int index) {
+        return internalName(index).replace('/', '.');
+    }
+
+    private static String internalName(int index) {
+        return PACKAGE + "/module" + (index % 20) + "/Synthetic" + index;
+    }
+
+    private static byte[] classFile(int index, int classes) {
+        var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        var name = internalName(index);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        var dependency = "L" + internalName((index + 1) % classes) + ";";
+        if (index % 3 == 0) {
+            writer.visitAnnotation(SERVICE, true).visitEnd();
+            var field = writer.visitField(Opcodes.ACC_PRIVATE, "dependency", dependency, null, null);
+            field.visitAnnotation(AUTOWIRED, true).visitEnd();
+            field.visitEnd();
+            constructor(writer, "(" + "L" + internalName((index + 2) % classes) + ";)V");
+        } else if (index % 20 == 1) {
+            writer.visitAnnotation(CONFIGURATION, true).visitEnd();
+            constructor(writer, "()V");
+            var method = writer.visitMethod(Opcodes.ACC_PUBLIC, "bean" + index, "(" + dependency + ")"
+                    + "Ljava/lang/StringBuilder;", null, null);
+            method.visitAnnotation(BEAN, true).visitEnd();
+            method.visitCode();
+            method.visitInsn(Opcodes.ACONST_NULL);
+            method.visitInsn(Opcodes.ARETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        } else if (index % 20 == 2) {
+            writer.visitAnnotation(REST_CONTROLLER, true).visitEnd();
+            constructor(writer, "()V");
+        } else {
+            constructor(writer, "()V");
+        }
+        handle(writer, index, classes);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void constructor(ClassWriter writer, String descriptor) {
+        var method = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", descriptor, null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        method.visitInsn(Opcodes.RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private static void handle(ClassWriter writer, int index, int classes) {
+        var method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "handle", "()V", null, null);
+        if (index % 20 == 2) {
+            var mapping = method.visitAnnotation(GET_MAPPING, true);
+            var paths = mapping.visitArray("value");
+            paths.visit(null, "/synthetic" + index);
+            paths.visitEnd();
+            mapping.visitEnd();
+        }
+        method.visitCode();
+        for (var callee = index * 2 + 1; callee <= index * 2 + 2 && callee < classes; callee++) {
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, internalName(callee), "handle", "()V", false);
+        }
+        method.visitInsn(Opcodes.RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private static void write(ZipOutputStream zipOut, String name, byte[] bytes, boolean stored) throws IOException {
+        var entry = new ZipEntry(name);
+        if (stored) {
+            var crc = new CRC32();
+            crc.update(bytes);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
+        }
+        zipOut.putNextEntry(entry);
+        zipOut.write(bytes);
+        zipOut.closeEntry();
+    }
+}
@@ -0,0 +1,92 @@
+package org.home.productivity.traverse.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.Random;
+
+import org.home.productivity.traverse.actuator.CustomInfoContributor;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.GraphExporter;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Builds an application context of a given size around the beans that inspect
+ * it: synthetic beans each depending on a few others, one in ten a controller
+ * with a request mapping, plus {@link CustomInfoContributor},
+ * {@link GraphStore} and {@link GraphExporter}
+ */
+public final class SyntheticContext {
+
+    private static final int DEPENDENCIES_PER_BEAN = 3;
+
+    private SyntheticContext() {
+    }
+
+    public static AnnotationConfigApplicationContext create(int beans) {
+        var random = new Random(beans);
+        var context = new AnnotationConfigApplicationContext();
+        context.registerBean("objectMapper", ObjectMapper.class, () -> JsonMapper.builder().findAndAddModules().build());
+        context.registerBean("meterRegistry", MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean("beanPackageMatcher", PackageMatcher.class,
+                () -> PackageMatcher.of(new String[] { "org.home" }, null));
+        context.registerBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        context.registerBean(CustomInfoContributor.class);
+        context.registerBean(GraphStore.class);
+        context.registerBean(GraphExporter.class);
+        for (var i = 0; i < beans; i++) {
+            Class<? extends SyntheticBean> type = (i % 10 == 0 ? SyntheticController.class : SyntheticBean.class);
+            context.registerBean(beanName(i), type);
+        }
+        var beanFactory = context.getBeanFactory();
+        for (var i = 0; i < beans; i++) {
+            for (var j = 0; j < DEPENDENCIES_PER_BEAN; j++) {
+                beanFactory.registerDependentBean(beanName(random.nextInt(beans)), beanName(i));
+            }
+        }
+        context.refresh();
+
+        var handlerMapping = context.getBean(RequestMappingHandlerMapping.class);
+        var handle = SyntheticController.HANDLE;
+        for (var i = 0; i < beans; i += 10) {
+            handlerMapping.registerMapping(
+                    RequestMappingInfo.paths("/api/v1/synthetic/" + i).methods(RequestMethod.GET).build(),
+                    beanName(i), handle);
+        }
+        return context;
+    }
+
+    public static String beanName(int index) {
+        return "synthetic" + index;
+    }
+
+    public static class SyntheticBean {
+        @Value("${synthetic.name:synthetic}")
+        private String name;
+    }
+
+    public static class SyntheticController extends SyntheticBean {
+        static final Method HANDLE;
+
+        static {
+            try {
+                HANDLE = SyntheticController.class.getMethod("handle");
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public String handle() {
+            return "synthetic";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.home.productivity.traverse.commons;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filtering package names of beans/classes by prefix, the way bean packages
+ * were filtered before, against the precompiled {@link PackageMatcher}, for a
+ * growing number of patterns. Every fifth include has a * segment and there is
+ * an exclude for every fifth include, prefixes know neither so they only get
+ * the plain includes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PackageMatchingBenchmark {
+
+    private static final String[] INCLUDES = { "org.home", "com.example.billing", "com.example.orders",
+            "io.acme.platform", "net.shop" };
+
+    private static final String[] PREFIXES = { "synthetic.app.module", "org.springframework.boot.autoconfigure",
+            "org.home.productivity.traverse", "com.example.billing.internal", "org.hibernate.engine" };
+
+    @Param({ "100", "1000", "10000" })
+    int packages;
+
+    @Param({ "5", "50", "500" })
+    int patterns;
+
+    private String[] packageNames;
+    private String[] prefixes;
+    private PackageMatcher packageMatcher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var includes = new String[patterns];
+        var excludes = new String[(patterns + 4) / 5];
+        for (var i = 0; i < patterns; i++) {
+            var include = (i < INCLUDES.length ? INCLUDES[i] : "com.example.module" + i);
+            includes[i] = (i % 5 == 4 ? include.replaceFirst("^([^.]+)\\.[^.]+", "$1.*") : include);
+            if (i % 5 == 0) {
+                excludes[i / 5] = include + ".internal";
+            }
+        }
+        prefixes = Arrays.stream(includes).filter(include -> !include.contains("*")).toArray(String[]::new);
+        packageNames = new String[packages];
+        for (var i = 0; i < packages; i++) {
+            // a third of them in the generated modules, the rest as before
+            packageNames[i] = (i % 3 == 0 ? "com.example.module" + (i % patterns) + (i % 2 == 0 ? ".internal" : ".api")
+                    : PREFIXES[i % PREFIXES.length] + ".sub" + (i % 37));
+        }
+        packageMatcher = PackageMatcher.of(includes, excludes);
+    }
+
+    @Benchmark
+    public int startsWithIn() {
+        var matches = 0;
+        for (var packageName : packageNames) {
+            if (startsWithIn(packageName, prefixes)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int packageMatcher() {
+        var matches = 0;
+        for (var packageName : packageNames) {
+            if (packageMatcher.matches(packageName)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static boolean startsWithIn(String string, String[] prefixes) {
+        for (var prefix : prefixes) {
+            if (string.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package org.home.productivity.traverse.graph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.home.productivity.traverse.scan.ScannedClass.Endpoint;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Diffing two scans of the same size, one percent of the components of the
+ * second changed, added or removed, and streaming the result. Components each
+ * have a few dependencies, every tenth is a controller with endpoints and a
+ * @Value binding
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DiffBenchmark {
+
+    private static final int DEPENDENCIES_PER_NODE = 3;
+    private static final String SERVICE = "org.springframework.stereotype.Service";
+    private static final String CONTROLLER = "org.springframework.web.bind.annotation.RestController";
+    private static final String VALUE = "org.springframework.beans.factory.annotation.Value";
+
+    @Param({ "1000", "10000", "50000" })
+    int nodes;
+
+    private List<ScannedClass> before;
+    private List<ScannedClass> after;
+    private GraphDiff diff;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var random = new Random(nodes);
+        before = new ArrayList<>(nodes);
+        after = new ArrayList<>(nodes);
+        for (var i = 0; i < nodes; i++) {
+            int[] dependencies = new int[DEPENDENCIES_PER_NODE];
+            for (var j = 0; j < dependencies.length; j++) {
+                dependencies[j] = random.nextInt(nodes);
+            }
+            before.add(component(i, dependencies, "20", "find"));
+            switch (random.nextInt(400)) {
+            case 0 -> after.add(component(nodes + i, dependencies, "20", "find"));
+            case 1 -> {
+                // removed
+            }
+            case 2 -> after.add(component(i, dependencies, "50", "get"));
+            case 3 -> {
+                dependencies[0] = random.nextInt(nodes);
+                after.add(component(i, dependencies, "20", "find"));
+            }
+            default -> after.add(before.get(i));
+            }
+        }
+        diff = GraphDiff.of("before.jar", before, "after.jar", after);
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public GraphDiff diff() {
+        return GraphDiff.of("before.jar", before, "after.jar", after);
+    }
+
+    @Benchmark
+    public void writeNdjson() throws IOException {
+        try (var generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            diff.write(generator, true);
+        }
+    }
+
+    private static ScannedClass component(int i, int[] dependencies, String pageSize, String findMethod) {
+        var name = "synthetic.app.Synthetic" + i;
+        var controller = (i % 10 == 0);
+        List<InjectionPoint> injectionPoints = new ArrayList<>();
+        for (var dependency : dependencies) {
+            injectionPoints.add(new InjectionPoint(InjectionPoint.Kind.CONSTRUCTOR, "<init>",
+                    "synthetic.app.Synthetic" + dependency, null, null));
+        }
+        List<Endpoint> endpoints = new ArrayList<>();
+        if (controller) {
+            injectionPoints.add(new InjectionPoint(InjectionPoint.Kind.FIELD, "pageSize", "int", VALUE,
+                    "${page.size:" + pageSize + "}"));
+            endpoints.add(new Endpoint("GET /synthetic" + i + "/{id}", name + "#" + findMethod + "(Long)"));
+            endpoints.add(new Endpoint("POST /synthetic" + i, name + "#create(Synthetic)"));
+        }
+        var stereotype = (controller ? CONTROLLER : SERVICE);
+        var component = new ScannedClass(name, "java.lang.Object", new String[0], 0, new String[] { stereotype },
+                List.of(), injectionPoints, "synthetic.jar");
+        component.setStereotype(stereotype);
+        component.setEndpoints(endpoints);
+        return component;
+    }
+}
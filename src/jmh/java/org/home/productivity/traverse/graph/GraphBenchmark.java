@@ -0,0 +1,177 @@
+package org.home.productivity.traverse.graph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.home.productivity.traverse.benchmark.SyntheticClasspath;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.ComponentGraph.NodeKind;
+import org.home.productivity.traverse.graph.GraphExporter.Format;
+import org.home.productivity.traverse.scan.ClassScanner;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Data;
+
+/**
+ * Component graphs: building one from a scan, impact queries, streaming export
+ * and the compact representation against the DTO one. Run with -prof gc and
+ * compare gc.alloc.rate.norm of buildCompactGraph and buildDtoGraph for bytes
+ * per graph.
+ * <p>
+ * Impact queries are sampled rather than averaged so their p99 shows, a few
+ * milliseconds at 20000 nodes is the goal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GraphBenchmark {
+
+    private static final int DEPENDENCIES_PER_NODE = 3;
+
+    @Param({ "100", "1000", "10000", "20000" })
+    int nodes;
+
+    private List<ScannedClass> components;
+    private ComponentGraph graph;
+    private String[] names;
+    private int[][] edges;
+    private GraphExporter graphExporter;
+    private PackageMatcher packageMatcher;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // three classes to a component, see SyntheticClasspath
+        var workDirectory = Files.createTempDirectory("graph-benchmark");
+        var classScanner = new ClassScanner(0);
+        try {
+            components = classScanner.scan(SyntheticClasspath.fatJar(workDirectory.resolve("app.jar"), nodes * 3),
+                    null).getComponents();
+        } finally {
+            Files.deleteIfExists(workDirectory.resolve("app.jar"));
+            Files.deleteIfExists(workDirectory);
+        }
+        graph = GraphStore.buildTargetGraph(components);
+
+        random = new Random(nodes);
+        names = new String[nodes];
+        edges = new int[nodes][DEPENDENCIES_PER_NODE];
+        for (var i = 0; i < nodes; i++) {
+            names[i] = "synthetic" + i;
+            for (var j = 0; j < DEPENDENCIES_PER_NODE; j++) {
+                edges[i][j] = random.nextInt(nodes);
+            }
+        }
+        graphExporter = new GraphExporter(null, new ObjectMapper());
+        packageMatcher = PackageMatcher.of(new String[] { "synthetic" }, null);
+    }
+
+    @Benchmark
+    public ComponentGraph buildTargetGraph() {
+        return GraphStore.buildTargetGraph(components);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object dependents() {
+        return GraphQueries.reachable(graph, random.nextInt(graph.nodeCount()), true);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object dependencies() {
+        return GraphQueries.reachable(graph, random.nextInt(graph.nodeCount()), false);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public int[] shortestPath() {
+        return GraphQueries.shortestPath(graph, random.nextInt(graph.nodeCount()), random.nextInt(graph.nodeCount()));
+    }
+
+    @Benchmark
+    public List<int[]> cycles() {
+        return GraphQueries.cycles(graph);
+    }
+
+    @Benchmark
+    public void exportJson() throws IOException {
+        graphExporter.export(OutputStream.nullOutputStream(), Format.JSON, graph, packageMatcher);
+    }
+
+    @Benchmark
+    public void exportNdjson() throws IOException {
+        graphExporter.export(OutputStream.nullOutputStream(), Format.NDJSON, graph, packageMatcher);
+    }
+
+    @Benchmark
+    public ComponentGraph buildCompactGraph() {
+        var builder = ComponentGraph.builder();
+        for (var name : names) {
+            builder.node(name, NodeKind.BEAN, "synthetic.app.Synthetic");
+        }
+        for (var i = 0; i < names.length; i++) {
+            for (var dependency : edges[i]) {
+                builder.edge(i, dependency);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The same graph the way /info holds it, a TreeMap of bean DTOs each with its
+     * own array of dependency names
+     *
+     * @return
+     */
+    @Benchmark
+    public Map<String, BeanLikeDTO> buildDtoGraph() {
+        Map<String, BeanLikeDTO> beans = new TreeMap<>();
+        for (var i = 0; i < names.length; i++) {
+            List<String> dependencies = new ArrayList<>(DEPENDENCIES_PER_NODE);
+            for (var dependency : edges[i]) {
+                dependencies.add(names[dependency]);
+            }
+            beans.put(names[i], new BeanLikeDTO(new String[0], "singleton", Object.class, null,
+                    dependencies.toArray(String[]::new)));
+        }
+        return beans;
+    }
+
+    /**
+     * Same shape as CustomInfoContributor.BeanDTO
+     */
+    @Data
+    public static class BeanLikeDTO {
+        private final String[] aliases;
+        private final String scope;
+        private final Class<?> type;
+        private final String resource;
+        private final String[] dependencies;
+    }
+}
@@ -0,0 +1,108 @@
+package org.home.productivity.traverse.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.home.productivity.traverse.actuator.CustomInfoContributor;
+import org.home.productivity.traverse.benchmark.SyntheticContext;
+import org.home.productivity.traverse.commons.BinaryFormats;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.GraphExporter.Format;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Json against Smile and CBOR for the graph and the bean DTOs of a synthetic
+ * 10k bean context: time to encode and decode each. Sizes, as is and gzipped,
+ * are printed once per format at setup since JMH only measures time
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GraphFormatBenchmark {
+
+    private static final int BEANS = 10_000;
+
+    @Param({ "JSON", "SMILE", "CBOR" })
+    Format format;
+
+    private AnnotationConfigApplicationContext context;
+    private GraphExporter graphExporter;
+    private PackageMatcher packageMatcher;
+    private Object beans;
+    private ObjectMapper objectMapper;
+    private byte[] encodedGraph;
+    private byte[] encodedBeans;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = SyntheticContext.create(BEANS);
+        graphExporter = context.getBean(GraphExporter.class);
+        packageMatcher = context.getBean(PackageMatcher.class);
+        beans = context.getBean(CustomInfoContributor.class).getSnapshot().getBeans();
+        objectMapper = switch (format) {
+        case SMILE -> new ObjectMapper(BinaryFormats.smileFactory());
+        case CBOR -> new ObjectMapper(BinaryFormats.cborFactory());
+        default -> context.getBean(ObjectMapper.class);
+        };
+        encodedGraph = encodeGraph();
+        encodedBeans = encodeBeans();
+        System.out.printf("%n%s: graph %,d bytes (%,d gzipped), beans %,d bytes (%,d gzipped)%n", format,
+                encodedGraph.length, gzippedSize(encodedGraph), encodedBeans.length, gzippedSize(encodedBeans));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encodeGraph() throws IOException {
+        var out = new ByteArrayOutputStream();
+        graphExporter.export(out, format, packageMatcher);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public JsonNode decodeGraph() throws IOException {
+        return objectMapper.readTree(encodedGraph);
+    }
+
+    @Benchmark
+    public byte[] encodeBeans() throws IOException {
+        return objectMapper.writeValueAsBytes(beans);
+    }
+
+    @Benchmark
+    public JsonNode decodeBeans() throws IOException {
+        return objectMapper.readTree(encodedBeans);
+    }
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
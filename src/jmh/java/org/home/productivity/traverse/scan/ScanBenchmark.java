@@ -0,0 +1,95 @@
+package org.home.productivity.traverse.scan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.home.productivity.traverse.benchmark.SyntheticClasspath;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Scan pipeline over synthetic classpaths: exploded directory, fat jar, rescan
+ * of an unchanged fat jar, call graph of a fat jar and serialization of the
+ * result
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScanBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    int classes;
+
+    private Path workDirectory;
+    private Path directory;
+    private Path fatJar;
+    private ClassScanner classScanner;
+    private PreviousScan previous;
+    private ScanResult result;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        workDirectory = Files.createTempDirectory("scan-benchmark");
+        directory = SyntheticClasspath.directory(workDirectory.resolve("classes"), classes);
+        fatJar = SyntheticClasspath.fatJar(workDirectory.resolve("app.jar"), classes);
+        classScanner = new ClassScanner(0);
+        result = classScanner.scan(fatJar, null);
+        previous = new PreviousScan(result.getEntries());
+        objectMapper = new ObjectMapper();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        classScanner.shutdown();
+        try (var paths = Files.walk(workDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public ScanResult scanDirectory() {
+        return classScanner.scan(directory, null);
+    }
+
+    @Benchmark
+    public ScanResult scanFatJar() {
+        return classScanner.scan(fatJar, null);
+    }
+
+    @Benchmark
+    public ScanResult rescanUnchangedFatJar() {
+        return classScanner.scan(fatJar, null, previous);
+    }
+
+    @Benchmark
+    public CallGraph scanCallsFatJar() {
+        return classScanner.scanCalls(fatJar,
+                PackageMatcher.of(new String[] { SyntheticClasspath.PACKAGE.replace('/', '.') }, null));
+    }
+
+    @Benchmark
+    public byte[] serializeScanResult() throws IOException {
+        return objectMapper.writeValueAsBytes(result);
+    }
+}
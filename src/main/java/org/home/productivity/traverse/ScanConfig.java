@@ -0,0 +1,29 @@
+package org.home.productivity.traverse;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration shared by everything that scans beans and classes
+ */
+@Configuration
+public class ScanConfig {
+
+    /**
+     * Package filter compiled once from application.properties ->
+     * application.actuator.bean.packages.to.include and
+     * application.actuator.bean.packages.to.exclude
+     * 
+     * @param includes
+     * @param excludes
+     * @return
+     */
+    @Bean
+    public PackageMatcher beanPackageMatcher(
+            @Value("${application.actuator.bean.packages.to.include}") String[] includes,
+            @Value("${application.actuator.bean.packages.to.exclude:}") String[] excludes) {
+        return PackageMatcher.of(includes, excludes);
+    }
+}
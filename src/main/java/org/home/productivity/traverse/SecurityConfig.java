@@ -8,6 +8,7 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import jakarta.servlet.DispatcherType;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -28,9 +29,12 @@ public class SecurityConfig {
         // @formatter:off
         // See: https://www.baeldung.com/spring-cors
         // H2 console required frameOptions be disabled, see: https://springframework.guru/using-the-h2-database-console-in-spring-boot-with-spring-security/
+        // async dispatches (completing SSE streams) continue a request that was authorized already, see:
+        // https://docs.spring.io/spring-security/reference/servlet/authorization/authorize-http-requests.html
         http.cors()
             .and()
             .authorizeHttpRequests()
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
             .requestMatchers("/", "/status", "/v3/api-docs/**").permitAll()
             .requestMatchers("/h2-console/**", "/swagger-ui/**").hasAnyRole("USER", "ADMIN")
             .requestMatchers("/actuator/**", "/admin/**").hasAnyRole("ADMIN")
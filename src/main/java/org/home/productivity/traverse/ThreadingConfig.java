@@ -0,0 +1,34 @@
+package org.home.productivity.traverse;
+
+import org.home.productivity.traverse.commons.VirtualThreads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt in to virtual threads, see application.properties ->
+ * application.threads.virtual
+ * <p>
+ * Tomcat handles every request on a virtual thread of its own instead of its
+ * pool of platform threads. Scan jobs and downstream health probes pick up the
+ * same property themselves. Scanning itself stays on its fork/join pool, that
+ * work is CPU bound and gains nothing from it
+ */
+@Configuration
+@Slf4j
+public class ThreadingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        if (!VirtualThreads.enabled(true)) {
+            return protocolHandler -> {
+            };
+        }
+        log.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("tomcat-"));
+    }
+}
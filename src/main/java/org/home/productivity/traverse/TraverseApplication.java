@@ -5,6 +5,7 @@ import java.net.InetAddress;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.event.EventListener;
 
@@ -20,6 +21,9 @@ public class TraverseApplication {
 	@Value("${server.port}")
 	private String serverPort;
 
+	@Value("${application.startup.training-run:false}")
+	private boolean trainingRun;
+
 	public static void main(String[] args) {
 		SpringApplication.run(TraverseApplication.class, args);
 	}
@@ -58,4 +62,17 @@ public class TraverseApplication {
 		}
 	}
 
+	/**
+	 * Stops again once started when this is a training run, i.e. the one dumping
+	 * the class data sharing archive of the fast-start profile in pom.xml
+	 * 
+	 * @param event
+	 */
+	@EventListener
+	void onApplicationReady(ApplicationReadyEvent event) {
+		if (trainingRun) {
+			log.info("Training run complete, exiting");
+			System.exit(SpringApplication.exit(event.getApplicationContext()));
+		}
+	}
 }
@@ -1,13 +1,29 @@
 package org.home.productivity.traverse;
 
+import java.io.IOException;
+import java.util.List;
+
+import org.home.productivity.traverse.commons.BinaryFormats;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Spring Web Mvc config
+ * <p>
+ * DTOs are written as Smile or CBOR when asked for by Accept, with the same
+ * Jackson settings as json, see {@link BinaryFormats}
  */
 @Configuration
 @Slf4j
@@ -16,6 +32,13 @@ import lombok.extern.slf4j.Slf4j;
 // See: https://github.com/springdoc/springdoc-openapi/issues/236
 public class WebConfig implements WebMvcConfigurer {
 
+        private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+        @Autowired
+        public WebConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+                this.objectMapperBuilder = objectMapperBuilder;
+        }
+
         @Override
         public void addCorsMappings(CorsRegistry registry) {
                 log.warn(
@@ -30,6 +53,17 @@ public class WebConfig implements WebMvcConfigurer {
         // @formatter:on
         }
 
+        @Override
+        public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                // Spring adds plain Smile and CBOR converters of its own when they are on
+                // the classpath, ours take their place. Either way they come after json so
+                // json stays what */* gets
+                converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+                                || converter instanceof MappingJackson2CborHttpMessageConverter);
+                converters.add(new SmileConverter(objectMapperBuilder.factory(BinaryFormats.smileFactory()).build()));
+                converters.add(new CborConverter(objectMapperBuilder.factory(BinaryFormats.cborFactory()).build()));
+        }
+
         // TODO: not sure if I need this, waiting until I have react compiled to see so
         /*
          * @Override public void addResourceHandlers(ResourceHandlerRegistry registry) {
@@ -37,4 +71,33 @@ public class WebConfig implements WebMvcConfigurer {
          * ; }
          */
 
+        private static void addSchemaVersion(HttpHeaders headers) {
+                headers.set(BinaryFormats.SCHEMA_VERSION_HEADER, BinaryFormats.SCHEMA_VERSION);
+        }
+
+        private static final class SmileConverter extends MappingJackson2SmileHttpMessageConverter {
+                private SmileConverter(ObjectMapper objectMapper) {
+                        super(objectMapper);
+                }
+
+                @Override
+                protected void addDefaultHeaders(HttpHeaders headers, Object body, MediaType contentType)
+                                throws IOException {
+                        super.addDefaultHeaders(headers, body, contentType);
+                        addSchemaVersion(headers);
+                }
+        }
+
+        private static final class CborConverter extends MappingJackson2CborHttpMessageConverter {
+                private CborConverter(ObjectMapper objectMapper) {
+                        super(objectMapper);
+                }
+
+                @Override
+                protected void addDefaultHeaders(HttpHeaders headers, Object body, MediaType contentType)
+                                throws IOException {
+                        super.addDefaultHeaders(headers, body, contentType);
+                        addSchemaVersion(headers);
+                }
+        }
 }
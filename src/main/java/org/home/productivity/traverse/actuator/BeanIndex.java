@@ -0,0 +1,228 @@
+package org.home.productivity.traverse.actuator;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.home.productivity.traverse.actuator.CustomInfoContributor.BeanDTO;
+import org.home.productivity.traverse.commons.Page;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.Data;
+
+/**
+ * Read only index over the beans of this application, for paging through them
+ * a slice at a time.
+ * <p>
+ * Beans are sorted by package and then name once, so a package matches one
+ * contiguous run of them found with a binary search. Stereotypes and scopes
+ * each have the positions of their beans in that order. A page starts from
+ * the smallest of the candidates the filters allow, right after the cursor,
+ * and checks the other filters bean by bean, so it costs about the size of
+ * the page rather than the number of beans
+ */
+public final class BeanIndex {
+
+    // most specific first, beans without any are declared by @Bean methods (or
+    // registered by hand)
+    private static final List<Class<? extends Annotation>> STEREOTYPES = List.of(RestController.class,
+            Controller.class, Service.class, Repository.class, Configuration.class, Component.class);
+    private static final String NO_STEREOTYPE = "bean";
+
+    private static final Comparator<Entry> BY_PACKAGE_THEN_NAME = Comparator.comparing(Entry::getPackageName)
+            .thenComparing(Entry::getName);
+
+    // positions of a stereotype or scope no bean has
+    private static final int[] NONE = new int[0];
+
+    private final Entry[] entries;
+    private final String[] packages;
+    private final Map<String, int[]> byStereotype = new HashMap<>();
+    private final Map<String, int[]> byScope = new HashMap<>();
+
+    /**
+     * @param beans bean name to bean
+     */
+    BeanIndex(Map<String, BeanDTO> beans) {
+        this.entries = beans.entrySet().stream()
+                .map(bean -> new Entry(bean.getKey(), bean.getValue()))
+                .sorted(BY_PACKAGE_THEN_NAME)
+                .toArray(Entry[]::new);
+        this.packages = Arrays.stream(entries).map(Entry::getPackageName).toArray(String[]::new);
+
+        Map<String, List<Integer>> stereotypes = new HashMap<>();
+        Map<String, List<Integer>> scopes = new HashMap<>();
+        for (var i = 0; i < entries.length; i++) {
+            stereotypes.computeIfAbsent(entries[i].stereotype, key -> new ArrayList<>()).add(i);
+            scopes.computeIfAbsent(entries[i].scope, key -> new ArrayList<>()).add(i);
+        }
+        stereotypes.forEach((stereotype, positions) -> byStereotype.put(stereotype, toArray(positions)));
+        scopes.forEach((scope, positions) -> byScope.put(scope, toArray(positions)));
+    }
+
+    /**
+     * Number of beans in the index
+     *
+     * @return
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Page through beans by package and then name. Packages match on whole
+     * segments so org.home matches org.home and org.home.traverse but not
+     * org.homestead, stereotypes (restcontroller, controller, service,
+     * repository, configuration, component or bean) and scopes ignore case
+     *
+     * @param packagePrefix package, null or blank for any
+     * @param stereotype    null or blank for any
+     * @param scope         null or blank for any
+     * @param cursor        from the previous page, null for the first page
+     * @param limit         most beans on the page
+     * @return
+     * @throws IllegalArgumentException when cursor is not one handed out by
+     *                                  this index
+     */
+    public Page<Entry> find(String packagePrefix, String stereotype, String scope, String cursor, int limit) {
+        var prefix = (packagePrefix == null ? "" : packagePrefix.strip());
+        var stereotypeKey = normalize(stereotype);
+        var scopeKey = normalize(scope);
+        var from = (prefix.isEmpty() ? 0 : lowerBound(prefix));
+        var to = (prefix.isEmpty() ? entries.length : lowerBound(prefix + Character.MAX_VALUE));
+        if (cursor != null && !cursor.isBlank()) {
+            var keys = Page.keys(cursor, 2);
+            from = Math.max(from, after(keys[0], keys[1]));
+        }
+        var stereotypePositions = (stereotypeKey == null ? null : byStereotype.getOrDefault(stereotypeKey, NONE));
+        var scopePositions = (scopeKey == null ? null : byScope.getOrDefault(scopeKey, NONE));
+
+        // walk whichever of the candidates is smallest, check the rest per bean
+        var positions = stereotypePositions;
+        if (positions == null || (scopePositions != null && scopePositions.length < positions.length)) {
+            positions = scopePositions;
+        }
+        var start = (positions == null ? from : firstAtLeast(positions, from));
+        var end = (positions == null ? to : positions.length);
+        List<Entry> found = new ArrayList<>(Math.max(0, Math.min(limit, to - from)));
+        for (var i = start; i < end; i++) {
+            var position = (positions == null ? i : positions[i]);
+            if (position >= to) {
+                break;
+            }
+            var entry = entries[position];
+            if (entry.inPackage(prefix) && (stereotypeKey == null || entry.stereotype.equals(stereotypeKey))
+                    && (scopeKey == null || entry.scope.equals(scopeKey))) {
+                if (found.size() == limit) {
+                    var last = found.get(found.size() - 1);
+                    return new Page<>(found, Page.cursor(last.packageName, last.name));
+                }
+                found.add(entry);
+            }
+        }
+        return new Page<>(found, null);
+    }
+
+    private static String normalize(String value) {
+        return (value == null || value.isBlank() ? null : value.strip().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * First position whose package is not less than key
+     */
+    private int lowerBound(String key) {
+        var low = 0;
+        var high = packages.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (packages[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position past the bean with the given package and name, whether or
+     * not it is still there
+     */
+    private int after(String packageName, String name) {
+        var low = 0;
+        var high = entries.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            var compare = entries[middle].packageName.compareTo(packageName);
+            if (compare == 0) {
+                compare = entries[middle].name.compareTo(name);
+            }
+            if (compare <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int firstAtLeast(int[] positions, int position) {
+        var found = Arrays.binarySearch(positions, position);
+        return (found >= 0 ? found : -found - 1);
+    }
+
+    private static int[] toArray(List<Integer> positions) {
+        return positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static String stereotype(Class<?> type) {
+        var userClass = ClassUtils.getUserClass(type);
+        for (var stereotype : STEREOTYPES) {
+            if (AnnotatedElementUtils.hasAnnotation(userClass, stereotype)) {
+                return stereotype.getSimpleName().toLowerCase(Locale.ROOT);
+            }
+        }
+        return NO_STEREOTYPE;
+    }
+
+    /**
+     * A bean along with what it is indexed by
+     */
+    @Data
+    public static final class Entry {
+        private final String name;
+        private final String packageName;
+        private final String stereotype;
+        private final String scope;
+        private final BeanDTO bean;
+
+        private Entry(String name, BeanDTO bean) {
+            this.name = name;
+            this.packageName = bean.getType().getPackageName();
+            this.stereotype = stereotype(bean.getType());
+            this.scope = bean.getScope().toLowerCase(Locale.ROOT);
+            this.bean = bean;
+        }
+
+        /**
+         * Whether the bean is in the package or one of its sub packages, given
+         * its package starts with it
+         */
+        private boolean inPackage(String prefix) {
+            return prefix.isEmpty() || packageName.length() == prefix.length()
+                    || packageName.charAt(prefix.length()) == '.';
+        }
+    }
+}
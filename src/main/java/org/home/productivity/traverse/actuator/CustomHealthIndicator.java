@@ -6,15 +6,28 @@ import java.net.http.HttpClient;
 import java.net.http.HttpClient.Redirect;
 import java.net.http.HttpClient.Version;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
+import org.home.productivity.traverse.commons.VirtualThreads;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 // TODO: may need to check out liveliness and readiness probes: https://www.baeldung.com/spring-liveness-readiness-probes
@@ -34,26 +47,155 @@ import lombok.extern.slf4j.Slf4j;
  * differentiate custom health endpoints. By giving this component the name
  * "downstream-google" the /health endpoint will split it out as
  * "downstream-google". Otherwise, it gets a generic name and you can't tell
- * what is up or down
+ * what is up or down. It covers every downstream target now but keeps the name
+ * so whatever watches /health keeps finding it
+ * <p>
+ * All downstream targets are probed concurrently through one shared
+ * HttpClient, each with its own timeout, and the combined result is cached
+ * for a while so frequent probes (Kubernetes, monitoring) don't fan out to
+ * every downstream on every hit. Only one caller refreshes an expired result
+ * at a time, callers meanwhile get the previous result rather than wait on a
+ * slow downstream, and only the very first callers wait for the very first
+ * result. See application.properties ->
+ * application.actuator.downstream.service.*
+ * <p>
+ * Each probe is timed per target and outcome (traverse.health.probe) and
+ * every call counts as a hit or miss of the cache (traverse.cache.requests).
+ * With application.threads.virtual on probes complete on virtual threads
  */
 @Component("downstream-google")
 @Slf4j
 public class CustomHealthIndicator implements HealthIndicator {
 
-    @Value("${application.actuator.downstream.service.url}")
-    private String downstreamUrl;
+    private final List<URI> downstreamUris;
+
+    private final Duration timeout;
+
+    private final Duration cacheTtl;
+
+    // shared so connections (and TLS sessions) are pooled across probes
+    private final HttpClient httpClient;
+
+    private volatile CachedHealth cachedHealth;
+
+    // refresh in progress, null when there is none. Guarded by this
+    private CompletableFuture<Health> refreshing;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
 
     RestTemplate restTemplate = new RestTemplate();
 
+    @Autowired
+    public CustomHealthIndicator(MeterRegistry meterRegistry,
+            @Value("${application.actuator.downstream.service.urls:${application.actuator.downstream.service.url:}}")
+            String[] downstreamUrls,
+            @Value("${application.actuator.downstream.service.timeout:5s}") Duration timeout,
+            @Value("${application.actuator.downstream.service.cache.ttl:10s}") Duration cacheTtl,
+            @Value("${application.threads.virtual:false}") boolean virtualThreads) {
+        this.downstreamUris = Arrays.stream(downstreamUrls).map(String::strip).filter(url -> !url.isEmpty())
+                .map(URI::create).toList();
+        if (downstreamUris.isEmpty()) {
+            throw new IllegalArgumentException("No downstream service urls, set application.actuator.downstream"
+                    + ".service.urls");
+        }
+        this.timeout = timeout;
+        this.cacheTtl = cacheTtl;
+        var httpClientBuilder = HttpClient.newBuilder()
+                .followRedirects(Redirect.ALWAYS)
+                .version(Version.HTTP_2)
+                .connectTimeout(timeout);
+        if (VirtualThreads.enabled(virtualThreads)) {
+            // response handling and completion of probes, otherwise a cached pool
+            httpClientBuilder.executor(VirtualThreads.newThreadPerTaskExecutor("health-probe-"));
+        }
+        this.httpClient = httpClientBuilder.build();
+        this.meterRegistry = meterRegistry;
+        this.cacheHits = cacheCounter(meterRegistry, "hit");
+        this.cacheMisses = cacheCounter(meterRegistry, "miss");
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("traverse.cache.requests")
+                .description("Lookups of cached results")
+                .tag("cache", "health")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     @Override
     public Health health() {
+        var cached = cachedHealth;
+        if (cached != null && !cached.isExpired()) {
+            log.debug("Returning cached health");
+            cacheHits.increment();
+            return cached.health;
+        }
+        // only one caller probes at a time, the lock is only held to find out who
+        CompletableFuture<Health> refresh;
+        var refresher = false;
+        synchronized (this) {
+            cached = cachedHealth;
+            if (cached != null && !cached.isExpired()) {
+                cacheHits.increment();
+                return cached.health;
+            }
+            if (refreshing == null) {
+                refreshing = new CompletableFuture<>();
+                refresher = true;
+            }
+            refresh = refreshing;
+        }
+        if (!refresher) {
+            cacheHits.increment();
+            // stale beats waiting on a slow downstream, there is nothing to
+            // fall back to the first time round though
+            return (cached != null ? cached.health : refresh.join());
+        }
+        cacheMisses.increment();
+        try {
+            var health = checkHealth();
+            cachedHealth = new CachedHealth(health, System.nanoTime() + cacheTtl.toNanos());
+            refresh.complete(health);
+            return health;
+        } catch (RuntimeException e) {
+            refresh.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                refreshing = null;
+            }
+        }
+    }
+
+    /**
+     * Probes all downstream targets concurrently and combines the results, up
+     * only when every target is up
+     *
+     * @return
+     */
+    private Health checkHealth() {
         try {
             log.info("Checking health...");
             // TODO: will need a lot of work to make this more sophisticated such as:
-            // 1) a means of iterating off of a collection of downstream systems
-            // 2) a means of identifying the method of validating downstream system (i.e.
+            // 1) a means of identifying the method of validating downstream system (i.e.
             // ping test checking only http status or actual reading of json)
-            return checkStatusVisHttpStatus(downstreamUrl);
+            var probes = downstreamUris.stream().map(this::checkStatusViaHttpStatus).toList();
+            CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new)).join();
+
+            var builder = Health.up();
+            Map<String, Object> targets = new LinkedHashMap<>();
+            for (var i = 0; i < downstreamUris.size(); i++) {
+                var targetHealth = probes.get(i).join();
+                if (!Status.UP.equals(targetHealth.getStatus())) {
+                    builder.down();
+                }
+                targets.put(downstreamUris.get(i).toString(), targetHealth);
+            }
+            return builder.withDetails(targets).build();
         } catch (Exception e) {
             return Health.down().withException(e).build();
         }
@@ -62,30 +204,61 @@ public class CustomHealthIndicator implements HealthIndicator {
     // check for http status
     /**
      * Checks status of downstream system utilizing only http status
-     * 
+     *
      * @return
      */
-    private Health checkStatusVisHttpStatus(String uri) throws Exception {
+    private CompletableFuture<Health> checkStatusViaHttpStatus(URI uri) {
         // for more: https://www.baeldung.com/java-9-http-client
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(new URI(uri))
-                .version(Version.HTTP_2)
+                .uri(uri)
+                .timeout(timeout)
                 .GET()
                 .build();
-        HttpResponse<String> response = HttpClient.newBuilder()
-                .followRedirects(Redirect.ALWAYS)
-                .build()
-                .send(request, BodyHandlers.ofString());
-        if (response.statusCode() == HttpURLConnection.HTTP_OK) {
-            return Health.up().build();
-        } else {
-            return Health.down().withDetail("status", response.statusCode()).build();
+        var start = System.nanoTime();
+        return httpClient.sendAsync(request, BodyHandlers.discarding())
+                .handle((response, e) -> {
+                    var latencyNanos = System.nanoTime() - start;
+                    var latencyMillis = Duration.ofNanos(latencyNanos).toMillis();
+                    var outcome = (e != null ? "error"
+                            : response.statusCode() == HttpURLConnection.HTTP_OK ? "up" : "down");
+                    // targets come from configuration so tagging by them stays bounded
+                    Timer.builder("traverse.health.probe")
+                            .description("Latency of downstream health probes")
+                            .tag("target", uri.toString())
+                            .tag("outcome", outcome)
+                            .register(meterRegistry)
+                            .record(latencyNanos, TimeUnit.NANOSECONDS);
+                    if (e != null) {
+                        var cause = (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                        log.warn("Downstream: {} failed health check after {}ms", uri, latencyMillis, cause);
+                        return Health.down(cause instanceof Exception ex ? ex : new RuntimeException(cause))
+                                .withDetail("latencyMillis", latencyMillis)
+                                .build();
+                    }
+                    var builder = (response.statusCode() == HttpURLConnection.HTTP_OK ? Health.up() : Health.down());
+                    return builder.withDetail("status", response.statusCode())
+                            .withDetail("latencyMillis", latencyMillis)
+                            .build();
+                });
+    }
+
+    private static final class CachedHealth {
+        private final Health health;
+        private final long expiresAtNanos;
+
+        private CachedHealth(Health health, long expiresAtNanos) {
+            this.health = health;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
         }
     }
 
     /**
      * Checks status of downstream system utilizing json response
-     * 
+     *
      * @return
      */
     // TODO: finish someday
@@ -1,28 +1,43 @@
 package org.home.productivity.traverse.actuator;
 
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
-import org.home.productivity.traverse.commons.StringUtilities;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.actuate.info.Info.Builder;
 import org.springframework.boot.actuate.info.InfoContributor;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ResolvableType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,6 +46,14 @@ import lombok.extern.slf4j.Slf4j;
  * <p>
  * Most of the customization of info should be done via application.properties.
  * Check documentation before customizing here
+ * <p>
+ * Building profile, mappings and beans is expensive on large contexts so the
+ * results are captured once in an immutable {@link InfoSnapshot} when the
+ * application context is refreshed and /info is served from memory after that,
+ * along with the indexes slices of it are queried through
+ * <p>
+ * Each phase of a build is timed (traverse.info.phase) and beans are counted
+ * by whether they made it past the package filter (traverse.info.beans)
  */
 @Component
 @Slf4j
@@ -39,16 +62,29 @@ public class CustomInfoContributor implements InfoContributor {
     @Autowired
     private ConfigurableApplicationContext applicationContext;
 
-    @Value("${application.actuator.bean.packages.to.include}")
-    private String[] beanPackagesToInclude;
+    @Autowired
+    private PackageMatcher beanPackageMatcher;
+
+    // when true beans are described purely from their definitions and resolved
+    // types, nothing is instantiated. When false the bean is retrieved (and
+    // created if lazy or prototype) to read its @Value fields
+    @Value("${application.actuator.bean.scan.metadata.only:true}")
+    private boolean beanScanMetadataOnly;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile InfoSnapshot snapshot;
 
     @Override
     public void contribute(Builder builder) {
         try {
             log.debug("Adding customized info to InfoContributor");
-            builder.withDetail("profile", getProfile())
-                    .withDetail("mappings", getMappings())
-                    .withDetail("beans", getBeans());
+            var currentSnapshot = getSnapshot();
+            builder.withDetail("profile", currentSnapshot.getProfile())
+                    .withDetail("mappings", currentSnapshot.getMappings())
+                    .withDetail("beans", currentSnapshot.getBeans())
+                    .withDetail("snapshot", currentSnapshot.getSummary());
             log.trace("Added customized info to InfoContributor");
         } catch (Exception e) {
             var msg = "Exception occurred while adding customized info to InfoContributor";
@@ -57,6 +93,87 @@ public class CustomInfoContributor implements InfoContributor {
         }
     }
 
+    /**
+     * Rebuilds the snapshot each time our application context is refreshed.
+     * <p>
+     * Devtools restarts throw away the context and refresh a brand new one so
+     * they end up here as well. Refresh events from other contexts (child
+     * contexts, for example) are ignored
+     * 
+     * @param event
+     */
+    @EventListener
+    void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != applicationContext) {
+            return;
+        }
+        snapshot = buildSnapshot();
+    }
+
+    /**
+     * Retrieves the current snapshot, building it if the context has not been
+     * refreshed yet
+     * 
+     * @return
+     */
+    public InfoSnapshot getSnapshot() {
+        var currentSnapshot = snapshot;
+        if (currentSnapshot == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = buildSnapshot();
+                }
+                currentSnapshot = snapshot;
+            }
+        }
+        return currentSnapshot;
+    }
+
+    /**
+     * Build out profile, mappings and beans in one go and wrap them up in an
+     * immutable snapshot
+     * 
+     * @return
+     */
+    private InfoSnapshot buildSnapshot() {
+        try {
+            log.debug("Building info snapshot");
+            var start = System.nanoTime();
+            var profile = timePhase("profile", this::getProfile);
+            var mappings = timePhase("mappings", this::getMappings);
+            var beans = timePhase("beans", this::getBeans);
+            var beanIndex = timePhase("index", () -> new BeanIndex(beans));
+            var newSnapshot = new InfoSnapshot(Collections.unmodifiableMap(profile), mappings,
+                    Collections.unmodifiableMap(beans), beanIndex, Instant.now(),
+                    Duration.ofNanos(System.nanoTime() - start));
+            log.info("Built info snapshot: {}", newSnapshot.getSummary());
+            return newSnapshot;
+        } catch (Exception e) {
+            var msg = "Exception occurred while building info snapshot";
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    private <T> T timePhase(String phase, Supplier<T> supplier) {
+        return phaseTimer(phase).record(supplier);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("traverse.info.phase")
+                .description("Time spent building each part of the info snapshot")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private void countBeans(String outcome, long count) {
+        Counter.builder("traverse.info.beans")
+                .description("Beans looked at while building the info snapshot")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
     /**
      * Build out active profiles Map for InfoContributor
      * 
@@ -77,11 +194,14 @@ public class CustomInfoContributor implements InfoContributor {
     }
 
     /**
-     * Build out url end point mappings Map for InfoContributor
+     * Build out url end point mappings for InfoContributor
+     * <p>
+     * Mappings are grouped by controller in a single pass over the handler
+     * methods and each controller's mappings are sorted once at the end
      * 
      * @return
      */
-    private Map<String, MappingDTO> getMappings() {
+    private EndpointIndex getMappings() {
         try {
             log.debug("Building out mappings");
             Map<String, MappingDTO> mappings = new TreeMap<>();
@@ -90,28 +210,27 @@ public class CustomInfoContributor implements InfoContributor {
                     RequestMappingHandlerMapping.class);
             Map<RequestMappingInfo, HandlerMethod> map = requestMappingHandlerMapping.getHandlerMethods();
             map.forEach((requestMappingInfo, handlerMethod) -> {
-                requestMappingInfo.getMethodsCondition().getMethods().forEach(method -> {
-                    requestMappingInfo.getPathPatternsCondition().getPatternValues().forEach(path -> {
-                        var controllerShortName = (String) handlerMethod.getBean();
-                        var controller = (String) handlerMethod.getBeanType().getName();
-                        var mappingDTO = mappings.getOrDefault(controllerShortName,
-                                new MappingDTO(controller, new ArrayList<RequestMappingDTO>()));
-                        mappingDTO.getRequestMappings()
-                                .add(new RequestMappingDTO(method, path, handlerMethod.toString()));
-                        Collections.sort(mappingDTO.getRequestMappings());
-                        mappings.put(controllerShortName, mappingDTO);
-                    });
-                });
+                var methods = requestMappingInfo.getMethodsCondition().getMethods();
+                if (methods.isEmpty()) {
+                    return;
+                }
+                var controllerShortName = (String) handlerMethod.getBean();
+                var mappingDTO = mappings.computeIfAbsent(controllerShortName,
+                        key -> new MappingDTO(handlerMethod.getBeanType().getName(),
+                                new ArrayList<RequestMappingDTO>()));
+                var handler = handlerMethod.toString();
+                methods.forEach(method -> requestMappingInfo.getPatternValues().forEach(path -> mappingDTO
+                        .getRequestMappings().add(new RequestMappingDTO(method, path, handler))));
             });
+            mappings.values().forEach(mappingDTO -> Collections.sort(mappingDTO.getRequestMappings()));
+            var endpointIndex = new EndpointIndex(mappings);
             log.trace("Built out mappings: {}", mappings);
-            return mappings;
+            return endpointIndex;
         } catch (Exception e) {
             var msg = "Exception occurred while building out mappings";
             log.error(msg, e);
             throw new RuntimeException(msg, e);
         }
-        // list out controller/restcontroller endpoints
-
     }
 
     /**
@@ -119,35 +238,56 @@ public class CustomInfoContributor implements InfoContributor {
      * <P>
      * Unlike the out of box Spring Actuator /beans end point this list of beans can
      * be filtered by package name to show only beans of interest. See
-     * application.properties -> actuator.bean.packages.to.include
+     * application.properties -> application.actuator.bean.packages.to.include and
+     * application.actuator.bean.packages.to.exclude
+     * <p>
+     * By default beans are not instantiated to build this out, see
+     * application.properties -> application.actuator.bean.scan.metadata.only
      * 
      * @return
      */
     private Map<String, BeanDTO> getBeans() {
         try {
             log.debug("Building beans information");
-            // TODO; rewrite with lambdas, logic is complex looking and doesn't need to be
             Map<String, BeanDTO> beans = new TreeMap<>();
-            log.debug("Building beans DTO for spring actuator /info endpoint");
+            log.debug("Building beans DTO for spring actuator /info endpoint, metadata only: {}",
+                    beanScanMetadataOnly);
             var beanFactory = applicationContext.getBeanFactory();
             var sortedBeanNames = applicationContext.getBeanDefinitionNames();
             Arrays.sort(sortedBeanNames);
+            var unresolved = 0;
+            var filtered = 0;
+            // @Value reflection is timed as a phase of its own, summed up across beans
+            var valueNanos = 0L;
             for (var beanName : sortedBeanNames) {
-                var beanDefinition = beanFactory.getBeanDefinition(beanName);
+                var beanType = getBeanType(beanFactory, beanName);
+                if (beanType == null) {
+                    log.trace("Skipping bean: {}, type can not be determined", beanName);
+                    unresolved++;
+                    continue;
+                }
 
                 // filter down to classes of interest
-                if (StringUtilities.startsWithIn(
-                        beanFactory.getType(beanName).getPackageName(), beanPackagesToInclude)) {
-
-                    var beanDTO = new BeanDTO(beanFactory.getAliases(beanName), beanDefinition.getScope(),
-                            beanFactory.getType(beanName),
+                if (beanPackageMatcher.matches(beanType.getPackageName())) {
+                    var beanDefinition = beanFactory.getBeanDefinition(beanName);
+                    var valueStart = System.nanoTime();
+                    var valueAnnotatedFields = beanScanMetadataOnly ? getValueAnnotatedFieldsForType(beanType)
+                            : getValueAnnotatedFieldsForBean(beanName);
+                    valueNanos += System.nanoTime() - valueStart;
+                    var beanDTO = new BeanDTO(beanFactory.getAliases(beanName), beanDefinition.getScope(), beanType,
                             beanDefinition.getResourceDescription(), beanFactory.getDependenciesForBean(beanName),
-                            getValueAnnotatedFieldsForBean(beanName));
+                            valueAnnotatedFields);
                     log.trace("Generated beanDTO: {}", beanDTO);
                     beans.put(beanName, beanDTO);
 
+                } else {
+                    filtered++;
                 }
             }
+            phaseTimer("values").record(valueNanos, TimeUnit.NANOSECONDS);
+            countBeans("included", beans.size());
+            countBeans("filtered", filtered);
+            countBeans("unresolved", unresolved);
             log.trace("Built beans information: {}", beans);
             return beans;
         } catch (Exception e) {
@@ -157,12 +297,48 @@ public class CustomInfoContributor implements InfoContributor {
         }
     }
 
+    /**
+     * Resolve the type of a bean once, without creating anything to do it.
+     * <p>
+     * Factory beans that only tell what they make once they exist are listed
+     * with what their definition says they make (the object type attribute or
+     * the generic of FactoryBean) or failing that with their own type. Anything
+     * else falls back to the type of its bean definition
+     *
+     * @param beanFactory
+     * @param beanName
+     * @return type or null when it can not be determined at all
+     */
+    private static Class<?> getBeanType(ConfigurableListableBeanFactory beanFactory, String beanName) {
+        var beanType = beanFactory.getType(beanName, false);
+        if (beanType != null) {
+            return beanType;
+        }
+        var beanDefinition = beanFactory.getMergedBeanDefinition(beanName);
+        if (!beanFactory.isFactoryBean(beanName)) {
+            return beanDefinition.getResolvableType().resolve();
+        }
+        var objectType = beanDefinition.getAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE);
+        if (objectType instanceof Class<?> type) {
+            return type;
+        }
+        if (objectType instanceof ResolvableType type && type.resolve() != null) {
+            return type.resolve();
+        }
+        beanType = beanDefinition.getResolvableType().as(FactoryBean.class).getGeneric().resolve();
+        return (beanType != null ? beanType
+                : beanFactory.getType(BeanFactory.FACTORY_BEAN_PREFIX + beanName, false));
+    }
+
     /**
      * Given bean name, retrieve @Value annotation information for all annotated
      * fields
      * <p>
      * Build DTO that contains field name and @Value annotation value (what logic or
      * property is used to inject a value into the field)
+     * <p>
+     * Note: this retrieves the bean which creates it if it is lazy or prototype
+     * scoped, prefer {@link #getValueAnnotatedFieldsForType(Class)}
      * 
      * @param beanName
      * @return
@@ -171,18 +347,7 @@ public class CustomInfoContributor implements InfoContributor {
         try {
             log.debug("Retrieving @Value annotation info for bean name: {}", beanName);
             var bean = applicationContext.getBeanFactory().getBean(beanName);
-            var beanFields = bean.getClass().getDeclaredFields();
-            var fieldsWithAnnotation = Arrays.stream(beanFields)
-                    .filter(field -> field.isAnnotationPresent(Value.class))
-                    .collect(Collectors.toSet());
-            var valueAnnotatedFields = fieldsWithAnnotation.stream()
-                    .map(aField -> {
-                        var annotation = aField.getAnnotation(Value.class);
-                        var value = annotation.value();
-                        var fieldName = aField.getName();
-                        return new ValueAnnotatedField(fieldName, value);
-                    })
-                    .toArray(ValueAnnotatedField[]::new);
+            var valueAnnotatedFields = toValueAnnotatedFields(bean.getClass().getDeclaredFields());
             log.debug("Retrieved @Value annotation info for bean name: {}. @Value fields include: {}", beanName,
                     Arrays.toString(valueAnnotatedFields));
             return valueAnnotatedFields;
@@ -194,6 +359,87 @@ public class CustomInfoContributor implements InfoContributor {
         }
     }
 
+    /**
+     * Given a resolved bean type, retrieve @Value annotation information for all
+     * annotated fields without needing an instance of the bean
+     * <p>
+     * CGLIB subclasses (@Configuration classes, scoped proxies, etc) are unwrapped
+     * to the user declared class since that is where the fields live
+     * 
+     * @param beanType
+     * @return
+     */
+    private ValueAnnotatedField[] getValueAnnotatedFieldsForType(Class<?> beanType) {
+        try {
+            log.debug("Retrieving @Value annotation info for type: {}", beanType.getName());
+            var valueAnnotatedFields = toValueAnnotatedFields(ClassUtils.getUserClass(beanType).getDeclaredFields());
+            log.debug("Retrieved @Value annotation info for type: {}. @Value fields include: {}", beanType.getName(),
+                    Arrays.toString(valueAnnotatedFields));
+            return valueAnnotatedFields;
+        } catch (Exception e) {
+            var msg = "Exception occurred while attempting to retrieve @Value annotation info for type: "
+                    + beanType.getName();
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    /**
+     * Build DTOs for the fields that are annotated with @Value
+     * 
+     * @param fields
+     * @return
+     */
+    private ValueAnnotatedField[] toValueAnnotatedFields(Field[] fields) {
+        return Arrays.stream(fields)
+                .filter(field -> field.isAnnotationPresent(Value.class))
+                .map(aField -> new ValueAnnotatedField(aField.getName(), aField.getAnnotation(Value.class).value()))
+                .toArray(ValueAnnotatedField[]::new);
+    }
+
+    /**
+     * Immutable capture of everything this contributor adds to /info along with
+     * when it was built and how big it is so staleness can be judged
+     */
+    @Data
+    public static final class InfoSnapshot {
+        private final Map<String, String> profile;
+        private final Map<String, MappingDTO> mappings;
+        private final EndpointIndex endpointIndex;
+        private final Map<String, BeanDTO> beans;
+        private final BeanIndex beanIndex;
+        private final Instant builtAt;
+        private final Duration buildTime;
+
+        private InfoSnapshot(Map<String, String> profile, EndpointIndex endpointIndex, Map<String, BeanDTO> beans,
+                BeanIndex beanIndex, Instant builtAt, Duration buildTime) {
+            this.profile = profile;
+            this.mappings = endpointIndex.getMappings();
+            this.endpointIndex = endpointIndex;
+            this.beans = beans;
+            this.beanIndex = beanIndex;
+            this.builtAt = builtAt;
+            this.buildTime = buildTime;
+        }
+
+        /**
+         * Build time and size of this snapshot, intended for the /info endpoint
+         * 
+         * @return
+         */
+        public Map<String, Object> getSummary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("builtAt", builtAt.toString());
+            summary.put("buildTimeMillis", buildTime.toMillis());
+            // no age, the summary stays the same for as long as the snapshot does so
+            // responses can be cached, see InfoRepresentationFilter
+            summary.put("controllers", mappings.size());
+            summary.put("requestMappings", endpointIndex.size());
+            summary.put("beans", beans.size());
+            return summary;
+        }
+    }
+
     @Data
     public static final class MappingDTO {
         private final String controller;
@@ -0,0 +1,239 @@
+package org.home.productivity.traverse.actuator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.home.productivity.traverse.actuator.CustomInfoContributor.MappingDTO;
+import org.home.productivity.traverse.actuator.CustomInfoContributor.RequestMappingDTO;
+import org.home.productivity.traverse.commons.Page;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Read only index over the request mappings of this application.
+ * <p>
+ * Built once from the per controller mappings (each already sorted) and then
+ * indexed by path, and by http method and path, so that questions like "all GET
+ * mappings under /api/v1" are answered with a binary search instead of walking
+ * RequestMappingHandlerMapping again
+ */
+public final class EndpointIndex {
+
+    // handlers of the same path and method (told apart by params or headers)
+    // need an order of their own for pages to follow on from each other
+    private static final Comparator<RequestMappingDTO> BY_PATH_METHOD_THEN_HANDLER = Comparator
+            .comparing(RequestMappingDTO::getPath)
+            .thenComparing(RequestMappingDTO::getMethod)
+            .thenComparing(RequestMappingDTO::getHandler);
+
+    private final Map<String, MappingDTO> mappings;
+    private final PathIndex allMethods;
+    private final Map<RequestMethod, PathIndex> byMethod = new EnumMap<>(RequestMethod.class);
+
+    /**
+     * @param mappings controller short name to its mappings, request mappings
+     *                 are expected to be sorted already
+     */
+    EndpointIndex(Map<String, MappingDTO> mappings) {
+        this.mappings = Collections.unmodifiableMap(mappings);
+
+        List<RequestMappingDTO> all = new ArrayList<>();
+        Map<RequestMethod, List<RequestMappingDTO>> perMethod = new EnumMap<>(RequestMethod.class);
+        mappings.values().forEach(mappingDTO -> mappingDTO.getRequestMappings().forEach(requestMappingDTO -> {
+            all.add(requestMappingDTO);
+            perMethod.computeIfAbsent(requestMappingDTO.getMethod(), method -> new ArrayList<>())
+                    .add(requestMappingDTO);
+        }));
+        this.allMethods = new PathIndex(all);
+        perMethod.forEach((method, requestMappings) -> byMethod.put(method, new PathIndex(requestMappings)));
+    }
+
+    /**
+     * Mappings grouped by controller short name, sorted by controller
+     *
+     * @return
+     */
+    public Map<String, MappingDTO> getMappings() {
+        return mappings;
+    }
+
+    /**
+     * Total number of request mappings (method x path) in the index
+     *
+     * @return
+     */
+    public int size() {
+        return allMethods.paths.length;
+    }
+
+    /**
+     * Find request mappings by http method and path prefix. Prefixes match on
+     * whole path segments so /api/v1 matches /api/v1 and /api/v1/traverse but not
+     * /api/v10
+     *
+     * @param method     http method, null for any
+     * @param pathPrefix path prefix, null or blank for any
+     * @return mappings sorted by path, method and then handler
+     */
+    public List<RequestMappingDTO> find(RequestMethod method, String pathPrefix) {
+        var pathIndex = (method == null ? allMethods : byMethod.get(method));
+        if (pathIndex == null) {
+            return List.of();
+        }
+        return pathIndex.find(normalizePrefix(pathPrefix));
+    }
+
+    /**
+     * Page through request mappings by http method and path prefix, matched as
+     * by {@link #find(RequestMethod, String)}
+     *
+     * @param method     http method, null for any
+     * @param pathPrefix path prefix, null or blank for any
+     * @param cursor     from the previous page, null for the first page
+     * @param limit      most mappings on the page
+     * @return mappings sorted by path, method and then handler
+     * @throws IllegalArgumentException when cursor is not one handed out by
+     *                                  this index
+     */
+    public Page<RequestMappingDTO> find(RequestMethod method, String pathPrefix, String cursor, int limit) {
+        var pathIndex = (method == null ? allMethods : byMethod.get(method));
+        if (pathIndex == null) {
+            return new Page<>(List.of(), null);
+        }
+        String[] after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = Page.keys(cursor, 3);
+        }
+        return pathIndex.find(normalizePrefix(pathPrefix), after, limit);
+    }
+
+    private static String normalizePrefix(String pathPrefix) {
+        if (pathPrefix == null || pathPrefix.isBlank()) {
+            return "";
+        }
+        var prefix = pathPrefix.strip();
+        if (!prefix.startsWith("/")) {
+            prefix = "/" + prefix;
+        }
+        while (prefix.length() > 1 && prefix.endsWith("/")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        return prefix;
+    }
+
+    /**
+     * Request mappings sorted by path with a parallel array of paths to binary
+     * search over
+     */
+    private static final class PathIndex {
+        private final String[] paths;
+        private final RequestMappingDTO[] requestMappings;
+
+        private PathIndex(List<RequestMappingDTO> unsorted) {
+            this.requestMappings = unsorted.toArray(RequestMappingDTO[]::new);
+            Arrays.sort(this.requestMappings, BY_PATH_METHOD_THEN_HANDLER);
+            this.paths = Arrays.stream(this.requestMappings).map(RequestMappingDTO::getPath).toArray(String[]::new);
+        }
+
+        private List<RequestMappingDTO> find(String prefix) {
+            if (prefix.isEmpty() || prefix.equals("/")) {
+                return List.of(requestMappings);
+            }
+            // first path that is >= prefix, everything starting with prefix follows
+            // contiguously
+            var start = Arrays.binarySearch(paths, prefix);
+            if (start < 0) {
+                start = -start - 1;
+            } else {
+                // duplicates of the same path (different methods) may precede the hit
+                while (start > 0 && paths[start - 1].equals(prefix)) {
+                    start--;
+                }
+            }
+            List<RequestMappingDTO> found = new ArrayList<>();
+            for (var i = start; i < paths.length && paths[i].startsWith(prefix); i++) {
+                var path = paths[i];
+                if (path.length() == prefix.length() || path.charAt(prefix.length()) == '/') {
+                    found.add(requestMappings[i]);
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Page through the mappings starting with prefix
+         *
+         * @param prefix
+         * @param after  path, method and handler of the last mapping on the
+         *               previous page, null for the first page
+         * @param limit
+         * @return
+         */
+        private Page<RequestMappingDTO> find(String prefix, String[] after, int limit) {
+            var all = (prefix.isEmpty() || prefix.equals("/"));
+            var start = (all ? 0 : lowerBound(prefix));
+            if (after != null) {
+                start = Math.max(start, after(after[0], RequestMethod.valueOf(after[1]), after[2]));
+            }
+            List<RequestMappingDTO> found = new ArrayList<>(Math.min(limit, paths.length - start));
+            for (var i = start; i < paths.length && (all || paths[i].startsWith(prefix)); i++) {
+                var path = paths[i];
+                if (all || path.length() == prefix.length() || path.charAt(prefix.length()) == '/') {
+                    if (found.size() == limit) {
+                        var last = found.get(found.size() - 1);
+                        return new Page<>(found,
+                                Page.cursor(last.getPath(), last.getMethod().name(), last.getHandler()));
+                    }
+                    found.add(requestMappings[i]);
+                }
+            }
+            return new Page<>(found, null);
+        }
+
+        /**
+         * First position whose path is not less than key
+         */
+        private int lowerBound(String key) {
+            var low = 0;
+            var high = paths.length;
+            while (low < high) {
+                var middle = (low + high) >>> 1;
+                if (paths[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * First position past the mapping with the given path, method and
+         * handler, whether or not it is still there
+         */
+        private int after(String path, RequestMethod method, String handler) {
+            var low = 0;
+            var high = paths.length;
+            while (low < high) {
+                var middle = (low + high) >>> 1;
+                var compare = paths[middle].compareTo(path);
+                if (compare == 0) {
+                    compare = requestMappings[middle].getMethod().compareTo(method);
+                }
+                if (compare == 0) {
+                    compare = requestMappings[middle].getHandler().compareTo(handler);
+                }
+                if (compare <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
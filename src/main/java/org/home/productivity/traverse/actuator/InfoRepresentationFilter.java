@@ -0,0 +1,97 @@
+package org.home.productivity.traverse.actuator;
+
+import java.io.IOException;
+
+import org.home.productivity.traverse.service.RepresentationCache;
+import org.home.productivity.traverse.service.RepresentationCache.Representation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves /actuator/info from the {@link RepresentationCache} for as long as
+ * the {@link CustomInfoContributor} snapshot stays the same: with an ETag,
+ * answering 304 Not Modified to If-None-Match and precompressed when gzip or
+ * deflate is accepted. Only the first request for a snapshot, per Accept
+ * header, gets as far as the info endpoint.
+ * <p>
+ * Runs after Spring Security like any other filter bean so only requests
+ * allowed to see /info are served
+ */
+@Component
+@Slf4j
+public class InfoRepresentationFilter extends OncePerRequestFilter {
+
+    private final CustomInfoContributor customInfoContributor;
+
+    private final RepresentationCache representationCache;
+
+    private final String infoPath;
+
+    @Autowired
+    public InfoRepresentationFilter(CustomInfoContributor customInfoContributor,
+            RepresentationCache representationCache,
+            @Value("${management.endpoints.web.base-path:/actuator}") String basePath) {
+        this.customInfoContributor = customInfoContributor;
+        this.representationCache = representationCache;
+        this.infoPath = basePath + "/info";
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !request.getRequestURI().substring(request.getContextPath().length()).equals(infoPath);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // the accept header picks the actuator media type the body is written as
+        var key = "info|" + customInfoContributor.getSnapshot().getBuiltAt() + "|"
+                + request.getHeader(HttpHeaders.ACCEPT);
+        var representation = representationCache.getIfPresent(key);
+        if (representation == null) {
+            var wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() != HttpStatus.OK.value() || wrapper.getContentType() == null) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            representation = representationCache.put(key, MediaType.parseMediaType(wrapper.getContentType()),
+                    wrapper.getContentAsByteArray());
+        }
+        write(representation, request, response);
+    }
+
+    private static void write(Representation representation, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        var entity = representation.toResponse(request.getHeader(HttpHeaders.IF_NONE_MATCH),
+                request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.setStatus(entity.getStatusCode().value());
+        entity.getHeaders().forEach((name, values) -> {
+            if (name.equalsIgnoreCase(HttpHeaders.CONTENT_TYPE)) {
+                response.setContentType(values.get(0));
+            } else if (name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+                response.setContentLengthLong(Long.parseLong(values.get(0)));
+            } else {
+                // added rather than set, other filters may have said what responses vary by
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        if (entity.getBody() != null) {
+            response.getOutputStream().write(entity.getBody());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.home.productivity.traverse.actuator;
+
+import org.home.productivity.traverse.scan.JarCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds /actuator/jarcache: where the jar cache lives, how full it is and how
+ * often scans found what they were looking for in it. The same numbers are
+ * also metrics tagged cache=jar (traverse.cache.*)
+ */
+@Component
+@Endpoint(id = "jarcache")
+public class JarCacheEndpoint {
+
+    private final JarCache jarCache;
+
+    @Autowired
+    public JarCacheEndpoint(JarCache jarCache) {
+        this.jarCache = jarCache;
+    }
+
+    @ReadOperation
+    public JarCache.Stats stats() {
+        return jarCache.getStats();
+    }
+}
@@ -0,0 +1,55 @@
+package org.home.productivity.traverse.commons;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Binary alternatives to json for graphs and DTOs, picked by Accept header.
+ * Their documents have the same shape as the json ones, which shape is
+ * versioned by {@link #SCHEMA_VERSION} in the {@link #SCHEMA_VERSION_HEADER}
+ * of every binary response
+ */
+public final class BinaryFormats {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    public static final String SCHEMA_VERSION_HEADER = "X-Traverse-Schema-Version";
+
+    /**
+     * Bump when fields are renamed or removed, adding fields does not need it
+     */
+    public static final String SCHEMA_VERSION = "1";
+
+    private BinaryFormats() {
+    }
+
+    /**
+     * Smile writing back references to names and to string values seen before,
+     * so repeated bean names, types, scopes and kinds are written once. Smile
+     * only shares values of up to 64 bytes, longer class names are written in
+     * full each time
+     *
+     * @return
+     */
+    public static SmileFactory smileFactory() {
+        return SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+    }
+
+    /**
+     * CBOR, without string references since this Jackson version does not write
+     * them, compressing the response takes care of repeated strings instead
+     *
+     * @return
+     */
+    public static CBORFactory cborFactory() {
+        return CBORFactory.builder().build();
+    }
+}
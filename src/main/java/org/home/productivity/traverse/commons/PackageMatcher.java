@@ -0,0 +1,138 @@
+package org.home.productivity.traverse.commons;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precompiled include/exclude matcher for package names.
+ * <p>
+ * Patterns are dot separated package names that match the package itself and
+ * all of its sub packages, i.e. org.home matches org.home and org.home.traverse
+ * but not org.homestead. A segment of * matches any single segment, i.e.
+ * org.*.controller matches org.home.controller.spec
+ * <p>
+ * Patterns are compiled into a trie of segments once. Lookups walk the package
+ * name a segment at a time, looking each one up among the literal children of
+ * a node by hash and following its * child too, so cost depends on the depth
+ * of the package name rather than the number of patterns. When several
+ * patterns match, the longest one wins and on a tie exclude wins over include.
+ * Packages that match no include pattern are not matched
+ */
+public final class PackageMatcher {
+
+    private static final int NONE = 0;
+    private static final int INCLUDE = 1;
+    private static final int EXCLUDE = 2;
+    private static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+
+    private PackageMatcher() {
+    }
+
+    /**
+     * Compile include and exclude patterns into a matcher, blank patterns are
+     * ignored
+     *
+     * @param includes
+     * @param excludes
+     * @return
+     */
+    public static PackageMatcher of(String[] includes, String[] excludes) {
+        var matcher = new PackageMatcher();
+        if (includes != null) {
+            Arrays.stream(includes).forEach(pattern -> matcher.add(pattern, INCLUDE));
+        }
+        if (excludes != null) {
+            Arrays.stream(excludes).forEach(pattern -> matcher.add(pattern, EXCLUDE));
+        }
+        return matcher;
+    }
+
+    /**
+     * Checks if given package name is included and not excluded
+     *
+     * @param packageName
+     * @return
+     */
+    public boolean matches(String packageName) {
+        if (packageName == null || packageName.isEmpty()) {
+            return false;
+        }
+        var best = match(root, packageName, 0, 0);
+        return best >= 0 && (best & EXCLUDE) == 0;
+    }
+
+    private void add(String pattern, int verdict) {
+        if (pattern == null || pattern.isBlank()) {
+            return;
+        }
+        var node = root;
+        for (var segment : pattern.strip().split("\\.")) {
+            node = node.childFor(segment);
+        }
+        // exclude wins when the same pattern is both included and excluded
+        node.verdict = Math.max(node.verdict, verdict);
+    }
+
+    /**
+     * Depth first walk of the trie alongside the package name starting at
+     * position
+     *
+     * @return best score found below node, -1 if nothing matched. Score is depth
+     *         shifted left with the verdict in the low bits so that deeper matches
+     *         win and exclude wins a tie
+     */
+    private static int match(Node node, String packageName, int position, int depth) {
+        var best = (node.verdict == NONE ? -1 : (depth << 2) | node.verdict);
+        if (position > packageName.length()) {
+            return best;
+        }
+        var end = packageName.indexOf('.', position);
+        if (end < 0) {
+            end = packageName.length();
+        }
+        var length = end - position;
+        Node child = null;
+        if (node.onlySegment != null) {
+            // most nodes have a single child, compared in place
+            if (node.onlySegment.length() == length
+                    && packageName.regionMatches(position, node.onlySegment, 0, length)) {
+                child = node.onlyChild;
+            }
+        } else if (!node.children.isEmpty()) {
+            child = node.children.get(packageName.substring(position, end));
+        }
+        if (child != null) {
+            best = Math.max(best, match(child, packageName, end + 1, depth + 1));
+        }
+        if (node.wildcard != null) {
+            best = Math.max(best, match(node.wildcard, packageName, end + 1, depth + 1));
+        }
+        return best;
+    }
+
+    private static final class Node {
+        // literal segments, * has a child of its own
+        private final Map<String, Node> children = new HashMap<>(2);
+        // the literal child while there is just the one
+        private String onlySegment;
+        private Node onlyChild;
+        private Node wildcard;
+        private int verdict = NONE;
+
+        private Node childFor(String segment) {
+            if (segment.equals(WILDCARD)) {
+                if (wildcard == null) {
+                    wildcard = new Node();
+                }
+                return wildcard;
+            }
+            var child = children.computeIfAbsent(segment, key -> new Node());
+            onlySegment = (children.size() == 1 ? segment : null);
+            onlyChild = (children.size() == 1 ? child : null);
+            return child;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.home.productivity.traverse.commons;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * One page of a listing along with the cursor to the next page, null on the
+ * last page.
+ * <p>
+ * Cursors are opaque to clients: the sort key of the last item on the page,
+ * URL safe base64 encoded. Since they point at a key rather than an offset a
+ * cursor stays valid when what it was handed out for is rebuilt, the next page
+ * then starts right after where the key would be
+ *
+ * @param <T>
+ */
+@Data
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * Encode the sort key of an item as a cursor
+     *
+     * @param keys parts of the sort key, none of them containing a newline
+     * @return
+     */
+    public static String cursor(String... keys) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join("\n", keys).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor back into the sort key it was made from
+     *
+     * @param cursor
+     * @param count  number of parts the sort key has
+     * @return
+     * @throws IllegalArgumentException when cursor was not made from a key of
+     *                                  count parts
+     */
+    public static String[] keys(String cursor, int count) {
+        String[] keys;
+        try {
+            keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (keys.length != count) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,84 @@
+package org.home.productivity.traverse.commons;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Selects named fields of items into maps, so listings only serialize the
+ * fields a client asked for. Fields come out in the order they were declared
+ * in, not the order they were asked for in
+ *
+ * @param <T>
+ */
+public final class Projection<T> {
+
+    private final Map<String, Function<T, Object>> fields;
+
+    private Projection(Map<String, Function<T, Object>> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Start declaring the fields that can be selected
+     *
+     * @param <T>
+     * @return
+     */
+    public static <T> Projection<T> of() {
+        return new Projection<>(new LinkedHashMap<>());
+    }
+
+    /**
+     * Declare a field, meant to be called while setting up a projection only
+     *
+     * @param name
+     * @param getter
+     * @return this projection
+     */
+    public Projection<T> field(String name, Function<T, Object> getter) {
+        fields.put(name, getter);
+        return this;
+    }
+
+    /**
+     * Projection limited to some of the fields
+     *
+     * @param names field names, null or empty for all
+     * @return
+     * @throws IllegalArgumentException when a name is not one of the fields
+     */
+    public Projection<T> select(String[] names) {
+        if (names == null || names.length == 0) {
+            return this;
+        }
+        Map<String, Function<T, Object>> selected = new LinkedHashMap<>();
+        for (var name : names) {
+            var getter = fields.get(name.strip());
+            if (getter == null) {
+                throw new IllegalArgumentException("Unknown field: " + name + ", expected any of: " + fields.keySet());
+            }
+            selected.put(name.strip(), getter);
+        }
+        // back in declaration order
+        Map<String, Function<T, Object>> ordered = new LinkedHashMap<>();
+        fields.forEach((name, getter) -> {
+            if (selected.containsKey(name)) {
+                ordered.put(name, getter);
+            }
+        });
+        return new Projection<>(ordered);
+    }
+
+    /**
+     * Selected fields of an item
+     *
+     * @param item
+     * @return field name to value, in declaration order
+     */
+    public Map<String, Object> apply(T item) {
+        Map<String, Object> projected = new LinkedHashMap<>(fields.size() * 2);
+        fields.forEach((name, getter) -> projected.put(name, getter.apply(item)));
+        return projected;
+    }
+}
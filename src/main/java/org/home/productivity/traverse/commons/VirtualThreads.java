@@ -0,0 +1,110 @@
+package org.home.productivity.traverse.commons;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Threads for blocking work, virtual ones when asked for and the runtime has
+ * them (Java 21 and up), platform threads otherwise.
+ * <p>
+ * The build still targets Java 17 so virtual threads are looked up
+ * reflectively, once. Running the same jar on a Java 21 runtime is enough to
+ * turn them on, see application.properties -> application.threads.virtual
+ */
+@Slf4j
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = method(Thread.class, "ofVirtual");
+    private static final Method NAME = method(builderType(), "name", String.class, long.class);
+    private static final Method FACTORY = method(builderType(), "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = method(Executors.class, "newThreadPerTaskExecutor",
+            ThreadFactory.class);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Whether this runtime has virtual threads
+     *
+     * @return
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && NAME != null && FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Virtual threads if requested and supported, warning when they are
+     * requested but not supported
+     *
+     * @param requested
+     * @return
+     */
+    public static boolean enabled(boolean requested) {
+        if (requested && !isSupported()) {
+            log.warn("Virtual threads requested but not supported by Java {}, using platform threads",
+                    Runtime.version().feature());
+        }
+        return requested && isSupported();
+    }
+
+    /**
+     * Factory of threads named prefix followed by a counter
+     *
+     * @param virtual virtual threads, only when {@link #isSupported()}
+     * @param prefix
+     * @return
+     */
+    public static ThreadFactory factory(boolean virtual, String prefix) {
+        if (!virtual) {
+            return new CustomizableThreadFactory(prefix);
+        }
+        try {
+            return (ThreadFactory) FACTORY.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L));
+        } catch (ReflectiveOperationException e) {
+            var msg = "Exception occurred while creating virtual thread factory";
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    /**
+     * Executor starting a new virtual thread for every task
+     *
+     * @param prefix
+     * @return
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory(true, prefix));
+        } catch (ReflectiveOperationException e) {
+            var msg = "Exception occurred while creating virtual thread per task executor";
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    private static Class<?> builderType() {
+        try {
+            return Class.forName("java.lang.Thread$Builder");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
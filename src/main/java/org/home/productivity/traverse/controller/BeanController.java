@@ -0,0 +1,41 @@
+package org.home.productivity.traverse.controller;
+
+import java.util.Map;
+
+import org.home.productivity.traverse.actuator.CustomInfoContributor;
+import org.home.productivity.traverse.actuator.CustomInfoContributor.BeanDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This application's beans, served from the /info snapshot. Ask for
+ * application/x-jackson-smile or application/cbor to get them in binary
+ */
+@RestController
+@RequestMapping("/api/v1/beans")
+@Slf4j
+public class BeanController {
+
+    private final CustomInfoContributor infoContributor;
+
+    @Autowired
+    public BeanController(CustomInfoContributor infoContributor) {
+        this.infoContributor = infoContributor;
+    }
+
+    /**
+     * Beans by name, limited to the configured bean packages
+     * 
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, BeanDTO>> getBeans() {
+        log.debug("Getting beans");
+        return ResponseEntity.ok(infoContributor.getSnapshot().getBeans());
+    }
+}
@@ -0,0 +1,65 @@
+package org.home.productivity.traverse.controller;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.home.productivity.traverse.fleet.FleetScan;
+import org.home.productivity.traverse.service.FleetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fleet mode: harvest the actuator beans and mappings of the running services
+ * configured and merge them into one graph, exported like any other graph with
+ * /api/v1/graph?path=fleet
+ */
+@RestController
+@RequestMapping("/api/v1/fleet")
+@Slf4j
+public class FleetController {
+
+    private final FleetService fleetService;
+
+    @Autowired
+    public FleetController(FleetService fleetService) {
+        this.fleetService = fleetService;
+    }
+
+    /**
+     * Harvest the fleet, answered once every target has answered or failed. No
+     * request thread is held in the meantime
+     *
+     * @return
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<FleetScan>> scan() {
+        if (fleetService.getTargets().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "No fleet targets, see application.fleet.targets");
+        }
+        log.debug("Harvesting fleet of: {} targets", fleetService.getTargets().size());
+        return fleetService.scan().thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * How the last harvest went, target by target
+     *
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<FleetScan> lastScan() {
+        var scan = fleetService.getLastScan();
+        if (scan == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No fleet harvested yet, POST to /api/v1/fleet to harvest one");
+        }
+        return ResponseEntity.ok(scan);
+    }
+}
@@ -0,0 +1,177 @@
+package org.home.productivity.traverse.controller;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.home.productivity.traverse.commons.BinaryFormats;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.ComponentGraph;
+import org.home.productivity.traverse.graph.GraphExporter;
+import org.home.productivity.traverse.graph.GraphExporter.Format;
+import org.home.productivity.traverse.graph.GraphStats;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.home.productivity.traverse.service.RepresentationCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Export the component graph of this application, or of a scanned target
+ * application. Ask for application/x-ndjson to get one node or edge per line,
+ * or for application/x-jackson-smile or application/cbor to get it in binary.
+ * Every export says which version of its shape it is in the
+ * X-Traverse-Schema-Version header.
+ * <p>
+ * Exports are streamed through the {@link RepresentationCache}: with an ETag
+ * of the graph version, format and packages, answering 304 Not Modified to
+ * If-None-Match without exporting anything. Graphs too big for the cache are
+ * streamed every time, smaller ones are cached on the way and then served
+ * precompressed when gzip or deflate is accepted
+ */
+@RestController
+@RequestMapping("/api/v1/graph")
+@Slf4j
+public class GraphController {
+
+    // json first, what */* gets
+    private static final Map<MediaType, Format> FORMATS = new LinkedHashMap<>();
+
+    static {
+        FORMATS.put(MediaType.APPLICATION_JSON, Format.JSON);
+        FORMATS.put(MediaType.APPLICATION_NDJSON, Format.NDJSON);
+        FORMATS.put(BinaryFormats.APPLICATION_SMILE, Format.SMILE);
+        FORMATS.put(MediaType.APPLICATION_CBOR, Format.CBOR);
+    }
+
+    private final GraphExporter graphExporter;
+
+    private final GraphStore graphStore;
+
+    private final PackageMatcher beanPackageMatcher;
+
+    private final RepresentationCache representationCache;
+
+    @Autowired
+    public GraphController(GraphExporter graphExporter, GraphStore graphStore, PackageMatcher beanPackageMatcher,
+            RepresentationCache representationCache) {
+        this.graphExporter = graphExporter;
+        this.graphStore = graphStore;
+        this.beanPackageMatcher = beanPackageMatcher;
+        this.representationCache = representationCache;
+    }
+
+    /**
+     * Export the graph in the format asked for by Accept, json when anything
+     * goes, i.e. /api/v1/graph?packages=org.home
+     * 
+     * @param path           scanned target application, omit for this
+     *                       application
+     * @param packages       package patterns to limit the graph to, omit for the
+     *                       configured bean packages
+     * @param accept
+     * @param ifNoneMatch    ETag of a graph the client has already
+     * @param acceptEncoding
+     * @return
+     */
+    @GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            BinaryFormats.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String path,
+            @RequestParam(required = false) String[] packages,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        var mediaType = negotiate(accept);
+        var response = stream(FORMATS.get(mediaType), mediaType, path, packages, ifNoneMatch, acceptEncoding);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                // the same url answers in as many formats, shared caches have to tell them apart
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .header(BinaryFormats.SCHEMA_VERSION_HEADER, BinaryFormats.SCHEMA_VERSION)
+                .body(response.getBody());
+    }
+
+    /**
+     * Size and estimated memory use of a graph, i.e.
+     * /api/v1/graph/stats?path=/apps/demo.jar
+     * 
+     * @param path scanned target application, omit for this application
+     * @return
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<GraphStats> stats(@RequestParam(required = false) String path) {
+        return ResponseEntity.ok(graph(path).getStats());
+    }
+
+    /**
+     * Format of the best quality type accepted, in the order of {@link #FORMATS}
+     * among types accepted equally. Negotiated here rather than by one handler
+     * per format since Spring has no preference between handlers when anything
+     * goes
+     */
+    private static MediaType negotiate(String accept) {
+        var acceptedTypes = (accept == null || accept.isBlank() ? List.of(MediaType.ALL)
+                : MediaType.parseMediaTypes(accept));
+        MediaType best = null;
+        var bestQuality = 0.0;
+        for (var acceptedType : acceptedTypes) {
+            var quality = acceptedType.getQualityValue();
+            if (quality <= bestQuality) {
+                continue;
+            }
+            for (var mediaType : FORMATS.keySet()) {
+                if (acceptedType.includes(mediaType)) {
+                    best = mediaType;
+                    bestQuality = quality;
+                    break;
+                }
+            }
+        }
+        // produces has already turned away requests accepting none of them
+        return (best == null ? MediaType.APPLICATION_JSON : best);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(Format format, MediaType mediaType, String path,
+            String[] packages, String ifNoneMatch, String acceptEncoding) {
+        var hasPackages = (packages != null && packages.length > 0);
+        var packageMatcher = (hasPackages ? PackageMatcher.of(packages, null) : beanPackageMatcher);
+        // the same packages in another order make for the same graph
+        var packagesKey = (hasPackages ? Arrays.stream(packages).sorted().collect(Collectors.joining(",")) : "");
+        if (path == null) {
+            // this application's graph does not change for as long as it runs
+            return representationCache.stream("graph|" + format + "|" + packagesKey, mediaType, ifNoneMatch,
+                    acceptEncoding, out -> {
+                        log.debug("Exporting graph as: {} for packages: {}", format, packagesKey);
+                        graphExporter.export(out, format, packageMatcher);
+                    });
+        }
+        var graph = graph(path);
+        return representationCache.stream(
+                "graph|" + format + "|" + packagesKey + "|" + path + "|" + graph.getVersion(), mediaType,
+                ifNoneMatch, acceptEncoding, out -> {
+                    log.debug("Exporting graph of: {} as: {} for packages: {}", path, format, packagesKey);
+                    graphExporter.export(out, format, graph, packageMatcher);
+                });
+    }
+
+    private ComponentGraph graph(String path) {
+        var graph = graphStore.getGraph(path);
+        if (graph == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Not scanned yet: " + path);
+        }
+        return graph;
+    }
+}
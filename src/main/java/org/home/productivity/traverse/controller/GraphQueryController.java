@@ -0,0 +1,122 @@
+package org.home.productivity.traverse.controller;
+
+import java.util.List;
+
+import org.home.productivity.traverse.graph.ComponentGraph;
+import org.home.productivity.traverse.graph.GraphQueryService;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.home.productivity.traverse.graph.NodeDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Impact analysis over the component graph of this application, or of a
+ * scanned target application. Nodes are named as they are in the graph export,
+ * bean names for this application and class names for scanned targets.
+ * <p>
+ * Responses carry the version of the graph they were computed from in the
+ * X-Graph-Version header
+ */
+@RestController
+@RequestMapping("/api/v1/graph")
+@Slf4j
+public class GraphQueryController {
+
+    static final String GRAPH_VERSION_HEADER = "X-Graph-Version";
+
+    private final GraphStore graphStore;
+
+    private final GraphQueryService graphQueryService;
+
+    @Autowired
+    public GraphQueryController(GraphStore graphStore, GraphQueryService graphQueryService) {
+        this.graphStore = graphStore;
+        this.graphQueryService = graphQueryService;
+    }
+
+    /**
+     * Everything a node depends on, directly or not, i.e.
+     * /api/v1/graph/dependencies?node=traverseController
+     * 
+     * @param node
+     * @param path scanned target application, omit for this application
+     * @return
+     */
+    @GetMapping("/dependencies")
+    public ResponseEntity<List<NodeDTO>> dependencies(@RequestParam String node,
+            @RequestParam(required = false) String path) {
+        var graph = graph(path);
+        return ok(graph, graphQueryService.dependencies(graph, node(graph, node)));
+    }
+
+    /**
+     * Everything that depends on a node, directly or not: what is affected when
+     * it changes, i.e. /api/v1/graph/dependents?node=classScanner
+     * 
+     * @param node
+     * @param path scanned target application, omit for this application
+     * @return
+     */
+    @GetMapping("/dependents")
+    public ResponseEntity<List<NodeDTO>> dependents(@RequestParam String node,
+            @RequestParam(required = false) String path) {
+        var graph = graph(path);
+        return ok(graph, graphQueryService.dependents(graph, node(graph, node)));
+    }
+
+    /**
+     * Shortest chain of dependencies from one node to another, empty when there
+     * is none, i.e. /api/v1/graph/path?from=traverseController&to=classScanner
+     * 
+     * @param from
+     * @param to
+     * @param path scanned target application, omit for this application
+     * @return
+     */
+    @GetMapping("/path")
+    public ResponseEntity<List<NodeDTO>> shortestPath(@RequestParam String from, @RequestParam String to,
+            @RequestParam(required = false) String path) {
+        var graph = graph(path);
+        return ok(graph, graphQueryService.shortestPath(graph, node(graph, from), node(graph, to)));
+    }
+
+    /**
+     * Groups of nodes that depend on each other in a circle, biggest first
+     * 
+     * @param path scanned target application, omit for this application
+     * @return
+     */
+    @GetMapping("/cycles")
+    public ResponseEntity<List<List<NodeDTO>>> cycles(@RequestParam(required = false) String path) {
+        var graph = graph(path);
+        return ok(graph, graphQueryService.cycles(graph));
+    }
+
+    private ComponentGraph graph(String path) {
+        var graph = graphStore.getGraph(path);
+        if (graph == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Not scanned yet: " + path);
+        }
+        return graph;
+    }
+
+    private static int node(ComponentGraph graph, String name) {
+        var node = graph.node(name);
+        if (node < 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such node: " + name);
+        }
+        return node;
+    }
+
+    private static <T> ResponseEntity<T> ok(ComponentGraph graph, T body) {
+        return ResponseEntity.ok().header(GRAPH_VERSION_HEADER, String.valueOf(graph.getVersion())).body(body);
+    }
+}
@@ -0,0 +1,140 @@
+package org.home.productivity.traverse.controller;
+
+import java.util.Map;
+
+import org.home.productivity.traverse.actuator.BeanIndex;
+import org.home.productivity.traverse.actuator.CustomInfoContributor;
+import org.home.productivity.traverse.actuator.CustomInfoContributor.RequestMappingDTO;
+import org.home.productivity.traverse.commons.Page;
+import org.home.productivity.traverse.commons.Projection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Slices of this application's beans and request mappings, a page at a time
+ * and with only the fields asked for, i.e.
+ * /api/v1/query/beans?stereotype=service&fields=name,type&limit=50. Pages are
+ * served from indexes built along with the /info snapshot, follow nextCursor
+ * for the next one
+ */
+@RestController
+@RequestMapping("/api/v1/query")
+@Slf4j
+public class InfoQueryController {
+
+    private static final Projection<BeanIndex.Entry> BEAN_FIELDS = Projection.<BeanIndex.Entry>of()
+            .field("name", BeanIndex.Entry::getName)
+            .field("package", BeanIndex.Entry::getPackageName)
+            .field("stereotype", BeanIndex.Entry::getStereotype)
+            .field("scope", BeanIndex.Entry::getScope)
+            .field("type", entry -> entry.getBean().getType().getName())
+            .field("aliases", entry -> entry.getBean().getAliases())
+            .field("resource", entry -> entry.getBean().getResource())
+            .field("dependencies", entry -> entry.getBean().getDependencies())
+            .field("valueAnnotatedFields", entry -> entry.getBean().getValueAnnotatedFields());
+
+    private static final Projection<RequestMappingDTO> MAPPING_FIELDS = Projection.<RequestMappingDTO>of()
+            .field("method", RequestMappingDTO::getMethod)
+            .field("path", RequestMappingDTO::getPath)
+            .field("handler", RequestMappingDTO::getHandler);
+
+    private final CustomInfoContributor infoContributor;
+
+    private final int defaultLimit;
+
+    private final int maxLimit;
+
+    @Autowired
+    public InfoQueryController(CustomInfoContributor infoContributor,
+            @Value("${application.query.page.size:100}") int defaultLimit,
+            @Value("${application.query.page.max.size:1000}") int maxLimit) {
+        this.infoContributor = infoContributor;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Page through beans, ordered by package and then name
+     *
+     * @param packageName package, matching its sub packages too, omit for all
+     * @param stereotype  restcontroller, controller, service, repository,
+     *                    configuration, component or bean (declared by a @Bean
+     *                    method), omit for all
+     * @param scope       omit for all
+     * @param fields      of name, package, stereotype, scope, type, aliases,
+     *                    resource, dependencies and valueAnnotatedFields, omit
+     *                    for all
+     * @param cursor      nextCursor of the previous page, omit for the first
+     *                    page
+     * @param limit       most beans on the page
+     * @return
+     */
+    @GetMapping("/beans")
+    public ResponseEntity<Page<Map<String, Object>>> beans(
+            @RequestParam(name = "package", required = false) String packageName,
+            @RequestParam(required = false) String stereotype,
+            @RequestParam(required = false) String scope,
+            @RequestParam(required = false) String[] fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.debug("Querying beans of package: {}, stereotype: {} and scope: {}", packageName, stereotype, scope);
+        try {
+            var projection = BEAN_FIELDS.select(fields);
+            var page = infoContributor.getSnapshot().getBeanIndex().find(packageName, stereotype, scope, cursor,
+                    limit(limit));
+            return ResponseEntity.ok(new Page<>(page.getItems().stream().map(projection::apply).toList(),
+                    page.getNextCursor()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Page through request mappings, ordered by path, method and then handler
+     *
+     * @param method     http method, omit for all
+     * @param pathPrefix path prefix matched on whole segments, omit for all
+     * @param fields     of method, path and handler, omit for all
+     * @param cursor     nextCursor of the previous page, omit for the first page
+     * @param limit      most mappings on the page
+     * @return
+     */
+    @GetMapping("/mappings")
+    public ResponseEntity<Page<Map<String, Object>>> mappings(
+            @RequestParam(required = false) RequestMethod method,
+            @RequestParam(required = false) String pathPrefix,
+            @RequestParam(required = false) String[] fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.debug("Querying mappings for method: {} and path prefix: {}", method, pathPrefix);
+        try {
+            var projection = MAPPING_FIELDS.select(fields);
+            var page = infoContributor.getSnapshot().getEndpointIndex().find(method, pathPrefix, cursor,
+                    limit(limit));
+            return ResponseEntity.ok(new Page<>(page.getItems().stream().map(projection::apply).toList(),
+                    page.getNextCursor()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private int limit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("Limit has to be between 1 and " + maxLimit + ", not: " + limit);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,47 @@
+package org.home.productivity.traverse.controller;
+
+import java.util.List;
+
+import org.home.productivity.traverse.actuator.CustomInfoContributor;
+import org.home.productivity.traverse.actuator.CustomInfoContributor.RequestMappingDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Query this application's request mappings, served from the endpoint index
+ * captured in the /info snapshot
+ */
+@RestController
+@RequestMapping("/api/v1/mappings")
+@Slf4j
+public class MappingController {
+
+    private final CustomInfoContributor infoContributor;
+
+    @Autowired
+    public MappingController(CustomInfoContributor infoContributor) {
+        this.infoContributor = infoContributor;
+    }
+
+    /**
+     * Find request mappings, i.e. /api/v1/mappings?method=GET&pathPrefix=/api/v1
+     * 
+     * @param method     http method, omit for all
+     * @param pathPrefix path prefix matched on whole segments, omit for all
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<List<RequestMappingDTO>> findMappings(
+            @RequestParam(required = false) RequestMethod method,
+            @RequestParam(required = false) String pathPrefix) {
+        log.debug("Finding mappings for method: {} and path prefix: {}", method, pathPrefix);
+        return ResponseEntity.ok(infoContributor.getSnapshot().getEndpointIndex().find(method, pathPrefix));
+    }
+}
@@ -0,0 +1,152 @@
+package org.home.productivity.traverse.controller;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.service.ScanEventPublisher;
+import org.home.productivity.traverse.service.ScanJob;
+import org.home.productivity.traverse.service.ScanJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scans of target applications run as background jobs: submit one, poll it for
+ * progress, or follow it as a stream of Server-Sent Events, and pick up the
+ * result once it succeeded. When too many scans are queued already submitting
+ * answers 429 Too Many Requests
+ */
+@RestController
+@RequestMapping("/api/v1/traverse/jobs")
+@Slf4j
+public class ScanJobController {
+
+    private final ScanJobService scanJobService;
+
+    private final ScanEventPublisher scanEventPublisher;
+
+    @Autowired
+    public ScanJobController(ScanJobService scanJobService, ScanEventPublisher scanEventPublisher) {
+        this.scanJobService = scanJobService;
+        this.scanEventPublisher = scanEventPublisher;
+    }
+
+    /**
+     * Submit a scan, i.e. POST
+     * /api/v1/traverse/jobs?path=/apps/demo.jar&packages=com.example. A scan of
+     * the same target and packages already in flight is handed back instead of
+     * starting another
+     *
+     * @param path     exploded classes directory, jar or fat jar on this server
+     * @param packages package patterns to limit the components returned to, omit
+     *                 for all
+     * @return
+     */
+    @PostMapping
+    public ResponseEntity<ScanJob> submit(@RequestParam String path,
+            @RequestParam(required = false) String[] packages) {
+        var job = submitJob(scanJobService, path, packages);
+        var location = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    /**
+     * Jobs still known, most recent first
+     *
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<List<ScanJob>> jobs() {
+        return ResponseEntity.ok(scanJobService.getJobs());
+    }
+
+    /**
+     * Status and progress of a job
+     *
+     * @param id
+     * @return
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ScanJob> job(@PathVariable String id) {
+        return ResponseEntity.ok(findJob(id));
+    }
+
+    /**
+     * Follow a job as it runs: "progress" events with the job, "delta" events
+     * with nodes and edges of components as they are found and a last "done"
+     * event with the job once it finished, i.e.
+     * curl -N /api/v1/traverse/jobs/{id}/events
+     *
+     * @param id
+     * @return
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable String id) {
+        return scanEventPublisher.subscribe(findJob(id));
+    }
+
+    /**
+     * Result of a job, 409 Conflict until it succeeded
+     *
+     * @param id
+     * @return
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<ScanResult> result(@PathVariable String id) {
+        var job = findJob(id);
+        var result = job.getResult();
+        if (result == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Scan job: " + id + " has no result, it is: " + job.getStatus());
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Cancel a job, it is dropped when still queued and stops shortly when
+     * running
+     *
+     * @param id
+     * @return
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ScanJob> cancel(@PathVariable String id) {
+        return ResponseEntity.ok(scanJobService.cancel(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No such scan job: " + id)));
+    }
+
+    private ScanJob findJob(String id) {
+        return scanJobService.getJob(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No such scan job: " + id));
+    }
+
+    static ScanJob submitJob(ScanJobService scanJobService, String path, String[] packages) {
+        var target = Path.of(path);
+        if (!Files.exists(target)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to traverse at: " + path);
+        }
+        try {
+            return scanJobService.submit(target, packages);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many scans queued, try again later", e);
+        }
+    }
+}
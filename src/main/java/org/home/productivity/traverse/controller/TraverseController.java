@@ -1,9 +1,31 @@
 package org.home.productivity.traverse.controller;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.GraphDiff;
+import org.home.productivity.traverse.scan.CallGraph;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.service.ScanJobService;
+import org.home.productivity.traverse.service.ScanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,9 +34,124 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TraverseController {
 
+    private final ScanJobService scanJobService;
+
+    private final ScanService scanService;
+
+    private final PackageMatcher beanPackageMatcher;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public TraverseController(ScanJobService scanJobService, ScanService scanService,
+            PackageMatcher beanPackageMatcher, ObjectMapper objectMapper) {
+        this.scanJobService = scanJobService;
+        this.scanService = scanService;
+        this.beanPackageMatcher = beanPackageMatcher;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Scan a target application for components, rescans only parse what changed
+     * since the last scan of the same path, i.e.
+     * /api/v1/traverse?path=/apps/demo.jar&packages=com.example
+     * <p>
+     * Waits for the scan to finish. It still runs as a job (see
+     * {@link ScanJobController}) so it counts against the same concurrency limit
+     * and joins a scan of the same target already in flight
+     * 
+     * @param path     exploded classes directory, jar or fat jar on this server
+     * @param packages package patterns to limit the components returned to, omit
+     *                 for all
+     * @return
+     */
     @GetMapping
-    public ResponseEntity<String> traverse() {
-        log.info("Traversing...");
-        return ResponseEntity.ok("success");
+    public ResponseEntity<ScanResult> traverse(@RequestParam String path,
+            @RequestParam(required = false) String[] packages) {
+        log.info("Traversing: {}", path);
+        var job = ScanJobController.submitJob(scanJobService, path, packages);
+        try {
+            return ResponseEntity.ok(job.await());
+        } catch (CancellationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Scan job: " + job.getId() + " was cancelled", e);
+        }
+    }
+
+    /**
+     * Method level call graph of a target application: for each request
+     * mapping, the components it ends up calling, i.e.
+     * /api/v1/traverse/calls?path=/apps/demo.jar&packages=com.example
+     * <p>
+     * Only calls made by classes in the given packages are followed, which is
+     * what keeps large applications tractable. Not a job and nothing is stored,
+     * but it waits its turn among scan jobs the same way
+     *
+     * @param path     exploded classes directory, jar or fat jar on this server
+     * @param packages package patterns of the classes whose calls are followed,
+     *                 omit for the packages beans are listed from
+     * @return
+     */
+    @GetMapping("/calls")
+    public ResponseEntity<CallGraph> calls(@RequestParam String path,
+            @RequestParam(required = false) String[] packages) {
+        log.info("Traversing calls of: {}", path);
+        var target = Path.of(path);
+        if (!Files.exists(target)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to traverse at: " + path);
+        }
+        var packageMatcher = (packages != null && packages.length > 0 ? PackageMatcher.of(packages, null)
+                : beanPackageMatcher);
+        try {
+            return ResponseEntity.ok(scanJobService.scanCalls(target, packageMatcher));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many scans queued, try again later",
+                    e);
+        } catch (CancellationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Scan of calls of: " + path + " was cancelled", e);
+        }
+    }
+
+    /**
+     * What changed between two scanned targets, i.e. two builds of an
+     * application: components, dependencies, endpoints and @Value bindings
+     * added, removed or changed, i.e.
+     * /api/v1/traverse/diff?from=/apps/demo-1.0.jar&to=/apps/demo-1.1.jar
+     * <p>
+     * Compares what the last scan of each target stored, so both have to be
+     * scanned first. Streamed as one json document or, when NDJSON is accepted,
+     * as a summary line followed by a line per difference
+     *
+     * @param from     target scanned before
+     * @param to       target scanned after
+     * @param packages package patterns to limit the components compared to,
+     *                 omit for all
+     * @param accept
+     * @return
+     */
+    @GetMapping(path = "/diff", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<StreamingResponseBody> diff(@RequestParam String from, @RequestParam String to,
+            @RequestParam(required = false) String[] packages,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        log.info("Comparing: {} with: {}", from, to);
+        var packageMatcher = (packages != null && packages.length > 0 ? PackageMatcher.of(packages, null) : null);
+        GraphDiff diff;
+        try {
+            // worked out before anything is streamed so failures get a status
+            diff = scanService.diff(Path.of(from), Path.of(to), packageMatcher);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+        var ndjson = (accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype));
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(out -> {
+                    try (var generator = objectMapper.getFactory().createGenerator(out)) {
+                        diff.write(generator, ndjson);
+                    }
+                });
     }
 }
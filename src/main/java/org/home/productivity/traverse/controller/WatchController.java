@@ -0,0 +1,110 @@
+package org.home.productivity.traverse.controller;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.home.productivity.traverse.service.TargetWatch;
+import org.home.productivity.traverse.service.TargetWatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Classes directories watched for changes, their graphs (i.e.
+ * /api/v1/graph?path=...) updated as they are recompiled. Updates can
+ * be followed as Server-Sent Events
+ */
+@RestController
+@RequestMapping("/api/v1/traverse/watch")
+@Slf4j
+public class WatchController {
+
+    private final TargetWatcher targetWatcher;
+
+    @Autowired
+    public WatchController(TargetWatcher targetWatcher) {
+        this.targetWatcher = targetWatcher;
+    }
+
+    /**
+     * Watch a classes directory, i.e. POST
+     * /api/v1/traverse/watch?path=/apps/demo/target/classes. Answers once the
+     * directory has been scanned, watching it again hands back the watch
+     *
+     * @param path     exploded classes directory on this server
+     * @param packages package patterns to limit the components to, omit for
+     *                 all
+     * @return
+     */
+    @PostMapping
+    public ResponseEntity<TargetWatch> watch(@RequestParam String path,
+            @RequestParam(required = false) String[] packages) {
+        var target = Path.of(path);
+        if (!Files.isDirectory(target)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No classes directory at: " + path);
+        }
+        try {
+            return ResponseEntity.ok(targetWatcher.watch(target, packages));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many scans queued, try again later", e);
+        }
+    }
+
+    /**
+     * Targets being watched and how their last updates went
+     *
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<Collection<TargetWatch>> watches() {
+        return ResponseEntity.ok(targetWatcher.getWatches());
+    }
+
+    /**
+     * Stop watching a target
+     *
+     * @param path
+     * @return
+     */
+    @DeleteMapping
+    public ResponseEntity<TargetWatch> unwatch(@RequestParam String path) {
+        var watch = targetWatcher.unwatch(path);
+        if (watch == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Not watching: " + path);
+        }
+        return ResponseEntity.ok(watch);
+    }
+
+    /**
+     * Follow the updates of a watched target, a "graph" event with the version
+     * and what changed every time its graph is replaced, i.e.
+     * curl -N /api/v1/traverse/watch/events?path=/apps/demo/target/classes
+     *
+     * @param path
+     * @return
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam String path) {
+        var watch = targetWatcher.getWatch(path);
+        if (watch == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Not watching: " + path);
+        }
+        return targetWatcher.subscribe(watch);
+    }
+}
@@ -0,0 +1,319 @@
+package org.home.productivity.traverse.fleet;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.home.productivity.traverse.commons.VirtualThreads;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Harvests the actuator beans and mappings endpoints of many running services
+ * at once.
+ * <p>
+ * Every request goes out through one shared, non-blocking HttpClient so
+ * hundreds of targets cost no thread each. No more than
+ * application.fleet.host.concurrency requests are in flight to any one host,
+ * the rest wait their turn without holding a thread. Each request has its own
+ * timeout, connect errors, timeouts, 429 and 5xx are retried up to
+ * application.fleet.retries times with exponential backoff and jitter.
+ * <p>
+ * A target that still fails is reported as failed, the harvest carries on with
+ * the others. Each request is timed per endpoint and outcome
+ * (traverse.fleet.fetch)
+ */
+@Component
+@Slf4j
+public class FleetHarvester {
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    // shared so connections are pooled across targets on the same host
+    private final HttpClient httpClient;
+
+    private final Duration timeout;
+
+    private final int hostConcurrency;
+
+    private final int retries;
+
+    private final Duration retryBackoff;
+
+    private final Map<String, HostQueue> hostQueues = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FleetHarvester(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${application.fleet.timeout:5s}") Duration timeout,
+            @Value("${application.fleet.host.concurrency:4}") int hostConcurrency,
+            @Value("${application.fleet.retries:2}") int retries,
+            @Value("${application.fleet.retry.backoff:200ms}") Duration retryBackoff,
+            @Value("${application.threads.virtual:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+        this.hostConcurrency = Math.max(1, hostConcurrency);
+        this.retries = Math.max(0, retries);
+        this.retryBackoff = retryBackoff;
+        var httpClientBuilder = HttpClient.newBuilder()
+                .followRedirects(Redirect.NORMAL)
+                .connectTimeout(timeout);
+        if (VirtualThreads.enabled(virtualThreads)) {
+            // response handling and parsing, otherwise a cached pool
+            httpClientBuilder.executor(VirtualThreads.newThreadPerTaskExecutor("fleet-fetch-"));
+        }
+        this.httpClient = httpClientBuilder.build();
+    }
+
+    /**
+     * Harvest all targets concurrently. Completes once every target has either
+     * answered or run out of retries, never exceptionally
+     *
+     * @param targets
+     * @return
+     */
+    public CompletableFuture<FleetScan> harvest(List<FleetTarget> targets) {
+        var start = System.nanoTime();
+        log.info("Harvesting fleet of {} targets", targets.size());
+        var harvests = targets.stream().map(this::harvest).toList();
+        return CompletableFuture.allOf(harvests.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            List<FleetScan.TargetResult> results = new ArrayList<>(targets.size());
+            List<ServiceSnapshot> snapshots = new ArrayList<>(targets.size());
+            for (var harvest : harvests) {
+                var targetHarvest = harvest.join();
+                results.add(targetHarvest.result);
+                if (targetHarvest.snapshot != null) {
+                    snapshots.add(targetHarvest.snapshot);
+                }
+            }
+            var scan = new FleetScan((System.nanoTime() - start) / 1_000_000, snapshots.size(),
+                    targets.size() - snapshots.size(), results, snapshots);
+            log.info("Harvested fleet in {}ms, {} targets succeeded and {} failed", scan.getDurationMillis(),
+                    scan.getSucceeded(), scan.getFailed());
+            return scan;
+        });
+    }
+
+    private CompletableFuture<TargetHarvest> harvest(FleetTarget target) {
+        var start = System.nanoTime();
+        var attempts = new AtomicInteger();
+        var beans = fetch(target, "beans", attempts);
+        var mappings = fetch(target, "mappings", attempts);
+        return beans.thenCombine(mappings, (beansDocument, mappingsDocument) -> ServiceSnapshot
+                .parse(target.getName(), beansDocument, mappingsDocument))
+                .handle((snapshot, e) -> {
+                    var durationMillis = (System.nanoTime() - start) / 1_000_000;
+                    if (e != null) {
+                        var cause = unwrap(e);
+                        log.warn("Fleet target: {} at: {} failed after {} attempts and {}ms: {}", target.getName(),
+                                target.getUrl(), attempts.get(), durationMillis, cause.toString());
+                        return new TargetHarvest(new FleetScan.TargetResult(target.getName(),
+                                target.getUrl(), false, attempts.get(), durationMillis, 0, 0,
+                                cause.toString()), null);
+                    }
+                    return new TargetHarvest(new FleetScan.TargetResult(target.getName(),
+                            target.getUrl(), true, attempts.get(), durationMillis,
+                            snapshot.getBeans().size(), snapshot.getEndpoints().size(), null), snapshot);
+                });
+    }
+
+    /**
+     * One actuator endpoint of a target, retried with backoff until it answers
+     * or retries run out
+     */
+    private CompletableFuture<JsonNode> fetch(FleetTarget target, String endpoint, AtomicInteger attempts) {
+        return fetch(target, endpoint, attempts, 0);
+    }
+
+    private CompletableFuture<JsonNode> fetch(FleetTarget target, String endpoint, AtomicInteger attempts,
+            int retry) {
+        var uri = target.endpoint(endpoint);
+        var request = request(uri);
+        attempts.incrementAndGet();
+        var start = System.nanoTime();
+        return limited(uri, () -> httpClient.sendAsync(request, BodyHandlers.ofByteArray()))
+                .handle((response, e) -> {
+                    var failure = (e != null ? unwrap(e) : failure(uri, response));
+                    var retrying = (failure != null && retry < retries && isRetryable(e, response));
+                    var outcome = (failure == null ? "ok" : retrying ? "retried" : "failed");
+                    // not tagged by target, a histogram per target adds up fast with
+                    // hundreds of them. How each target fared is in the FleetScan
+                    Timer.builder("traverse.fleet.fetch")
+                            .description("Latency of requests to fleet targets")
+                            .tag("endpoint", endpoint)
+                            .tag("outcome", outcome)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (failure == null) {
+                        return CompletableFuture.completedFuture(read(uri, response.body()));
+                    }
+                    if (!retrying) {
+                        return CompletableFuture.<JsonNode>failedFuture(failure);
+                    }
+                    var backoff = backoff(retry);
+                    log.debug("Retrying: {} of: {} in {}ms after: {}", endpoint, target.getName(), backoff,
+                            failure.toString());
+                    // the host's slot is given up while backing off
+                    return CompletableFuture.runAsync(() -> {
+                    }, CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> fetch(target, endpoint, attempts, retry + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private HttpRequest request(URI uri) {
+        var builder = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(timeout)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET();
+        if (uri.getUserInfo() != null) {
+            // HttpClient ignores credentials in the url, actuators are usually secured
+            builder.header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+                    .encodeToString(uri.getUserInfo().getBytes(StandardCharsets.UTF_8)));
+        }
+        return builder.build();
+    }
+
+    private JsonNode read(URI uri, byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            var msg = "Exception occurred while reading: " + uri.getPath();
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    private static Throwable failure(URI uri, HttpResponse<byte[]> response) {
+        var status = response.statusCode();
+        return (status >= 200 && status < 300 ? null
+                : new RuntimeException("Status " + status + " from: " + uri.getPath()));
+    }
+
+    /**
+     * Whether another attempt could go better: the request got no answer, or
+     * the target said it is busy or broken
+     */
+    private static boolean isRetryable(Throwable e, HttpResponse<byte[]> response) {
+        if (e != null) {
+            return true;
+        }
+        var status = response.statusCode();
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * Exponential backoff with jitter so retries of many targets don't arrive
+     * all at once: half to one and a half times backoff * 2^retry
+     */
+    private long backoff(int retry) {
+        var base = retryBackoff.toMillis() << Math.min(retry, 16);
+        return (long) (base * ThreadLocalRandom.current().nextDouble(0.5, 1.5));
+    }
+
+    private <T> CompletableFuture<T> limited(URI uri, Supplier<CompletableFuture<T>> call) {
+        return hostQueues.computeIfAbsent(uri.getAuthority(), host -> new HostQueue(hostConcurrency)).submit(call);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+    }
+
+    private static final class TargetHarvest {
+        private final FleetScan.TargetResult result;
+        private final ServiceSnapshot snapshot;
+
+        private TargetHarvest(FleetScan.TargetResult result, ServiceSnapshot snapshot) {
+            this.result = result;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Calls to one host, at most limit in flight. Calls beyond that wait in
+     * line and are started by whichever call completes first, no thread waits
+     */
+    private static final class HostQueue {
+        private final int limit;
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+        private HostQueue(int limit) {
+            this.limit = limit;
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+            var result = new CompletableFuture<T>();
+            Runnable start = () -> {
+                CompletableFuture<T> called;
+                try {
+                    called = call.get();
+                } catch (RuntimeException e) {
+                    called = CompletableFuture.failedFuture(e);
+                }
+                called.whenComplete((value, e) -> {
+                    release();
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            };
+            synchronized (this) {
+                if (running >= limit) {
+                    waiting.add(start);
+                    return result;
+                }
+                running++;
+            }
+            start.run();
+            return result;
+        }
+
+        private void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            // the slot passes straight on to the next call
+            next.run();
+        }
+    }
+}
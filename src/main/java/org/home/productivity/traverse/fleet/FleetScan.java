@@ -0,0 +1,36 @@
+package org.home.productivity.traverse.fleet;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+
+/**
+ * Outcome of harvesting a fleet: how each target went, and the snapshots of
+ * those that answered. Targets that failed are listed with their error and
+ * left out of the fleet graph
+ */
+@Data
+public class FleetScan {
+    private final long durationMillis;
+    private final int succeeded;
+    private final int failed;
+    private final List<TargetResult> targets;
+    @JsonIgnore
+    private final List<ServiceSnapshot> snapshots;
+
+    @Data
+    public static class TargetResult {
+        private final String service;
+        private final String url;
+        private final boolean succeeded;
+        // requests made to the target, retries included
+        private final int attempts;
+        private final long durationMillis;
+        private final int beans;
+        private final int endpoints;
+        // why the target failed, null when it did not
+        private final String error;
+    }
+}
@@ -0,0 +1,59 @@
+package org.home.productivity.traverse.fleet;
+
+import java.net.URI;
+
+import lombok.Data;
+
+/**
+ * A running service whose actuator endpoints are harvested in fleet mode
+ */
+@Data
+public class FleetTarget {
+    // prefixes the service's nodes in the fleet graph
+    private final String name;
+    // actuator base url, i.e. http://orders:8080/actuator
+    private final URI actuatorUri;
+
+    /**
+     * Parse a target as configured, either an actuator base url or name=url.
+     * Without a name the url's host and port name the service
+     *
+     * @param target
+     * @return
+     */
+    public static FleetTarget parse(String target) {
+        var separator = target.indexOf('=');
+        if (separator > target.indexOf("://")) {
+            // part of the url, a query or a password
+            separator = -1;
+        }
+        var url = (separator < 0 ? target : target.substring(separator + 1)).strip();
+        // resolving endpoints against the base url drops its last segment otherwise
+        var uri = URI.create(url.endsWith("/") ? url : url + "/");
+        var name = (separator < 0 ? uri.getHost() + (uri.getPort() < 0 ? "" : ":" + uri.getPort())
+                : target.substring(0, separator).strip());
+        return new FleetTarget(name, uri);
+    }
+
+    /**
+     * Actuator base url without any credentials in it, safe to log and report
+     *
+     * @return
+     */
+    public String getUrl() {
+        if (actuatorUri.getUserInfo() == null) {
+            return actuatorUri.toString();
+        }
+        return actuatorUri.toString().replace(actuatorUri.getRawUserInfo() + "@", "");
+    }
+
+    /**
+     * Url of one of the target's actuator endpoints
+     *
+     * @param endpoint i.e. beans
+     * @return
+     */
+    public URI endpoint(String endpoint) {
+        return actuatorUri.resolve(endpoint);
+    }
+}
@@ -0,0 +1,90 @@
+package org.home.productivity.traverse.fleet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.Data;
+
+/**
+ * Beans and request mappings of one running service, as read from its
+ * actuator beans and mappings endpoints. Holds the same as
+ * CustomInfoContributor captures of this application: each bean's type and
+ * dependencies, and each mapping's method, path and handler class
+ */
+@Data
+public class ServiceSnapshot {
+    private final String service;
+    private final Map<String, Bean> beans;
+    private final List<Endpoint> endpoints;
+
+    @Data
+    public static class Bean {
+        private final String type;
+        private final List<String> dependencies;
+    }
+
+    @Data
+    public static class Endpoint {
+        private final String method;
+        private final String path;
+        // class of the handler method, matched to the controller bean by type
+        private final String handlerType;
+    }
+
+    /**
+     * Read the responses of /actuator/beans and /actuator/mappings. Beans of
+     * every context are taken, parent contexts included, and mappings of both
+     * servlet (dispatcherServlets) and reactive (dispatcherHandlers) services
+     *
+     * @param service
+     * @param beansDocument
+     * @param mappingsDocument
+     * @return
+     */
+    public static ServiceSnapshot parse(String service, JsonNode beansDocument, JsonNode mappingsDocument) {
+        Map<String, Bean> beans = new LinkedHashMap<>();
+        beansDocument.path("contexts").forEach(context -> context.path("beans").fields().forEachRemaining(bean -> {
+            List<String> dependencies = new ArrayList<>();
+            bean.getValue().path("dependencies").forEach(dependency -> dependencies.add(dependency.asText()));
+            beans.put(bean.getKey(), new Bean(userType(bean.getValue().path("type").asText(null)),
+                    Collections.unmodifiableList(dependencies)));
+        }));
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        mappingsDocument.path("contexts").forEach(context -> {
+            var mappings = context.path("mappings");
+            for (var dispatchers : List.of(mappings.path("dispatcherServlets"), mappings.path("dispatcherHandlers"))) {
+                dispatchers.forEach(dispatcher -> dispatcher.forEach(mapping -> {
+                    var details = mapping.path("details");
+                    var handlerType = details.path("handlerMethod").path("className").asText(null);
+                    var conditions = details.path("requestMappingConditions");
+                    if (handlerType == null || conditions.isMissingNode()) {
+                        // resource handlers, router functions and the like
+                        return;
+                    }
+                    conditions.path("methods").forEach(method -> conditions.path("patterns")
+                            .forEach(path -> endpoints.add(
+                                    new Endpoint(method.asText(), path.asText(), userType(handlerType)))));
+                }));
+            }
+        });
+        return new ServiceSnapshot(service, Collections.unmodifiableMap(beans),
+                Collections.unmodifiableList(endpoints));
+    }
+
+    /**
+     * Type as declared, without the suffix of CGLIB subclasses
+     */
+    private static String userType(String type) {
+        if (type == null) {
+            return null;
+        }
+        var suffix = type.indexOf("$$");
+        return (suffix < 0 ? type : type.substring(0, suffix));
+    }
+}
@@ -0,0 +1,302 @@
+package org.home.productivity.traverse.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable graph of components and their dependencies, kept in primitive
+ * arrays.
+ * <p>
+ * Node names are interned into a {@link SymbolTable} so a node is just an int
+ * and edges are stored CSR (compressed sparse row) style: the dependencies of
+ * node n are targets[offsets[n]] up to targets[offsets[n + 1]]. The same is
+ * kept in reverse for dependents, so both directions cost one array slice and
+ * no objects per node or edge. Descriptive DTOs are only created at the API
+ * boundary
+ * <p>
+ * Build one with {@link #builder()}
+ */
+public final class ComponentGraph {
+
+    /**
+     * What a node stands for
+     */
+    public enum NodeKind {
+        // bean of a live application context
+        BEAN,
+        // request mapping of a live application context
+        ENDPOINT,
+        // component class found by scanning a target application
+        COMPONENT,
+        // @Bean method of a scanned component
+        BEAN_METHOD
+    }
+
+    private static final NodeKind[] NODE_KINDS = NodeKind.values();
+
+    private final long version;
+    private final SymbolTable names;
+    private final SymbolTable types;
+    private final byte[] kinds;
+    // symbol in types for each node, -1 when unknown
+    private final int[] nodeTypes;
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] reverseOffsets;
+    private final int[] reverseTargets;
+
+    private ComponentGraph(long version, SymbolTable names, SymbolTable types, byte[] kinds, int[] nodeTypes,
+            int[] forwardOffsets, int[] forwardTargets, int[] reverseOffsets, int[] reverseTargets) {
+        this.version = version;
+        this.names = names;
+        this.types = types;
+        this.kinds = kinds;
+        this.nodeTypes = nodeTypes;
+        this.forwardOffsets = forwardOffsets;
+        this.forwardTargets = forwardTargets;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseTargets = reverseTargets;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Changes every time a graph is built, results computed from a graph can be
+     * cached by it
+     *
+     * @return
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int nodeCount() {
+        return kinds.length;
+    }
+
+    public int edgeCount() {
+        return forwardTargets.length;
+    }
+
+    /**
+     * Node of a name
+     *
+     * @param name
+     * @return node or -1 when there is no such node
+     */
+    public int node(String name) {
+        return names.id(name);
+    }
+
+    public String name(int node) {
+        return names.symbol(node);
+    }
+
+    public NodeKind kind(int node) {
+        return NODE_KINDS[kinds[node]];
+    }
+
+    /**
+     * Class name of a node
+     *
+     * @param node
+     * @return type or null when unknown
+     */
+    public String type(int node) {
+        return (nodeTypes[node] < 0 ? null : types.symbol(nodeTypes[node]));
+    }
+
+    public int dependencyCount(int node) {
+        return forwardOffsets[node + 1] - forwardOffsets[node];
+    }
+
+    public int dependentCount(int node) {
+        return reverseOffsets[node + 1] - reverseOffsets[node];
+    }
+
+    /**
+     * Nodes that node depends on, in ascending order
+     *
+     * @param node
+     * @param consumer
+     */
+    public void forEachDependency(int node, IntConsumer consumer) {
+        for (var i = forwardOffsets[node]; i < forwardOffsets[node + 1]; i++) {
+            consumer.accept(forwardTargets[i]);
+        }
+    }
+
+    /**
+     * Nodes that depend on node, in ascending order
+     *
+     * @param node
+     * @param consumer
+     */
+    public void forEachDependent(int node, IntConsumer consumer) {
+        for (var i = reverseOffsets[node]; i < reverseOffsets[node + 1]; i++) {
+            consumer.accept(reverseTargets[i]);
+        }
+    }
+
+    // raw adjacency for traversals within this package
+
+    int[] forwardOffsets() {
+        return forwardOffsets;
+    }
+
+    int[] forwardTargets() {
+        return forwardTargets;
+    }
+
+    int[] reverseOffsets() {
+        return reverseOffsets;
+    }
+
+    int[] reverseTargets() {
+        return reverseTargets;
+    }
+
+    /**
+     * Estimated heap use of this graph
+     *
+     * @return
+     */
+    public GraphStats getStats() {
+        var bytes = names.estimatedBytes() + types.estimatedBytes()
+                + MemoryEstimates.array(kinds.length, 1)
+                + MemoryEstimates.array(nodeTypes.length, 4)
+                + MemoryEstimates.array(forwardOffsets.length, 4)
+                + MemoryEstimates.array(forwardTargets.length, 4)
+                + MemoryEstimates.array(reverseOffsets.length, 4)
+                + MemoryEstimates.array(reverseTargets.length, 4);
+        // everything that scales with the number of edges, the rest is per node
+        var edgeBytes = MemoryEstimates.array(forwardTargets.length, 4)
+                + MemoryEstimates.array(reverseTargets.length, 4);
+        return new GraphStats(version, nodeCount(), edgeCount(), bytes,
+                (nodeCount() == 0 ? 0 : (double) (bytes - edgeBytes) / nodeCount()),
+                (edgeCount() == 0 ? 0 : (double) edgeBytes / edgeCount()));
+    }
+
+    /**
+     * Collects nodes and edges and lays them out once at the end. Nodes are
+     * identified by name, adding one twice returns the same node
+     */
+    public static final class Builder {
+        private static final AtomicLong VERSIONS = new AtomicLong();
+
+        private final SymbolTable names = new SymbolTable();
+        private final SymbolTable types = new SymbolTable();
+        private byte[] kinds = new byte[16];
+        private int[] nodeTypes = new int[16];
+        // from and to of each edge, interleaved
+        private int[] edges = new int[32];
+        private int edgeCount;
+
+        private Builder() {
+        }
+
+        /**
+         * Add a node, or look up the node if already added
+         *
+         * @param name
+         * @param kind
+         * @param type class name, may be null
+         * @return node
+         */
+        public int node(String name, NodeKind kind, String type) {
+            var nodeCount = names.size();
+            var node = names.intern(name);
+            if (node < nodeCount) {
+                return node;
+            }
+            if (node == kinds.length) {
+                kinds = Arrays.copyOf(kinds, node * 2);
+                nodeTypes = Arrays.copyOf(nodeTypes, node * 2);
+            }
+            kinds[node] = (byte) kind.ordinal();
+            nodeTypes[node] = (type == null ? -1 : types.intern(type));
+            return node;
+        }
+
+        /**
+         * Node of a name added before
+         *
+         * @param name
+         * @return node or -1
+         */
+        public int node(String name) {
+            return names.id(name);
+        }
+
+        /**
+         * Add an edge, from depends on to. Duplicate edges and self references are
+         * dropped when built
+         *
+         * @param from
+         * @param to
+         */
+        public void edge(int from, int to) {
+            if (edgeCount * 2 == edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+            edges[edgeCount * 2] = from;
+            edges[edgeCount * 2 + 1] = to;
+            edgeCount++;
+        }
+
+        public ComponentGraph build() {
+            var nodeCount = names.size();
+            names.compact();
+            types.compact();
+            var forwardOffsets = new int[nodeCount + 1];
+            var forwardTargets = layout(nodeCount, 0, forwardOffsets);
+            var reverseOffsets = new int[nodeCount + 1];
+            var reverseTargets = layout(nodeCount, 1, reverseOffsets);
+            return new ComponentGraph(VERSIONS.incrementAndGet(), names, types, Arrays.copyOf(kinds, nodeCount),
+                    Arrays.copyOf(nodeTypes, nodeCount), forwardOffsets, forwardTargets, reverseOffsets,
+                    reverseTargets);
+        }
+
+        /**
+         * Counting sort of the edges by their from (or to) node into CSR arrays,
+         * each node's targets sorted and deduplicated
+         *
+         * @param nodeCount
+         * @param side      0 to lay out by from, 1 by to
+         * @param offsets   filled in, nodeCount + 1 long
+         * @return targets
+         */
+        private int[] layout(int nodeCount, int side, int[] offsets) {
+            for (var i = 0; i < edgeCount; i++) {
+                offsets[edges[i * 2 + side] + 1]++;
+            }
+            for (var node = 0; node < nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+            var targets = new int[edgeCount];
+            var positions = Arrays.copyOf(offsets, nodeCount);
+            for (var i = 0; i < edgeCount; i++) {
+                targets[positions[edges[i * 2 + side]]++] = edges[i * 2 + 1 - side];
+            }
+            // sort and squeeze out duplicates and self references in place
+            var write = 0;
+            for (var node = 0; node < nodeCount; node++) {
+                var start = offsets[node];
+                var end = offsets[node + 1];
+                Arrays.sort(targets, start, end);
+                offsets[node] = write;
+                for (var i = start; i < end; i++) {
+                    var target = targets[i];
+                    if (target != node && (write == offsets[node] || targets[write - 1] != target)) {
+                        targets[write++] = target;
+                    }
+                }
+            }
+            offsets[nodeCount] = write;
+            return (write == targets.length ? targets : Arrays.copyOf(targets, write));
+        }
+    }
+}
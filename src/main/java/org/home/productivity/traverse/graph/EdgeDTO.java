@@ -0,0 +1,12 @@
+package org.home.productivity.traverse.graph;
+
+import lombok.Data;
+
+/**
+ * An edge, from depends on to, intended for serialization to JSON
+ */
+@Data
+public class EdgeDTO {
+    private final String from;
+    private final String to;
+}
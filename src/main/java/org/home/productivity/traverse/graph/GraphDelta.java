@@ -0,0 +1,48 @@
+package org.home.productivity.traverse.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.home.productivity.traverse.graph.ComponentGraph.NodeKind;
+import org.home.productivity.traverse.scan.ScannedClass;
+
+import lombok.Data;
+
+/**
+ * Nodes and edges of the graph of a target application found by a scan still
+ * running, named the same as in the graph built once it is done.
+ * <p>
+ * Which component provides an injected type is only known once everything
+ * has been scanned, so edges for injection points go to the injected type
+ * rather than to its provider
+ */
+@Data
+public class GraphDelta {
+    private final List<NodeDTO> nodes;
+    private final List<EdgeDTO> edges;
+
+    /**
+     * Delta for components found
+     *
+     * @param components
+     * @return
+     */
+    public static GraphDelta of(List<ScannedClass> components) {
+        List<NodeDTO> nodes = new ArrayList<>(components.size());
+        List<EdgeDTO> edges = new ArrayList<>();
+        for (var component : components) {
+            nodes.add(new NodeDTO(component.getName(), NodeKind.COMPONENT, component.getName()));
+            for (var beanMethod : component.getBeanMethods()) {
+                var beanNode = GraphStore.beanMethodNode(component, beanMethod);
+                nodes.add(new NodeDTO(beanNode, NodeKind.BEAN_METHOD, beanMethod.getReturnType()));
+                edges.add(new EdgeDTO(beanNode, component.getName()));
+            }
+            for (var injectionPoint : component.getInjectionPoints()) {
+                if (GraphStore.isInjected(injectionPoint)) {
+                    edges.add(new EdgeDTO(component.getName(), injectionPoint.getType()));
+                }
+            }
+        }
+        return new GraphDelta(nodes, edges);
+    }
+}
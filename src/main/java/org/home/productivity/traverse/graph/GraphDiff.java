@@ -0,0 +1,446 @@
+package org.home.productivity.traverse.graph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.home.productivity.traverse.scan.ScannedClass;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.Data;
+
+/**
+ * Structural difference between two scans of an application: components, the
+ * dependencies between them, endpoints and @Value bindings that were added,
+ * removed or changed.
+ * <p>
+ * Each scan is boiled down to one set per kind of element, an element being a
+ * key (its name) and a 64 bit hash of whatever makes it up, sorted by key. The
+ * sets of both scans are then merged in a single pass: keys on one side only
+ * were added or removed, keys on both sides whose hashes differ changed. So a
+ * diff costs a sort of each set plus one pass over both, and elements are only
+ * compared field by field when their hashes say they changed.
+ * <p>
+ * Differences come out by kind and then key, so diffs of the same scans always
+ * read the same. Elements with the same key on one side (an endpoint mapped
+ * twice, say) are paired up in order of their hashes
+ */
+public final class GraphDiff {
+
+    public enum Kind {
+        COMPONENT, DEPENDENCY, ENDPOINT, VALUE
+    }
+
+    public enum Change {
+        ADDED, REMOVED, CHANGED
+    }
+
+    private static final String VALUE = "org.springframework.beans.factory.annotation.Value";
+
+    private static final Comparator<Element> BY_KEY_THEN_HASH = Comparator.comparing((Element element) -> element.key)
+            .thenComparingLong(element -> element.hash);
+
+    // FNV-1a
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private final String from;
+    private final String to;
+    private final List<Difference> differences;
+    private final Map<Kind, int[]> counts = new EnumMap<>(Kind.class);
+
+    private GraphDiff(String from, String to, List<Difference> differences) {
+        this.from = from;
+        this.to = to;
+        this.differences = differences;
+        for (var kind : Kind.values()) {
+            counts.put(kind, new int[Change.values().length]);
+        }
+        for (var difference : differences) {
+            counts.get(difference.kind)[difference.change.ordinal()]++;
+        }
+    }
+
+    /**
+     * Compare the components of two scans
+     *
+     * @param from           target scanned before
+     * @param fromComponents its components, stereotypes resolved
+     * @param to             target scanned after
+     * @param toComponents   its components, stereotypes resolved
+     * @return
+     */
+    public static GraphDiff of(String from, List<ScannedClass> fromComponents, String to,
+            List<ScannedClass> toComponents) {
+        List<Difference> differences = new ArrayList<>();
+        merge(Kind.COMPONENT, components(fromComponents), components(toComponents), differences);
+        merge(Kind.DEPENDENCY, dependencies(fromComponents), dependencies(toComponents), differences);
+        merge(Kind.ENDPOINT, endpoints(fromComponents), endpoints(toComponents), differences);
+        merge(Kind.VALUE, values(fromComponents), values(toComponents), differences);
+        return new GraphDiff(from, to, differences);
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public List<Difference> getDifferences() {
+        return differences;
+    }
+
+    /**
+     * Number of differences by kind and change, i.e. {"component": {"added":
+     * 1, "removed": 0, "changed": 2}, ...}
+     *
+     * @return
+     */
+    public Map<String, Map<String, Integer>> getSummary() {
+        Map<String, Map<String, Integer>> summary = new LinkedHashMap<>();
+        counts.forEach((kind, changes) -> {
+            Map<String, Integer> byChange = new LinkedHashMap<>();
+            for (var change : Change.values()) {
+                byChange.put(name(change), changes[change.ordinal()]);
+            }
+            summary.put(name(kind), byChange);
+        });
+        return summary;
+    }
+
+    /**
+     * Write the diff as one json document, the summary followed by a
+     * differences array, or as NDJSON: a summary line followed by a line per
+     * difference
+     *
+     * @param generator
+     * @param ndjson
+     * @throws IOException
+     */
+    public void write(JsonGenerator generator, boolean ndjson) throws IOException {
+        if (ndjson) {
+            // lines are terminated explicitly, no separator between root values
+            generator.setRootValueSeparator(null);
+        }
+        generator.writeStartObject();
+        if (ndjson) {
+            generator.writeStringField("element", "summary");
+        }
+        generator.writeStringField("from", from);
+        generator.writeStringField("to", to);
+        generator.writeFieldName("summary");
+        generator.writeStartObject();
+        for (var kind : Kind.values()) {
+            generator.writeFieldName(name(kind));
+            generator.writeStartObject();
+            for (var change : Change.values()) {
+                generator.writeNumberField(name(change), counts.get(kind)[change.ordinal()]);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        if (ndjson) {
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } else {
+            generator.writeArrayFieldStart("differences");
+        }
+        // clients see the totals before the differences stream in
+        generator.flush();
+        for (var difference : differences) {
+            generator.writeStartObject();
+            if (ndjson) {
+                generator.writeStringField("element", "difference");
+            }
+            generator.writeStringField("kind", name(difference.kind));
+            generator.writeStringField("change", name(difference.change));
+            generator.writeStringField("key", difference.key);
+            if (difference.before != null) {
+                generator.writeStringField("before", difference.before);
+            }
+            if (difference.after != null) {
+                generator.writeStringField("after", difference.after);
+            }
+            if (difference.fields != null) {
+                generator.writeArrayFieldStart("fields");
+                for (var field : difference.fields) {
+                    generator.writeString(field);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            if (ndjson) {
+                generator.writeRaw('\n');
+            }
+        }
+        if (!ndjson) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.flush();
+    }
+
+    private static String name(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Walk both sorted sets at once, noting whatever is on one side only or
+     * hashes differently
+     */
+    private static void merge(Kind kind, Element[] before, Element[] after, List<Difference> differences) {
+        var i = 0;
+        var j = 0;
+        while (i < before.length || j < after.length) {
+            var compare = (i == before.length ? 1 : j == after.length ? -1 : before[i].key.compareTo(after[j].key));
+            if (compare < 0) {
+                differences.add(difference(kind, Change.REMOVED, before[i++], null));
+            } else if (compare > 0) {
+                differences.add(difference(kind, Change.ADDED, null, after[j++]));
+            } else {
+                if (before[i].hash != after[j].hash) {
+                    differences.add(difference(kind, Change.CHANGED, before[i], after[j]));
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static Difference difference(Kind kind, Change change, Element before, Element after) {
+        var key = (before != null ? before.key : after.key);
+        if (kind == Kind.COMPONENT) {
+            var fields = (change == Change.CHANGED
+                    ? changedFields((ScannedClass) before.source, (ScannedClass) after.source)
+                    : null);
+            return new Difference(kind, change, key, null, null, fields);
+        }
+        return new Difference(kind, change, key, (before == null ? null : (String) before.source),
+                (after == null ? null : (String) after.source), null);
+    }
+
+    /**
+     * What a component is made up of, endpoints and @Value expressions left out
+     * as they are elements of their own
+     */
+    private static Element[] components(List<ScannedClass> components) {
+        var elements = new Element[components.size()];
+        for (var i = 0; i < elements.length; i++) {
+            var component = components.get(i);
+            var hash = OFFSET_BASIS;
+            for (var field : ComponentField.values()) {
+                hash = hash(hash, field.hash(component));
+            }
+            elements[i] = new Element(component.getName(), hash, component);
+        }
+        return sorted(elements);
+    }
+
+    /**
+     * Edges of the graph {@link GraphStore} would build, i.e.
+     * com.example.OrderController -> com.example.OrderService. Carry nothing
+     * but their key, so they can only be added or removed
+     */
+    private static Element[] dependencies(List<ScannedClass> components) {
+        var graph = GraphStore.buildTargetGraph(components);
+        var elements = new Element[graph.edgeCount()];
+        var edges = new int[1];
+        for (var node = 0; node < graph.nodeCount(); node++) {
+            var from = graph.name(node) + " -> ";
+            graph.forEachDependency(node, dependency -> elements[edges[0]++] = new Element(
+                    from + graph.name(dependency), 0, null));
+        }
+        sorted(elements);
+        // the same dependency through several injection points counts once
+        var distinct = 0;
+        for (var i = 0; i < elements.length; i++) {
+            if (distinct == 0 || !elements[i].key.equals(elements[distinct - 1].key)) {
+                elements[distinct++] = elements[i];
+            }
+        }
+        return (distinct == elements.length ? elements : Arrays.copyOf(elements, distinct));
+    }
+
+    /**
+     * Request mappings by mapping, changed when another method handles them
+     */
+    private static Element[] endpoints(List<ScannedClass> components) {
+        List<Element> elements = new ArrayList<>();
+        for (var component : components) {
+            if (component.getEndpoints() != null) {
+                for (var endpoint : component.getEndpoints()) {
+                    elements.add(new Element(endpoint.getMapping(), hash(OFFSET_BASIS, endpoint.getHandler()),
+                            endpoint.getHandler()));
+                }
+            }
+        }
+        return sorted(elements.toArray(Element[]::new));
+    }
+
+    /**
+     * @Value injection points by component and member, i.e.
+     * com.example.OrderService#pageSize, changed when their expression did
+     */
+    private static Element[] values(List<ScannedClass> components) {
+        List<Element> elements = new ArrayList<>();
+        for (var component : components) {
+            for (var injectionPoint : component.getInjectionPoints()) {
+                if (VALUE.equals(injectionPoint.getAnnotation())) {
+                    elements.add(new Element(component.getName() + "#" + injectionPoint.getMember(),
+                            hash(OFFSET_BASIS, injectionPoint.getValue()), injectionPoint.getValue()));
+                }
+            }
+        }
+        return sorted(elements.toArray(Element[]::new));
+    }
+
+    private static Element[] sorted(Element[] elements) {
+        Arrays.sort(elements, BY_KEY_THEN_HASH);
+        return elements;
+    }
+
+    private static String[] changedFields(ScannedClass before, ScannedClass after) {
+        return Arrays.stream(ComponentField.values())
+                .filter(field -> field.hash(before) != field.hash(after))
+                .map(ComponentField::getName)
+                .toArray(String[]::new);
+    }
+
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0x100) * PRIME;
+        }
+        for (var i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * PRIME;
+        }
+        // terminated, so "ab", "c" and "a", "bc" hash apart
+        return (hash ^ 0x101) * PRIME;
+    }
+
+    private static long hash(long hash, long value) {
+        for (var shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String[] values) {
+        if (values == null) {
+            return (hash ^ 0x102) * PRIME;
+        }
+        for (var value : values) {
+            hash = hash(hash, value);
+        }
+        return (hash ^ 0x103) * PRIME;
+    }
+
+    /**
+     * The parts of a component that are compared, each hashed on its own so
+     * the ones that changed can be named
+     */
+    private enum ComponentField {
+        STEREOTYPE("stereotype") {
+            @Override
+            long hash(ScannedClass component) {
+                return GraphDiff.hash(OFFSET_BASIS, component.getStereotype());
+            }
+        },
+        SUPERCLASS("superclass") {
+            @Override
+            long hash(ScannedClass component) {
+                return GraphDiff.hash(OFFSET_BASIS, component.getSuperName());
+            }
+        },
+        INTERFACES("interfaces") {
+            @Override
+            long hash(ScannedClass component) {
+                return GraphDiff.hash(OFFSET_BASIS, component.getInterfaces());
+            }
+        },
+        ANNOTATIONS("annotations") {
+            @Override
+            long hash(ScannedClass component) {
+                return GraphDiff.hash(OFFSET_BASIS, component.getAnnotations());
+            }
+        },
+        BEAN_METHODS("beanMethods") {
+            @Override
+            long hash(ScannedClass component) {
+                var hash = OFFSET_BASIS;
+                for (var beanMethod : component.getBeanMethods()) {
+                    hash = GraphDiff.hash(hash, beanMethod.getMethod());
+                    hash = GraphDiff.hash(hash, beanMethod.getNames());
+                    hash = GraphDiff.hash(hash, beanMethod.getReturnType());
+                    hash = GraphDiff.hash(hash, beanMethod.getParameterTypes());
+                }
+                return hash;
+            }
+        },
+        INJECTION_POINTS("injectionPoints") {
+            @Override
+            long hash(ScannedClass component) {
+                var hash = OFFSET_BASIS;
+                for (var injectionPoint : component.getInjectionPoints()) {
+                    hash = GraphDiff.hash(hash, injectionPoint.getKind().name());
+                    hash = GraphDiff.hash(hash, injectionPoint.getMember());
+                    hash = GraphDiff.hash(hash, injectionPoint.getType());
+                    hash = GraphDiff.hash(hash, injectionPoint.getAnnotation());
+                }
+                return hash;
+            }
+        };
+
+        private final String name;
+
+        ComponentField(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        abstract long hash(ScannedClass component);
+    }
+
+    private static final class Element {
+        private final String key;
+        private final long hash;
+        // what the difference is described with: the component, or the
+        // handler or expression
+        private final Object source;
+
+        private Element(String key, long hash, Object source) {
+            this.key = key;
+            this.hash = hash;
+            this.source = source;
+        }
+    }
+
+    /**
+     * An element added, removed or changed
+     */
+    @Data
+    public static class Difference {
+        private final Kind kind;
+        private final Change change;
+        // component or member name, dependency as from -> to, or endpoint as
+        // its mapping
+        private final String key;
+        // handler of an endpoint or expression of a @Value, null where there is
+        // none
+        private final String before;
+        private final String after;
+        // parts of a changed component that changed
+        private final String[] fields;
+    }
+}
@@ -0,0 +1,388 @@
+package org.home.productivity.traverse.graph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.home.productivity.traverse.commons.BinaryFormats;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the component graph of this application, or a graph from the
+ * {@link GraphStore}, straight to an output stream.
+ * <p>
+ * Nodes are beans and request mappings, edges are bean dependencies and the
+ * mappings handled by each controller. Everything is read from the bean
+ * factory and handler mappings as it is written, nothing is collected up front,
+ * so memory use stays flat however big the graph gets
+ * <p>
+ * Formats supported are a single json document with a nodes and an edges
+ * array, NDJSON with one node or edge per line so clients can process it as it
+ * arrives, and the json document's shape in Smile or CBOR, see
+ * {@link BinaryFormats}
+ */
+@Component
+@Slf4j
+public class GraphExporter {
+
+    public enum Format {
+        JSON, NDJSON, SMILE, CBOR
+    }
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    private final ObjectMapper objectMapper;
+
+    private final SmileFactory smileFactory = BinaryFormats.smileFactory();
+
+    private final CBORFactory cborFactory = BinaryFormats.cborFactory();
+
+    @Autowired
+    public GraphExporter(ConfigurableApplicationContext applicationContext, ObjectMapper objectMapper) {
+        this.applicationContext = applicationContext;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the graph, limited to beans in packages matched
+     *
+     * @param out
+     * @param format
+     * @param packageMatcher
+     * @throws IOException
+     */
+    public void export(OutputStream out, Format format, PackageMatcher packageMatcher) throws IOException {
+        var start = System.nanoTime();
+        var timedOut = new FirstByteOutputStream(out);
+        try (var generator = createGenerator(timedOut, format)) {
+            var sink = (format == Format.NDJSON ? new NdjsonSink(generator) : new JsonSink(generator));
+            // nodes and edges are separate passes so that json can write them as
+            // two arrays without holding on to either
+            sink.startNodes();
+            var nodes = writeNodes(sink, packageMatcher);
+            sink.startEdges();
+            var edges = writeEdges(sink, packageMatcher);
+            sink.end();
+            log.info("Exported graph as {}: {} nodes and {} edges, first byte after {}ms, done in {}ms", format,
+                    nodes, edges, timedOut.firstByteMillis(start), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Write a graph from the {@link GraphStore}, limited to nodes whose type is in
+     * packages matched
+     *
+     * @param out
+     * @param format
+     * @param graph
+     * @param packageMatcher
+     * @throws IOException
+     */
+    public void export(OutputStream out, Format format, ComponentGraph graph, PackageMatcher packageMatcher)
+            throws IOException {
+        var start = System.nanoTime();
+        var timedOut = new FirstByteOutputStream(out);
+        try (var generator = createGenerator(timedOut, format)) {
+            var sink = (format == Format.NDJSON ? new NdjsonSink(generator) : new JsonSink(generator));
+            // matches are worked out once, a node is matched for its own sake and
+            // again for every edge pointing at it
+            var matched = new BitSet(graph.nodeCount());
+            for (var node = 0; node < graph.nodeCount(); node++) {
+                var type = graph.type(node);
+                if (type != null && packageMatcher.matches(ClassUtils.getPackageName(type))) {
+                    matched.set(node);
+                }
+            }
+            sink.startNodes();
+            var nodes = 0L;
+            for (var node = matched.nextSetBit(0); node >= 0; node = matched.nextSetBit(node + 1)) {
+                sink.startNode();
+                generator.writeStringField("id", graph.name(node));
+                generator.writeStringField("kind", graph.kind(node).name().toLowerCase());
+                generator.writeStringField("type", graph.type(node));
+                sink.endNode(nodes++ == 0);
+            }
+            sink.startEdges();
+            var edges = 0L;
+            var forwardOffsets = graph.forwardOffsets();
+            var forwardTargets = graph.forwardTargets();
+            for (var node = matched.nextSetBit(0); node >= 0; node = matched.nextSetBit(node + 1)) {
+                for (var i = forwardOffsets[node]; i < forwardOffsets[node + 1]; i++) {
+                    if (matched.get(forwardTargets[i])) {
+                        sink.writeEdge(graph.name(node), graph.name(forwardTargets[i]), "depends");
+                        edges++;
+                    }
+                }
+            }
+            sink.end();
+            log.info("Exported graph version {} as {}: {} nodes and {} edges, first byte after {}ms, done in {}ms",
+                    graph.getVersion(), format, nodes, edges, timedOut.firstByteMillis(start),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out, Format format) throws IOException {
+        return switch (format) {
+            case SMILE -> smileFactory.createGenerator(out);
+            case CBOR -> cborFactory.createGenerator(out);
+            default -> objectMapper.getFactory().createGenerator(out);
+        };
+    }
+
+    private long writeNodes(Sink sink, PackageMatcher packageMatcher) throws IOException {
+        var nodes = 0L;
+        var beanFactory = applicationContext.getBeanFactory();
+        for (var beanName : applicationContext.getBeanDefinitionNames()) {
+            var beanType = beanFactory.getType(beanName, false);
+            if (beanType == null || !packageMatcher.matches(beanType.getPackageName())) {
+                continue;
+            }
+            var beanDefinition = beanFactory.getBeanDefinition(beanName);
+            var generator = sink.startNode();
+            generator.writeStringField("id", beanName);
+            generator.writeStringField("kind", "bean");
+            generator.writeStringField("type", ClassUtils.getUserClass(beanType).getName());
+            generator.writeStringField("scope", (StringUtils.isNotBlank(beanDefinition.getScope())
+                    ? beanDefinition.getScope() : BeanDefinition.SCOPE_SINGLETON));
+            generator.writeStringField("resource", beanDefinition.getResourceDescription());
+            sink.endNode(nodes++ == 0);
+        }
+        for (var entry : handlerMapping().getHandlerMethods().entrySet()) {
+            var handlerMethod = entry.getValue();
+            if (!packageMatcher.matches(handlerMethod.getBeanType().getPackageName())) {
+                continue;
+            }
+            for (var id : endpointIds(entry.getKey())) {
+                var generator = sink.startNode();
+                generator.writeStringField("id", id);
+                generator.writeStringField("kind", "endpoint");
+                generator.writeStringField("handler", handlerMethod.toString());
+                sink.endNode(nodes++ == 0);
+            }
+        }
+        return nodes;
+    }
+
+    private long writeEdges(Sink sink, PackageMatcher packageMatcher) throws IOException {
+        var edges = 0L;
+        var beanFactory = applicationContext.getBeanFactory();
+        for (var beanName : applicationContext.getBeanDefinitionNames()) {
+            var beanType = beanFactory.getType(beanName, false);
+            if (beanType == null || !packageMatcher.matches(beanType.getPackageName())) {
+                continue;
+            }
+            for (var dependency : beanFactory.getDependenciesForBean(beanName)) {
+                // only edges between nodes that were written
+                var dependencyType = (beanFactory.containsBean(dependency) ? beanFactory.getType(dependency, false)
+                        : null);
+                if (dependencyType != null && packageMatcher.matches(dependencyType.getPackageName())) {
+                    sink.writeEdge(beanName, dependency, "depends");
+                    edges++;
+                }
+            }
+        }
+        for (var entry : handlerMapping().getHandlerMethods().entrySet()) {
+            var handlerMethod = entry.getValue();
+            if (!packageMatcher.matches(handlerMethod.getBeanType().getPackageName())
+                    || !(handlerMethod.getBean() instanceof String controller)) {
+                continue;
+            }
+            for (var id : endpointIds(entry.getKey())) {
+                sink.writeEdge(controller, id, "handles");
+                edges++;
+            }
+        }
+        return edges;
+    }
+
+    private RequestMappingHandlerMapping handlerMapping() {
+        return applicationContext.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+    }
+
+    /**
+     * Endpoint ids of a mapping, one for each method and path, i.e. GET
+     * /api/v1/mappings. Mappings without methods are left out as they are for
+     * /info
+     */
+    private static Iterable<String> endpointIds(RequestMappingInfo requestMappingInfo) {
+        var methods = requestMappingInfo.getMethodsCondition().getMethods();
+        var paths = requestMappingInfo.getPatternValues();
+        return () -> methods.stream()
+                .flatMap(method -> paths.stream().map(path -> method.name() + " " + path))
+                .iterator();
+    }
+
+    /**
+     * Where nodes and edges end up, decides how they are framed
+     */
+    private abstract static class Sink {
+        protected final JsonGenerator generator;
+
+        private Sink(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        abstract void startNodes() throws IOException;
+
+        abstract void startEdges() throws IOException;
+
+        abstract void end() throws IOException;
+
+        JsonGenerator startNode() throws IOException {
+            generator.writeStartObject();
+            return generator;
+        }
+
+        void endNode(boolean first) throws IOException {
+            generator.writeEndObject();
+            if (first) {
+                // get the first node out the door rather than wait for buffers to
+                // fill up, clients can start working with it right away
+                generator.flush();
+            }
+        }
+
+        void writeEdge(String from, String to, String kind) throws IOException {
+            generator.writeStartObject();
+            writeEdgeFields(from, to, kind);
+            generator.writeEndObject();
+        }
+
+        protected void writeEdgeFields(String from, String to, String kind) throws IOException {
+            generator.writeStringField("from", from);
+            generator.writeStringField("to", to);
+            generator.writeStringField("kind", kind);
+        }
+    }
+
+    private static final class JsonSink extends Sink {
+        private JsonSink(JsonGenerator generator) {
+            super(generator);
+        }
+
+        @Override
+        void startNodes() throws IOException {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("nodes");
+        }
+
+        @Override
+        void startEdges() throws IOException {
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("edges");
+        }
+
+        @Override
+        void end() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private static final class NdjsonSink extends Sink {
+        private NdjsonSink(JsonGenerator generator) {
+            super(generator);
+            // lines are terminated explicitly, no separator between root values
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void startNodes() {
+            // nothing to open, every line stands on its own
+        }
+
+        @Override
+        void startEdges() {
+            // nothing to open, every line stands on its own
+        }
+
+        @Override
+        void end() {
+            // nothing to close, every line stands on its own
+        }
+
+        @Override
+        JsonGenerator startNode() throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("element", "node");
+            return generator;
+        }
+
+        @Override
+        void endNode(boolean first) throws IOException {
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            if (first) {
+                generator.flush();
+            }
+        }
+
+        @Override
+        void writeEdge(String from, String to, String kind) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("element", "edge");
+            writeEdgeFields(from, to, kind);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Notes when the first byte is handed to the underlying stream
+     */
+    private static final class FirstByteOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long firstByteNanos;
+
+        private FirstByteOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        long firstByteMillis(long start) {
+            return (firstByteNanos == 0 ? -1 : (firstByteNanos - start) / 1_000_000);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            noteFirstByte();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            noteFirstByte();
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void noteFirstByte() {
+            if (firstByteNanos == 0) {
+                firstByteNanos = System.nanoTime();
+            }
+        }
+    }
+}
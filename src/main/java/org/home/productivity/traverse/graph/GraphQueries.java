@@ -0,0 +1,208 @@
+package org.home.productivity.traverse.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Traversals over the CSR adjacency of a {@link ComponentGraph}.
+ * <p>
+ * Breadth first searches keep the visited set and the current and next
+ * frontier as plain long[] bitsets, a whole level is expanded by walking the
+ * set bits of the frontier so there is no queue and nothing allocated per node
+ */
+final class GraphQueries {
+
+    private GraphQueries() {
+    }
+
+    /**
+     * Everything reachable from node, not including node itself
+     *
+     * @param graph
+     * @param node
+     * @param dependents false to follow dependencies, true to follow dependents
+     * @return
+     */
+    static BitSet reachable(ComponentGraph graph, int node, boolean dependents) {
+        var offsets = (dependents ? graph.reverseOffsets() : graph.forwardOffsets());
+        var targets = (dependents ? graph.reverseTargets() : graph.forwardTargets());
+        var words = (graph.nodeCount() + 63) >>> 6;
+        var visited = new long[words];
+        var frontier = new long[words];
+        var next = new long[words];
+        set(visited, node);
+        set(frontier, node);
+        var more = true;
+        while (more) {
+            more = false;
+            for (var word = 0; word < words; word++) {
+                var bits = frontier[word];
+                while (bits != 0) {
+                    var from = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    for (var i = offsets[from]; i < offsets[from + 1]; i++) {
+                        var to = targets[i];
+                        if ((visited[to >>> 6] & (1L << to)) == 0) {
+                            set(visited, to);
+                            set(next, to);
+                            more = true;
+                        }
+                    }
+                }
+            }
+            var swap = frontier;
+            frontier = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+        var reachable = BitSet.valueOf(visited);
+        reachable.clear(node);
+        return reachable;
+    }
+
+    /**
+     * Shortest chain of dependencies leading from one node to another
+     *
+     * @param graph
+     * @param from
+     * @param to
+     * @return nodes from first to last, empty when to can't be reached
+     */
+    static int[] shortestPath(ComponentGraph graph, int from, int to) {
+        if (from == to) {
+            return new int[] { from };
+        }
+        var offsets = graph.forwardOffsets();
+        var targets = graph.forwardTargets();
+        var words = (graph.nodeCount() + 63) >>> 6;
+        var visited = new long[words];
+        var frontier = new long[words];
+        var next = new long[words];
+        var parents = new int[graph.nodeCount()];
+        set(visited, from);
+        set(frontier, from);
+        var more = true;
+        while (more) {
+            more = false;
+            for (var word = 0; word < words; word++) {
+                var bits = frontier[word];
+                while (bits != 0) {
+                    var node = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    for (var i = offsets[node]; i < offsets[node + 1]; i++) {
+                        var target = targets[i];
+                        if ((visited[target >>> 6] & (1L << target)) != 0) {
+                            continue;
+                        }
+                        parents[target] = node;
+                        if (target == to) {
+                            return walkBack(parents, from, to);
+                        }
+                        set(visited, target);
+                        set(next, target);
+                        more = true;
+                    }
+                }
+            }
+            var swap = frontier;
+            frontier = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+        return new int[0];
+    }
+
+    /**
+     * Strongly connected components of more than one node, every node in one
+     * depends on every other one, directly or not. Tarjan's algorithm with an
+     * explicit stack so deep graphs don't overflow the thread's stack
+     *
+     * @param graph
+     * @return cycles, biggest first, nodes of each in ascending order
+     */
+    static List<int[]> cycles(ComponentGraph graph) {
+        var offsets = graph.forwardOffsets();
+        var targets = graph.forwardTargets();
+        var nodeCount = graph.nodeCount();
+        var index = new int[nodeCount];
+        var lowLink = new int[nodeCount];
+        Arrays.fill(index, -1);
+        var onStack = new BitSet(nodeCount);
+        var stack = new int[nodeCount];
+        var stackSize = 0;
+        // call stack of the depth first search: node and next edge to follow
+        var callNodes = new int[nodeCount];
+        var callEdges = new int[nodeCount];
+        var nextIndex = 0;
+        List<int[]> cycles = new ArrayList<>();
+        for (var root = 0; root < nodeCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            var depth = 0;
+            callNodes[0] = root;
+            callEdges[0] = offsets[root];
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack.set(root);
+            while (depth >= 0) {
+                var node = callNodes[depth];
+                if (callEdges[depth] < offsets[node + 1]) {
+                    var target = targets[callEdges[depth]++];
+                    if (index[target] < 0) {
+                        index[target] = lowLink[target] = nextIndex++;
+                        stack[stackSize++] = target;
+                        onStack.set(target);
+                        depth++;
+                        callNodes[depth] = target;
+                        callEdges[depth] = offsets[target];
+                    } else if (onStack.get(target)) {
+                        lowLink[node] = Math.min(lowLink[node], index[target]);
+                    }
+                    continue;
+                }
+                if (lowLink[node] == index[node]) {
+                    var start = stackSize;
+                    do {
+                        start--;
+                        onStack.clear(stack[start]);
+                    } while (stack[start] != node);
+                    if (stackSize - start > 1) {
+                        var cycle = Arrays.copyOfRange(stack, start, stackSize);
+                        Arrays.sort(cycle);
+                        cycles.add(cycle);
+                    }
+                    stackSize = start;
+                }
+                depth--;
+                if (depth >= 0) {
+                    var caller = callNodes[depth];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                }
+            }
+        }
+        cycles.sort(Comparator.comparingInt((int[] cycle) -> cycle.length).reversed());
+        return cycles;
+    }
+
+    private static int[] walkBack(int[] parents, int from, int to) {
+        var length = 1;
+        for (var node = to; node != from; node = parents[node]) {
+            length++;
+        }
+        var path = new int[length];
+        var node = to;
+        for (var i = length - 1; i >= 0; i--) {
+            path[i] = node;
+            node = (i > 0 ? parents[node] : node);
+        }
+        return path;
+    }
+
+    private static void set(long[] bits, int bit) {
+        bits[bit >>> 6] |= 1L << bit;
+    }
+}
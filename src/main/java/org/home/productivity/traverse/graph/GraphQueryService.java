@@ -0,0 +1,175 @@
+package org.home.productivity.traverse.graph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Answers "what does this depend on" and "what is affected if this changes"
+ * over a {@link ComponentGraph}, along with shortest dependency paths and
+ * dependency cycles.
+ * <p>
+ * Graphs never change once built and a rebuilt graph gets a new version, so
+ * results are memoized by graph version and query in a small LRU cache. What
+ * is cached is the compact result (bitsets and int arrays), DTOs are created
+ * per request
+ * <p>
+ * Lookups count as cache hits or misses (traverse.cache.requests) and misses
+ * are timed per query (traverse.graph.query)
+ */
+@Service
+@Slf4j
+public class GraphQueryService {
+
+    private final Map<QueryKey, Object> cache;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
+
+    @Autowired
+    public GraphQueryService(MeterRegistry meterRegistry,
+            @Value("${application.graph.query.cache.size:1024}") int cacheSize) {
+        this.meterRegistry = meterRegistry;
+        this.cacheHits = cacheCounter(meterRegistry, "hit");
+        this.cacheMisses = cacheCounter(meterRegistry, "miss");
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryKey, Object> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Everything node depends on, directly or not
+     *
+     * @param graph
+     * @param node
+     * @return
+     */
+    public List<NodeDTO> dependencies(ComponentGraph graph, int node) {
+        var reachable = memoize(new QueryKey(graph.getVersion(), "dependencies", node, -1),
+                () -> GraphQueries.reachable(graph, node, false));
+        return toNodes(graph, reachable);
+    }
+
+    /**
+     * Everything that depends on node, directly or not. In other words what is
+     * affected when node changes
+     *
+     * @param graph
+     * @param node
+     * @return
+     */
+    public List<NodeDTO> dependents(ComponentGraph graph, int node) {
+        var reachable = memoize(new QueryKey(graph.getVersion(), "dependents", node, -1),
+                () -> GraphQueries.reachable(graph, node, true));
+        return toNodes(graph, reachable);
+    }
+
+    /**
+     * Shortest chain of dependencies from one node to another
+     *
+     * @param graph
+     * @param from
+     * @param to
+     * @return nodes from first to last, empty when there is no such chain
+     */
+    public List<NodeDTO> shortestPath(ComponentGraph graph, int from, int to) {
+        int[] path = memoize(new QueryKey(graph.getVersion(), "path", from, to),
+                () -> GraphQueries.shortestPath(graph, from, to));
+        List<NodeDTO> nodes = new ArrayList<>(path.length);
+        for (var node : path) {
+            nodes.add(NodeDTO.of(graph, node));
+        }
+        return nodes;
+    }
+
+    /**
+     * Groups of nodes that depend on each other in a circle, biggest first
+     *
+     * @param graph
+     * @return
+     */
+    public List<List<NodeDTO>> cycles(ComponentGraph graph) {
+        List<int[]> cycles = memoize(new QueryKey(graph.getVersion(), "cycles", -1, -1),
+                () -> GraphQueries.cycles(graph));
+        List<List<NodeDTO>> result = new ArrayList<>(cycles.size());
+        for (var cycle : cycles) {
+            List<NodeDTO> nodes = new ArrayList<>(cycle.length);
+            for (var node : cycle) {
+                nodes.add(NodeDTO.of(graph, node));
+            }
+            result.add(nodes);
+        }
+        return result;
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("traverse.cache.requests")
+                .description("Lookups of cached results")
+                .tag("cache", "graph.query")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T memoize(QueryKey key, Supplier<T> query) {
+        synchronized (cache) {
+            var cached = cache.get(key);
+            if (cached != null) {
+                cacheHits.increment();
+                return (T) cached;
+            }
+        }
+        cacheMisses.increment();
+        // computed outside of the lock, two callers racing for the same key both
+        // compute it which is cheaper than making everyone else wait
+        var start = System.nanoTime();
+        var result = query.get();
+        var nanos = System.nanoTime() - start;
+        Timer.builder("traverse.graph.query")
+                .description("Time spent computing graph queries that were not cached")
+                .tag("query", key.getQuery())
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        log.debug("Computed: {} in {}us", key, nanos / 1_000);
+        synchronized (cache) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    private static List<NodeDTO> toNodes(ComponentGraph graph, BitSet reachable) {
+        List<NodeDTO> nodes = new ArrayList<>(reachable.cardinality());
+        for (var node = reachable.nextSetBit(0); node >= 0; node = reachable.nextSetBit(node + 1)) {
+            nodes.add(NodeDTO.of(graph, node));
+        }
+        return nodes;
+    }
+
+    @Data
+    private static final class QueryKey {
+        private final long version;
+        private final String query;
+        private final int from;
+        private final int to;
+    }
+}
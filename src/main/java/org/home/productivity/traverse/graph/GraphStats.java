@@ -0,0 +1,18 @@
+package org.home.productivity.traverse.graph;
+
+import lombok.Data;
+
+/**
+ * Size of a {@link ComponentGraph} and its estimated heap use
+ */
+@Data
+public class GraphStats {
+    private final long version;
+    private final int nodes;
+    private final int edges;
+    private final long estimatedBytes;
+    // names, types and offsets
+    private final double bytesPerNode;
+    // adjacency in both directions
+    private final double bytesPerEdge;
+}
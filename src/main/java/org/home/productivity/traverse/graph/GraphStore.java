@@ -0,0 +1,317 @@
+package org.home.productivity.traverse.graph;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.home.productivity.traverse.fleet.ServiceSnapshot;
+import org.home.productivity.traverse.graph.ComponentGraph.NodeKind;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the {@link ComponentGraph} of this application, rebuilt each time the
+ * application context is refreshed, of every target application scanned since
+ * startup, replaced on each scan, and of the fleet of running services last
+ * harvested
+ */
+@Component
+@Slf4j
+public class GraphStore {
+
+    private static final String VALUE = "org.springframework.beans.factory.annotation.Value";
+
+    private static final String OBJECT = "java.lang.Object";
+
+    /**
+     * Path that stands for the fleet graph rather than a scanned target
+     */
+    public static final String FLEET = "fleet";
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    private final Map<String, ComponentGraph> targetGraphs = new ConcurrentHashMap<>();
+
+    private volatile ComponentGraph applicationGraph;
+
+    private volatile ComponentGraph fleetGraph;
+
+    @Autowired
+    public GraphStore(ConfigurableApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @EventListener
+    void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != applicationContext) {
+            return;
+        }
+        applicationGraph = buildApplicationGraph();
+    }
+
+    /**
+     * Graph of this application's beans and request mappings
+     *
+     * @return
+     */
+    public ComponentGraph getApplicationGraph() {
+        var graph = applicationGraph;
+        if (graph == null) {
+            synchronized (this) {
+                if (applicationGraph == null) {
+                    applicationGraph = buildApplicationGraph();
+                }
+                graph = applicationGraph;
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Graph of this application or of a scanned target
+     *
+     * @param path scanned target application, {@link #FLEET} for the fleet or
+     *             null for this application
+     * @return graph or null when target has not been scanned
+     */
+    public ComponentGraph getGraph(String path) {
+        if (FLEET.equals(path)) {
+            return fleetGraph;
+        }
+        return (path == null ? getApplicationGraph()
+                : getTargetGraph(Path.of(path).toAbsolutePath().normalize().toString()));
+    }
+
+    /**
+     * Graph of the services of the last fleet harvest
+     *
+     * @return graph or null when no fleet has been harvested
+     */
+    public ComponentGraph getFleetGraph() {
+        return fleetGraph;
+    }
+
+    /**
+     * Graph of the components found by the last scan of a target, all of them
+     * whatever packages the scan was limited to
+     *
+     * @param target
+     * @return graph or null when target has not been scanned
+     */
+    public ComponentGraph getTargetGraph(String target) {
+        return targetGraphs.get(target);
+    }
+
+    /**
+     * Replace the graph of a target with one built from a scan
+     *
+     * @param target
+     * @param result
+     * @return
+     */
+    public ComponentGraph update(String target, ScanResult result) {
+        return update(target, result.getComponents());
+    }
+
+    /**
+     * Replace the graph of a target with one built from its components, i.e.
+     * as patched by a watch of the target
+     *
+     * @param target
+     * @param components
+     * @return
+     */
+    public ComponentGraph update(String target, List<ScannedClass> components) {
+        var graph = buildTargetGraph(components);
+        targetGraphs.put(target, graph);
+        log.info("Built graph of: {}, {}", target, graph.getStats());
+        return graph;
+    }
+
+    /**
+     * Replace the fleet graph with one built from the services harvested
+     *
+     * @param snapshots
+     * @return
+     */
+    public ComponentGraph updateFleet(List<ServiceSnapshot> snapshots) {
+        var graph = buildFleetGraph(snapshots);
+        fleetGraph = graph;
+        log.info("Built graph of fleet of {} services, {}", snapshots.size(), graph.getStats());
+        return graph;
+    }
+
+    private ComponentGraph buildApplicationGraph() {
+        try {
+            var start = System.nanoTime();
+            var builder = ComponentGraph.builder();
+            var beanFactory = applicationContext.getBeanFactory();
+            var beanNames = applicationContext.getBeanDefinitionNames();
+            for (var beanName : beanNames) {
+                var beanType = beanFactory.getType(beanName, false);
+                builder.node(beanName, NodeKind.BEAN,
+                        (beanType == null ? null : ClassUtils.getUserClass(beanType).getName()));
+            }
+            for (var beanName : beanNames) {
+                var node = builder.node(beanName);
+                for (var dependency : beanFactory.getDependenciesForBean(beanName)) {
+                    var dependencyNode = builder.node(dependency);
+                    if (dependencyNode >= 0) {
+                        builder.edge(node, dependencyNode);
+                    }
+                }
+            }
+            var handlerMapping = applicationContext.getBean("requestMappingHandlerMapping",
+                    RequestMappingHandlerMapping.class);
+            handlerMapping.getHandlerMethods().forEach((requestMappingInfo, handlerMethod) -> {
+                if (!(handlerMethod.getBean() instanceof String controller) || builder.node(controller) < 0) {
+                    return;
+                }
+                var controllerNode = builder.node(controller);
+                var type = ClassUtils.getUserClass(handlerMethod.getBeanType()).getName();
+                for (var method : requestMappingInfo.getMethodsCondition().getMethods()) {
+                    for (var path : requestMappingInfo.getPatternValues()) {
+                        // controllers depend on nothing of the sort but "what is affected
+                        // when this bean changes" should include its endpoints
+                        builder.edge(builder.node(method.name() + " " + path, NodeKind.ENDPOINT, type), controllerNode);
+                    }
+                }
+            });
+            var graph = builder.build();
+            log.info("Built application graph in {}ms, {}", (System.nanoTime() - start) / 1_000_000,
+                    graph.getStats());
+            return graph;
+        } catch (Exception e) {
+            var msg = "Exception occurred while building application graph";
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    /**
+     * Components become nodes, their @Bean methods nodes of their own, and
+     * injection points edges to whatever provides the injected type: a component
+     * of that type (or extending/implementing it) or a @Bean method returning it.
+     * Only the hierarchy of scanned components is known so providers through
+     * unscanned super types are missed
+     *
+     * @param components
+     * @return
+     */
+    static ComponentGraph buildTargetGraph(List<ScannedClass> components) {
+        var builder = ComponentGraph.builder();
+        Map<String, List<Integer>> providers = new HashMap<>();
+        for (var component : components) {
+            var node = builder.node(component.getName(), NodeKind.COMPONENT, component.getName());
+            addProvider(providers, component.getName(), node);
+            if (component.getSuperName() != null && !OBJECT.equals(component.getSuperName())) {
+                addProvider(providers, component.getSuperName(), node);
+            }
+            for (var anInterface : component.getInterfaces()) {
+                addProvider(providers, anInterface, node);
+            }
+            for (var beanMethod : component.getBeanMethods()) {
+                var beanNode = builder.node(beanMethodNode(component, beanMethod), NodeKind.BEAN_METHOD,
+                        beanMethod.getReturnType());
+                addProvider(providers, beanMethod.getReturnType(), beanNode);
+                // the factory method belongs to its configuration
+                builder.edge(beanNode, node);
+            }
+        }
+        for (var component : components) {
+            var node = builder.node(component.getName());
+            for (var injectionPoint : component.getInjectionPoints()) {
+                if (isInjected(injectionPoint)) {
+                    addEdges(builder, node, providers.get(injectionPoint.getType()));
+                }
+            }
+            for (var beanMethod : component.getBeanMethods()) {
+                var beanName = (beanMethod.getNames().length > 0 ? beanMethod.getNames()[0] : beanMethod.getMethod());
+                var beanNode = builder.node(component.getName() + "#" + beanName);
+                for (var parameterType : beanMethod.getParameterTypes()) {
+                    addEdges(builder, beanNode, providers.get(parameterType));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * One graph of many services, laid out like the application graph: beans
+     * depend on their dependencies and endpoints on their controller. Names are
+     * prefixed with the service, i.e. orders:orderService and orders:GET
+     * /orders, so services with beans of the same name stay apart
+     *
+     * @param snapshots
+     * @return
+     */
+    static ComponentGraph buildFleetGraph(List<ServiceSnapshot> snapshots) {
+        var builder = ComponentGraph.builder();
+        for (var snapshot : snapshots) {
+            var prefix = snapshot.getService() + ":";
+            Map<String, Integer> controllers = new HashMap<>();
+            snapshot.getBeans().forEach((beanName, bean) -> {
+                var node = builder.node(prefix + beanName, NodeKind.BEAN, bean.getType());
+                if (bean.getType() != null) {
+                    controllers.putIfAbsent(bean.getType(), node);
+                }
+            });
+            snapshot.getBeans().forEach((beanName, bean) -> {
+                var node = builder.node(prefix + beanName);
+                for (var dependency : bean.getDependencies()) {
+                    var dependencyNode = builder.node(prefix + dependency);
+                    if (dependencyNode >= 0) {
+                        builder.edge(node, dependencyNode);
+                    }
+                }
+            });
+            for (var endpoint : snapshot.getEndpoints()) {
+                var controllerNode = controllers.get(endpoint.getHandlerType());
+                if (controllerNode == null) {
+                    continue;
+                }
+                builder.edge(builder.node(prefix + endpoint.getMethod() + " " + endpoint.getPath(), NodeKind.ENDPOINT,
+                        endpoint.getHandlerType()), controllerNode);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Name of the node of a @Bean method: its component and bean name
+     *
+     * @param component
+     * @param beanMethod
+     * @return
+     */
+    static String beanMethodNode(ScannedClass component, ScannedClass.BeanMethod beanMethod) {
+        var beanName = (beanMethod.getNames().length > 0 ? beanMethod.getNames()[0] : beanMethod.getMethod());
+        return component.getName() + "#" + beanName;
+    }
+
+    static boolean isInjected(ScannedClass.InjectionPoint injectionPoint) {
+        return !VALUE.equals(injectionPoint.getAnnotation());
+    }
+
+    private static void addProvider(Map<String, List<Integer>> providers, String type, int node) {
+        providers.computeIfAbsent(type, key -> new ArrayList<>(1)).add(node);
+    }
+
+    private static void addEdges(ComponentGraph.Builder builder, int node, List<Integer> targets) {
+        if (targets != null) {
+            targets.forEach(target -> builder.edge(node, target));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.home.productivity.traverse.graph;
+
+/**
+ * Rough heap sizes of common shapes on a 64 bit JVM with compressed oops, good
+ * enough to compare representations against each other
+ */
+final class MemoryEstimates {
+
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+
+    private MemoryEstimates() {
+    }
+
+    static long array(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    static long object(int references, int primitiveBytes) {
+        return align(OBJECT_HEADER + (long) references * REFERENCE + primitiveBytes);
+    }
+
+    /**
+     * A String and its latin1 backing array
+     *
+     * @param value
+     * @return
+     */
+    static long string(String value) {
+        return (value == null ? 0 : object(1, 8) + array(value.length(), 1));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,17 @@
+package org.home.productivity.traverse.graph;
+
+import lombok.Data;
+
+/**
+ * A node of a {@link ComponentGraph}, intended for serialization to JSON
+ */
+@Data
+public class NodeDTO {
+    private final String id;
+    private final ComponentGraph.NodeKind kind;
+    private final String type;
+
+    static NodeDTO of(ComponentGraph graph, int node) {
+        return new NodeDTO(graph.name(node), graph.kind(node), graph.type(node));
+    }
+}
@@ -0,0 +1,106 @@
+package org.home.productivity.traverse.graph;
+
+import java.util.Arrays;
+
+/**
+ * Interns strings into dense int ids, 0 to size - 1 in order of first sight.
+ * <p>
+ * Open addressing over a plain int array so a lookup costs a hash and a few
+ * array reads, no boxed keys or entry objects. Not thread safe while being
+ * filled, read only after that
+ */
+final class SymbolTable {
+
+    private String[] symbols = new String[16];
+    // id + 1 of the symbol hashed to each slot, 0 for an empty slot
+    private int[] slots = new int[32];
+    private int size;
+
+    /**
+     * Id of symbol, added if not seen before
+     *
+     * @param symbol
+     * @return
+     */
+    int intern(String symbol) {
+        var slot = slot(symbol);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+        }
+        symbols[size] = symbol;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Id of symbol
+     *
+     * @param symbol
+     * @return id or -1 when unknown
+     */
+    int id(String symbol) {
+        return slots[slot(symbol)] - 1;
+    }
+
+    String symbol(int id) {
+        return symbols[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Trim to size once filled
+     */
+    void compact() {
+        symbols = Arrays.copyOf(symbols, size);
+    }
+
+    /**
+     * Estimated heap use of the table and its strings, assuming compressed oops
+     * and latin1 strings
+     *
+     * @return
+     */
+    long estimatedBytes() {
+        long bytes = MemoryEstimates.array(slots.length, 4) + MemoryEstimates.array(symbols.length, 4);
+        for (var i = 0; i < size; i++) {
+            bytes += MemoryEstimates.string(symbols[i]);
+        }
+        return bytes;
+    }
+
+    private int slot(String symbol) {
+        var mask = slots.length - 1;
+        var slot = hash(symbol) & mask;
+        while (slots[slot] != 0 && !symbols[slots[slot] - 1].equals(symbol)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(String symbol) {
+        // spread the high bits down the way HashMap does, only the low bits pick a slot
+        var hash = symbol.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        var mask = slots.length - 1;
+        for (var i = 0; i < size; i++) {
+            var slot = hash(symbols[i]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.home.productivity.traverse.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A class file or nested archive of a {@link ScanTarget} as of its last scan.
+ * <p>
+ * Ids come from a sequence handing out blocks of ids so inserts can be batched
+ * (identity columns force Hibernate to insert one row at a time). The scanned
+ * class is kept as json since it is only ever read back whole
+ */
+@Entity
+@Table(indexes = @Index(columnList = "targetId"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ClassRecord {
+
+    public static final int ALLOCATION_SIZE = 500;
+
+    public static final int MAX_JSON_LENGTH = 1_000_000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "class_record_seq")
+    @SequenceGenerator(name = "class_record_seq", allocationSize = ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long targetId;
+
+    @Column(nullable = false, length = 2048)
+    private String entryKey;
+
+    private long contentHash;
+
+    private boolean archive;
+
+    // null for archives and class files that were skipped or failed to parse.
+    // Varchar rather than a lob, lobs are fetched one round trip at a time
+    @Column(length = MAX_JSON_LENGTH)
+    private String scannedClass;
+
+    public ClassRecord(Long targetId, String entryKey, long contentHash, boolean archive, String scannedClass) {
+        this.targetId = targetId;
+        this.entryKey = entryKey;
+        this.contentHash = contentHash;
+        this.archive = archive;
+        this.scannedClass = scannedClass;
+    }
+}
@@ -0,0 +1,40 @@
+package org.home.productivity.traverse.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.home.productivity.traverse.model.ClassRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import lombok.Data;
+
+public interface ClassRecordRepository extends JpaRepository<ClassRecord, Long> {
+
+    List<ClassRecord> findByTargetId(Long targetId);
+
+    // constructor expression rather than entities (or interface projections) as
+    // tens of thousands of records get read per scan
+    @Query("select new org.home.productivity.traverse.repository.ClassRecordRepository$StoredEntry("
+            + "r.entryKey, r.contentHash, r.archive, r.scannedClass) from ClassRecord r where r.targetId = :targetId")
+    List<StoredEntry> findEntriesByTargetId(@Param("targetId") Long targetId);
+
+    @Modifying
+    @Query("delete from ClassRecord r where r.targetId = :targetId and r.entryKey in :entryKeys")
+    int deleteByTargetIdAndEntryKeyIn(@Param("targetId") Long targetId,
+            @Param("entryKeys") Collection<String> entryKeys);
+
+    @Modifying
+    @Query("delete from ClassRecord r where r.targetId = :targetId")
+    int deleteByTargetId(@Param("targetId") Long targetId);
+
+    @Data
+    class StoredEntry {
+        private final String entryKey;
+        private final long contentHash;
+        private final boolean archive;
+        private final String scannedClass;
+    }
+}
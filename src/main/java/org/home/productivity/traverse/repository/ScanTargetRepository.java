@@ -0,0 +1,11 @@
+package org.home.productivity.traverse.repository;
+
+import java.util.Optional;
+
+import org.home.productivity.traverse.model.ScanTarget;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ScanTargetRepository extends JpaRepository<ScanTarget, Long> {
+
+    Optional<ScanTarget> findByPath(String path);
+}
@@ -0,0 +1,431 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+
+/**
+ * Gathers the calls of every class in scope while a scan parses them in
+ * parallel, and turns them into a call graph once the scan is done.
+ * <p>
+ * Class, method and descriptor names go through one symbol table shared by all
+ * parsing threads, and so do methods (owner, name and descriptor symbols), so
+ * each distinct string is held once however many classes mention it and a
+ * call is two ints.
+ * <p>
+ * Calls are resolved by class hierarchy analysis: a call to a method may end
+ * up in any override of it in a subtype, or in the supertype that declares it
+ * when it is inherited. Only the hierarchy of classes in scope is known, calls
+ * into libraries end there
+ */
+final class CallCollector {
+
+    private static final String[] CLASSES_ROOTS = { "BOOT-INF/classes/", "WEB-INF/classes/" };
+
+    // supertypes of Spring Data repositories, reached through their interfaces
+    private static final String SPRING_DATA = "org/springframework/data/";
+
+    // http clients declared as interfaces, reached through their interfaces too
+    private static final Set<String> CLIENT_ANNOTATIONS = Set.of(
+            "org.springframework.cloud.openfeign.FeignClient",
+            "org.springframework.web.service.annotation.HttpExchange");
+
+    private final PackageMatcher packageMatcher;
+    private final Map<String, Integer> symbols = new ConcurrentHashMap<>();
+    private final AtomicInteger symbolCount = new AtomicInteger();
+    private final Map<MethodKey, Integer> methods = new ConcurrentHashMap<>();
+    private final AtomicInteger methodCount = new AtomicInteger();
+    private final ConcurrentLinkedQueue<ClassCalls> classCalls = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param packageMatcher classes whose calls are followed, null for all
+     */
+    CallCollector(PackageMatcher packageMatcher) {
+        this.packageMatcher = packageMatcher;
+    }
+
+    /**
+     * Whether the calls of the class file under this path or entry name are
+     * followed
+     *
+     * @param name i.e. BOOT-INF/classes/com/example/OrderService.class
+     * @return
+     */
+    boolean inScope(String name) {
+        if (packageMatcher == null) {
+            return true;
+        }
+        var start = 0;
+        for (var root : CLASSES_ROOTS) {
+            if (name.startsWith(root)) {
+                start = root.length();
+                break;
+            }
+        }
+        var lastSlash = name.lastIndexOf('/');
+        return lastSlash > start && packageMatcher.matches(name.substring(start, lastSlash).replace('/', '.'));
+    }
+
+    int symbol(String value) {
+        var symbol = symbols.get(value);
+        return (symbol != null ? symbol : symbols.computeIfAbsent(value, absent -> symbolCount.getAndIncrement()));
+    }
+
+    int method(int owner, int name, int descriptor) {
+        var key = new MethodKey(owner, name, descriptor);
+        var method = methods.get(key);
+        return (method != null ? method : methods.computeIfAbsent(key, absent -> methodCount.getAndIncrement()));
+    }
+
+    void add(ClassCalls calls) {
+        classCalls.add(calls);
+    }
+
+    /**
+     * Resolve the calls collected so far into a call graph, and follow it from
+     * every request mapping to the components it reaches
+     *
+     * @param target         what was scanned
+     * @param classes        everything the scan found, to tell components
+     * @param durationMillis
+     * @return
+     */
+    CallGraph build(String target, List<ScannedClass> classes, long durationMillis) {
+        var symbolNames = new String[symbolCount.get()];
+        symbols.forEach((value, symbol) -> symbolNames[symbol] = value);
+        var methodCount = this.methodCount.get();
+        var owners = new int[methodCount];
+        var signatures = new long[methodCount];
+        methods.forEach((key, method) -> {
+            owners[method] = key.owner;
+            signatures[method] = key.signature();
+        });
+
+        // the same class may be found in more than one jar, first one wins
+        Map<Integer, ClassCalls> classesBySymbol = new HashMap<>();
+        for (var calls : classCalls) {
+            classesBySymbol.putIfAbsent(calls.classSymbol, calls);
+        }
+        Map<Integer, List<Integer>> subtypes = new HashMap<>();
+        for (var calls : classesBySymbol.values()) {
+            if (calls.superSymbol >= 0) {
+                subtypes.computeIfAbsent(calls.superSymbol, supertype -> new ArrayList<>()).add(calls.classSymbol);
+            }
+            for (var anInterface : calls.interfaceSymbols) {
+                subtypes.computeIfAbsent(anInterface, supertype -> new ArrayList<>()).add(calls.classSymbol);
+            }
+        }
+
+        var edges = new Ints();
+        for (var calls : classesBySymbol.values()) {
+            edges.addAll(calls.calls);
+        }
+        var callCount = edges.size() / 2;
+        for (var method = 0; method < methodCount; method++) {
+            var owner = classesBySymbol.get(owners[method]);
+            if (owner == null) {
+                continue;
+            }
+            var declared = owner.declares(signatures[method], owners, signatures);
+            if (declared < 0) {
+                var inherited = inherited(owner, signatures[method], classesBySymbol, owners, signatures);
+                if (inherited >= 0) {
+                    edges.add(method);
+                    edges.add(inherited);
+                }
+            }
+            if (subtypes.containsKey(owner.classSymbol)) {
+                overrides(owner.classSymbol, method, signatures[method], classesBySymbol, subtypes, owners,
+                        signatures, new HashSet<>(), edges);
+            }
+        }
+
+        var targets = targets(classes, classesBySymbol, symbolNames);
+        var graph = Csr.of(methodCount, edges);
+        var visited = new int[methodCount];
+        var queue = new int[methodCount];
+        var epoch = 0;
+        // shared by every endpoint that reaches the same component
+        var componentNames = new String[symbolNames.length];
+        List<CallGraph.EndpointCalls> endpoints = new ArrayList<>();
+        for (var calls : classesBySymbol.values()) {
+            for (var endpoint : calls.endpoints) {
+                epoch++;
+                Set<String> components = new TreeSet<>();
+                var head = 0;
+                var tail = 0;
+                queue[tail++] = endpoint.method;
+                visited[endpoint.method] = epoch;
+                while (head < tail) {
+                    var method = queue[head++];
+                    var owner = owners[method];
+                    if (owner != calls.classSymbol && targets.contains(owner)) {
+                        if (componentNames[owner] == null) {
+                            componentNames[owner] = symbolNames[owner].replace('/', '.');
+                        }
+                        components.add(componentNames[owner]);
+                    }
+                    for (var edge = graph.offsets[method]; edge < graph.offsets[method + 1]; edge++) {
+                        var callee = graph.callees[edge];
+                        if (visited[callee] != epoch) {
+                            visited[callee] = epoch;
+                            queue[tail++] = callee;
+                        }
+                    }
+                }
+                endpoints.add(new CallGraph.EndpointCalls(endpoint.name, endpoint.handler, List.copyOf(components)));
+            }
+        }
+        endpoints.sort(Comparator.comparing(CallGraph.EndpointCalls::getEndpoint)
+                .thenComparing(CallGraph.EndpointCalls::getHandler));
+        return new CallGraph(target, durationMillis, classesBySymbol.size(), methodCount, callCount,
+                symbolNames.length, endpoints);
+    }
+
+    /**
+     * Declaration of an inherited method, up the superclass chain and then
+     * through interfaces for default methods
+     */
+    private static int inherited(ClassCalls owner, long signature, Map<Integer, ClassCalls> classesBySymbol,
+            int[] owners, long[] signatures) {
+        for (var supertype = classesBySymbol.get(owner.superSymbol); supertype != null; supertype = classesBySymbol
+                .get(supertype.superSymbol)) {
+            var declared = supertype.declares(signature, owners, signatures);
+            if (declared >= 0) {
+                return declared;
+            }
+        }
+        for (var anInterface : owner.interfaceSymbols) {
+            var interfaceCalls = classesBySymbol.get(anInterface);
+            if (interfaceCalls != null) {
+                var declared = interfaceCalls.declares(signature, owners, signatures);
+                if (declared < 0) {
+                    declared = inherited(interfaceCalls, signature, classesBySymbol, owners, signatures);
+                }
+                if (declared >= 0) {
+                    return declared;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds an edge from method to each override of it in a subtype of type
+     */
+    private static void overrides(int type, int method, long signature, Map<Integer, ClassCalls> classesBySymbol,
+            Map<Integer, List<Integer>> subtypes, int[] owners, long[] signatures, Set<Integer> seen, Ints edges) {
+        var direct = subtypes.get(type);
+        if (direct == null) {
+            return;
+        }
+        for (var subtype : direct) {
+            if (!seen.add(subtype)) {
+                continue;
+            }
+            var override = classesBySymbol.get(subtype).declares(signature, owners, signatures);
+            if (override >= 0) {
+                edges.add(method);
+                edges.add(override);
+            }
+            overrides(subtype, method, signature, classesBySymbol, subtypes, owners, signatures, seen, edges);
+        }
+    }
+
+    /**
+     * Classes whose methods being reached makes them worth reporting:
+     * components, Spring Data repositories and declarative http clients
+     */
+    private Set<Integer> targets(List<ScannedClass> classes, Map<Integer, ClassCalls> classesBySymbol,
+            String[] symbolNames) {
+        Set<Integer> targets = new HashSet<>();
+        for (var scannedClass : classes) {
+            var symbol = symbols.get(scannedClass.getName().replace('.', '/'));
+            if (symbol != null && (scannedClass.isComponent()
+                    || Arrays.stream(scannedClass.getAnnotations()).anyMatch(CLIENT_ANNOTATIONS::contains))) {
+                targets.add(symbol);
+            }
+        }
+        for (var calls : classesBySymbol.values()) {
+            if (calls.isInterface && extendsSpringData(calls, classesBySymbol, symbolNames, new HashSet<>())) {
+                targets.add(calls.classSymbol);
+            }
+        }
+        return targets;
+    }
+
+    private static boolean extendsSpringData(ClassCalls calls, Map<Integer, ClassCalls> classesBySymbol,
+            String[] symbolNames, Set<Integer> seen) {
+        for (var anInterface : calls.interfaceSymbols) {
+            if (!seen.add(anInterface)) {
+                continue;
+            }
+            if (symbolNames[anInterface].startsWith(SPRING_DATA)) {
+                return true;
+            }
+            var interfaceCalls = classesBySymbol.get(anInterface);
+            if (interfaceCalls != null && extendsSpringData(interfaceCalls, classesBySymbol, symbolNames, seen)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * What one class declares and calls, as symbols and methods of the collector
+     */
+    static final class ClassCalls {
+        private final int classSymbol;
+        private final int superSymbol;
+        private final int[] interfaceSymbols;
+        private final boolean isInterface;
+        private final int[] declaredMethods;
+        // caller and callee of each call, interleaved
+        private final int[] calls;
+        private final List<Endpoint> endpoints;
+
+        ClassCalls(int classSymbol, int superSymbol, int[] interfaceSymbols, boolean isInterface,
+                int[] declaredMethods, int[] calls, List<Endpoint> endpoints) {
+            this.classSymbol = classSymbol;
+            this.superSymbol = superSymbol;
+            this.interfaceSymbols = interfaceSymbols;
+            this.isInterface = isInterface;
+            this.declaredMethods = declaredMethods;
+            this.calls = calls;
+            this.endpoints = endpoints;
+        }
+
+        /**
+         * Method of this class with the given name and descriptor, -1 when it
+         * declares none. Classes declare a handful of methods, a scan beats a
+         * map per class
+         */
+        private int declares(long signature, int[] owners, long[] signatures) {
+            for (var method : declaredMethods) {
+                if (signatures[method] == signature && owners[method] == classSymbol) {
+                    return method;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A request mapping and the method handling it
+     */
+    static final class Endpoint {
+        private final int method;
+        // i.e. GET /orders/{id}
+        private final String name;
+        private final String handler;
+
+        Endpoint(int method, String name, String handler) {
+            this.method = method;
+            this.name = name;
+            this.handler = handler;
+        }
+    }
+
+    private static final class MethodKey {
+        private final int owner;
+        private final int name;
+        private final int descriptor;
+
+        private MethodKey(int owner, int name, int descriptor) {
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        private long signature() {
+            return ((long) name << 32) | (descriptor & 0xFFFFFFFFL);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MethodKey key && key.owner == owner && key.name == name
+                    && key.descriptor == descriptor;
+        }
+
+        @Override
+        public int hashCode() {
+            return (owner * 31 + name) * 31 + descriptor;
+        }
+    }
+
+    /**
+     * Calls in compressed sparse row form: the callees of method m are
+     * callees[offsets[m]] up to callees[offsets[m + 1]]
+     */
+    private static final class Csr {
+        private final int[] offsets;
+        private final int[] callees;
+
+        private Csr(int[] offsets, int[] callees) {
+            this.offsets = offsets;
+            this.callees = callees;
+        }
+
+        private static Csr of(int methodCount, Ints edges) {
+            var offsets = new int[methodCount + 1];
+            for (var i = 0; i < edges.size(); i += 2) {
+                offsets[edges.get(i) + 1]++;
+            }
+            for (var method = 0; method < methodCount; method++) {
+                offsets[method + 1] += offsets[method];
+            }
+            var callees = new int[edges.size() / 2];
+            var next = Arrays.copyOf(offsets, methodCount);
+            for (var i = 0; i < edges.size(); i += 2) {
+                callees[next[edges.get(i)]++] = edges.get(i + 1);
+            }
+            return new Csr(offsets, callees);
+        }
+    }
+
+    /**
+     * Growable list of ints, without boxing each of them
+     */
+    static final class Ints {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(int[] more) {
+            if (size + more.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + more.length, size * 2));
+            }
+            System.arraycopy(more, 0, values, size, more.length);
+            size += more.length;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
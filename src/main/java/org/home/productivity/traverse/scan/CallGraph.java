@@ -0,0 +1,35 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Method level call graph of a target application, boiled down to which
+ * components each request mapping ends up calling along with some stats about
+ * the scan itself
+ */
+@Data
+public class CallGraph {
+    private final String target;
+    private final long durationMillis;
+    // classes in scope whose calls were followed
+    private final int classes;
+    // methods declared or called by those classes
+    private final int methods;
+    private final int calls;
+    // distinct class, method and descriptor names
+    private final int symbols;
+    private final List<EndpointCalls> endpoints;
+
+    @Data
+    public static class EndpointCalls {
+        // i.e. GET /orders/{id}
+        private final String endpoint;
+        // handler method as RequestMappingDTO has it
+        private final String handler;
+        // components, repositories and http clients reached from the handler,
+        // directly or not
+        private final List<String> components;
+    }
+}
@@ -0,0 +1,157 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.Handle;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+
+/**
+ * Collects the methods a class declares, every method each of them calls and
+ * the request mappings among them, on top of whatever the visitor it wraps
+ * collects. Methods referenced by lambdas and method references count as
+ * called. Meant to be driven by a ClassReader that reads code, debug info and
+ * frames can still be skipped.
+ * <p>
+ * Class, method and descriptor names are interned into the
+ * {@link CallCollector} as they come so a method is three ints, however many
+ * classes call it
+ */
+class CallVisitor extends ClassVisitor {
+
+    private final CallCollector collector;
+    private String className;
+    private int classSymbol;
+    private int superSymbol = -1;
+    private int[] interfaceSymbols;
+    private boolean isInterface;
+    private final CallCollector.Ints declaredMethods = new CallCollector.Ints();
+    // caller and callee of each call, interleaved
+    private final CallCollector.Ints calls = new CallCollector.Ints();
+    private final List<String> classPaths = new ArrayList<>();
+    private final List<Mapping> mappings = new ArrayList<>();
+
+    CallVisitor(CallCollector collector, ClassVisitor delegate) {
+        super(SpringAsmInfo.ASM_VERSION, delegate);
+        this.collector = collector;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName,
+            String[] interfaces) {
+        super.visit(version, access, name, signature, superName, interfaces);
+        this.className = name;
+        this.classSymbol = collector.symbol(name);
+        this.superSymbol = (superName == null ? -1 : collector.symbol(superName));
+        this.interfaceSymbols = new int[interfaces.length];
+        for (var i = 0; i < interfaces.length; i++) {
+            interfaceSymbols[i] = collector.symbol(interfaces[i]);
+        }
+        this.isInterface = (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+        var delegate = super.visitAnnotation(descriptor, visible);
+        return (RequestMappings.REQUEST_MAPPING.equals(descriptor)
+                ? new RequestMappings.Values(api, delegate, classPaths, null)
+                : delegate);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String methodName, String descriptor, String signature,
+            String[] exceptions) {
+        var delegate = super.visitMethod(access, methodName, descriptor, signature, exceptions);
+        var method = collector.method(classSymbol, collector.symbol(methodName), collector.symbol(descriptor));
+        declaredMethods.add(method);
+        return new MethodVisitor(api, delegate) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                var delegateValues = super.visitAnnotation(annotationDescriptor, visible);
+                var httpMethod = RequestMappings.MAPPINGS.get(annotationDescriptor);
+                if (httpMethod == null) {
+                    return delegateValues;
+                }
+                var mapping = new Mapping(method, methodName, descriptor, httpMethod);
+                mappings.add(mapping);
+                return new RequestMappings.Values(api, delegateValues, mapping.paths,
+                        mapping.httpMethods);
+            }
+
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String callDescriptor,
+                    boolean isInterface) {
+                super.visitMethodInsn(opcode, owner, name, callDescriptor, isInterface);
+                call(method, owner, name, callDescriptor);
+            }
+
+            @Override
+            public void visitInvokeDynamicInsn(String name, String callDescriptor, Handle bootstrapMethodHandle,
+                    Object... bootstrapMethodArguments) {
+                super.visitInvokeDynamicInsn(name, callDescriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+                // the implementation of a lambda or method reference is handed to
+                // the bootstrap method as a handle
+                for (var argument : bootstrapMethodArguments) {
+                    if (argument instanceof Handle handle) {
+                        call(method, handle.getOwner(), handle.getName(), handle.getDesc());
+                    }
+                }
+            }
+        };
+    }
+
+    private void call(int caller, String owner, String name, String descriptor) {
+        calls.add(caller);
+        calls.add(collector.method(collector.symbol(owner), collector.symbol(name), collector.symbol(descriptor)));
+    }
+
+    /**
+     * What was collected, once the reader is done with the class file
+     *
+     * @return
+     */
+    CallCollector.ClassCalls toClassCalls() {
+        List<CallCollector.Endpoint> endpoints = new ArrayList<>();
+        // mappings on interfaces are http clients or contracts, not handlers
+        if (!isInterface) {
+            for (var mapping : mappings) {
+                mapping.addEndpoints(endpoints);
+            }
+        }
+        return new CallCollector.ClassCalls(classSymbol, superSymbol, interfaceSymbols, isInterface,
+                declaredMethods.toArray(), calls.toArray(), endpoints);
+    }
+
+    /**
+     * A method annotated with one of the request mapping annotations
+     */
+    private final class Mapping {
+        private final int method;
+        private final String methodName;
+        private final String descriptor;
+        private final String httpMethod;
+        private final List<String> paths = new ArrayList<>();
+        private final List<String> httpMethods = new ArrayList<>();
+
+        private Mapping(int method, String methodName, String descriptor, String httpMethod) {
+            this.method = method;
+            this.methodName = methodName;
+            this.descriptor = descriptor;
+            this.httpMethod = httpMethod;
+        }
+
+        /**
+         * One endpoint per http method and path
+         */
+        private void addEndpoints(List<CallCollector.Endpoint> endpoints) {
+            var handler = RequestMappings.handler(className, methodName, descriptor);
+            for (var endpoint : RequestMappings.endpoints(classPaths, paths, httpMethods, httpMethod)) {
+                endpoints.add(new CallCollector.Endpoint(method, endpoint, handler));
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.home.productivity.traverse.scan;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads class files out of archive entries, skipping the ones that can't
+ * possibly be of interest.
+ * <p>
+ * Components, stereotypes and @Bean methods all need runtime visible
+ * annotations and any class file that has them names the
+ * RuntimeVisibleAnnotations attribute in its constant pool. The constant pool
+ * comes first in a class file so compressed entries are inflated a few
+ * kilobytes at a time, just until the constant pool has been walked, and
+ * abandoned right there when the attribute is missing.
+ * <p>
+ * Not thread safe, one per worker. The inflater and output buffer are reused
+ * so heap use is bounded by the largest class file rather than the archive
+ */
+final class ClassFileReader {
+
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int INFLATE_STEP = 4 * 1024;
+
+    private static final int NEED_MORE = 0;
+    private static final int ANNOTATED = 1;
+    private static final int NOT_ANNOTATED = 2;
+
+    private final Inflater inflater = new Inflater(true);
+    private byte[] buffer = new byte[64 * 1024];
+
+    // constant pool walk state, resumable as more bytes are inflated
+    private int position;
+    private int index;
+    private int count;
+
+    /**
+     * Bytes of the last class file read, valid until the next read
+     *
+     * @return
+     */
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Read the class file in an entry into {@link #buffer()} if it has runtime
+     * visible annotations
+     *
+     * @param data  raw entry data
+     * @param entry
+     * @param context bytes inflated and classes skipped are counted here
+     * @return length of the class file in the buffer or -1 when skipped
+     * @throws ZipException
+     */
+    int read(ByteBuffer data, MappedArchive.Entry entry, ClassScanner.ScanContext context) throws ZipException {
+        return read(data, entry, context, true);
+    }
+
+    /**
+     * Read the class file in an entry into {@link #buffer()}, whole or only if
+     * it has runtime visible annotations
+     *
+     * @param data          raw entry data
+     * @param entry
+     * @param context       bytes inflated and classes skipped are counted here
+     * @param annotatedOnly skip class files without runtime visible annotations
+     * @return length of the class file in the buffer or -1 when skipped
+     * @throws ZipException
+     */
+    int read(ByteBuffer data, MappedArchive.Entry entry, ClassScanner.ScanContext context, boolean annotatedOnly)
+            throws ZipException {
+        var length = Math.toIntExact(entry.size);
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        reset();
+        if (entry.method == MappedArchive.STORED) {
+            // check straight from the mapping and only copy what gets parsed,
+            // class files are big endian unlike the zip headers around them
+            if (annotatedOnly && walkConstantPool(data.duplicate().order(ByteOrder.BIG_ENDIAN), length) != ANNOTATED) {
+                context.classesSkipped.increment();
+                return -1;
+            }
+            data.get(0, buffer, 0, length);
+            return length;
+        }
+        if (entry.method != MappedArchive.DEFLATED) {
+            throw new ZipException("Unsupported compression method: " + entry.method + " for: " + entry.name);
+        }
+
+        inflater.reset();
+        inflater.setInput(data.duplicate());
+        var wrapped = ByteBuffer.wrap(buffer);
+        var inflated = 0;
+        // inflated in one go when there is nothing to check
+        var verdict = (annotatedOnly ? NEED_MORE : ANNOTATED);
+        try {
+            while (inflated < length) {
+                var step = (verdict == ANNOTATED ? length - inflated : Math.min(INFLATE_STEP, length - inflated));
+                var stepInflated = inflater.inflate(buffer, inflated, step);
+                if (stepInflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += stepInflated;
+                if (verdict == NEED_MORE) {
+                    verdict = walkConstantPool(wrapped, inflated);
+                    if (verdict == NOT_ANNOTATED) {
+                        break;
+                    }
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed data for: " + entry.name + ", " + e.getMessage());
+        } finally {
+            context.bytesInflated.add(inflated);
+        }
+        if (verdict != ANNOTATED || inflated < length) {
+            context.classesSkipped.increment();
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Checks a fully read class file
+     *
+     * @param bytes
+     * @return
+     */
+    boolean isAnnotated(byte[] bytes) {
+        reset();
+        return walkConstantPool(ByteBuffer.wrap(bytes), bytes.length) == ANNOTATED;
+    }
+
+    void close() {
+        inflater.end();
+    }
+
+    private void reset() {
+        position = 10;
+        index = 1;
+        count = -1;
+    }
+
+    /**
+     * Walk as much of the constant pool as is available, picking up where the
+     * last walk left off
+     *
+     * @param bytes
+     * @param available number of bytes of the class file available so far
+     * @return
+     */
+    private int walkConstantPool(ByteBuffer bytes, int available) {
+        if (count < 0) {
+            if (available < 10) {
+                return NEED_MORE;
+            }
+            if (bytes.getInt(0) != MAGIC) {
+                return NOT_ANNOTATED;
+            }
+            count = bytes.getShort(8) & 0xFFFF;
+        }
+        while (index < count) {
+            if (position + 3 > available) {
+                return NEED_MORE;
+            }
+            var tag = bytes.get(position);
+            int size;
+            switch (tag) {
+                case 1 -> {
+                    var length = bytes.getShort(position + 1) & 0xFFFF;
+                    if (position + 3 + length > available) {
+                        return NEED_MORE;
+                    }
+                    if (matches(bytes, position + 3, length)) {
+                        return ANNOTATED;
+                    }
+                    size = 3 + length;
+                }
+                case 7, 8, 16, 19, 20 -> size = 3;
+                case 15 -> size = 4;
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> size = 5;
+                case 5, 6 -> size = 9;
+                default -> {
+                    // not a class file we understand, let the parser decide
+                    return ANNOTATED;
+                }
+            }
+            position += size;
+            // longs and doubles take up two constant pool slots
+            index += (tag == 5 || tag == 6 ? 2 : 1);
+        }
+        return NOT_ANNOTATED;
+    }
+
+    private static boolean matches(ByteBuffer bytes, int offset, int length) {
+        if (length != RUNTIME_VISIBLE_ANNOTATIONS.length) {
+            return false;
+        }
+        for (var i = 0; i < length; i++) {
+            if (bytes.get(offset + i) != RUNTIME_VISIBLE_ANNOTATIONS[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
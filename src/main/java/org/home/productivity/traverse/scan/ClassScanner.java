@@ -0,0 +1,841 @@
+package org.home.productivity.traverse.scan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.springframework.asm.ClassReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scans a target application (exploded classes directory, jar or Spring Boot
+ * fat jar) for Spring components.
+ * <p>
+ * Class files are read with ASM straight from their bytes, nothing is loaded.
+ * The work is split across cores with fork/join: class files of a directory or
+ * archive are parsed in chunks and every nested jar (BOOT-INF/lib and the like)
+ * is a task of its own. Jars are memory mapped (see {@link MappedArchive}) and
+ * class files without any runtime visible annotations are skipped before they
+ * are fully inflated (see {@link ClassFileReader}).
+ * <p>
+ * Given the entries of a previous scan, class files and nested jars whose
+ * content hash did not change are reused instead of being read again. Jars
+ * within a target (nested or found in a directory) that any earlier scan of
+ * any target already read are reused from the {@link JarCache}.
+ * <p>
+ * How far a scan got can be followed, and the scan cancelled, through a
+ * {@link ScanProgress}.
+ * <p>
+ * Once everything is parsed stereotypes are resolved across all scanned
+ * classes so custom stereotypes (annotations that are meta annotated with
+ * @Component and friends) are recognized too.
+ * <p>
+ * A call graph scan parses the code of classes in scope too, annotated or not,
+ * collecting their calls into a {@link CallCollector} on the same threads
+ */
+@Component
+@Slf4j
+public class ClassScanner {
+
+    static final Set<String> STEREOTYPES = Set.of(
+            "org.springframework.stereotype.Component",
+            "org.springframework.stereotype.Service",
+            "org.springframework.stereotype.Repository",
+            "org.springframework.stereotype.Controller",
+            "org.springframework.web.bind.annotation.RestController",
+            "org.springframework.web.bind.annotation.ControllerAdvice",
+            "org.springframework.web.bind.annotation.RestControllerAdvice",
+            "org.springframework.context.annotation.Configuration",
+            "org.springframework.boot.SpringBootConfiguration",
+            "org.springframework.boot.autoconfigure.SpringBootApplication",
+            "org.springframework.boot.autoconfigure.AutoConfiguration",
+            "jakarta.inject.Named",
+            "javax.inject.Named");
+
+    private static final int CLASSES_PER_TASK = 128;
+
+    private static final int READER_FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG
+            | ClassReader.SKIP_FRAMES;
+
+    // calls are in the code, line numbers and stack map frames are not needed
+    private static final int CALLS_READER_FLAGS = ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    private static final String NESTED_SEPARATOR = "!/";
+
+    private final ForkJoinPool pool;
+
+    // null when jars are not cached
+    private final JarCache jarCache;
+
+    /**
+     * Scanner without a jar cache
+     *
+     * @param parallelism 0 for all available processors
+     */
+    public ClassScanner(int parallelism) {
+        this(parallelism, null);
+    }
+
+    @Autowired
+    public ClassScanner(@Value("${application.scan.parallelism:0}") int parallelism, JarCache jarCache) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.jarCache = (jarCache != null && jarCache.isEnabled() ? jarCache : null);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Scan target for components from scratch
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher limits the components returned, null for all
+     * @return
+     */
+    public ScanResult scan(Path target, PackageMatcher packageMatcher) {
+        return scan(target, packageMatcher, PreviousScan.NONE);
+    }
+
+    /**
+     * Scan target for components, reusing whatever did not change since the
+     * previous scan
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher limits the components returned, null for all
+     * @param previous       entries of the previous scan of target
+     * @return
+     */
+    public ScanResult scan(Path target, PackageMatcher packageMatcher, PreviousScan previous) {
+        return scan(target, packageMatcher, previous, new ScanProgress());
+    }
+
+    /**
+     * Scan target for components, reusing whatever did not change since the
+     * previous scan and reporting progress as it goes
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher limits the components returned, null for all
+     * @param previous       entries of the previous scan of target
+     * @param progress       follows the scan, cancel it to stop the scan
+     * @return
+     * @throws CancellationException when cancelled through progress
+     */
+    public ScanResult scan(Path target, PackageMatcher packageMatcher, PreviousScan previous,
+            ScanProgress progress) {
+        try {
+            log.info("Scanning: {}, {} entries known from previous scan", target, previous.size());
+            var start = System.nanoTime();
+            var context = new ScanContext(previous, progress);
+            context.jarCache = jarCache;
+            var classes = pool.invoke(rootTask(target, context));
+            var components = components(classes, packageMatcher);
+            var result = new ScanResult(target.toString(), (System.nanoTime() - start) / 1_000_000,
+                    context.classesParsed.sum(), context.classesReused.sum(), context.classesSkipped.sum(),
+                    context.classesFailed.sum(), context.archivesRead.sum(), context.bytesRead.sum(),
+                    context.bytesMapped.sum(), context.bytesInflated.sum(), components,
+                    List.copyOf(context.entries));
+            log.info("Scanned: {} in {}ms, parsed {} classes ({} reused, {} skipped) from {} archives, mapped {} "
+                    + "bytes, inflated {} bytes and found {} components", target, result.getDurationMillis(),
+                    result.getClassesParsed(), result.getClassesReused(), result.getClassesSkipped(),
+                    result.getArchivesRead(), result.getBytesMapped(), result.getBytesInflated(), components.size());
+            return result;
+        } catch (CancellationException e) {
+            log.info("Cancelled scan of: {}", target);
+            throw e;
+        } catch (Exception e) {
+            var msg = "Exception occurred while scanning: " + target;
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    /**
+     * Scan target for the calls made by classes in the given packages and
+     * follow them from each request mapping to the components, Spring Data
+     * repositories and http clients it reaches. Always from scratch, calls are
+     * not kept between scans
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher classes whose calls are followed, null for all
+     * @return
+     */
+    public CallGraph scanCalls(Path target, PackageMatcher packageMatcher) {
+        try {
+            log.info("Scanning calls of: {}", target);
+            var start = System.nanoTime();
+            var context = new ScanContext(PreviousScan.NONE, new ScanProgress());
+            context.calls = new CallCollector(packageMatcher);
+            var classes = pool.invoke(rootTask(target, context));
+            resolveStereotypes(classes);
+            var callGraph = context.calls.build(target.toString(), classes, (System.nanoTime() - start) / 1_000_000);
+            log.info("Scanned calls of: {} in {}ms, {} classes, {} methods, {} calls, {} symbols and {} endpoints",
+                    target, callGraph.getDurationMillis(), callGraph.getClasses(), callGraph.getMethods(),
+                    callGraph.getCalls(), callGraph.getSymbols(), callGraph.getEndpoints().size());
+            return callGraph;
+        } catch (Exception e) {
+            var msg = "Exception occurred while scanning calls of: " + target;
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    /**
+     * Read a single class file the way a scan of its directory would, i.e.
+     * after it was recompiled
+     *
+     * @param classFile
+     * @return class or null when it has no runtime visible annotations or can't
+     *         be read
+     */
+    public ScannedClass scanClassFile(Path classFile) {
+        var reader = new ClassFileReader();
+        try {
+            var bytes = Files.readAllBytes(classFile);
+            if (!reader.isAnnotated(bytes)) {
+                return null;
+            }
+            return parse(bytes, bytes.length, classFile.toString(),
+                    new ScanContext(PreviousScan.NONE, new ScanProgress()), false);
+        } catch (IOException e) {
+            log.debug("Unable to read class file: {}", classFile, e);
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Components among classes, once custom stereotypes are resolved across all
+     * of them
+     *
+     * @param classes        everything a scan found
+     * @param packageMatcher limits the components returned, null for all
+     * @return components sorted by name
+     */
+    public static List<ScannedClass> components(Collection<ScannedClass> classes, PackageMatcher packageMatcher) {
+        resolveStereotypes(classes);
+        return classes.stream()
+                .filter(ScannedClass::isComponent)
+                .filter(scannedClass -> packageMatcher == null
+                        || packageMatcher.matches(scannedClass.getPackageName()))
+                .sorted(Comparator.comparing(ScannedClass::getName))
+                .toList();
+    }
+
+    private ForkJoinTask<List<ScannedClass>> rootTask(Path target, ScanContext context) throws IOException {
+        if (Files.isDirectory(target)) {
+            return new DirectoryTask(target, context);
+        }
+        if (Files.isRegularFile(target) && isArchive(target.toString())) {
+            return new ArchiveTask(target, "", context);
+        }
+        throw new IllegalArgumentException("Target must be a classes directory or a jar: " + target);
+    }
+
+    /**
+     * Marks classes carrying a stereotype annotation, directly or through an
+     * annotation that is itself (meta) annotated with one
+     *
+     * @param classes
+     */
+    static void resolveStereotypes(Collection<ScannedClass> classes) {
+        Map<String, ScannedClass> annotationTypes = classes.stream()
+                .filter(ScannedClass::isAnnotation)
+                .collect(Collectors.toMap(ScannedClass::getName, Function.identity(), (first, second) -> first));
+        Set<String> stereotypes = new HashSet<>(STEREOTYPES);
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (var annotationType : annotationTypes.values()) {
+                if (!stereotypes.contains(annotationType.getName())
+                        && Arrays.stream(annotationType.getAnnotations()).anyMatch(stereotypes::contains)) {
+                    stereotypes.add(annotationType.getName());
+                    changed = true;
+                }
+            }
+        }
+        for (var scannedClass : classes) {
+            // reused classes may carry a stereotype resolved by an earlier scan
+            scannedClass.setStereotype(null);
+            for (var annotation : scannedClass.getAnnotations()) {
+                if (stereotypes.contains(annotation)) {
+                    scannedClass.setStereotype(annotation);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Component by its own annotations, without resolving custom stereotypes
+     *
+     * @param scannedClass
+     * @return
+     */
+    static boolean isDirectComponent(ScannedClass scannedClass) {
+        if (scannedClass.isAnnotation()) {
+            return false;
+        }
+        if (!scannedClass.getBeanMethods().isEmpty()) {
+            return true;
+        }
+        for (var annotation : scannedClass.getAnnotations()) {
+            if (STEREOTYPES.contains(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class")
+                && !name.startsWith("META-INF/versions/");
+    }
+
+    static boolean isArchive(String name) {
+        return name.endsWith(".jar");
+    }
+
+    private static ScannedClass parse(byte[] bytes, int length, String source, ScanContext context,
+            boolean withCalls) {
+        context.bytesRead.add(length);
+        try {
+            var visitor = new ScannedClassVisitor();
+            if (withCalls) {
+                var callVisitor = new CallVisitor(context.calls, visitor);
+                new ClassReader(bytes, 0, length).accept(callVisitor, CALLS_READER_FLAGS);
+                context.calls.add(callVisitor.toClassCalls());
+            } else {
+                new ClassReader(bytes, 0, length).accept(visitor, READER_FLAGS);
+            }
+            context.classesParsed.increment();
+            return visitor.toScannedClass(source);
+        } catch (Exception e) {
+            context.classesFailed.increment();
+            log.debug("Unable to parse class file from: {}", source, e);
+            return null;
+        }
+    }
+
+    private static long contentHash(byte[] bytes) {
+        var crc = new CRC32();
+        crc.update(bytes);
+        return ScannedEntry.contentHash(bytes.length, crc.getValue());
+    }
+
+    private static List<ScannedClass> joinAll(List<? extends ForkJoinTask<List<ScannedClass>>> tasks) {
+        List<ScannedClass> classes = new ArrayList<>();
+        ForkJoinTask.invokeAll(tasks).forEach(task -> classes.addAll(task.join()));
+        return classes;
+    }
+
+    /**
+     * Splits a list of work items into chunks until a chunk is small enough to be
+     * parsed in place
+     */
+    // tasks are Serializable by inheritance only, none of them is ever serialized
+    @SuppressWarnings("serial")
+    private abstract static class ChunkTask<T> extends RecursiveTask<List<ScannedClass>> {
+        protected final List<T> items;
+        protected final ScanContext context;
+
+        private ChunkTask(List<T> items, ScanContext context) {
+            this.items = items;
+            this.context = context;
+        }
+
+        @Override
+        protected List<ScannedClass> compute() {
+            if (items.size() > CLASSES_PER_TASK) {
+                var middle = items.size() / 2;
+                return joinAll(List.of(split(items.subList(0, middle)), split(items.subList(middle, items.size()))));
+            }
+            List<ScannedClass> classes = new ArrayList<>(items.size());
+            var reader = new ClassFileReader();
+            try {
+                for (var item : items) {
+                    context.progress.throwIfCancelled();
+                    var scannedClass = parse(item, reader);
+                    if (scannedClass != null) {
+                        classes.add(scannedClass);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return classes;
+        }
+
+        protected abstract ChunkTask<T> split(List<T> chunk);
+
+        protected abstract ScannedClass parse(T item, ClassFileReader reader);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class DirectoryTask extends RecursiveTask<List<ScannedClass>> {
+        private final Path directory;
+        private final ScanContext context;
+
+        private DirectoryTask(Path directory, ScanContext context) {
+            this.directory = directory;
+            this.context = context;
+        }
+
+        @Override
+        protected List<ScannedClass> compute() {
+            try (var paths = Files.walk(directory)) {
+                List<Path> classFiles = new ArrayList<>();
+                List<ForkJoinTask<List<ScannedClass>>> tasks = new ArrayList<>();
+                paths.filter(Files::isRegularFile).forEach(path -> {
+                    var name = path.toString();
+                    if (isClassFile(name)) {
+                        classFiles.add(path);
+                    } else if (isArchive(name)) {
+                        tasks.add(new ArchiveTask(path, key(directory, path) + NESTED_SEPARATOR, context));
+                    }
+                });
+                context.classesFound.add(classFiles.size());
+                tasks.add(new ClassFilesTask(directory, classFiles, context));
+                return joinAll(tasks);
+            } catch (IOException e) {
+                throw new RuntimeException("Exception occurred while walking directory: " + directory, e);
+            }
+        }
+    }
+
+    private static String key(Path directory, Path path) {
+        return directory.relativize(path).toString().replace('\\', '/');
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ClassFilesTask extends ChunkTask<Path> {
+        private final Path directory;
+
+        private ClassFilesTask(Path directory, List<Path> classFiles, ScanContext context) {
+            super(classFiles, context);
+            this.directory = directory;
+        }
+
+        @Override
+        protected ChunkTask<Path> split(List<Path> chunk) {
+            return new ClassFilesTask(directory, chunk, context);
+        }
+
+        @Override
+        protected ScannedClass parse(Path classFile, ClassFileReader reader) {
+            var key = key(directory, classFile);
+            try {
+                var bytes = Files.readAllBytes(classFile);
+                var contentHash = contentHash(bytes);
+                var previous = context.previous.unchanged(key, contentHash);
+                if (previous != null) {
+                    return context.reuse(previous);
+                }
+                var withCalls = context.inCallScope(key);
+                if (!withCalls && !reader.isAnnotated(bytes)) {
+                    context.classesSkipped.increment();
+                    return context.record(key, contentHash, null);
+                }
+                return context.record(key, contentHash,
+                        ClassScanner.parse(bytes, bytes.length, classFile.toString(), context, withCalls));
+            } catch (IOException e) {
+                context.classesFailed.increment();
+                log.debug("Unable to read class file: {}", classFile, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Reads a memory mapped jar, either from disk or stored uncompressed inside of
+     * another mapped jar. Class entries are parsed in chunks and each nested jar
+     * becomes a task of its own, unless it is unchanged since the previous scan in
+     * which case everything in it is reused without even reading its directory
+     */
+    @SuppressWarnings("serial")
+    private static final class ArchiveTask extends RecursiveTask<List<ScannedClass>> {
+        private final Path path;
+        private final MappedArchive parent;
+        private final MappedArchive.Entry entry;
+        private final String source;
+        // prefix of the keys of entries in this archive
+        private final String keyPrefix;
+        private final ScanContext context;
+
+        private ArchiveTask(Path path, String keyPrefix, ScanContext context) {
+            this(path, null, null, path.toString(), keyPrefix, context);
+        }
+
+        private ArchiveTask(MappedArchive parent, MappedArchive.Entry entry, String source, String keyPrefix,
+                ScanContext context) {
+            this(null, parent, entry, source, keyPrefix, context);
+        }
+
+        private ArchiveTask(Path path, MappedArchive parent, MappedArchive.Entry entry, String source,
+                String keyPrefix, ScanContext context) {
+            this.path = path;
+            this.parent = parent;
+            this.entry = entry;
+            this.source = source;
+            this.keyPrefix = keyPrefix;
+            this.context = context;
+        }
+
+        @Override
+        protected List<ScannedClass> compute() {
+            MappedArchive archive = null;
+            try {
+                if (path != null) {
+                    archive = MappedArchive.open(path);
+                    context.bytesMapped.add(archive.size());
+                } else {
+                    archive = MappedArchive.nested(parent.data(entry));
+                }
+                context.archivesRead.increment();
+                // the target itself is what changes from build to build, the
+                // jars within it are worth caching
+                var digest = (context.jarCache != null && !keyPrefix.isEmpty() ? archive.sha256() : null);
+                if (digest != null) {
+                    var cached = context.jarCache.get(digest, source);
+                    if (cached != null) {
+                        return context.reuseCached(keyPrefix, cached);
+                    }
+                }
+                List<MappedArchive.Entry> classEntries = new ArrayList<>();
+                List<ForkJoinTask<List<ScannedClass>>> tasks = new ArrayList<>();
+                List<ScannedClass> reused = new ArrayList<>();
+                for (var archiveEntry : archive.entries()) {
+                    if (isClassFile(archiveEntry.name)) {
+                        classEntries.add(archiveEntry);
+                    } else if (isArchive(archiveEntry.name)) {
+                        // cached as a whole only when it holds no jars itself
+                        digest = null;
+                        var nestedSource = source + NESTED_SEPARATOR + archiveEntry.name;
+                        var nestedKey = keyPrefix + archiveEntry.name;
+                        var contentHash = ScannedEntry.contentHash(archiveEntry.size, archiveEntry.crc);
+                        var previous = context.previous.unchanged(nestedKey, contentHash);
+                        if (previous != null) {
+                            reused.addAll(context.reuseArchive(previous));
+                            continue;
+                        }
+                        context.recordArchive(nestedKey, contentHash);
+                        tasks.add(archiveEntry.method == MappedArchive.STORED
+                                ? new ArchiveTask(archive, archiveEntry, nestedSource, nestedKey + NESTED_SEPARATOR,
+                                        context)
+                                : new CompressedArchiveTask(archive, archiveEntry, nestedSource,
+                                        nestedKey + NESTED_SEPARATOR, context));
+                    }
+                }
+                context.classesFound.add(classEntries.size());
+                tasks.add(new ArchiveEntriesTask(archive, classEntries, source, keyPrefix, context));
+                var classes = joinAll(tasks);
+                classes.addAll(reused);
+                if (digest != null) {
+                    context.jarCache.put(digest, toCached(classEntries, classes));
+                }
+                return classes;
+            } catch (IOException e) {
+                throw new RuntimeException("Exception occurred while reading archive: " + source, e);
+            } finally {
+                closeQuietly(archive);
+            }
+        }
+
+        private JarCache.Jar toCached(List<MappedArchive.Entry> classEntries, List<ScannedClass> classes) {
+            Map<String, MappedArchive.Entry> entriesByName = new HashMap<>();
+            classEntries.forEach(classEntry -> entriesByName.put(classEntry.name, classEntry));
+            List<JarCache.CachedClass> cachedClasses = new ArrayList<>(classes.size());
+            for (var scannedClass : classes) {
+                var cachedClass = new JarCache.CachedClass(0, scannedClass);
+                var classEntry = entriesByName.get(cachedClass.entryName());
+                cachedClasses.add(classEntry == null ? cachedClass
+                        : new JarCache.CachedClass(ScannedEntry.contentHash(classEntry.size, classEntry.crc),
+                                scannedClass));
+            }
+            return new JarCache.Jar(classEntries.size(), cachedClasses);
+        }
+
+        private void closeQuietly(MappedArchive archive) {
+            if (archive != null && path != null) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    log.debug("Unable to close archive: {}", source, e);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ArchiveEntriesTask extends ChunkTask<MappedArchive.Entry> {
+        private final MappedArchive archive;
+        private final String source;
+        private final String keyPrefix;
+
+        private ArchiveEntriesTask(MappedArchive archive, List<MappedArchive.Entry> entries, String source,
+                String keyPrefix, ScanContext context) {
+            super(entries, context);
+            this.archive = archive;
+            this.source = source;
+            this.keyPrefix = keyPrefix;
+        }
+
+        @Override
+        protected ChunkTask<MappedArchive.Entry> split(List<MappedArchive.Entry> chunk) {
+            return new ArchiveEntriesTask(archive, chunk, source, keyPrefix, context);
+        }
+
+        @Override
+        protected ScannedClass parse(MappedArchive.Entry entry, ClassFileReader reader) {
+            var key = keyPrefix + entry.name;
+            var contentHash = ScannedEntry.contentHash(entry.size, entry.crc);
+            var previous = context.previous.unchanged(key, contentHash);
+            if (previous != null) {
+                return context.reuse(previous);
+            }
+            try {
+                var withCalls = context.inCallScope(entry.name);
+                var length = reader.read(archive.data(entry), entry, context, !withCalls);
+                return context.record(key, contentHash,
+                        (length < 0 ? null : ClassScanner.parse(reader.buffer(), length, source, context, withCalls)));
+            } catch (IOException | RuntimeException e) {
+                context.classesFailed.increment();
+                log.debug("Unable to read entry: {} from: {}", entry.name, source, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Streams through a jar that was compressed inside of its parent so it can't
+     * be sliced out of the mapping. Classes are parsed as they come
+     */
+    @SuppressWarnings("serial")
+    private static final class CompressedArchiveTask extends RecursiveTask<List<ScannedClass>> {
+        private final MappedArchive parent;
+        private final MappedArchive.Entry entry;
+        private final String source;
+        private final String keyPrefix;
+        private final ScanContext context;
+
+        private CompressedArchiveTask(MappedArchive parent, MappedArchive.Entry entry, String source,
+                String keyPrefix, ScanContext context) {
+            this.parent = parent;
+            this.entry = entry;
+            this.source = source;
+            this.keyPrefix = keyPrefix;
+            this.context = context;
+        }
+
+        @Override
+        protected List<ScannedClass> compute() {
+            var reader = new ClassFileReader();
+            var inflater = new Inflater(true);
+            try (var in = new InflaterInputStream(new ByteBufferInputStream(parent.data(entry)), inflater)) {
+                List<ScannedClass> classes = new ArrayList<>();
+                readNested(in, source, keyPrefix, classes, reader);
+                return classes;
+            } catch (IOException e) {
+                throw new RuntimeException("Exception occurred while reading nested archive: " + source, e);
+            } finally {
+                inflater.end();
+                reader.close();
+            }
+        }
+
+        private void readNested(InputStream in, String nestedSource, String nestedKeyPrefix,
+                List<ScannedClass> classes, ClassFileReader reader) throws IOException {
+            context.archivesRead.increment();
+            var zipIn = new ZipInputStream(in);
+            ZipEntry nestedEntry;
+            while ((nestedEntry = zipIn.getNextEntry()) != null) {
+                context.progress.throwIfCancelled();
+                if (isClassFile(nestedEntry.getName())) {
+                    context.classesFound.increment();
+                    var key = nestedKeyPrefix + nestedEntry.getName();
+                    var bytes = zipIn.readAllBytes();
+                    context.bytesInflated.add(bytes.length);
+                    var contentHash = contentHash(bytes);
+                    var previous = context.previous.unchanged(key, contentHash);
+                    var withCalls = context.inCallScope(nestedEntry.getName());
+                    ScannedClass scannedClass;
+                    if (previous != null) {
+                        scannedClass = context.reuse(previous);
+                    } else if (!withCalls && !reader.isAnnotated(bytes)) {
+                        context.classesSkipped.increment();
+                        scannedClass = context.record(key, contentHash, null);
+                    } else {
+                        scannedClass = context.record(key, contentHash,
+                                ClassScanner.parse(bytes, bytes.length, nestedSource, context, withCalls));
+                    }
+                    if (scannedClass != null) {
+                        classes.add(scannedClass);
+                    }
+                } else if (isArchive(nestedEntry.getName())) {
+                    // nested this deep there is no cheap way to tell if the archive
+                    // changed, its class files are still checked one by one
+                    readNested(zipIn, nestedSource + NESTED_SEPARATOR + nestedEntry.getName(),
+                            nestedKeyPrefix + nestedEntry.getName() + NESTED_SEPARATOR, classes, reader);
+                }
+            }
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return (buffer.hasRemaining() ? buffer.get() & 0xFF : -1);
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            var count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+
+    /**
+     * State shared by all tasks of one scan: what the previous scan found,
+     * counters and every entry seen so far
+     */
+    static final class ScanContext {
+        final PreviousScan previous;
+        final ScanProgress progress;
+        final ConcurrentLinkedQueue<ScannedEntry> entries = new ConcurrentLinkedQueue<>();
+        final LongAdder classesFound = new LongAdder();
+        final LongAdder classesParsed = new LongAdder();
+        final LongAdder classesReused = new LongAdder();
+        final LongAdder classesFailed = new LongAdder();
+        final LongAdder classesSkipped = new LongAdder();
+        final LongAdder archivesRead = new LongAdder();
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder bytesMapped = new LongAdder();
+        final LongAdder bytesInflated = new LongAdder();
+        // calls of classes in scope are collected here, null when not scanning calls
+        CallCollector calls;
+        // null when jars are not cached, and when scanning calls which needs
+        // more than the cache holds
+        JarCache jarCache;
+
+        ScanContext(PreviousScan previous, ScanProgress progress) {
+            this.previous = previous;
+            this.progress = progress;
+            progress.attach(this);
+        }
+
+        ScannedClass record(String key, long contentHash, ScannedClass scannedClass) {
+            entries.add(new ScannedEntry(key, contentHash, false, scannedClass, false));
+            progress.found(scannedClass);
+            return scannedClass;
+        }
+
+        boolean inCallScope(String name) {
+            return calls != null && calls.inScope(name);
+        }
+
+        void recordArchive(String key, long contentHash) {
+            entries.add(new ScannedEntry(key, contentHash, true, null, false));
+        }
+
+        ScannedClass reuse(ScannedEntry previousEntry) {
+            classesReused.increment();
+            entries.add(new ScannedEntry(previousEntry.getKey(), previousEntry.getContentHash(), false,
+                    previousEntry.getScannedClass(), true));
+            progress.found(previousEntry.getScannedClass());
+            return previousEntry.getScannedClass();
+        }
+
+        /**
+         * Reuse what the jar cache holds for an archive, as if every class file
+         * in it was read. Only classes the previous scan of the target already
+         * has count as reused entries, the rest are recorded as new
+         *
+         * @param keyPrefix prefix of the keys of entries in the archive
+         * @param cached
+         * @return classes found in the archive
+         */
+        List<ScannedClass> reuseCached(String keyPrefix, JarCache.Jar cached) {
+            classesFound.add(cached.classFiles);
+            classesSkipped.add(cached.classFiles - cached.classes.size());
+            List<ScannedClass> classes = new ArrayList<>(cached.classes.size());
+            for (var cachedClass : cached.classes) {
+                classesReused.increment();
+                var key = keyPrefix + cachedClass.entryName();
+                // not read, but new to this target and so still to be stored
+                // unless its last scan already had it
+                var stored = (previous.unchanged(key, cachedClass.contentHash) != null);
+                entries.add(new ScannedEntry(key, cachedClass.contentHash, false, cachedClass.scannedClass, stored));
+                progress.found(cachedClass.scannedClass);
+                classes.add(cachedClass.scannedClass);
+            }
+            return classes;
+        }
+
+        /**
+         * Reuse an unchanged nested archive and everything previously found in it
+         *
+         * @param previousArchive
+         * @return classes found in the archive
+         */
+        List<ScannedClass> reuseArchive(ScannedEntry previousArchive) {
+            entries.add(new ScannedEntry(previousArchive.getKey(), previousArchive.getContentHash(), true, null,
+                    true));
+            List<ScannedClass> classes = new ArrayList<>();
+            for (var previousEntry : previous.within(previousArchive.getKey() + NESTED_SEPARATOR)) {
+                if (previousEntry.isArchive()) {
+                    entries.add(new ScannedEntry(previousEntry.getKey(), previousEntry.getContentHash(), true, null,
+                            true));
+                } else {
+                    classesFound.increment();
+                    var scannedClass = reuse(previousEntry);
+                    if (scannedClass != null) {
+                        classes.add(scannedClass);
+                    }
+                }
+            }
+            return classes;
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package org.home.productivity.traverse.scan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.home.productivity.traverse.scan.ScannedClass.BeanMethod;
+import org.home.productivity.traverse.scan.ScannedClass.Endpoint;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * What scans found in dependency jars, kept on disk across restarts and
+ * shared by every target, keyed by the SHA-256 of the jar. A jar that was
+ * scanned once, as part of any target, is never parsed again.
+ * <p>
+ * Each jar gets a file of its own in application.scan.cache.directory, in a
+ * compact binary format: a table of every distinct string followed by the
+ * classes found, referring to strings by index. Files are memory mapped to be
+ * read. Least recently used files are deleted once they add up to more than
+ * application.scan.cache.size, recency survives restarts as the files'
+ * modification time.
+ * <p>
+ * Files are written to a temporary file and moved into place so concurrent
+ * scans, in this process or another one sharing the directory, only ever see
+ * whole files. A file that can't be read, because it was evicted or is
+ * damaged, is a miss.
+ * <p>
+ * Lookups count as cache hits or misses (traverse.cache.requests), evicted
+ * files are counted too (traverse.cache.evictions). All of it is also served
+ * by the jarcache actuator endpoint
+ */
+@Component
+@Slf4j
+public class JarCache {
+
+    private static final int MAGIC = 0x54524A43;
+
+    // bump whenever the format or what ScannedClass holds changes, files of
+    // other versions are misses
+    private static final int VERSION = 2;
+
+    private static final String SUFFIX = ".jarscan";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    // files by digest, least recently used first, and their sizes
+    private final Map<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
+
+    private final Counter evictions;
+
+    @Autowired
+    public JarCache(MeterRegistry meterRegistry, @Value("${application.scan.cache.directory:}") String directory,
+            @Value("${application.scan.cache.size:512MB}") DataSize maxSize) {
+        this.directory = (directory.isBlank() ? null : Path.of(directory));
+        this.maxSize = maxSize.toBytes();
+        this.cacheHits = cacheCounter(meterRegistry, "hit");
+        this.cacheMisses = cacheCounter(meterRegistry, "miss");
+        this.evictions = Counter.builder("traverse.cache.evictions")
+                .description("Entries evicted from a cache")
+                .tag("cache", "jar")
+                .register(meterRegistry);
+        Gauge.builder("traverse.cache.size", this, JarCache::getSize)
+                .description("Bytes held by a cache")
+                .tag("cache", "jar")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (this.directory != null) {
+            index();
+        }
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Classes cached for a jar
+     *
+     * @param digest SHA-256 of the jar, hex
+     * @param source what to set as source of the classes
+     * @return null when not cached
+     */
+    Jar get(String digest, String source) {
+        synchronized (files) {
+            if (files.get(digest) == null) {
+                cacheMisses.increment();
+                return null;
+            }
+        }
+        var file = file(digest);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var jar = read(channel.map(MapMode.READ_ONLY, 0, channel.size()), source);
+            // recency as of now for the next start
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            cacheHits.increment();
+            return jar;
+        } catch (NoSuchFileException e) {
+            log.debug("Cached jar: {} is gone, evicted by another process", digest);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read cached jar: {}, dropping it: {}", digest, e.toString());
+            delete(file);
+        }
+        synchronized (files) {
+            var removed = files.remove(digest);
+            size -= (removed == null ? 0 : removed);
+        }
+        cacheMisses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the classes found in a jar, evicting least recently used jars if
+     * that takes more room than there is
+     *
+     * @param digest SHA-256 of the jar, hex
+     * @param jar
+     */
+    void put(String digest, Jar jar) {
+        var bytes = write(jar);
+        if (bytes.length > maxSize) {
+            log.debug("Not caching jar: {} of {} bytes, bigger than the cache", digest, bytes.length);
+            return;
+        }
+        var file = file(digest);
+        try {
+            var temporary = Files.createTempFile(directory, digest, TEMPORARY_SUFFIX);
+            try {
+                Files.write(temporary, bytes);
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            // no worse than not caching at all
+            log.warn("Unable to cache jar: {} in: {}: {}", digest, directory, e.toString());
+            return;
+        }
+        List<String> evicted = new ArrayList<>();
+        synchronized (files) {
+            var replaced = files.put(digest, (long) bytes.length);
+            size += bytes.length - (replaced == null ? 0 : replaced);
+            var eldest = files.entrySet().iterator();
+            while (size > maxSize && eldest.hasNext()) {
+                var entry = eldest.next();
+                if (entry.getKey().equals(digest)) {
+                    continue;
+                }
+                size -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        // deleted outside of the lock, readers that already mapped a file keep
+        // their mapping
+        evicted.forEach(evictedDigest -> delete(file(evictedDigest)));
+        evictions.increment(evicted.size());
+        log.debug("Cached jar: {}, {} classes in {} bytes, evicted {}", digest, jar.classes.size(), bytes.length,
+                evicted.size());
+    }
+
+    /**
+     * Bytes of all cached files
+     *
+     * @return
+     */
+    public long getSize() {
+        synchronized (files) {
+            return size;
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (files) {
+            return new Stats(isEnabled() ? directory.toString() : null, maxSize, size, files.size(),
+                    (long) cacheHits.count(), (long) cacheMisses.count(), (long) evictions.count());
+        }
+    }
+
+    /**
+     * Pick up the files already in the directory, oldest first, and clean up
+     * temporary files left behind by a crash
+     */
+    private void index() {
+        try {
+            Files.createDirectories(directory);
+            try (var paths = Files.list(directory)) {
+                List<Path> cached = new ArrayList<>();
+                paths.forEach(path -> {
+                    var name = path.getFileName().toString();
+                    if (name.endsWith(SUFFIX)) {
+                        cached.add(path);
+                    } else if (name.endsWith(TEMPORARY_SUFFIX)) {
+                        delete(path);
+                    }
+                });
+                cached.sort(Comparator.comparing(JarCache::lastModified));
+                for (var path : cached) {
+                    var name = path.getFileName().toString();
+                    var fileSize = Files.size(path);
+                    files.put(name.substring(0, name.length() - SUFFIX.length()), fileSize);
+                    size += fileSize;
+                }
+            }
+            log.info("Jar cache at: {} holds {} jars in {} bytes", directory, files.size(), size);
+        } catch (IOException e) {
+            var msg = "Exception occurred while indexing jar cache: " + directory;
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    private Path file(String digest) {
+        return directory.resolve(digest + SUFFIX);
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Unable to delete: {}", path, e);
+        }
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("traverse.cache.requests")
+                .description("Lookups of cached results")
+                .tag("cache", "jar")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Header, string table, then the classes with strings as indexes into the
+     * table (-1 for null) and arrays as their length (-1 for null) followed by
+     * their elements
+     */
+    static byte[] write(Jar jar) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (var cached : jar.classes) {
+            var scannedClass = cached.scannedClass;
+            intern(strings, scannedClass.getName(), scannedClass.getSuperName());
+            intern(strings, scannedClass.getInterfaces());
+            intern(strings, scannedClass.getAnnotations());
+            for (var beanMethod : scannedClass.getBeanMethods()) {
+                intern(strings, beanMethod.getMethod(), beanMethod.getReturnType());
+                intern(strings, beanMethod.getNames());
+                intern(strings, beanMethod.getParameterTypes());
+            }
+            for (var injectionPoint : scannedClass.getInjectionPoints()) {
+                intern(strings, injectionPoint.getMember(), injectionPoint.getType(), injectionPoint.getAnnotation(),
+                        injectionPoint.getValue());
+            }
+            if (scannedClass.getEndpoints() != null) {
+                for (var endpoint : scannedClass.getEndpoints()) {
+                    intern(strings, endpoint.getMapping(), endpoint.getHandler());
+                }
+            }
+        }
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(jar.classFiles);
+            out.writeInt(strings.size());
+            for (var string : strings.keySet()) {
+                var utf8 = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            out.writeInt(jar.classes.size());
+            for (var cached : jar.classes) {
+                var scannedClass = cached.scannedClass;
+                out.writeLong(cached.contentHash);
+                writeString(out, strings, scannedClass.getName());
+                writeString(out, strings, scannedClass.getSuperName());
+                writeStrings(out, strings, scannedClass.getInterfaces());
+                out.writeInt(scannedClass.getAccess());
+                writeStrings(out, strings, scannedClass.getAnnotations());
+                out.writeInt(scannedClass.getBeanMethods().size());
+                for (var beanMethod : scannedClass.getBeanMethods()) {
+                    writeString(out, strings, beanMethod.getMethod());
+                    writeStrings(out, strings, beanMethod.getNames());
+                    writeString(out, strings, beanMethod.getReturnType());
+                    writeStrings(out, strings, beanMethod.getParameterTypes());
+                }
+                out.writeInt(scannedClass.getInjectionPoints().size());
+                for (var injectionPoint : scannedClass.getInjectionPoints()) {
+                    out.writeByte(injectionPoint.getKind().ordinal());
+                    writeString(out, strings, injectionPoint.getMember());
+                    writeString(out, strings, injectionPoint.getType());
+                    writeString(out, strings, injectionPoint.getAnnotation());
+                    writeString(out, strings, injectionPoint.getValue());
+                }
+                if (scannedClass.getEndpoints() == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(scannedClass.getEndpoints().size());
+                    for (var endpoint : scannedClass.getEndpoints()) {
+                        writeString(out, strings, endpoint.getMapping());
+                        writeString(out, strings, endpoint.getHandler());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // nothing but memory is written to
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Jar read(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a cached jar of version: " + VERSION);
+        }
+        var classFiles = buffer.getInt();
+        var strings = new String[buffer.getInt()];
+        for (var i = 0; i < strings.length; i++) {
+            var utf8 = new byte[buffer.getInt()];
+            buffer.get(utf8);
+            strings[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        var classCount = buffer.getInt();
+        List<CachedClass> classes = new ArrayList<>(classCount);
+        for (var i = 0; i < classCount; i++) {
+            var contentHash = buffer.getLong();
+            var name = readString(buffer, strings);
+            var superName = readString(buffer, strings);
+            var interfaces = readStrings(buffer, strings);
+            var access = buffer.getInt();
+            var annotations = readStrings(buffer, strings);
+            List<BeanMethod> beanMethods = new ArrayList<>();
+            for (var count = buffer.getInt(); count > 0; count--) {
+                beanMethods.add(new BeanMethod(readString(buffer, strings), readStrings(buffer, strings),
+                        readString(buffer, strings), readStrings(buffer, strings)));
+            }
+            List<InjectionPoint> injectionPoints = new ArrayList<>();
+            for (var count = buffer.getInt(); count > 0; count--) {
+                injectionPoints.add(new InjectionPoint(InjectionPoint.Kind.values()[buffer.get()],
+                        readString(buffer, strings), readString(buffer, strings), readString(buffer, strings),
+                        readString(buffer, strings)));
+            }
+            var scannedClass = new ScannedClass(name, superName, interfaces, access, annotations, beanMethods,
+                    injectionPoints, source);
+            var endpointCount = buffer.getInt();
+            if (endpointCount >= 0) {
+                List<Endpoint> endpoints = new ArrayList<>(endpointCount);
+                for (var count = endpointCount; count > 0; count--) {
+                    endpoints.add(new Endpoint(readString(buffer, strings), readString(buffer, strings)));
+                }
+                scannedClass.setEndpoints(endpoints);
+            }
+            classes.add(new CachedClass(contentHash, scannedClass));
+        }
+        return new Jar(classFiles, classes);
+    }
+
+    private static void intern(Map<String, Integer> strings, String... values) {
+        if (values != null) {
+            for (var value : values) {
+                if (value != null) {
+                    strings.putIfAbsent(value, strings.size());
+                }
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, Map<String, Integer> strings, String value)
+            throws IOException {
+        out.writeInt(value == null ? -1 : strings.get(value));
+    }
+
+    private static void writeStrings(DataOutputStream out, Map<String, Integer> strings, String[] values)
+            throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.length);
+        for (var value : values) {
+            writeString(out, strings, value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, String[] strings) {
+        var index = buffer.getInt();
+        return (index < 0 ? null : strings[index]);
+    }
+
+    private static String[] readStrings(ByteBuffer buffer, String[] strings) {
+        var length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var values = new String[length];
+        for (var i = 0; i < length; i++) {
+            values[i] = readString(buffer, strings);
+        }
+        return values;
+    }
+
+    /**
+     * What a scan found in one jar: how many class files it holds and the
+     * classes parsed from them, those without annotations were skipped
+     */
+    static final class Jar {
+        final int classFiles;
+        final List<CachedClass> classes;
+
+        Jar(int classFiles, List<CachedClass> classes) {
+            this.classFiles = classFiles;
+            this.classes = classes;
+        }
+    }
+
+    static final class CachedClass {
+        // of the class file entry, see ScannedEntry
+        final long contentHash;
+        final ScannedClass scannedClass;
+
+        CachedClass(long contentHash, ScannedClass scannedClass) {
+            this.contentHash = contentHash;
+            this.scannedClass = scannedClass;
+        }
+
+        /**
+         * Name of the class file within the jar
+         *
+         * @return
+         */
+        String entryName() {
+            return scannedClass.getName().replace('.', '/') + ".class";
+        }
+    }
+
+    @Data
+    public static class Stats {
+        // null when the cache is disabled
+        private final String directory;
+        private final long maxSize;
+        private final long size;
+        private final int jars;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+    }
+}
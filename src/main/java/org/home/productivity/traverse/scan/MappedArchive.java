@@ -0,0 +1,267 @@
+package org.home.productivity.traverse.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Zip/jar archive read through a memory mapped buffer.
+ * <p>
+ * The central directory is read straight out of the mapping and entry data is
+ * handed out as slices of it, nothing is copied onto the heap. Archives nested
+ * inside an archive without compression (how Spring Boot stores BOOT-INF/lib)
+ * are just a slice of their parent so they can be read the same way.
+ * <p>
+ * Archives up to 2GB are mapped once, bigger ones get a mapping per region
+ * that is asked for
+ */
+final class MappedArchive {
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int ZIP64_EXTRA_FIELD = 0x0001;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int DIGEST_REGION_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long size;
+    private final List<Entry> entries;
+
+    private MappedArchive(FileChannel channel, ByteBuffer buffer, long size) throws IOException {
+        this.channel = channel;
+        this.buffer = (buffer == null ? null : buffer.order(ByteOrder.LITTLE_ENDIAN));
+        this.size = size;
+        this.entries = readCentralDirectory();
+    }
+
+    /**
+     * Map an archive on disk
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    static MappedArchive open(Path path) throws IOException {
+        // mappings stay valid after the channel is closed so it is only kept
+        // around for archives too big to map in one go
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        var size = channel.size();
+        if (size <= Integer.MAX_VALUE) {
+            try (channel) {
+                return new MappedArchive(null, channel.map(MapMode.READ_ONLY, 0, size), size);
+            }
+        }
+        return new MappedArchive(channel, null, size);
+    }
+
+    /**
+     * Read an archive stored (uncompressed) inside of another archive
+     *
+     * @param data
+     * @return
+     * @throws IOException
+     */
+    static MappedArchive nested(ByteBuffer data) throws IOException {
+        return new MappedArchive(null, data.slice(), data.remaining());
+    }
+
+    long size() {
+        return size;
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * SHA-256 of the whole archive, straight from the mapping
+     *
+     * @return hex
+     * @throws IOException
+     */
+    String sha256() throws IOException {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (long offset = 0; offset < size; offset += DIGEST_REGION_SIZE) {
+                digest.update(region(offset, (int) Math.min(DIGEST_REGION_SIZE, size - offset)));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Raw (possibly compressed) data of an entry, a view into the mapping
+     *
+     * @param entry
+     * @return
+     * @throws IOException
+     */
+    ByteBuffer data(Entry entry) throws IOException {
+        var header = region(entry.localHeaderOffset, 30);
+        if (header.getInt(0) != LOCAL_FILE_HEADER) {
+            throw new ZipException("Invalid local file header for entry: " + entry.name);
+        }
+        var dataOffset = entry.localHeaderOffset + 30 + u2(header, 26) + u2(header, 28);
+        return region(dataOffset, Math.toIntExact(entry.compressedSize));
+    }
+
+    /**
+     * Release the channel of an archive that is mapped region by region
+     *
+     * @throws IOException
+     */
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private List<Entry> readCentralDirectory() throws IOException {
+        // end of central directory record is at the very end, followed only by a
+        // comment of up to 64k
+        var tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        var tail = region(size - tailSize, tailSize);
+        var eocd = -1;
+        for (var i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new ZipException("End of central directory not found, not a zip archive");
+        }
+        long entryCount = u2(tail, eocd + 10);
+        long directorySize = u4(tail, eocd + 12);
+        long directoryOffset = u4(tail, eocd + 16);
+        if (entryCount == 0xFFFF || directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC) {
+            var locatorOffset = size - tailSize + eocd - 20;
+            var locator = region(locatorOffset, 20);
+            if (locator.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+                throw new ZipException("Zip64 end of central directory locator not found");
+            }
+            var zip64 = region(locator.getLong(8), 56);
+            if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                throw new ZipException("Zip64 end of central directory not found");
+            }
+            entryCount = zip64.getLong(32);
+            directorySize = zip64.getLong(40);
+            directoryOffset = zip64.getLong(48);
+        }
+
+        var directory = region(directoryOffset, Math.toIntExact(directorySize));
+        List<Entry> readEntries = new ArrayList<>((int) Math.min(entryCount, Integer.MAX_VALUE));
+        var position = 0;
+        for (long i = 0; i < entryCount; i++) {
+            if (directory.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+                throw new ZipException("Invalid central directory header at entry: " + i);
+            }
+            var method = u2(directory, position + 10);
+            long crc = u4(directory, position + 16);
+            long compressedSize = u4(directory, position + 20);
+            long uncompressedSize = u4(directory, position + 24);
+            var nameLength = u2(directory, position + 28);
+            var extraLength = u2(directory, position + 30);
+            var commentLength = u2(directory, position + 32);
+            long localHeaderOffset = u4(directory, position + 42);
+            var name = readName(directory, position + 46, nameLength);
+
+            // zip64 extra field only holds the values that overflowed, in order
+            var extra = position + 46 + nameLength;
+            var extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                var id = u2(directory, extra);
+                var length = u2(directory, extra + 2);
+                if (id == ZIP64_EXTRA_FIELD) {
+                    var field = extra + 4;
+                    if (uncompressedSize == ZIP64_MAGIC) {
+                        uncompressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == ZIP64_MAGIC) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == ZIP64_MAGIC) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+                }
+                extra += 4 + length;
+            }
+
+            if (!name.endsWith("/")) {
+                readEntries.add(new Entry(name, method, crc, compressedSize, uncompressedSize, localHeaderOffset));
+            }
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return readEntries;
+    }
+
+    private ByteBuffer region(long offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new ZipException("Region outside of archive, offset: " + offset + " length: " + length);
+        }
+        if (buffer != null) {
+            return buffer.slice((int) offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return channel.map(MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String readName(ByteBuffer directory, int offset, int length) {
+        var bytes = new byte[length];
+        directory.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int u2(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    private static long u4(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * An entry as described by the central directory
+     */
+    static final class Entry {
+        final String name;
+        final int method;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final long localHeaderOffset;
+
+        private Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
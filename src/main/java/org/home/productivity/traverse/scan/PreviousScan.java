@@ -0,0 +1,57 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Entries of the last scan of a target, looked up by location so a rescan can
+ * reuse everything whose content hash did not change
+ */
+public final class PreviousScan {
+
+    public static final PreviousScan NONE = new PreviousScan(List.of());
+
+    private final NavigableMap<String, ScannedEntry> entries = new TreeMap<>();
+
+    public PreviousScan(Collection<ScannedEntry> previousEntries) {
+        previousEntries.forEach(entry -> entries.put(entry.getKey(), entry));
+    }
+
+    /**
+     * Previous entry at key if its content is unchanged
+     *
+     * @param key
+     * @param contentHash
+     * @return entry or null when new or changed
+     */
+    ScannedEntry unchanged(String key, long contentHash) {
+        var entry = entries.get(key);
+        return (entry != null && entry.getContentHash() == contentHash ? entry : null);
+    }
+
+    /**
+     * All previous entries within a nested archive, keys starting with prefix
+     *
+     * @param prefix
+     * @return
+     */
+    Collection<ScannedEntry> within(String prefix) {
+        return entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    /**
+     * Keys of all previous entries
+     *
+     * @return
+     */
+    public Set<String> keys() {
+        return entries.keySet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,136 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.Type;
+
+/**
+ * Request mapping annotations as read from class files: which annotations map
+ * requests, the paths and http methods they carry and the endpoints a handler
+ * method ends up with, the class' paths combined with the method's the way
+ * Spring does it
+ */
+final class RequestMappings {
+
+    static final String REQUEST_MAPPING = "Lorg/springframework/web/bind/annotation/RequestMapping;";
+
+    // http method of each mapping annotation, blank for @RequestMapping which
+    // says it in an attribute
+    static final Map<String, String> MAPPINGS = Map.of(
+            REQUEST_MAPPING, "",
+            "Lorg/springframework/web/bind/annotation/GetMapping;", "GET",
+            "Lorg/springframework/web/bind/annotation/PostMapping;", "POST",
+            "Lorg/springframework/web/bind/annotation/PutMapping;", "PUT",
+            "Lorg/springframework/web/bind/annotation/DeleteMapping;", "DELETE",
+            "Lorg/springframework/web/bind/annotation/PatchMapping;", "PATCH");
+
+    private RequestMappings() {
+    }
+
+    /**
+     * Endpoints of a handler method, one per http method and path, i.e. GET
+     * /orders/{id}
+     *
+     * @param classPaths  paths of the class' @RequestMapping, if any
+     * @param paths       paths of the method's mapping annotation
+     * @param httpMethods method attribute of the method's @RequestMapping
+     * @param httpMethod  http method of the method's mapping annotation, blank
+     *                    for @RequestMapping
+     * @return
+     */
+    static List<String> endpoints(List<String> classPaths, List<String> paths, List<String> httpMethods,
+            String httpMethod) {
+        List<String> endpoints = new ArrayList<>();
+        List<String> methods = (!httpMethods.isEmpty() ? httpMethods
+                : List.of(httpMethod.isEmpty() ? "ALL" : httpMethod));
+        for (var classPath : (classPaths.isEmpty() ? List.of("") : classPaths)) {
+            for (var path : (paths.isEmpty() ? List.of("") : paths)) {
+                for (var method : methods) {
+                    endpoints.add(method + " " + combine(classPath, path));
+                }
+            }
+        }
+        return endpoints;
+    }
+
+    /**
+     * Handler the way HandlerMethod describes itself, and so the way
+     * RequestMappingDTO of /info does, i.e. com.example.OrderController#find(Long, String)
+     *
+     * @param className  internal name of the declaring class
+     * @param methodName
+     * @param descriptor
+     * @return
+     */
+    static String handler(String className, String methodName, String descriptor) {
+        var parameters = new StringJoiner(", ", "(", ")");
+        for (var parameterType : Type.getArgumentTypes(descriptor)) {
+            var name = parameterType.getClassName();
+            parameters.add(name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1));
+        }
+        return Type.getObjectType(className).getClassName() + "#" + methodName + parameters;
+    }
+
+    private static String combine(String classPath, String path) {
+        var combined = (classPath.isEmpty() ? path
+                : path.isEmpty() ? classPath
+                        : stripTrailingSlash(classPath) + (path.startsWith("/") ? path : "/" + path));
+        return (combined.startsWith("/") ? combined : "/" + combined);
+    }
+
+    private static String stripTrailingSlash(String path) {
+        return (path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+    }
+
+    /**
+     * Captures the paths (value or path attribute) and http methods (method
+     * attribute) of a mapping annotation, passing everything on to the visitor
+     * it wraps, if any
+     */
+    static final class Values extends AnnotationVisitor {
+        private final List<String> paths;
+        private final List<String> httpMethods;
+
+        /**
+         * @param api
+         * @param delegate    visitor to pass the annotation on to, may be null
+         * @param paths       to add the paths to
+         * @param httpMethods to add the http methods to, null to ignore them
+         */
+        Values(int api, AnnotationVisitor delegate, List<String> paths, List<String> httpMethods) {
+            super(api, delegate);
+            this.paths = paths;
+            this.httpMethods = httpMethods;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String attributeName) {
+            var delegate = super.visitArray(attributeName);
+            if ("value".equals(attributeName) || "path".equals(attributeName)) {
+                return new AnnotationVisitor(api, delegate) {
+                    @Override
+                    public void visit(String name, Object attributeValue) {
+                        super.visit(name, attributeValue);
+                        if (attributeValue instanceof String path && !paths.contains(path)) {
+                            paths.add(path);
+                        }
+                    }
+                };
+            }
+            if ("method".equals(attributeName) && httpMethods != null) {
+                return new AnnotationVisitor(api, delegate) {
+                    @Override
+                    public void visitEnum(String name, String enumDescriptor, String value) {
+                        super.visitEnum(name, enumDescriptor, value);
+                        httpMethods.add(value);
+                    }
+                };
+            }
+            return delegate;
+        }
+    }
+}
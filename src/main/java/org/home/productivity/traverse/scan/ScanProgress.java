@@ -0,0 +1,98 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Live view of a running scan, safe to poll from any thread, and the means to
+ * cancel it.
+ * <p>
+ * Cancellation is cooperative: the scanner checks between class files and
+ * gives up with a {@link CancellationException} at the next check. Class
+ * files found only counts up as directories and archives are opened, so it
+ * keeps growing while a scan works its way into nested jars.
+ * <p>
+ * Components can be followed as they are found, see
+ * {@link #onComponent(Consumer)}
+ */
+public final class ScanProgress {
+
+    private volatile boolean cancelled;
+
+    private volatile String phase;
+
+    private volatile ClassScanner.ScanContext context;
+
+    private volatile Consumer<ScannedClass> componentListener;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException when cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Scan cancelled");
+        }
+    }
+
+    /**
+     * What the scan is busy with, null before it starts
+     *
+     * @return
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public long getClassesFound() {
+        var current = context;
+        return (current == null ? 0 : current.classesFound.sum());
+    }
+
+    /**
+     * Class files parsed, reused, skipped or failed so far
+     *
+     * @return
+     */
+    public long getClassesDone() {
+        var current = context;
+        return (current == null ? 0
+                : current.classesParsed.sum() + current.classesReused.sum() + current.classesSkipped.sum()
+                        + current.classesFailed.sum());
+    }
+
+    /**
+     * Have listener called with every class that is a component by its own
+     * annotations as soon as it is parsed (or reused). It is called from the
+     * scanning threads, concurrently, so it better be quick. Components of a
+     * custom stereotype are only recognized once the scan is done and are not
+     * reported
+     *
+     * @param listener
+     */
+    public void onComponent(Consumer<ScannedClass> listener) {
+        this.componentListener = listener;
+    }
+
+    void attach(ClassScanner.ScanContext context) {
+        this.context = context;
+    }
+
+    void found(ScannedClass scannedClass) {
+        var listener = componentListener;
+        if (listener != null && scannedClass != null && ClassScanner.isDirectComponent(scannedClass)) {
+            listener.accept(scannedClass);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.List;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+
+/**
+ * Components found by scanning a target application along with some stats
+ * about the scan itself
+ */
+@Data
+public class ScanResult {
+    private final String target;
+    private final long durationMillis;
+    private final long classesParsed;
+    // class files unchanged since the previous scan or found in the jar cache,
+    // carried over without reading
+    private final long classesReused;
+    // class files without runtime visible annotations, never parsed
+    private final long classesSkipped;
+    private final long classesFailed;
+    private final long archivesRead;
+    // class file bytes handed to the parser
+    private final long bytesRead;
+    // archive bytes memory mapped, these stay off heap
+    private final long bytesMapped;
+    // compressed entry bytes inflated onto the heap, including partially
+    // inflated entries that got skipped
+    private final long bytesInflated;
+    private final List<ScannedClass> components;
+    // every class file and nested archive seen, what gets stored for the next scan
+    @JsonIgnore
+    private final List<ScannedEntry> entries;
+
+    /**
+     * The same scan with only the components in the given packages
+     *
+     * @param packageMatcher null for all
+     * @return
+     */
+    public ScanResult withPackages(PackageMatcher packageMatcher) {
+        if (packageMatcher == null) {
+            return this;
+        }
+        var matching = components.stream()
+                .filter(component -> packageMatcher.matches(component.getPackageName()))
+                .toList();
+        return new ScanResult(target, durationMillis, classesParsed, classesReused, classesSkipped, classesFailed,
+                archivesRead, bytesRead, bytesMapped, bytesInflated, matching, entries);
+    }
+}
@@ -0,0 +1,92 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.List;
+
+import org.springframework.asm.Opcodes;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+
+/**
+ * What a scan found out about a single class file, read straight from its
+ * bytes without loading the class
+ */
+@Data
+public class ScannedClass {
+    private final String name;
+    private final String superName;
+    private final String[] interfaces;
+    private final int access;
+    private final String[] annotations;
+    private final List<BeanMethod> beanMethods;
+    private final List<InjectionPoint> injectionPoints;
+    // archive (and nested archive) or directory the class was read from
+    private final String source;
+    // stereotype annotation present on the class, resolved once all classes are
+    // scanned so custom (meta annotated) stereotypes can be recognized
+    private String stereotype;
+    // request mappings of its handler methods, null when the class was scanned
+    // by a version that did not look for them
+    private List<Endpoint> endpoints;
+
+    @JsonIgnore
+    public boolean isAnnotation() {
+        return (access & Opcodes.ACC_ANNOTATION) != 0;
+    }
+
+    /**
+     * Stereotyped classes and any class that declares @Bean methods
+     *
+     * @return
+     */
+    @JsonIgnore
+    public boolean isComponent() {
+        return !isAnnotation() && (stereotype != null || !beanMethods.isEmpty());
+    }
+
+    @JsonIgnore
+    public String getPackageName() {
+        var lastDot = name.lastIndexOf('.');
+        return (lastDot < 0 ? "" : name.substring(0, lastDot));
+    }
+
+    /**
+     * A @Bean annotated factory method
+     */
+    @Data
+    public static class BeanMethod {
+        private final String method;
+        private final String[] names;
+        private final String returnType;
+        private final String[] parameterTypes;
+    }
+
+    /**
+     * A request mapping of a handler method
+     */
+    @Data
+    public static class Endpoint {
+        // i.e. GET /orders/{id}
+        private final String mapping;
+        // handler method as RequestMappingDTO has it
+        private final String handler;
+    }
+
+    /**
+     * A place where the container injects a dependency into a component
+     */
+    @Data
+    public static class InjectionPoint {
+        private final Kind kind;
+        private final String member;
+        private final String type;
+        private final String annotation;
+        // @Value expression, null for other annotations
+        private final String value;
+
+        public enum Kind {
+            FIELD, CONSTRUCTOR, METHOD
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.home.productivity.traverse.scan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.home.productivity.traverse.scan.ScannedClass.BeanMethod;
+import org.home.productivity.traverse.scan.ScannedClass.Endpoint;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint.Kind;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+
+/**
+ * Collects annotations, @Bean methods, injection points and request mappings
+ * of a single class file. Meant to be driven by a ClassReader with code, debug info and frames
+ * skipped since only declarations are of interest
+ */
+class ScannedClassVisitor extends ClassVisitor {
+
+    static final String BEAN = "org.springframework.context.annotation.Bean";
+    static final String VALUE = "org.springframework.beans.factory.annotation.Value";
+    static final String AUTOWIRED = "org.springframework.beans.factory.annotation.Autowired";
+
+    static final Set<String> INJECTION_ANNOTATIONS = Set.of(AUTOWIRED, VALUE,
+            "jakarta.inject.Inject", "javax.inject.Inject",
+            "jakarta.annotation.Resource", "javax.annotation.Resource");
+
+    private static final String CONSTRUCTOR = "<init>";
+
+    private String name;
+    private String superName;
+    private String[] interfaces;
+    private int access;
+    private final Set<String> annotations = new LinkedHashSet<>();
+    private final List<BeanMethod> beanMethods = new ArrayList<>();
+    private final List<InjectionPoint> injectionPoints = new ArrayList<>();
+    private final List<Constructor> constructors = new ArrayList<>();
+    private final List<String> classPaths = new ArrayList<>();
+    private final List<Mapping> mappings = new ArrayList<>();
+
+    ScannedClassVisitor() {
+        super(SpringAsmInfo.ASM_VERSION);
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName,
+            String[] interfaces) {
+        this.access = access;
+        this.name = Type.getObjectType(name).getClassName();
+        this.superName = (superName == null ? null : Type.getObjectType(superName).getClassName());
+        this.interfaces = Arrays.stream(interfaces).map(anInterface -> Type.getObjectType(anInterface).getClassName())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+        annotations.add(Type.getType(descriptor).getClassName());
+        return (RequestMappings.REQUEST_MAPPING.equals(descriptor)
+                ? new RequestMappings.Values(api, null, classPaths, null)
+                : null);
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String fieldName, String descriptor, String signature,
+            Object value) {
+        var fieldType = Type.getType(descriptor).getClassName();
+        return new FieldVisitor(api) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                var annotation = Type.getType(annotationDescriptor).getClassName();
+                if (!INJECTION_ANNOTATIONS.contains(annotation)) {
+                    return null;
+                }
+                var values = new AnnotationValues(api);
+                values.onEnd = () -> injectionPoints.add(new InjectionPoint(Kind.FIELD, fieldName, fieldType,
+                        annotation, (VALUE.equals(annotation) ? values.value : null)));
+                return values;
+            }
+        };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String methodName, String descriptor, String signature,
+            String[] exceptions) {
+        return new MethodVisitor(api) {
+            private AnnotationValues bean;
+            private String injectionAnnotation;
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                var annotation = Type.getType(annotationDescriptor).getClassName();
+                if (BEAN.equals(annotation)) {
+                    bean = new AnnotationValues(api);
+                    return bean;
+                }
+                var httpMethod = RequestMappings.MAPPINGS.get(annotationDescriptor);
+                if (httpMethod != null) {
+                    var mapping = new Mapping(RequestMappings.handler(name, methodName, descriptor), httpMethod);
+                    mappings.add(mapping);
+                    return new RequestMappings.Values(api, null, mapping.paths, mapping.httpMethods);
+                }
+                if (INJECTION_ANNOTATIONS.contains(annotation)) {
+                    injectionAnnotation = annotation;
+                }
+                return null;
+            }
+
+            @Override
+            public void visitEnd() {
+                var parameterTypes = Arrays.stream(Type.getArgumentTypes(descriptor)).map(Type::getClassName)
+                        .toArray(String[]::new);
+                if (CONSTRUCTOR.equals(methodName)) {
+                    constructors.add(new Constructor(parameterTypes, injectionAnnotation));
+                } else if (bean != null) {
+                    var names = (bean.names.isEmpty() ? new String[] { methodName }
+                            : bean.names.toArray(String[]::new));
+                    beanMethods.add(new BeanMethod(methodName, names,
+                            Type.getReturnType(descriptor).getClassName(), parameterTypes));
+                } else if (injectionAnnotation != null) {
+                    for (var parameterType : parameterTypes) {
+                        injectionPoints.add(
+                                new InjectionPoint(Kind.METHOD, methodName, parameterType, injectionAnnotation, null));
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Build the scanned class once the reader is done with the class file
+     *
+     * @param source where the class file was read from
+     * @return
+     */
+    ScannedClass toScannedClass(String source) {
+        // Spring injects through the annotated constructor, or the only
+        // constructor when there is just one
+        var injectionConstructor = constructors.stream().filter(constructor -> constructor.annotation != null)
+                .findFirst()
+                .orElse(constructors.size() == 1 ? constructors.get(0) : null);
+        if (injectionConstructor != null) {
+            var annotation = (injectionConstructor.annotation != null ? injectionConstructor.annotation : AUTOWIRED);
+            for (var parameterType : injectionConstructor.parameterTypes) {
+                injectionPoints.add(new InjectionPoint(Kind.CONSTRUCTOR, CONSTRUCTOR, parameterType, annotation, null));
+            }
+        }
+        var scannedClass = new ScannedClass(name, superName, interfaces, access, annotations.toArray(String[]::new),
+                beanMethods, injectionPoints, source);
+        List<Endpoint> endpoints = new ArrayList<>();
+        // mappings on interfaces are http clients or contracts, not handlers
+        if ((access & Opcodes.ACC_INTERFACE) == 0) {
+            for (var mapping : mappings) {
+                for (var endpoint : RequestMappings.endpoints(classPaths, mapping.paths, mapping.httpMethods,
+                        mapping.httpMethod)) {
+                    endpoints.add(new Endpoint(endpoint, mapping.handler));
+                }
+            }
+        }
+        scannedClass.setEndpoints(endpoints);
+        return scannedClass;
+    }
+
+    /**
+     * A method annotated with one of the request mapping annotations
+     */
+    private static final class Mapping {
+        private final String handler;
+        private final String httpMethod;
+        private final List<String> paths = new ArrayList<>();
+        private final List<String> httpMethods = new ArrayList<>();
+
+        private Mapping(String handler, String httpMethod) {
+            this.handler = handler;
+            this.httpMethod = httpMethod;
+        }
+    }
+
+    private static final class Constructor {
+        private final String[] parameterTypes;
+        private final String annotation;
+
+        private Constructor(String[] parameterTypes, String annotation) {
+            this.parameterTypes = parameterTypes;
+            this.annotation = annotation;
+        }
+    }
+
+    /**
+     * Captures the "value" attribute and any names given to @Bean
+     */
+    private static final class AnnotationValues extends AnnotationVisitor {
+        private String value;
+        private final List<String> names = new ArrayList<>();
+        private Runnable onEnd;
+
+        private AnnotationValues(int api) {
+            super(api);
+        }
+
+        @Override
+        public void visit(String attributeName, Object attributeValue) {
+            if ("value".equals(attributeName) && attributeValue instanceof String string) {
+                value = string;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String attributeName) {
+            if (!"name".equals(attributeName) && !"value".equals(attributeName)) {
+                return null;
+            }
+            return new AnnotationVisitor(api) {
+                @Override
+                public void visit(String ignored, Object attributeValue) {
+                    if (attributeValue instanceof String string) {
+                        names.add(string);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void visitEnd() {
+            if (onEnd != null) {
+                onEnd.run();
+            }
+        }
+    }
+}
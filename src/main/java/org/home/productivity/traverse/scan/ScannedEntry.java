@@ -0,0 +1,25 @@
+package org.home.productivity.traverse.scan;
+
+import lombok.Data;
+
+/**
+ * A class file or nested archive seen while scanning, keyed by its location
+ * within the target (i.e. BOOT-INF/lib/some.jar!/com/example/Some.class) along
+ * with a hash of its content so the next scan can tell whether it changed
+ */
+@Data
+public class ScannedEntry {
+    private final String key;
+    // size in the high bits, CRC-32 in the low bits. Taken from the zip central
+    // directory for archive entries so unchanged entries are never inflated
+    private final long contentHash;
+    private final boolean archive;
+    // null for archives and for class files that were skipped or failed to parse
+    private final ScannedClass scannedClass;
+    // true when carried over from the previous scan rather than parsed again
+    private final boolean reused;
+
+    static long contentHash(long size, long crc) {
+        return (size << 32) | (crc & 0xFFFFFFFFL);
+    }
+}
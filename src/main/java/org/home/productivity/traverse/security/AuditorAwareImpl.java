@@ -3,6 +3,8 @@ package org.home.productivity.traverse.security;
 import java.util.Optional;
 
 import org.springframework.data.domain.AuditorAware;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 /**
@@ -15,10 +17,11 @@ public class AuditorAwareImpl implements AuditorAware<String> {
     @Override
     public Optional<String> getCurrentAuditor() {
         // @formatter:off
+        // no authentication outside of a request, i.e. scheduled or startup work
         return Optional.ofNullable(SecurityContextHolder.getContext())
-                .map(context -> context.getAuthentication().getName());
-                // .map(SecurityContext::getAuthentication)
-                // .filter(Authentication::isAuthenticated)
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(Authentication::getName);
                 // .map(Authentication::getPrincipal)
                 // .map(User.class::cast);
         // @formatter:on
@@ -0,0 +1,69 @@
+package org.home.productivity.traverse.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.home.productivity.traverse.fleet.FleetHarvester;
+import org.home.productivity.traverse.fleet.FleetScan;
+import org.home.productivity.traverse.fleet.FleetTarget;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fleet mode: harvests the running services configured in
+ * application.fleet.targets and hands them to the {@link GraphStore} as one
+ * fleet graph. Targets that fail are left out of the graph rather than failing
+ * the scan, the last scan says which did
+ */
+@Service
+@Slf4j
+public class FleetService {
+
+    private final FleetHarvester fleetHarvester;
+
+    private final GraphStore graphStore;
+
+    private final List<FleetTarget> targets;
+
+    private volatile FleetScan lastScan;
+
+    @Autowired
+    public FleetService(FleetHarvester fleetHarvester, GraphStore graphStore,
+            @Value("${application.fleet.targets:}") String[] targets) {
+        this.fleetHarvester = fleetHarvester;
+        this.graphStore = graphStore;
+        this.targets = Arrays.stream(targets).filter(target -> !target.isBlank()).map(FleetTarget::parse).toList();
+    }
+
+    public List<FleetTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Harvest every configured target and replace the fleet graph with what
+     * answered
+     *
+     * @return
+     */
+    public CompletableFuture<FleetScan> scan() {
+        return fleetHarvester.harvest(targets).thenApply(scan -> {
+            graphStore.updateFleet(scan.getSnapshots());
+            lastScan = scan;
+            return scan;
+        });
+    }
+
+    /**
+     * The last scan to complete
+     *
+     * @return scan or null when there has been none
+     */
+    public FleetScan getLastScan() {
+        return lastScan;
+    }
+}
@@ -0,0 +1,457 @@
+package org.home.productivity.traverse.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serialized responses of snapshots that only change when the snapshot does,
+ * i.e. graphs by version and /info by when it was built, so a snapshot is
+ * serialized and compressed once rather than on every request.
+ * <p>
+ * Each {@link Representation} keeps the body as is and precompressed with gzip
+ * and deflate, along with an ETag that is a hash of the body. A request whose
+ * If-None-Match has that ETag gets 304 Not Modified, anyone else the body in
+ * the best encoding they accept, both without serializing anything.
+ * <p>
+ * Callers key representations by snapshot, and by whatever else changes the
+ * body such as format or packages. Least recently used representations are
+ * dropped once they add up to more than application.http.cache.size, lookups
+ * count as cache hits or misses (traverse.cache.requests).
+ * <p>
+ * Snapshots that can get big, like graphs, are {@link #stream streamed}
+ * instead: their ETag comes from the key, so If-None-Match is answered without
+ * serializing anything even once the body is no longer cached. Whatever is not
+ * cached is written straight to the response and only cached along the way
+ * when no bigger than application.http.cache.body.max.size, so memory stays
+ * flat however big the body
+ */
+@Service
+@Slf4j
+public class RepresentationCache {
+
+    private static final String GZIP = "gzip";
+
+    private static final String DEFLATE = "deflate";
+
+    private final long maxSize;
+
+    private final long maxBodySize;
+
+    // ETags derived from keys must not outlive this process, snapshot
+    // versions start over with every run
+    private final String instance = UUID.randomUUID().toString();
+
+    private final Map<String, Representation> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
+
+    @Autowired
+    public RepresentationCache(MeterRegistry meterRegistry,
+            @Value("${application.http.cache.size:64MB}") DataSize maxSize,
+            @Value("${application.http.cache.body.max.size:1MB}") DataSize maxBodySize) {
+        this.maxSize = maxSize.toBytes();
+        this.maxBodySize = Math.min(maxBodySize.toBytes(), this.maxSize);
+        this.cacheHits = cacheCounter(meterRegistry, "hit");
+        this.cacheMisses = cacheCounter(meterRegistry, "miss");
+        Gauge.builder("traverse.cache.size", this, RepresentationCache::getSize)
+                .description("Bytes held by a cache")
+                .tag("cache", "representation")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes body whenever key is not cached
+     */
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * The representation cached for key, written and cached first if there is
+     * none
+     *
+     * @param key
+     * @param contentType
+     * @param writer
+     * @return
+     */
+    public Representation get(String key, MediaType contentType, BodyWriter writer) {
+        var cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // written outside of the lock, two callers racing for the same key both
+        // write it which is cheaper than making everyone else wait
+        var out = new ByteArrayOutputStream();
+        try {
+            writer.writeTo(out);
+        } catch (IOException e) {
+            var msg = "Exception occurred while writing representation: " + key;
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+        return put(key, contentType, out.toByteArray());
+    }
+
+    /**
+     * Response for key without holding more than a small body in memory: 304
+     * Not Modified when If-None-Match has the ETag of key, without writing
+     * anything, the cached representation if there is one and otherwise the
+     * body streamed as writer writes it, cached on the way when small enough.
+     * The ETag is a hash of key, so key has to change whenever the body does
+     *
+     * @param key
+     * @param contentType
+     * @param ifNoneMatch    may be null
+     * @param acceptEncoding may be null
+     * @param writer
+     * @return
+     */
+    public ResponseEntity<StreamingResponseBody> stream(String key, MediaType contentType, String ifNoneMatch,
+            String acceptEncoding, BodyWriter writer) {
+        var hash = Representation.hash((instance + '|' + key).getBytes(StandardCharsets.UTF_8));
+        if (Representation.isNotModified(hash, ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag('"' + hash + '"')
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        var cached = getIfPresent(key);
+        if (cached != null) {
+            var response = cached.toResponse(ifNoneMatch, acceptEncoding);
+            var body = response.getBody();
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .body(body == null ? null : out -> out.write(body));
+        }
+        return ResponseEntity.ok()
+                .eTag('"' + hash + '"')
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(contentType)
+                .body(out -> {
+                    var copy = new BoundedCopyStream(out, maxBodySize);
+                    writer.writeTo(copy);
+                    copy.flush();
+                    if (copy.getCopy() != null) {
+                        put(key, new Representation(contentType, copy.getCopy(), hash));
+                    } else {
+                        log.debug("Not caching representation: {}, bigger than {} bytes", key, maxBodySize);
+                    }
+                });
+    }
+
+    /**
+     * The representation cached for key, if any
+     *
+     * @param key
+     * @return
+     */
+    public Representation getIfPresent(String key) {
+        synchronized (cache) {
+            var cached = cache.get(key);
+            if (cached != null) {
+                cacheHits.increment();
+            } else {
+                cacheMisses.increment();
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Hash and compress body and cache it under key, unless it is bigger than
+     * the whole cache
+     *
+     * @param key
+     * @param contentType
+     * @param body
+     * @return
+     */
+    public Representation put(String key, MediaType contentType, byte[] body) {
+        return put(key, new Representation(contentType, body, null));
+    }
+
+    private Representation put(String key, Representation representation) {
+        if (representation.size() > maxSize) {
+            log.debug("Not caching representation: {} of {} bytes, bigger than the cache", key,
+                    representation.size());
+            return representation;
+        }
+        synchronized (cache) {
+            var replaced = cache.put(key, representation);
+            size += representation.size() - (replaced == null ? 0 : replaced.size());
+            var eldest = cache.entrySet().iterator();
+            while (size > maxSize && eldest.hasNext()) {
+                size -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+        }
+        log.debug("Cached representation: {} as: {}, {} bytes", key, representation.getEtag(),
+                representation.identity.length);
+        return representation;
+    }
+
+    /**
+     * Bytes held by all representations cached, compressed ones included
+     *
+     * @return
+     */
+    public long getSize() {
+        synchronized (cache) {
+            return size;
+        }
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("traverse.cache.requests")
+                .description("Lookups of cached results")
+                .tag("cache", "representation")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One serialized snapshot: its body, as is and compressed, and its ETag
+     */
+    public static final class Representation {
+        private final MediaType contentType;
+        private final String hash;
+        private final byte[] identity;
+        private final byte[] gzip;
+        private final byte[] deflate;
+
+        /**
+         * @param contentType
+         * @param identity
+         * @param hash        of what the body was written from, null to hash
+         *                    the body itself
+         */
+        Representation(MediaType contentType, byte[] identity, String hash) {
+            this.contentType = contentType;
+            this.identity = identity;
+            this.hash = (hash != null ? hash : hash(identity));
+            // compressed forms no smaller than the body are not worth sending
+            var gzipped = compress(identity, GZIP);
+            this.gzip = (gzipped.length < identity.length ? gzipped : null);
+            var deflated = compress(identity, DEFLATE);
+            this.deflate = (deflated.length < identity.length ? deflated : null);
+        }
+
+        /**
+         * Strong ETag of the body as is, quoted. A hash of the body unless it
+         * was streamed, then a hash of its key
+         *
+         * @return
+         */
+        public String getEtag() {
+            return '"' + hash + '"';
+        }
+
+        /**
+         * Response to a request with these If-None-Match and Accept-Encoding
+         * headers, either of which may be null: 304 Not Modified when it has the
+         * ETag, otherwise the body in the best encoding accepted
+         *
+         * @param ifNoneMatch
+         * @param acceptEncoding
+         * @return
+         */
+        public ResponseEntity<byte[]> toResponse(String ifNoneMatch, String acceptEncoding) {
+            var encoding = encoding(acceptEncoding);
+            // each encoding is a representation of its own with an ETag of its own
+            var etag = (encoding == null ? getEtag() : '"' + hash + '-' + encoding + '"');
+            var notModified = isNotModified(hash, ifNoneMatch);
+            var builder = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (notModified) {
+                return builder.build();
+            }
+            var body = identity;
+            if (GZIP.equals(encoding)) {
+                body = gzip;
+            } else if (DEFLATE.equals(encoding)) {
+                body = deflate;
+            }
+            if (encoding != null) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, encoding);
+            }
+            return builder.contentType(contentType).contentLength(body.length).body(body);
+        }
+
+        long size() {
+            return identity.length + (gzip == null ? 0 : gzip.length) + (deflate == null ? 0 : deflate.length);
+        }
+
+        /**
+         * Whether If-None-Match has the ETag of a body with this hash in any
+         * encoding, weak or not
+         */
+        private static boolean isNotModified(String hash, String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (var candidate : ifNoneMatch.split(",")) {
+                var tag = candidate.strip();
+                if (tag.equals("*")) {
+                    return true;
+                }
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                tag = tag.replace("\"", "");
+                if (tag.equals(hash) || tag.equals(hash + '-' + GZIP) || tag.equals(hash + '-' + DEFLATE)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Encoding to answer with, gzip over deflate over none, null for none
+         */
+        private String encoding(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return null;
+            }
+            var gzipAccepted = false;
+            var deflateAccepted = false;
+            for (var candidate : acceptEncoding.split(",")) {
+                var parts = candidate.split(";");
+                var coding = parts[0].strip().toLowerCase(Locale.ROOT);
+                var refused = false;
+                for (var i = 1; i < parts.length; i++) {
+                    var parameter = parts[i].strip().replace(" ", "");
+                    refused |= parameter.matches("q=0(\\.0*)?");
+                }
+                if (refused) {
+                    continue;
+                }
+                gzipAccepted |= coding.equals(GZIP) || coding.equals("x-gzip") || coding.equals("*");
+                deflateAccepted |= coding.equals(DEFLATE) || coding.equals("*");
+            }
+            if (gzipAccepted && gzip != null) {
+                return GZIP;
+            }
+            if (deflateAccepted && deflate != null) {
+                return DEFLATE;
+            }
+            return null;
+        }
+
+        private static String hash(byte[] body) {
+            try {
+                var digest = MessageDigest.getInstance("SHA-256").digest(body);
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+            } catch (NoSuchAlgorithmException e) {
+                var msg = "Exception occurred while hashing representation";
+                log.error(msg, e);
+                throw new RuntimeException(msg, e);
+            }
+        }
+
+        private static byte[] compress(byte[] body, String encoding) {
+            // compressed once and sent many times, worth the best compression
+            var out = new ByteArrayOutputStream(body.length / 4 + 64);
+            var deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (var compressed = (GZIP.equals(encoding) ? new GzipStream(out)
+                    : new DeflaterOutputStream(out, deflater))) {
+                compressed.write(body);
+            } catch (IOException e) {
+                var msg = "Exception occurred while compressing representation with: " + encoding;
+                log.error(msg, e);
+                throw new RuntimeException(msg, e);
+            } finally {
+                deflater.end();
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Writes through to the response, keeping a copy of what was written for
+     * as long as it is no bigger than the limit
+     */
+    private static final class BoundedCopyStream extends FilterOutputStream {
+        private final long limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private BoundedCopyStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            keep(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            keep(b, off, len);
+        }
+
+        /**
+         * What was written, null when it was too big to keep
+         */
+        private byte[] getCopy() {
+            return (copy == null ? null : copy.toByteArray());
+        }
+
+        private void keep(byte[] b, int off, int len) {
+            if (copy != null && copy.size() + len > limit) {
+                // dropped for good, whatever comes after is not kept either
+                copy = null;
+            }
+            if (copy != null) {
+                copy.write(b, off, len);
+            }
+        }
+    }
+
+    /**
+     * GZIPOutputStream only compresses at the default level
+     */
+    private static final class GzipStream extends GZIPOutputStream {
+        private GzipStream(OutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
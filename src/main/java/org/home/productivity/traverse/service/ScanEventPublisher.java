@@ -0,0 +1,210 @@
+package org.home.productivity.traverse.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.home.productivity.traverse.graph.GraphDelta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams scan jobs to Server-Sent Events subscribers while they run:
+ * "progress" events with the job's status and counts, "delta" events with the
+ * nodes and edges of components as they are found (see {@link GraphDelta}) and
+ * a final "done" event with the job, after which the stream is closed.
+ * <p>
+ * The scanner never waits on a subscriber. Components found are collected
+ * once per job and each subscriber only keeps a cursor into them along with
+ * what it was last sent, so a subscriber costs the same however far behind it
+ * is. Every application.scan.events.interval one thread looks at every
+ * subscriber and hands whatever it has not been sent yet to a small fixed pool
+ * of senders, coalesced into one progress event and at most
+ * application.scan.events.batch.size components. A subscriber whose last send
+ * is still under way is skipped until it is done, slow clients simply get
+ * bigger, fewer events. Threads and memory stay the same no matter how many
+ * subscribers there are
+ */
+@Service
+@Slf4j
+public class ScanEventPublisher {
+
+    private final ScheduledExecutorService ticker;
+
+    private final ExecutorService senders;
+
+    private final int batchSize;
+
+    private final Duration timeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Counter skipped;
+
+    @Autowired
+    public ScanEventPublisher(MeterRegistry meterRegistry,
+            @Value("${application.scan.events.interval:250ms}") Duration interval,
+            @Value("${application.scan.events.senders:4}") int senders,
+            @Value("${application.scan.events.batch.size:500}") int batchSize,
+            @Value("${application.scan.events.timeout:30m}") Duration timeout) {
+        this.batchSize = batchSize;
+        this.timeout = timeout;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("scan-events-"));
+        this.senders = Executors.newFixedThreadPool(senders, new CustomizableThreadFactory("scan-events-send-"));
+        this.ticker.scheduleWithFixedDelay(this::publish, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        Gauge.builder("traverse.scan.events.subscribers", subscribers, Set::size)
+                .description("Subscribers to scan job events")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("traverse.scan.events.skipped")
+                .description("Times a subscriber was skipped since it was still busy with its last events")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Follow a job. A job that is done already is replayed in one go
+     *
+     * @param job
+     * @return
+     */
+    public SseEmitter subscribe(ScanJob job) {
+        var emitter = new SseEmitter(timeout.toMillis());
+        var subscriber = new Subscriber(job, batchSize, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.debug("Subscribed to events of scan job: {}, {} subscribers", job.getId(), subscribers.size());
+        return emitter;
+    }
+
+    private void publish() {
+        // anything escaping would cancel the schedule for good
+        try {
+            for (var subscriber : subscribers) {
+                if (!subscriber.sending.compareAndSet(false, true)) {
+                    skipped.increment();
+                    continue;
+                }
+                var events = subscriber.poll();
+                if (events.isEmpty()) {
+                    subscriber.sending.set(false);
+                    continue;
+                }
+                senders.execute(() -> send(subscriber, events));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Exception occurred while publishing scan events", e);
+        }
+    }
+
+    private void send(Subscriber subscriber, List<ScanEvent> events) {
+        try {
+            for (var event : events) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .name(event.getName())
+                        .data(event.getData(), MediaType.APPLICATION_JSON));
+            }
+            if (subscriber.isFinished()) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // client went away or the emitter already completed
+            log.debug("Dropping subscriber to events of scan job: {}", subscriber.job.getId(), e);
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    /**
+     * Where a subscriber is at: how many components it was sent and what its
+     * last progress event said. Only touched by one thread at a time, whoever
+     * holds sending
+     */
+    static final class Subscriber {
+        private final ScanJob job;
+        private final int batchSize;
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private int cursor;
+        private String lastProgress;
+        private boolean finished;
+
+        Subscriber(ScanJob job, int batchSize, SseEmitter emitter) {
+            this.job = job;
+            this.batchSize = batchSize;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Events this subscriber has not been sent yet, at most one of each kind
+         *
+         * @return
+         */
+        List<ScanEvent> poll() {
+            List<ScanEvent> events = new ArrayList<>(2);
+            if (finished) {
+                return events;
+            }
+            // checked first, everything found before the job was done is then
+            // guaranteed to be in componentsFound
+            var done = job.isDone();
+            var components = job.componentsFound(cursor, batchSize);
+            cursor += components.size();
+            if (!components.isEmpty()) {
+                events.add(new ScanEvent("delta", GraphDelta.of(components)));
+            }
+            if (done && cursor == job.getComponentsFound()) {
+                finished = true;
+                events.add(new ScanEvent("done", job));
+                return events;
+            }
+            var progress = job.getStatus() + "|" + job.getPhase() + "|" + job.getClassesFound() + "|"
+                    + job.getClassesDone() + "|" + job.getComponentsFound();
+            if (!progress.equals(lastProgress)) {
+                lastProgress = progress;
+                events.add(new ScanEvent("progress", job));
+            }
+            return events;
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+    }
+
+    @Data
+    static final class ScanEvent {
+        private final String name;
+        private final Object data;
+    }
+}
@@ -0,0 +1,230 @@
+package org.home.productivity.traverse.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.scan.ScanProgress;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.scan.ScannedClass;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A scan submitted to run in the background, see {@link ScanJobService}.
+ * <p>
+ * Moves from QUEUED to RUNNING to one of SUCCEEDED, FAILED or CANCELLED and
+ * can be polled for its progress while it gets there. The result is kept
+ * apart from the status since it can be big.
+ * <p>
+ * Components are collected as the scan finds them so they can be streamed out
+ * before it is done (see {@link ScanEventPublisher}), they are the same
+ * instances that end up in the result
+ */
+public class ScanJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        boolean isDone() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final String id;
+    private final String target;
+    private final String[] packages;
+    private final PackageMatcher packageMatcher;
+    private final Instant submittedAt = Instant.now();
+    private final ScanProgress progress = new ScanProgress();
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+    private final CompletableFuture<ScanResult> completion = new CompletableFuture<>();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    // components in the order they were found, only ever appended to
+    private final List<ScannedClass> componentsFound = new ArrayList<>();
+
+    ScanJob(String id, String target, String[] packages) {
+        this.id = id;
+        this.target = target;
+        this.packages = packages;
+        this.packageMatcher = (packages.length == 0 ? null : PackageMatcher.of(packages, null));
+        progress.onComponent(this::found);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String[] getPackages() {
+        return packages;
+    }
+
+    public Status getStatus() {
+        return status.get();
+    }
+
+    public String getPhase() {
+        return progress.getPhase();
+    }
+
+    public long getClassesFound() {
+        return progress.getClassesFound();
+    }
+
+    public long getClassesDone() {
+        return progress.getClassesDone();
+    }
+
+    /**
+     * Components found so far, once done the result may have more of them:
+     * those of custom stereotypes
+     *
+     * @return
+     */
+    public int getComponentsFound() {
+        synchronized (componentsFound) {
+            return componentsFound.size();
+        }
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Why the job failed, null unless FAILED
+     *
+     * @return
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Result of a job that SUCCEEDED
+     *
+     * @return result or null when the job did not (yet) succeed
+     */
+    @JsonIgnore
+    public ScanResult getResult() {
+        return (getStatus() == Status.SUCCEEDED ? completion.join() : null);
+    }
+
+    /**
+     * Wait for the job to finish
+     *
+     * @return
+     * @throws CancellationException when the job was cancelled
+     * @throws RuntimeException      when the scan failed
+     */
+    public ScanResult await() {
+        try {
+            return completion.join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof RuntimeException cause ? cause : e);
+        }
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return getStatus().isDone();
+    }
+
+    @JsonIgnore
+    ScanProgress getProgress() {
+        return progress;
+    }
+
+    @JsonIgnore
+    PackageMatcher getPackageMatcher() {
+        return packageMatcher;
+    }
+
+    void found(ScannedClass component) {
+        if (packageMatcher == null || packageMatcher.matches(component.getPackageName())) {
+            synchronized (componentsFound) {
+                componentsFound.add(component);
+            }
+        }
+    }
+
+    /**
+     * Components found, starting at from
+     *
+     * @param from
+     * @param max  most to return
+     * @return
+     */
+    List<ScannedClass> componentsFound(int from, int max) {
+        synchronized (componentsFound) {
+            var to = Math.min(componentsFound.size(), from + max);
+            return (from >= to ? List.of() : List.copyOf(componentsFound.subList(from, to)));
+        }
+    }
+
+    /**
+     * @return false when the job was cancelled before it got to start
+     */
+    boolean start() {
+        if (!status.compareAndSet(Status.QUEUED, Status.RUNNING)) {
+            return false;
+        }
+        startedAt = Instant.now();
+        return true;
+    }
+
+    void succeed(ScanResult result) {
+        finish(Status.SUCCEEDED);
+        completion.complete(result);
+    }
+
+    void fail(RuntimeException e) {
+        error = e.getMessage();
+        finish(Status.FAILED);
+        completion.completeExceptionally(e);
+    }
+
+    /**
+     * Cancel a job still queued right away, a running job stops at the next
+     * point the scan checks for it
+     *
+     * @return true when the job was still queued
+     */
+    boolean cancel() {
+        progress.cancel();
+        if (status.compareAndSet(Status.QUEUED, Status.CANCELLED)) {
+            cancelled();
+            return true;
+        }
+        return false;
+    }
+
+    void cancelled() {
+        finish(Status.CANCELLED);
+        completion.completeExceptionally(new CancellationException("Scan job cancelled: " + id));
+    }
+
+    private void finish(Status finalStatus) {
+        finishedAt = Instant.now();
+        status.set(finalStatus);
+    }
+}
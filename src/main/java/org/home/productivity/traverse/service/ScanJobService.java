@@ -0,0 +1,255 @@
+package org.home.productivity.traverse.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.commons.VirtualThreads;
+import org.home.productivity.traverse.scan.CallGraph;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs scans as background jobs so no request thread is tied up while a target
+ * is scanned.
+ * <p>
+ * At most application.scan.jobs.concurrency scans run at once, up to
+ * application.scan.jobs.queue.capacity more wait their turn and anything
+ * beyond that is rejected. Submitting a scan of a target (with the same
+ * packages) that is already queued or running hands back that job instead of
+ * starting another one, a scan of it with other packages waits for that one
+ * to finish.
+ * <p>
+ * Finished jobs are kept for application.scan.jobs.retention so their
+ * results can be picked up. Scans of calls are not jobs but run under the same
+ * limits. Jobs run on virtual threads when
+ * application.threads.virtual is on, the limits stay the same
+ */
+@Service
+@Slf4j
+public class ScanJobService {
+
+    private final ScanService scanService;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration retention;
+
+    private final Map<String, ScanJob> jobs = new ConcurrentHashMap<>();
+
+    // queued and running jobs by what they scan
+    private final Map<String, ScanJob> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<ScanJob, Runnable> queued = new ConcurrentHashMap<>();
+
+    private final Counter submitted;
+
+    private final Counter merged;
+
+    private final Counter rejected;
+
+    @Autowired
+    public ScanJobService(ScanService scanService, MeterRegistry meterRegistry,
+            @Value("${application.scan.jobs.concurrency:2}") int concurrency,
+            @Value("${application.scan.jobs.queue.capacity:16}") int queueCapacity,
+            @Value("${application.scan.jobs.retention:1h}") Duration retention,
+            @Value("${application.threads.virtual:false}") boolean virtualThreads) {
+        this.scanService = scanService;
+        this.retention = retention;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                VirtualThreads.factory(VirtualThreads.enabled(virtualThreads), "scan-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.submitted = jobCounter(meterRegistry, "submitted");
+        this.merged = jobCounter(meterRegistry, "merged");
+        this.rejected = jobCounter(meterRegistry, "rejected");
+        Gauge.builder("traverse.scan.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Scan jobs running")
+                .register(meterRegistry);
+        Gauge.builder("traverse.scan.jobs.queued", executor, pool -> pool.getQueue().size())
+                .description("Scan jobs waiting to run")
+                .register(meterRegistry);
+    }
+
+    private static Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("traverse.scan.jobs")
+                .description("Scan jobs submitted")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        inFlight.values().forEach(ScanJob::cancel);
+    }
+
+    /**
+     * Queue a scan of target, or join the scan of it that is already queued or
+     * running
+     *
+     * @param target   classes directory, jar or fat jar
+     * @param packages package patterns to limit the components found to, null or
+     *                 empty for all
+     * @return
+     * @throws RejectedExecutionException when too many scans are queued already
+     */
+    public ScanJob submit(Path target, String[] packages) {
+        prune();
+        var path = target.toAbsolutePath().normalize().toString();
+        var sortedPackages = (packages == null ? new String[0] : packages.clone());
+        Arrays.sort(sortedPackages);
+        var key = path + "|" + String.join(",", sortedPackages);
+        var newJob = new ScanJob(UUID.randomUUID().toString(), path, sortedPackages);
+        var job = inFlight.compute(key, (k, existing) -> (existing != null && !existing.isDone() ? existing : newJob));
+        if (job != newJob) {
+            log.info("Scan of: {} already in flight as job: {}", path, job.getId());
+            merged.increment();
+            return job;
+        }
+
+        jobs.put(job.getId(), job);
+        Runnable run = () -> run(key, job);
+        queued.put(job, run);
+        try {
+            executor.execute(run);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, job);
+            jobs.remove(job.getId());
+            queued.remove(job);
+            rejected.increment();
+            log.warn("Rejected scan of: {}, {} scans queued already", path, executor.getQueue().size());
+            throw e;
+        }
+        submitted.increment();
+        log.info("Queued scan of: {} as job: {}", path, job.getId());
+        return job;
+    }
+
+    /**
+     * Scan the calls of target and wait for it, running under the same limits
+     * as scan jobs. Not a job itself, so it is neither kept nor joined by other
+     * scans of the same target
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher packages whose calls are followed
+     * @return
+     * @throws RejectedExecutionException when too many scans are queued already
+     * @throws CancellationException      when interrupted while waiting
+     */
+    public CallGraph scanCalls(Path target, PackageMatcher packageMatcher) {
+        var path = target.toAbsolutePath().normalize();
+        Future<CallGraph> future;
+        try {
+            future = executor.submit(() -> scanService.scanCalls(path, packageMatcher));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Rejected scan of calls of: {}, {} scans queued already", path, executor.getQueue().size());
+            throw e;
+        }
+        submitted.increment();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for scan of calls of: " + path);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            var msg = "Exception occurred while scanning calls of: " + path;
+            log.error(msg, e);
+            throw new RuntimeException(msg, e.getCause());
+        }
+    }
+
+    public Optional<ScanJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * All jobs still known, most recently submitted first
+     *
+     * @return
+     */
+    public List<ScanJob> getJobs() {
+        prune();
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ScanJob::getSubmittedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Cancel a job. Queued jobs are dropped from the queue, running jobs stop
+     * at the next point the scan checks for it and finished jobs are left as
+     * they are
+     *
+     * @param id
+     * @return the job
+     */
+    public Optional<ScanJob> cancel(String id) {
+        var job = jobs.get(id);
+        if (job != null && !job.isDone()) {
+            log.info("Cancelling scan job: {}", id);
+            if (job.cancel()) {
+                // never going to run, so never going to clean up after itself
+                var run = queued.remove(job);
+                if (run != null) {
+                    executor.remove(run);
+                }
+                inFlight.values().remove(job);
+            }
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private void run(String key, ScanJob job) {
+        queued.remove(job);
+        try {
+            if (!job.start()) {
+                return;
+            }
+            job.succeed(scanService.scan(Path.of(job.getTarget()), job.getPackageMatcher(), job.getProgress()));
+            log.info("Scan job: {} succeeded", job.getId());
+        } catch (CancellationException e) {
+            job.cancelled();
+            log.info("Scan job: {} cancelled", job.getId());
+        } catch (RuntimeException e) {
+            job.fail(e);
+            log.warn("Scan job: {} failed", job.getId(), e);
+        } finally {
+            inFlight.remove(key, job);
+        }
+    }
+
+    /**
+     * Forget finished jobs that are past retention
+     */
+    private void prune() {
+        var cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isDone() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
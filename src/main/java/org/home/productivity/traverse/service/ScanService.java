@@ -0,0 +1,224 @@
+package org.home.productivity.traverse.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.GraphDiff;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.home.productivity.traverse.scan.CallGraph;
+import org.home.productivity.traverse.scan.ClassScanner;
+import org.home.productivity.traverse.scan.ScanProgress;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scans target applications incrementally: whatever the last scan of a target
+ * stored is handed to the scanner so only class files that changed since are
+ * parsed again, then the result is stored for next time and its component
+ * graph handed to the {@link GraphStore}
+ * <p>
+ * Each of those phases is timed (traverse.scan.phase), class files are counted
+ * by what happened to them (traverse.scan.classes) and bytes per scan are
+ * summarized by how they were read (traverse.scan.bytes). Targets are not
+ * tagged, there is no telling how many different paths get scanned
+ * <p>
+ * Scans of the same target run one at a time, whatever packages they are
+ * limited to, since each replaces what the one before stored for it
+ */
+@Service
+@Slf4j
+public class ScanService {
+
+    private final ClassScanner classScanner;
+
+    private final ScanStore scanStore;
+
+    private final GraphStore graphStore;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ReentrantLock> targetLocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ScanService(ClassScanner classScanner, ScanStore scanStore, GraphStore graphStore,
+            MeterRegistry meterRegistry) {
+        this.classScanner = classScanner;
+        this.scanStore = scanStore;
+        this.graphStore = graphStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Scan target, reusing what did not change since it was last scanned
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher limits the components returned, null for all
+     * @return
+     */
+    public ScanResult scan(Path target, PackageMatcher packageMatcher) {
+        return scan(target, packageMatcher, new ScanProgress());
+    }
+
+    /**
+     * Scan target, reusing what did not change since it was last scanned, and
+     * report the phase it is in (wait, load, scan, save, graph) through progress
+     * <p>
+     * Cancelling stops the scan itself and anything not stored yet, once the
+     * result has been saved the scan runs to completion. A scan of a target
+     * that is being scanned already waits for that scan to finish first
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher limits the components returned, null for all
+     * @param progress
+     * @return
+     * @throws java.util.concurrent.CancellationException when cancelled
+     */
+    public ScanResult scan(Path target, PackageMatcher packageMatcher, ScanProgress progress) {
+        // loading, scanning and storing each stand alone so no transaction (or
+        // connection) is held while the scanner does its work
+        var path = target.toAbsolutePath().normalize();
+        var lock = targetLocks.computeIfAbsent(path.toString(), key -> new ReentrantLock());
+        awaitLock(lock, path, progress);
+        try {
+            var previous = timePhase("load", progress, () -> scanStore.load(path.toString()));
+            // the graph of a target is queried and exported for any packages, so it
+            // gets all of its components and only the result is narrowed down
+            var result = timePhase("scan", progress, () -> classScanner.scan(path, null, previous, progress));
+            progress.throwIfCancelled();
+            timePhase("save", progress, () -> scanStore.save(path.toString(), previous, result));
+            timePhase("graph", progress, () -> graphStore.update(path.toString(), result));
+            record(result);
+            return result.withPackages(packageMatcher);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void awaitLock(ReentrantLock lock, Path path, ScanProgress progress) {
+        try {
+            while (!lock.tryLock(100, TimeUnit.MILLISECONDS)) {
+                if (progress.getPhase() == null) {
+                    log.info("Waiting for the scan of: {} in progress", path);
+                    progress.setPhase("wait");
+                }
+                progress.throwIfCancelled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the scan of: " + path);
+        }
+    }
+
+    /**
+     * Scan target for the call graph of the given packages, from scratch every
+     * time. Nothing is stored, timed as the calls phase
+     *
+     * @param target         classes directory, jar or fat jar
+     * @param packageMatcher classes whose calls are followed, null for all
+     * @return
+     */
+    public CallGraph scanCalls(Path target, PackageMatcher packageMatcher) {
+        var path = target.toAbsolutePath().normalize();
+        return phaseTimer("calls").record(() -> classScanner.scanCalls(path, packageMatcher));
+    }
+
+    /**
+     * Compare what the last scans of two targets stored, i.e. two builds of the
+     * same application. Nothing is scanned, timed as the diff phase
+     *
+     * @param from           target scanned before
+     * @param to             target scanned after
+     * @param packageMatcher limits the components compared, null for all
+     * @return
+     * @throws java.util.NoSuchElementException when either target was never
+     *                                          scanned
+     * @throws IllegalStateException            when either target was stored
+     *                                          by an older version and has to be
+     *                                          scanned again
+     */
+    public GraphDiff diff(Path from, Path to, PackageMatcher packageMatcher) {
+        var fromPath = from.toAbsolutePath().normalize().toString();
+        var toPath = to.toAbsolutePath().normalize().toString();
+        return phaseTimer("diff").record(() -> {
+            var start = System.nanoTime();
+            var fromComponents = ClassScanner.components(loadClasses(fromPath), packageMatcher);
+            var toComponents = ClassScanner.components(loadClasses(toPath), packageMatcher);
+            var loaded = System.nanoTime();
+            var diff = GraphDiff.of(fromPath, fromComponents, toPath, toComponents);
+            log.info("Compared {} components of: {} with {} of: {}, {} differences, loaded in {}ms and compared in "
+                    + "{}ms", fromComponents.size(), fromPath, toComponents.size(), toPath,
+                    diff.getDifferences().size(), (loaded - start) / 1_000_000,
+                    (System.nanoTime() - loaded) / 1_000_000);
+            return diff;
+        });
+    }
+
+    private List<ScannedClass> loadClasses(String target) {
+        return scanStore.loadClasses(target)
+                .orElseThrow(() -> new NoSuchElementException("Not scanned yet: " + target));
+    }
+
+    private <T> T timePhase(String phase, ScanProgress progress, Supplier<T> supplier) {
+        progress.setPhase(phase);
+        return phaseTimer(phase).record(supplier);
+    }
+
+    private void timePhase(String phase, ScanProgress progress, Runnable runnable) {
+        progress.setPhase(phase);
+        phaseTimer(phase).record(runnable);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("traverse.scan.phase")
+                .description("Time spent in each phase of scanning a target")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    private void record(ScanResult result) {
+        countClasses("parsed", result.getClassesParsed());
+        countClasses("reused", result.getClassesReused());
+        countClasses("skipped", result.getClassesSkipped());
+        countClasses("failed", result.getClassesFailed());
+        Counter.builder("traverse.scan.archives")
+                .description("Archives read while scanning")
+                .register(meterRegistry)
+                .increment(result.getArchivesRead());
+        summarizeBytes("read", result.getBytesRead());
+        summarizeBytes("mapped", result.getBytesMapped());
+        summarizeBytes("inflated", result.getBytesInflated());
+    }
+
+    private void countClasses(String outcome, long count) {
+        Counter.builder("traverse.scan.classes")
+                .description("Class files seen while scanning")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    private void summarizeBytes(String kind, long bytes) {
+        DistributionSummary.builder("traverse.scan.bytes")
+                .description("Bytes per scan")
+                .baseUnit("bytes")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+}
@@ -0,0 +1,191 @@
+package org.home.productivity.traverse.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.home.productivity.traverse.model.ClassRecord;
+import org.home.productivity.traverse.model.ScanTarget;
+import org.home.productivity.traverse.repository.ClassRecordRepository;
+import org.home.productivity.traverse.repository.ScanTargetRepository;
+import org.home.productivity.traverse.scan.PreviousScan;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.home.productivity.traverse.scan.ScannedEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores what a scan found per target so the next scan of the same target can
+ * pick up from there.
+ * <p>
+ * Only the difference to what is stored is written: records whose content hash
+ * is unchanged are left alone, new and changed ones are inserted in JDBC
+ * batches (see application.properties -> spring.jpa.properties.hibernate.jdbc.*)
+ * and the rest deleted in bulk
+ * <p>
+ * Records are only reused as long as they were stored in the current
+ * {@link #FORMAT}, a target stored in another one is scanned from scratch and
+ * stored anew
+ */
+@Service
+@Slf4j
+public class ScanStore {
+
+    // bump whenever what ScannedClass holds changes
+    static final int FORMAT = 2;
+
+    private final ScanTargetRepository scanTargetRepository;
+
+    private final ClassRecordRepository classRecordRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ScanStore(ScanTargetRepository scanTargetRepository, ClassRecordRepository classRecordRepository,
+            EntityManager entityManager, ObjectMapper objectMapper) {
+        this.scanTargetRepository = scanTargetRepository;
+        this.classRecordRepository = classRecordRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Load what the last scan of target found
+     *
+     * @param target
+     * @return previous scan, empty if target was never scanned
+     */
+    @Transactional(readOnly = true)
+    public PreviousScan load(String target) {
+        var start = System.nanoTime();
+        var scanTarget = scanTargetRepository.findByPath(target);
+        if (scanTarget.isEmpty()) {
+            return PreviousScan.NONE;
+        }
+        if (!isCurrentFormat(scanTarget.get())) {
+            log.info("Not reusing previous scan of: {}, stored in format: {} rather than: {}", target,
+                    scanTarget.get().getFormat(), FORMAT);
+            return PreviousScan.NONE;
+        }
+        var storedEntries = classRecordRepository.findEntriesByTargetId(scanTarget.get().getId());
+        List<ScannedEntry> entries = new ArrayList<>(storedEntries.size());
+        for (var storedEntry : storedEntries) {
+            entries.add(new ScannedEntry(storedEntry.getEntryKey(), storedEntry.getContentHash(),
+                    storedEntry.isArchive(), fromJson(storedEntry.getScannedClass()), true));
+        }
+        log.info("Loaded previous scan of: {}, {} records in {}ms", target, entries.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return new PreviousScan(entries);
+    }
+
+    /**
+     * Bring the stored records of target in line with a scan result. Entries the
+     * scan reused are stored already so only the rest is written, and whatever
+     * the previous scan had that wasn't reused has changed or is gone
+     *
+     * @param target
+     * @param previous what {@link #load(String)} returned for the scan
+     * @param result
+     */
+    @Transactional
+    public void save(String target, PreviousScan previous, ScanResult result) {
+        var start = System.nanoTime();
+        var scanTarget = scanTargetRepository.findByPath(target).orElseGet(() -> new ScanTarget(target));
+        // nothing of a scan stored in another format was reused, none of it stays
+        var replaced = (scanTarget.getId() != null && !isCurrentFormat(scanTarget)
+                ? classRecordRepository.deleteByTargetId(scanTarget.getId())
+                : 0);
+        scanTarget.setClassCount(result.getClassesParsed() + result.getClassesReused());
+        scanTarget.setComponentCount(result.getComponents().size());
+        scanTarget.setFormat(FORMAT);
+        var targetId = scanTargetRepository.save(scanTarget).getId();
+
+        Set<String> stale = new HashSet<>(previous.keys());
+        List<ClassRecord> inserts = new ArrayList<>();
+        for (var entry : result.getEntries()) {
+            if (entry.isReused()) {
+                stale.remove(entry.getKey());
+            } else {
+                inserts.add(new ClassRecord(targetId, entry.getKey(), entry.getContentHash(), entry.isArchive(),
+                        toJson(entry.getScannedClass())));
+            }
+        }
+        List<String> deletes = new ArrayList<>(stale);
+        for (var i = 0; i < deletes.size(); i += ClassRecord.ALLOCATION_SIZE) {
+            classRecordRepository.deleteByTargetIdAndEntryKeyIn(targetId,
+                    deletes.subList(i, Math.min(i + ClassRecord.ALLOCATION_SIZE, deletes.size())));
+        }
+        for (var i = 0; i < inserts.size(); i += ClassRecord.ALLOCATION_SIZE) {
+            classRecordRepository.saveAll(inserts.subList(i, Math.min(i + ClassRecord.ALLOCATION_SIZE, inserts.size())));
+            // keep the persistence context from growing with every batch
+            entityManager.flush();
+            entityManager.clear();
+        }
+        log.info("Stored scan of: {}, inserted {} and deleted {} records in {}ms", target, inserts.size(),
+                deletes.size() + replaced, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Classes found by the last scan of target, to compare scans with
+     *
+     * @param target
+     * @return classes, empty when target was never scanned
+     * @throws IllegalStateException when target was stored in another format
+     *                               and has to be scanned again first
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<ScannedClass>> loadClasses(String target) {
+        var scanTarget = scanTargetRepository.findByPath(target);
+        if (scanTarget.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!isCurrentFormat(scanTarget.get())) {
+            throw new IllegalStateException("Scan of: " + target + " is stored in format: "
+                    + scanTarget.get().getFormat() + " rather than: " + FORMAT + ", scan it again");
+        }
+        var storedEntries = classRecordRepository.findEntriesByTargetId(scanTarget.get().getId());
+        List<ScannedClass> classes = new ArrayList<>(storedEntries.size());
+        for (var storedEntry : storedEntries) {
+            if (storedEntry.getScannedClass() != null) {
+                classes.add(fromJson(storedEntry.getScannedClass()));
+            }
+        }
+        return Optional.of(classes);
+    }
+
+    private static boolean isCurrentFormat(ScanTarget scanTarget) {
+        return scanTarget.getFormat() != null && scanTarget.getFormat() == FORMAT;
+    }
+
+    private String toJson(ScannedClass scannedClass) {
+        try {
+            return (scannedClass == null ? null : objectMapper.writeValueAsString(scannedClass));
+        } catch (JsonProcessingException e) {
+            var msg = "Exception occurred while writing scanned class: " + scannedClass.getName();
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    private ScannedClass fromJson(String json) {
+        try {
+            return (json == null ? null : objectMapper.readValue(json, ScannedClass.class));
+        } catch (JsonProcessingException e) {
+            var msg = "Exception occurred while reading scanned class";
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+}
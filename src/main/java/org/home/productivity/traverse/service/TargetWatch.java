@@ -0,0 +1,173 @@
+package org.home.productivity.traverse.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.scan.ScannedClass;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+
+/**
+ * A classes directory kept up to date by {@link TargetWatcher}: every class
+ * found in it by the last scan or since, and the changes waiting to be picked
+ * up. Serializes to what the watch is on and how its last update went
+ */
+public class TargetWatch {
+
+    private final String target;
+    private final String[] packages;
+    private final PackageMatcher packageMatcher;
+    private final Instant startedAt = Instant.now();
+    // files changed since the last update, added to by the poller
+    private final Set<Path> changed = ConcurrentHashMap.newKeySet();
+    private volatile long firstChangeNanos;
+    // set when events were lost and only a rescan will do
+    private volatile boolean overflowed;
+    // classes by key within the target, see ScannedEntry. Set once the first
+    // scan is done and only touched by the updating thread after that
+    private volatile Map<String, ScannedClass> classes;
+    private volatile Update lastUpdate;
+    private volatile long updates;
+    private ScheduledFuture<?> pendingUpdate;
+
+    TargetWatch(String target, String[] packages) {
+        this.target = target;
+        this.packages = packages;
+        this.packageMatcher = (packages.length == 0 ? null : PackageMatcher.of(packages, null));
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String[] getPackages() {
+        return packages;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public Update getLastUpdate() {
+        return lastUpdate;
+    }
+
+    @JsonIgnore
+    PackageMatcher getPackageMatcher() {
+        return packageMatcher;
+    }
+
+    /**
+     * Note a file as changed
+     *
+     * @param path
+     */
+    void changed(Path path) {
+        if (changed.add(path) && firstChangeNanos == 0) {
+            firstChangeNanos = System.nanoTime();
+        }
+    }
+
+    void overflowed() {
+        overflowed = true;
+        if (firstChangeNanos == 0) {
+            firstChangeNanos = System.nanoTime();
+        }
+    }
+
+    boolean isReady() {
+        return classes != null;
+    }
+
+    @JsonIgnore
+    Map<String, ScannedClass> getClasses() {
+        return classes;
+    }
+
+    void setClasses(Map<String, ScannedClass> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Take the changes noted so far
+     *
+     * @return changes and when the first of them was noted
+     */
+    Changes drainChanges() {
+        var firstChange = firstChangeNanos;
+        firstChangeNanos = 0;
+        var rescan = overflowed;
+        overflowed = false;
+        var paths = Set.copyOf(changed);
+        changed.removeAll(paths);
+        return new Changes(paths, rescan, firstChange);
+    }
+
+    boolean hasChanges() {
+        return overflowed || !changed.isEmpty();
+    }
+
+    void updated(Update update) {
+        this.lastUpdate = update;
+        this.updates++;
+    }
+
+    /**
+     * Replace the update scheduled, if any, with another one
+     *
+     * @param update
+     */
+    synchronized void reschedule(ScheduledFuture<?> update) {
+        if (pendingUpdate != null) {
+            pendingUpdate.cancel(false);
+        }
+        pendingUpdate = update;
+    }
+
+    synchronized void cancel() {
+        if (pendingUpdate != null) {
+            pendingUpdate.cancel(false);
+        }
+    }
+
+    static final class Changes {
+        final Set<Path> paths;
+        final boolean rescan;
+        final long firstChangeNanos;
+
+        private Changes(Set<Path> paths, boolean rescan, long firstChangeNanos) {
+            this.paths = paths;
+            this.rescan = rescan;
+            this.firstChangeNanos = firstChangeNanos;
+        }
+    }
+
+    /**
+     * What an update of the graph of a watched target changed
+     */
+    @Data
+    public static class Update {
+        private final String target;
+        private final long version;
+        // class files that were read again, and removed or no longer annotated
+        private final int changed;
+        private final int removed;
+        // whether the whole target was scanned again, i.e. after a jar changed
+        private final boolean rescanned;
+        private final int components;
+        // from the first change noticed to the graph being updated, debouncing
+        // included
+        private final long latencyMillis;
+    }
+}
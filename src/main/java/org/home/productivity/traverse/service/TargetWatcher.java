@@ -0,0 +1,445 @@
+package org.home.productivity.traverse.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.home.productivity.traverse.graph.ComponentGraph;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.home.productivity.traverse.scan.ClassScanner;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the graphs of classes directories up to date as they are recompiled.
+ * <p>
+ * Watching a target scans it once, as a scan job, and then registers every
+ * directory in it with one WatchService shared by all watches. A single
+ * thread takes the change events and notes the files changed per watch. Once
+ * no more events came in for application.scan.watch.debounce, so a whole
+ * compile is one update, only the class files that changed are read again and
+ * patched into the classes the watch holds. Components are then resolved
+ * across those classes and the target's graph replaced with a new version.
+ * A jar that changed, or events lost by the WatchService, scan the target
+ * again instead, incrementally and as a scan job like any other. When too
+ * many scans are queued already that rescan is tried again later.
+ * <p>
+ * Updates are applied one at a time on a thread of their own and published to
+ * subscribers as "graph" Server-Sent Events. A subscriber still busy with an
+ * update only gets the latest one after it, never a backlog. Each update is
+ * timed from the first change noticed to the graph being replaced
+ * (traverse.watch.update)
+ */
+@Service
+@Slf4j
+public class TargetWatcher {
+
+    private final ScanJobService scanJobService;
+
+    private final ClassScanner classScanner;
+
+    private final GraphStore graphStore;
+
+    private final Duration debounce;
+
+    private final Duration timeout;
+
+    private final Map<String, TargetWatch> watches = new ConcurrentHashMap<>();
+
+    private final Map<WatchKey, TargetWatch> keys = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // debounced updates, applied one at a time
+    private final ScheduledExecutorService updater;
+
+    private final ExecutorService senders;
+
+    private final Timer updateTimer;
+
+    // created along with the first watch
+    private WatchService watchService;
+
+    @Autowired
+    public TargetWatcher(ScanJobService scanJobService, ClassScanner classScanner, GraphStore graphStore,
+            MeterRegistry meterRegistry, @Value("${application.scan.watch.debounce:100ms}") Duration debounce,
+            @Value("${application.scan.events.timeout:30m}") Duration timeout) {
+        this.scanJobService = scanJobService;
+        this.classScanner = classScanner;
+        this.graphStore = graphStore;
+        this.debounce = debounce;
+        this.timeout = timeout;
+        this.updater = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("target-watch-"));
+        this.senders = Executors.newFixedThreadPool(2, new CustomizableThreadFactory("target-watch-send-"));
+        this.updateTimer = Timer.builder("traverse.watch.update")
+                .description("Time from a change to a watched target to its graph being updated")
+                .register(meterRegistry);
+        Gauge.builder("traverse.watch.targets", watches, Map::size)
+                .description("Targets being watched")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    synchronized void shutdown() throws IOException {
+        updater.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Start watching a classes directory, after scanning it. Watching a target
+     * already watched hands back that watch
+     *
+     * @param target   classes directory
+     * @param packages package patterns to limit the components to, null or
+     *                 empty for all
+     * @return
+     * @throws IllegalArgumentException                      when target is not
+     *                                                       a directory
+     * @throws java.util.concurrent.RejectedExecutionException when too many
+     *                                                       scans are queued
+     */
+    public TargetWatch watch(Path target, String[] packages) {
+        var path = target.toAbsolutePath().normalize();
+        if (!Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Only classes directories can be watched: " + path);
+        }
+        var sortedPackages = (packages == null ? new String[0] : packages.clone());
+        Arrays.sort(sortedPackages);
+        var newWatch = new TargetWatch(path.toString(), sortedPackages);
+        var watch = watches.computeIfAbsent(path.toString(), key -> newWatch);
+        if (watch != newWatch) {
+            if (!Arrays.equals(watch.getPackages(), sortedPackages)) {
+                throw new IllegalArgumentException("Already watching: " + path + " for packages: "
+                        + String.join(",", watch.getPackages()));
+            }
+            return watch;
+        }
+        try {
+            // registered before scanning so nothing changed meanwhile is missed,
+            // those changes are applied once the scan is done
+            register(watch, path);
+            var result = scanJobService.submit(path, sortedPackages).await();
+            watch.setClasses(classes(result));
+            log.info("Watching: {}, {} components", path, result.getComponents().size());
+            if (watch.hasChanges()) {
+                schedule(watch);
+            }
+            return watch;
+        } catch (RuntimeException e) {
+            unwatch(path.toString());
+            throw e;
+        } catch (IOException e) {
+            unwatch(path.toString());
+            var msg = "Exception occurred while watching: " + path;
+            log.error(msg, e);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    /**
+     * Stop watching a target, its graph stays as last updated
+     *
+     * @param target
+     * @return the watch stopped, null when target was not watched
+     */
+    public TargetWatch unwatch(String target) {
+        var watch = watches.remove(Path.of(target).toAbsolutePath().normalize().toString());
+        if (watch == null) {
+            return null;
+        }
+        watch.cancel();
+        keys.entrySet().removeIf(entry -> {
+            if (entry.getValue() != watch) {
+                return false;
+            }
+            entry.getKey().cancel();
+            return true;
+        });
+        subscribers.removeIf(subscriber -> {
+            if (subscriber.watch != watch) {
+                return false;
+            }
+            subscriber.emitter.complete();
+            return true;
+        });
+        log.info("Stopped watching: {}", watch.getTarget());
+        return watch;
+    }
+
+    public Collection<TargetWatch> getWatches() {
+        return watches.values();
+    }
+
+    /**
+     * Watch of a target
+     *
+     * @param target
+     * @return watch or null when target is not watched
+     */
+    public TargetWatch getWatch(String target) {
+        return watches.get(Path.of(target).toAbsolutePath().normalize().toString());
+    }
+
+    /**
+     * Follow the updates of a watch, starting with the last one if there was
+     * any
+     *
+     * @param watch
+     * @return
+     */
+    public SseEmitter subscribe(TargetWatch watch) {
+        var emitter = new SseEmitter(timeout.toMillis());
+        var subscriber = new Subscriber(watch, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        var lastUpdate = watch.getLastUpdate();
+        if (lastUpdate != null) {
+            publish(subscriber, lastUpdate);
+        }
+        return emitter;
+    }
+
+    private synchronized void register(TargetWatch watch, Path directory) throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            var poller = new Thread(() -> poll(watchService), "target-watch-poll");
+            poller.setDaemon(true);
+            poller.start();
+        }
+        try (var paths = Files.walk(directory)) {
+            for (var subdirectory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                keys.put(subdirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), watch);
+            }
+        }
+    }
+
+    private void poll(WatchService service) {
+        try {
+            while (true) {
+                var key = service.take();
+                var watch = keys.get(key);
+                if (watch != null) {
+                    for (var event : key.pollEvents()) {
+                        noted(watch, (Path) key.watchable(), event.kind() == OVERFLOW ? null : (Path) event.context());
+                    }
+                    schedule(watch);
+                } else {
+                    key.pollEvents();
+                }
+                if (!key.reset()) {
+                    // directory deleted
+                    keys.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Stopped polling for changes to watched targets");
+        }
+    }
+
+    private void noted(TargetWatch watch, Path directory, Path name) {
+        if (name == null) {
+            watch.overflowed();
+            return;
+        }
+        var path = directory.resolve(name);
+        if (Files.isDirectory(path)) {
+            // new package: watch it too and pick up whatever got in before that
+            try {
+                register(watch, path);
+                try (var paths = Files.walk(path)) {
+                    paths.filter(Files::isRegularFile).forEach(watch::changed);
+                }
+            } catch (IOException e) {
+                log.warn("Unable to watch: {}, rescanning: {}", path, e.toString());
+                watch.overflowed();
+            }
+            return;
+        }
+        var fileName = name.toString();
+        if (fileName.endsWith(".class") || fileName.endsWith(".jar")) {
+            watch.changed(path);
+        }
+    }
+
+    private void schedule(TargetWatch watch) {
+        try {
+            watch.reschedule(updater.schedule(() -> update(watch), debounce.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (RuntimeException e) {
+            log.debug("Not updating: {}, shutting down", watch.getTarget(), e);
+        }
+    }
+
+    /**
+     * Apply the changes noted so far to the watch and its graph
+     */
+    private void update(TargetWatch watch) {
+        // anything escaping would be swallowed by the scheduler
+        try {
+            if (!watch.isReady() || watches.get(watch.getTarget()) != watch) {
+                return;
+            }
+            var start = System.nanoTime();
+            var changes = watch.drainChanges();
+            var rescan = changes.rescan
+                    || changes.paths.stream().anyMatch(path -> path.toString().endsWith(".jar"));
+            var changed = 0;
+            var removed = 0;
+            List<ScannedClass> components;
+            ComponentGraph graph;
+            if (rescan) {
+                ScanResult result;
+                try {
+                    result = scanJobService.submit(Path.of(watch.getTarget()), watch.getPackages()).await();
+                } catch (RejectedExecutionException e) {
+                    log.warn("Too many scans queued to rescan watched: {}, trying again later", watch.getTarget());
+                    changes.paths.forEach(watch::changed);
+                    watch.overflowed();
+                    schedule(watch);
+                    return;
+                }
+                watch.setClasses(classes(result));
+                components = result.getComponents();
+                graph = graphStore.getTargetGraph(watch.getTarget());
+            } else {
+                var classes = watch.getClasses();
+                var directory = Path.of(watch.getTarget());
+                for (var path : changes.paths) {
+                    var key = directory.relativize(path).toString().replace('\\', '/');
+                    var scannedClass = (Files.exists(path) ? classScanner.scanClassFile(path) : null);
+                    if (scannedClass != null) {
+                        classes.put(key, scannedClass);
+                        changed++;
+                    } else if (classes.remove(key) != null) {
+                        removed++;
+                    }
+                }
+                if (changed == 0 && removed == 0) {
+                    // only classes without annotations changed, the graph can't have
+                    return;
+                }
+                // the graph gets every component, like it does from a scan
+                var allComponents = ClassScanner.components(classes.values(), null);
+                graph = graphStore.update(watch.getTarget(), allComponents);
+                var packageMatcher = watch.getPackageMatcher();
+                components = (packageMatcher == null ? allComponents
+                        : allComponents.stream()
+                                .filter(component -> packageMatcher.matches(component.getPackageName()))
+                                .toList());
+            }
+            var since = (changes.firstChangeNanos == 0 ? start : changes.firstChangeNanos);
+            var latencyNanos = System.nanoTime() - since;
+            updateTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+            var update = new TargetWatch.Update(watch.getTarget(), graph.getVersion(), changed, removed, rescan,
+                    components.size(), latencyNanos / 1_000_000);
+            watch.updated(update);
+            log.info("Updated graph of watched: {} to version: {} in {}ms, {} changed and {} removed classes",
+                    watch.getTarget(), update.getVersion(), update.getLatencyMillis(), changed, removed);
+            for (var subscriber : subscribers) {
+                if (subscriber.watch == watch) {
+                    publish(subscriber, update);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Exception occurred while updating watched: {}", watch.getTarget(), e);
+        }
+    }
+
+    /**
+     * Everything a scan found, annotated classes that are no components
+     * included since a change elsewhere can make them one
+     */
+    private static Map<String, ScannedClass> classes(ScanResult result) {
+        Map<String, ScannedClass> classes = new HashMap<>();
+        for (var entry : result.getEntries()) {
+            if (!entry.isArchive() && entry.getScannedClass() != null) {
+                classes.put(entry.getKey(), entry.getScannedClass());
+            }
+        }
+        return classes;
+    }
+
+    private void publish(Subscriber subscriber, TargetWatch.Update update) {
+        subscriber.latest.set(update);
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            TargetWatch.Update update;
+            while ((update = subscriber.latest.getAndSet(null)) != null) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .name("graph")
+                        .data(update, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // client went away or the emitter already completed
+            log.debug("Dropping subscriber to updates of: {}", subscriber.watch.getTarget(), e);
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // published while the last send was finishing
+        if (subscriber.latest.get() != null && subscribers.contains(subscriber)
+                && subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private static final class Subscriber {
+        private final TargetWatch watch;
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // the update not sent yet, older ones are not worth sending
+        private final AtomicReference<TargetWatch.Update> latest = new AtomicReference<>();
+
+        private Subscriber(TargetWatch watch, SseEmitter emitter) {
+            this.watch = watch;
+            this.emitter = emitter;
+        }
+    }
+}
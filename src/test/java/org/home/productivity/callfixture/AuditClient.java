@@ -0,0 +1,11 @@
+package org.home.productivity.callfixture;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class AuditClient implements Auditor {
+
+    @Override
+    public void audit(String event) {
+    }
+}
@@ -0,0 +1,6 @@
+package org.home.productivity.callfixture;
+
+public interface Auditor {
+
+    void audit(String event);
+}
@@ -0,0 +1,54 @@
+package org.home.productivity.callfixture;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/fixture")
+public class OrderController {
+
+    private final OrderService orderService;
+
+    private final Auditor auditor;
+
+    public OrderController(OrderService orderService, Auditor auditor) {
+        this.orderService = orderService;
+        this.auditor = auditor;
+    }
+
+    // reaches the service through a helper that is no component
+    @GetMapping("/orders")
+    public List<String> orders(@RequestParam String status) {
+        return new OrderQuery(orderService).find(status);
+    }
+
+    // reaches the client through a lambda and an interface
+    @PostMapping("/audit")
+    public void audit(@RequestParam String event) {
+        Runnable audit = () -> auditor.audit(event);
+        audit.run();
+    }
+
+    @RequestMapping(path = "ping", method = RequestMethod.GET)
+    public String ping() {
+        return "pong";
+    }
+
+    public static class OrderQuery {
+        private final OrderService orderService;
+
+        OrderQuery(OrderService orderService) {
+            this.orderService = orderService;
+        }
+
+        List<String> find(String status) {
+            return orderService.findByStatus(status);
+        }
+    }
+}
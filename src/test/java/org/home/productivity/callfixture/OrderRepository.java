@@ -0,0 +1,10 @@
+package org.home.productivity.callfixture;
+
+import java.util.List;
+
+import org.springframework.data.repository.Repository;
+
+public interface OrderRepository extends Repository<String, Long> {
+
+    List<String> findByStatus(String status);
+}
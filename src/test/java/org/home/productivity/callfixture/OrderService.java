@@ -0,0 +1,19 @@
+package org.home.productivity.callfixture;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+@Service
+public class OrderService {
+
+    private final OrderRepository orderRepository;
+
+    public OrderService(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    public List<String> findByStatus(String status) {
+        return orderRepository.findByStatus(status);
+    }
+}
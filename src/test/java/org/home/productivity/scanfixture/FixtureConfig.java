@@ -0,0 +1,17 @@
+package org.home.productivity.scanfixture;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FixtureConfig {
+
+    @Bean({ "first", "second" })
+    public StringBuilder fixtureBuilder(FixtureService fixtureService) {
+        return new StringBuilder();
+    }
+
+    // not a component, no stereotype or @Bean methods
+    public static class NotAComponent {
+    }
+}
@@ -0,0 +1,17 @@
+package org.home.productivity.scanfixture;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+
+@FixtureStereotype
+public class FixtureService {
+
+    @Value("${fixture.name}")
+    private String name;
+
+    private final Environment environment;
+
+    public FixtureService(Environment environment) {
+        this.environment = environment;
+    }
+}
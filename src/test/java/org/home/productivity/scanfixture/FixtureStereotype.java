@@ -0,0 +1,20 @@
+package org.home.productivity.scanfixture;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Custom stereotype, only recognizable through its meta annotation
+ * <p>
+ * Scan fixtures live outside of org.home.productivity.traverse so the
+ * application's own component scan does not pick them up
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Service
+public @interface FixtureStereotype {
+}
@@ -0,0 +1,128 @@
+package org.home.productivity.traverse.actuator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.home.productivity.traverse.commons.Page;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:beanindex")
+class BeanIndexTests {
+
+	@Autowired
+	private CustomInfoContributor infoContributor;
+
+	@Test
+	void pagesThroughBeansByPackageThenName() {
+		var snapshot = infoContributor.getSnapshot();
+		var beanIndex = snapshot.getBeanIndex();
+
+		var all = pageThrough(cursor -> beanIndex.find(null, null, null, cursor, 3));
+
+		assertEquals(snapshot.getBeans().size(), all.size());
+		assertEquals(snapshot.getBeans().size(), beanIndex.size());
+		for (var i = 1; i < all.size(); i++) {
+			var previous = all.get(i - 1);
+			var compare = previous.getPackageName().compareTo(all.get(i).getPackageName());
+			assertTrue(compare < 0 || (compare == 0 && previous.getName().compareTo(all.get(i).getName()) < 0));
+		}
+	}
+
+	@Test
+	void filtersByPackageStereotypeAndScope() {
+		var beanIndex = infoContributor.getSnapshot().getBeanIndex();
+
+		var services = pageThrough(cursor -> beanIndex.find(null, "Service", null, cursor, 2));
+		assertTrue(services.stream().anyMatch(entry -> entry.getName().equals("scanService")));
+		assertTrue(services.stream().allMatch(entry -> entry.getStereotype().equals("service")));
+
+		var controllers = pageThrough(
+				cursor -> beanIndex.find("org.home.productivity.traverse.controller", null, "singleton", cursor, 2));
+		assertTrue(controllers.stream().anyMatch(entry -> entry.getName().equals("infoQueryController")));
+		assertTrue(controllers.stream()
+				.allMatch(entry -> entry.getPackageName().startsWith("org.home.productivity.traverse.controller")));
+		assertEquals(controllers, beanIndex.find("org.home.productivity.traverse.controller", null, null, null,
+				1000).getItems());
+		// whole segments only
+		assertTrue(beanIndex.find("org.home.productivity.traverse.control", null, null, null, 10).getItems()
+				.isEmpty());
+
+		var unknown = beanIndex.find(null, "widget", null, null, 10);
+		assertTrue(unknown.getItems().isEmpty());
+		assertNull(unknown.getNextCursor());
+		assertThrows(IllegalArgumentException.class, () -> beanIndex.find(null, null, null, "not a cursor", 10));
+	}
+
+	@Test
+	void pagesThroughMappingsByPathThenMethod() {
+		var endpointIndex = infoContributor.getSnapshot().getEndpointIndex();
+
+		var expected = endpointIndex.find(RequestMethod.GET, "/api/v1");
+		var paged = pageThrough(cursor -> endpointIndex.find(RequestMethod.GET, "/api/v1", cursor, 2));
+
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, paged);
+		assertEquals(endpointIndex.size(), pageThrough(cursor -> endpointIndex.find(null, null, cursor, 5)).size());
+	}
+
+	@Test
+	void pagesThroughHandlersOfTheSamePathAndMethod() {
+		var endpointIndex = infoContributor.getSnapshot().getEndpointIndex();
+
+		var expected = endpointIndex.find(RequestMethod.GET, "/api/v1/fixture");
+		var paged = pageThrough(cursor -> endpointIndex.find(RequestMethod.GET, "/api/v1/fixture", cursor, 1));
+
+		assertEquals(2, expected.size());
+		assertEquals(expected, paged);
+	}
+
+	private static <T> List<T> pageThrough(Function<String, Page<T>> find) {
+		List<T> all = new ArrayList<>();
+		String cursor = null;
+		do {
+			var page = find.apply(cursor);
+			assertTrue(page.getItems().size() <= 5);
+			all.addAll(page.getItems());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return all;
+	}
+
+	@TestConfiguration
+	static class FixtureConfig {
+
+		@Bean
+		FixtureController fixtureController() {
+			return new FixtureController();
+		}
+	}
+
+	// two handlers of one path and method, told apart by a parameter
+	@RestController
+	static class FixtureController {
+
+		@GetMapping(path = "/api/v1/fixture", params = "one")
+		String one() {
+			return "one";
+		}
+
+		@GetMapping(path = "/api/v1/fixture", params = "two")
+		String two() {
+			return "two";
+		}
+	}
+}
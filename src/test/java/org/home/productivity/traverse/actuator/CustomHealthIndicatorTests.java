@@ -0,0 +1,169 @@
+package org.home.productivity.traverse.actuator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CustomHealthIndicatorTests {
+
+	private HttpServer stubServer;
+
+	private ExecutorService stubExecutor;
+
+	private final AtomicInteger upHits = new AtomicInteger();
+
+	private final AtomicInteger flakyDelayMillis = new AtomicInteger();
+
+	private String baseUrl;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void startStubServer() throws IOException {
+		stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		stubServer.createContext("/up", exchange -> {
+			upHits.incrementAndGet();
+			respond(exchange, 200);
+		});
+		stubServer.createContext("/down", exchange -> respond(exchange, 503));
+		stubServer.createContext("/slow", exchange -> {
+			try {
+				Thread.sleep(2_000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, 200);
+		});
+		stubServer.createContext("/flaky", exchange -> {
+			try {
+				Thread.sleep(flakyDelayMillis.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, 200);
+		});
+		// enough threads that the slow target can't hold up the others
+		stubExecutor = Executors.newFixedThreadPool(4);
+		stubServer.setExecutor(stubExecutor);
+		stubServer.start();
+		baseUrl = "http://localhost:" + stubServer.getAddress().getPort();
+	}
+
+	@AfterEach
+	void stopStubServer() {
+		stubServer.stop(0);
+		// stop leaves the executor to whoever handed it over
+		stubExecutor.shutdownNow();
+	}
+
+	@Test
+	void fallsBackToTheSingleUrl() {
+		new ApplicationContextRunner()
+				.withInitializer(context -> context.getBeanFactory()
+						.setConversionService(ApplicationConversionService.getSharedInstance()))
+				.withBean(SimpleMeterRegistry.class, () -> meterRegistry)
+				.withBean(CustomHealthIndicator.class)
+				.withPropertyValues("application.actuator.downstream.service.url=" + baseUrl + "/up",
+						"application.actuator.downstream.service.cache.ttl=0s")
+				.run(context -> {
+					var health = context.getBean(CustomHealthIndicator.class).health();
+					assertEquals(Status.UP, health.getStatus());
+					assertTrue(health.getDetails().containsKey(baseUrl + "/up"));
+				});
+	}
+
+	@Test
+	void allTargetsUp() {
+		var indicator = new CustomHealthIndicator(meterRegistry, new String[] { baseUrl + "/up" }, Duration.ofSeconds(1),
+				Duration.ZERO, false);
+		var health = indicator.health();
+		assertEquals(Status.UP, health.getStatus());
+		var target = (Health) health.getDetails().get(baseUrl + "/up");
+		assertEquals(200, target.getDetails().get("status"));
+		assertTrue(target.getDetails().containsKey("latencyMillis"));
+	}
+
+	@Test
+	void anyTargetDownOrTimedOutIsDown() {
+		var indicator = new CustomHealthIndicator(meterRegistry,
+				new String[] { baseUrl + "/up", baseUrl + "/down", baseUrl + "/slow" }, Duration.ofMillis(500),
+				Duration.ZERO, false);
+		var start = System.nanoTime();
+		var health = indicator.health();
+		var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertEquals(Status.DOWN, health.getStatus());
+		assertEquals(Status.UP, ((Health) health.getDetails().get(baseUrl + "/up")).getStatus());
+		assertEquals(503, ((Health) health.getDetails().get(baseUrl + "/down")).getDetails().get("status"));
+		var slow = (Health) health.getDetails().get(baseUrl + "/slow");
+		assertEquals(Status.DOWN, slow.getStatus());
+		assertTrue(slow.getDetails().containsKey("error"));
+		// probed concurrently and bounded by the timeout, not the slow target
+		assertTrue(elapsed.compareTo(Duration.ofMillis(1_500)) < 0, "took " + elapsed);
+	}
+
+	@Test
+	void resultIsCachedForTtl() {
+		var indicator = new CustomHealthIndicator(meterRegistry, new String[] { baseUrl + "/up" }, Duration.ofSeconds(1),
+				Duration.ofMinutes(1), false);
+		var first = indicator.health();
+		var second = indicator.health();
+		assertSame(first, second);
+		assertEquals(1, upHits.get());
+		assertEquals(1, meterRegistry.get("traverse.cache.requests").tag("result", "miss").counter().count());
+		assertEquals(1, meterRegistry.get("traverse.cache.requests").tag("result", "hit").counter().count());
+		var probes = meterRegistry.get("traverse.health.probe").tag("target", baseUrl + "/up").tag("outcome", "up")
+				.timer();
+		assertEquals(1, probes.count());
+	}
+
+	@Test
+	void servesPreviousResultWhileRefreshing() throws Exception {
+		var indicator = new CustomHealthIndicator(meterRegistry, new String[] { baseUrl + "/flaky" },
+				Duration.ofSeconds(1), Duration.ofMillis(50), false);
+		var first = indicator.health();
+		Thread.sleep(100);
+		flakyDelayMillis.set(2_000);
+
+		var refresh = CompletableFuture.supplyAsync(indicator::health);
+		// wait for the refresh to be under way
+		while (meterRegistry.get("traverse.cache.requests").tag("result", "miss").counter().count() < 2) {
+			Thread.sleep(5);
+		}
+		var start = System.nanoTime();
+		var meanwhile = indicator.health();
+		var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertSame(first, meanwhile);
+		assertTrue(elapsed.compareTo(Duration.ofMillis(500)) < 0, "took " + elapsed);
+		assertEquals(Status.DOWN, refresh.get(5, TimeUnit.SECONDS).getStatus());
+	}
+
+	private static void respond(HttpExchange exchange, int status) throws IOException {
+		exchange.sendResponseHeaders(status, -1);
+		exchange.close();
+	}
+
+}
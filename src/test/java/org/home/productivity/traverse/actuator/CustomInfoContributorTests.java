@@ -0,0 +1,92 @@
+package org.home.productivity.traverse.actuator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:infocontributor")
+class CustomInfoContributorTests {
+
+	private static final AtomicInteger factoriesCreated = new AtomicInteger();
+
+	@Autowired
+	private CustomInfoContributor infoContributor;
+
+	@Autowired
+	private ConfigurableApplicationContext applicationContext;
+
+	@Test
+	void listsBeansMadeByFactoryBeansWithoutCreatingThem() {
+		// autowiring by type creates factories of unknown types during startup, prototypes are not kept though
+		var createdAtStartup = factoriesCreated.get();
+		infoContributor.onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+		var beans = infoContributor.getSnapshot().getBeans();
+
+		// what the factory makes is only known once it exists, so it is listed as a factory
+		var widget = beans.get("fixtureWidget");
+		assertNotNull(widget);
+		assertEquals(WidgetFactory.class, widget.getType());
+		// unless its definition tells
+		var gadget = beans.get("fixtureGadget");
+		assertNotNull(gadget);
+		assertEquals(Widget.class, gadget.getType());
+		assertEquals(createdAtStartup, factoriesCreated.get());
+	}
+
+	static class Widget {
+	}
+
+	@TestConfiguration
+	static class WidgetConfig {
+
+		@Bean
+		static BeanFactoryPostProcessor fixtureGadgetType() {
+			return beanFactory -> beanFactory.getBeanDefinition("fixtureGadget")
+					.setAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE, Widget.class);
+		}
+
+		@Bean
+		@Scope(BeanDefinition.SCOPE_PROTOTYPE)
+		WidgetFactory<?> fixtureWidget() {
+			return new WidgetFactory<>();
+		}
+
+		@Bean
+		@Scope(BeanDefinition.SCOPE_PROTOTYPE)
+		WidgetFactory<?> fixtureGadget() {
+			return new WidgetFactory<>();
+		}
+	}
+
+	// what it makes is up to whoever declares it, generics can't tell
+	static class WidgetFactory<T> implements FactoryBean<T> {
+
+		WidgetFactory() {
+			factoriesCreated.incrementAndGet();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T getObject() {
+			return (T) new Widget();
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return Widget.class;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package org.home.productivity.traverse.commons;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PackageMatcherTests {
+
+	@Test
+	void matchesWholeSegmentsAndSubPackages() {
+		var matcher = PackageMatcher.of(new String[] { "org.home" }, null);
+		assertTrue(matcher.matches("org.home"));
+		assertTrue(matcher.matches("org.home.productivity.traverse"));
+		assertFalse(matcher.matches("org.homestead"));
+		assertFalse(matcher.matches("org"));
+		assertFalse(matcher.matches(""));
+	}
+
+	@Test
+	void wildcardMatchesSingleSegment() {
+		var matcher = PackageMatcher.of(new String[] { "org.*.traverse" }, null);
+		assertTrue(matcher.matches("org.home.traverse"));
+		assertTrue(matcher.matches("org.home.traverse.actuator"));
+		assertFalse(matcher.matches("org.home.productivity.traverse"));
+	}
+
+	@Test
+	void mostSpecificPatternWinsAndExcludeWinsTie() {
+		var matcher = PackageMatcher.of(new String[] { "org.home", "org.home.productivity.traverse.controller" },
+				new String[] { "org.home.productivity", "org.home.*.*.actuator" });
+		assertTrue(matcher.matches("org.home.other"));
+		assertFalse(matcher.matches("org.home.productivity.traverse"));
+		assertTrue(matcher.matches("org.home.productivity.traverse.controller.spec"));
+		assertFalse(matcher.matches("org.home.productivity.traverse.actuator"));
+
+		var tie = PackageMatcher.of(new String[] { "org.home.*" }, new String[] { "org.home.secret" });
+		assertTrue(tie.matches("org.home.open"));
+		assertFalse(tie.matches("org.home.secret.stuff"));
+	}
+
+	@Test
+	void followsLiteralAndWildcardSegmentsSideBySide() {
+		var includes = new String[500];
+		for (var i = 0; i < includes.length; i++) {
+			includes[i] = "com.example.module" + i;
+		}
+		includes[499] = "com.*.shared";
+		var matcher = PackageMatcher.of(includes, new String[] { "com.example.module7.internal" });
+		assertTrue(matcher.matches("com.example.module0"));
+		assertTrue(matcher.matches("com.example.module498.api"));
+		assertFalse(matcher.matches("com.example.module499"));
+		assertFalse(matcher.matches("com.example.module7.internal"));
+		assertTrue(matcher.matches("com.example.shared"));
+		assertTrue(matcher.matches("com.other.shared.api"));
+		assertFalse(matcher.matches("com.other"));
+	}
+
+}
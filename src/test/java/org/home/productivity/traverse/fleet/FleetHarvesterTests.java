@@ -0,0 +1,160 @@
+package org.home.productivity.traverse.fleet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.home.productivity.traverse.graph.GraphStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FleetHarvesterTests {
+
+	private static final String BEANS = """
+			{"contexts":{"orders":{"beans":{
+			  "orderController":{"aliases":[],"scope":"singleton",
+			    "type":"com.example.orders.OrderController$$SpringCGLIB$$0","dependencies":["orderService"]},
+			  "orderService":{"aliases":[],"scope":"singleton","type":"com.example.orders.OrderService",
+			    "dependencies":[]}
+			},"parentId":null}}}
+			""";
+
+	private static final String MAPPINGS = """
+			{"contexts":{"orders":{"mappings":{"dispatcherServlets":{"dispatcherServlet":[
+			  {"handler":"com.example.orders.OrderController#orders()","predicate":"{GET [/orders]}",
+			    "details":{"handlerMethod":{"className":"com.example.orders.OrderController","name":"orders"},
+			      "requestMappingConditions":{"methods":["GET"],"patterns":["/orders"]}}},
+			  {"handler":"ResourceHttpRequestHandler [classpath [static/]]","predicate":"/**"}
+			]}},"parentId":null}}}
+			""";
+
+	private HttpServer stubServer;
+
+	private String baseUrl;
+
+	private final AtomicInteger flakyHits = new AtomicInteger();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void startStubServer() throws IOException {
+		stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		stubServer.createContext("/orders/actuator/beans", exchange -> respond(exchange, 200, BEANS));
+		stubServer.createContext("/orders/actuator/mappings", exchange -> {
+			// busy the first time round, answers when retried
+			respond(exchange, flakyHits.incrementAndGet() == 1 ? 503 : 200, MAPPINGS);
+		});
+		stubServer.createContext("/broken/actuator", exchange -> respond(exchange, 500, "{}"));
+		stubServer.createContext("/slow", exchange -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			inFlight.decrementAndGet();
+			respond(exchange, 200, exchange.getRequestURI().getPath().endsWith("/beans") ? BEANS : MAPPINGS);
+		});
+		// more threads than the host limit so the limit is what holds requests back
+		stubServer.setExecutor(Executors.newFixedThreadPool(8));
+		stubServer.start();
+		baseUrl = "http://localhost:" + stubServer.getAddress().getPort();
+	}
+
+	@AfterEach
+	void stopStubServer() {
+		stubServer.stop(0);
+	}
+
+	@Test
+	void harvestsWhatAnswersAndReportsWhatFails() throws Exception {
+		var scan = harvester(2).harvest(List.of(FleetTarget.parse("orders=" + baseUrl + "/orders/actuator"),
+				FleetTarget.parse("broken=" + baseUrl + "/broken/actuator"),
+				FleetTarget.parse("gone=http://localhost:" + closedPort() + "/actuator"))).get(30, TimeUnit.SECONDS);
+
+		assertEquals(1, scan.getSucceeded());
+		assertEquals(2, scan.getFailed());
+		var orders = scan.getTargets().get(0);
+		assertTrue(orders.isSucceeded());
+		// beans once, mappings twice
+		assertEquals(3, orders.getAttempts());
+		assertEquals(2, orders.getBeans());
+		assertEquals(1, orders.getEndpoints());
+		var broken = scan.getTargets().get(1);
+		assertFalse(broken.isSucceeded());
+		assertTrue(broken.getError().contains("500"));
+		// both endpoints, each tried and retried twice
+		assertEquals(6, broken.getAttempts());
+		assertFalse(scan.getTargets().get(2).isSucceeded());
+		// beans of broken and gone
+		assertEquals(2, meterRegistry.get("traverse.fleet.fetch").tag("endpoint", "beans").tag("outcome", "failed")
+				.timer().count());
+		assertTrue(meterRegistry.find("traverse.fleet.fetch").tagKeys("target").timers().isEmpty());
+
+		var graph = new GraphStore(null).updateFleet(scan.getSnapshots());
+		var controller = graph.node("orders:orderController");
+		assertTrue(controller >= 0);
+		assertEquals("com.example.orders.OrderController", graph.type(controller));
+		List<String> dependencies = new ArrayList<>();
+		graph.forEachDependency(controller, node -> dependencies.add(graph.name(node)));
+		assertEquals(List.of("orders:orderService"), dependencies);
+		List<String> dependents = new ArrayList<>();
+		graph.forEachDependent(controller, node -> dependents.add(graph.name(node)));
+		assertEquals(List.of("orders:GET /orders"), dependents);
+	}
+
+	@Test
+	void limitsRequestsInFlightPerHost() throws Exception {
+		List<FleetTarget> targets = new ArrayList<>();
+		for (var i = 0; i < 6; i++) {
+			targets.add(FleetTarget.parse("service" + i + "=" + baseUrl + "/slow/" + i + "/actuator"));
+		}
+		var scan = harvester(2).harvest(targets).get(30, TimeUnit.SECONDS);
+
+		assertEquals(6, scan.getSucceeded());
+		assertEquals(2, maxInFlight.get());
+		assertNotNull(scan.getSnapshots().get(5).getBeans().get("orderService"));
+	}
+
+	private FleetHarvester harvester(int hostConcurrency) {
+		return new FleetHarvester(new ObjectMapper(), meterRegistry, Duration.ofSeconds(2), hostConcurrency, 2,
+				Duration.ofMillis(10), false);
+	}
+
+	private static int closedPort() throws IOException {
+		try (var socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		var bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+		exchange.close();
+	}
+}
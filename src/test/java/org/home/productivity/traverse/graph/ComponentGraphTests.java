@@ -0,0 +1,97 @@
+package org.home.productivity.traverse.graph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import org.home.productivity.scanfixture.FixtureConfig;
+import org.home.productivity.scanfixture.FixtureService;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.ComponentGraph.NodeKind;
+import org.home.productivity.traverse.scan.ClassScanner;
+import org.junit.jupiter.api.Test;
+
+class ComponentGraphTests {
+
+	@Test
+	void laysOutEdgesBothWays() {
+		var builder = ComponentGraph.builder();
+		var a = builder.node("a", NodeKind.BEAN, "com.example.A");
+		var b = builder.node("b", NodeKind.BEAN, "com.example.B");
+		var c = builder.node("c", NodeKind.BEAN, null);
+		assertEquals(a, builder.node("a", NodeKind.BEAN, "ignored"));
+		builder.edge(a, c);
+		builder.edge(a, b);
+		builder.edge(a, b);
+		builder.edge(b, c);
+		builder.edge(c, c);
+
+		var graph = builder.build();
+
+		assertEquals(3, graph.nodeCount());
+		assertEquals(3, graph.edgeCount());
+		assertEquals(b, graph.node("b"));
+		assertEquals(-1, graph.node("d"));
+		assertEquals("com.example.A", graph.type(a));
+		assertNull(graph.type(c));
+		assertArrayEquals(new int[] { b, c }, dependencies(graph, a));
+		assertArrayEquals(new int[] {}, dependencies(graph, c));
+		assertArrayEquals(new int[] { a, b }, dependents(graph, c));
+		assertEquals(0, graph.dependentCount(a));
+	}
+
+	@Test
+	void internsManySymbols() {
+		var builder = ComponentGraph.builder();
+		for (var i = 0; i < 10_000; i++) {
+			builder.node("bean" + i, NodeKind.BEAN, "com.example.Type" + (i % 100));
+			if (i > 0) {
+				builder.edge(builder.node("bean" + i), builder.node("bean" + (i - 1)));
+			}
+		}
+
+		var graph = builder.build();
+
+		assertEquals(10_000, graph.nodeCount());
+		assertEquals(9_999, graph.edgeCount());
+		assertEquals(1234, graph.node("bean1234"));
+		assertEquals("com.example.Type34", graph.type(1234));
+		var stats = graph.getStats();
+		assertEquals(10_000, stats.getNodes());
+		assertTrue(stats.getBytesPerEdge() >= 8 && stats.getBytesPerEdge() < 9, String.valueOf(stats));
+	}
+
+	@Test
+	void buildsGraphOfScannedTarget() throws Exception {
+		var classes = Path.of(FixtureConfig.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		var result = new ClassScanner(1).scan(classes,
+				PackageMatcher.of(new String[] { "org.home.productivity.scanfixture" }, null));
+
+		var graph = GraphStore.buildTargetGraph(result.getComponents());
+
+		var config = graph.node(FixtureConfig.class.getName());
+		var service = graph.node(FixtureService.class.getName());
+		var beanMethod = graph.node(FixtureConfig.class.getName() + "#first");
+		assertEquals(NodeKind.COMPONENT, graph.kind(service));
+		assertEquals(NodeKind.BEAN_METHOD, graph.kind(beanMethod));
+		assertEquals("java.lang.StringBuilder", graph.type(beanMethod));
+		assertArrayEquals(IntStream.of(config, service).sorted().toArray(), dependencies(graph, beanMethod));
+		assertArrayEquals(new int[] { beanMethod }, dependents(graph, service));
+	}
+
+	private static int[] dependencies(ComponentGraph graph, int node) {
+		var builder = IntStream.builder();
+		graph.forEachDependency(node, builder);
+		return builder.build().toArray();
+	}
+
+	private static int[] dependents(ComponentGraph graph, int node) {
+		var builder = IntStream.builder();
+		graph.forEachDependent(node, builder);
+		return builder.build().toArray();
+	}
+}
@@ -0,0 +1,138 @@
+package org.home.productivity.traverse.graph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.home.productivity.traverse.graph.GraphDiff.Change;
+import org.home.productivity.traverse.graph.GraphDiff.Difference;
+import org.home.productivity.traverse.graph.GraphDiff.Kind;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.home.productivity.traverse.scan.ScannedClass.Endpoint;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class GraphDiffTests {
+
+	private static final String SERVICE = "org.springframework.stereotype.Service";
+	private static final String VALUE = "org.springframework.beans.factory.annotation.Value";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void findsAddedRemovedAndChangedElements() {
+		var diff = GraphDiff.of("demo-1.0.jar", before(), "demo-1.1.jar", after());
+
+		assertEquals(List.of(
+				new Difference(Kind.COMPONENT, Change.ADDED, "com.example.AuditService", null, null, null),
+				new Difference(Kind.COMPONENT, Change.REMOVED, "com.example.LegacyService", null, null, null),
+				new Difference(Kind.COMPONENT, Change.CHANGED, "com.example.OrderService", null, null,
+						new String[] { "superclass", "injectionPoints" }),
+				new Difference(Kind.DEPENDENCY, Change.ADDED,
+						"com.example.OrderService -> com.example.AuditService", null, null, null),
+				new Difference(Kind.DEPENDENCY, Change.REMOVED,
+						"com.example.OrderService -> com.example.LegacyService", null, null, null),
+				new Difference(Kind.ENDPOINT, Change.CHANGED, "GET /orders/{id}",
+						"com.example.OrderController#find(Long)", "com.example.OrderController#get(Long)", null),
+				new Difference(Kind.ENDPOINT, Change.REMOVED, "POST /orders",
+						"com.example.OrderController#create(Order)", null, null),
+				new Difference(Kind.VALUE, Change.CHANGED, "com.example.OrderController#pageSize", "${page.size:20}",
+						"${page.size:50}", null)),
+				diff.getDifferences());
+		assertEquals(1, diff.getSummary().get("component").get("added"));
+		assertEquals(1, diff.getSummary().get("component").get("changed"));
+		assertEquals(0, diff.getSummary().get("value").get("added"));
+	}
+
+	@Test
+	void findsNothingBetweenTheSameScans() {
+		var diff = GraphDiff.of("demo-1.0.jar", before(), "demo-1.0.jar", before());
+
+		assertTrue(diff.getDifferences().isEmpty());
+		diff.getSummary().values().forEach(changes -> changes.values().forEach(count -> assertEquals(0, count)));
+	}
+
+	@Test
+	void writesJson() throws Exception {
+		var out = new ByteArrayOutputStream();
+		try (var generator = objectMapper.getFactory().createGenerator(out)) {
+			GraphDiff.of("demo-1.0.jar", before(), "demo-1.1.jar", after()).write(generator, false);
+		}
+
+		var diff = objectMapper.readTree(out.toByteArray());
+		assertEquals("demo-1.0.jar", diff.get("from").asText());
+		assertEquals(1, diff.get("summary").get("endpoint").get("removed").asInt());
+		assertEquals(8, diff.get("differences").size());
+		var changed = diff.get("differences").get(2);
+		assertEquals("changed", changed.get("change").asText());
+		assertEquals("superclass", changed.get("fields").get(0).asText());
+		assertNull(changed.get("before"));
+	}
+
+	@Test
+	void writesNdjson() throws Exception {
+		var out = new ByteArrayOutputStream();
+		try (var generator = objectMapper.getFactory().createGenerator(out)) {
+			GraphDiff.of("demo-1.0.jar", before(), "demo-1.1.jar", after()).write(generator, true);
+		}
+
+		List<JsonNode> lines = new ArrayList<>();
+		for (var line : out.toString().split("\n")) {
+			lines.add(objectMapper.readTree(line));
+		}
+		assertEquals(9, lines.size());
+		assertEquals("summary", lines.get(0).get("element").asText());
+		assertEquals(1, lines.get(0).get("summary").get("dependency").get("added").asInt());
+		assertTrue(lines.stream().skip(1).allMatch(line -> line.get("element").asText().equals("difference")));
+		assertEquals("${page.size:50}", lines.get(8).get("after").asText());
+	}
+
+	private static List<ScannedClass> before() {
+		return List.of(
+				controller("find", "${page.size:20}", new Endpoint("POST /orders",
+						"com.example.OrderController#create(Order)")),
+				service("com.example.OrderService", "java.lang.Object", "com.example.LegacyService"),
+				service("com.example.LegacyService", "java.lang.Object"));
+	}
+
+	private static List<ScannedClass> after() {
+		return List.of(
+				service("com.example.AuditService", "java.lang.Object"),
+				service("com.example.OrderService", "com.example.BaseService", "com.example.AuditService"),
+				controller("get", "${page.size:50}"));
+	}
+
+	private static ScannedClass controller(String findMethod, String pageSize, Endpoint... endpoints) {
+		var controller = new ScannedClass("com.example.OrderController", "java.lang.Object", new String[0], 0,
+				new String[] { "org.springframework.web.bind.annotation.RestController" }, List.of(),
+				List.of(new InjectionPoint(InjectionPoint.Kind.CONSTRUCTOR, "<init>", "com.example.OrderService",
+						null, null),
+						new InjectionPoint(InjectionPoint.Kind.FIELD, "pageSize", "int", VALUE, pageSize)),
+				"demo.jar");
+		controller.setStereotype("org.springframework.web.bind.annotation.RestController");
+		List<Endpoint> all = new ArrayList<>(List.of(endpoints));
+		all.add(new Endpoint("GET /orders/{id}", "com.example.OrderController#" + findMethod + "(Long)"));
+		controller.setEndpoints(all);
+		return controller;
+	}
+
+	private static ScannedClass service(String name, String superName, String... dependencies) {
+		var injectionPoints = List.of(dependencies).stream()
+				.map(dependency -> new InjectionPoint(InjectionPoint.Kind.CONSTRUCTOR, "<init>", dependency, null,
+						null))
+				.toList();
+		var service = new ScannedClass(name, superName, new String[0], 0, new String[] { SERVICE }, List.of(),
+				injectionPoints, "demo.jar");
+		service.setStereotype(SERVICE);
+		service.setEndpoints(List.of());
+		return service;
+	}
+}
@@ -0,0 +1,92 @@
+package org.home.productivity.traverse.graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.home.productivity.traverse.commons.BinaryFormats;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.GraphExporter.Format;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+@SpringBootTest
+class GraphExporterTests {
+
+	private static final PackageMatcher TRAVERSE = PackageMatcher
+			.of(new String[] { "org.home.productivity.traverse" }, null);
+
+	@Autowired
+	private GraphExporter graphExporter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void exportsJson() throws Exception {
+		var out = new ByteArrayOutputStream();
+		graphExporter.export(out, Format.JSON, TRAVERSE);
+
+		var graph = objectMapper.readTree(out.toByteArray());
+		assertGraph(toList(graph.get("nodes")), toList(graph.get("edges")));
+	}
+
+	@Test
+	void exportsNdjson() throws Exception {
+		var out = new ByteArrayOutputStream();
+		graphExporter.export(out, Format.NDJSON, TRAVERSE);
+
+		List<JsonNode> nodes = new ArrayList<>();
+		List<JsonNode> edges = new ArrayList<>();
+		for (var line : out.toString().split("\n")) {
+			var element = objectMapper.readTree(line);
+			(element.get("element").asText().equals("node") ? nodes : edges).add(element);
+		}
+		assertGraph(nodes, edges);
+	}
+
+	@Test
+	void exportsSmileAndCborShapedLikeJson() throws Exception {
+		var json = new ByteArrayOutputStream();
+		graphExporter.export(json, Format.JSON, TRAVERSE);
+		var expected = objectMapper.readTree(json.toByteArray());
+
+		for (var mapper : List.of(new ObjectMapper(BinaryFormats.smileFactory()),
+				new ObjectMapper(BinaryFormats.cborFactory()))) {
+			var binary = new ByteArrayOutputStream();
+			graphExporter.export(binary, (mapper.getFactory() instanceof SmileFactory ? Format.SMILE : Format.CBOR),
+					TRAVERSE);
+			assertEquals(expected, mapper.readTree(binary.toByteArray()));
+			assertTrue(binary.size() < json.size());
+		}
+	}
+
+	private static void assertGraph(List<JsonNode> nodes, List<JsonNode> edges) {
+		var controller = nodes.stream().filter(node -> node.get("id").asText().equals("graphController")).findFirst()
+				.orElseThrow();
+		assertEquals("bean", controller.get("kind").asText());
+		assertEquals("org.home.productivity.traverse.controller.GraphController", controller.get("type").asText());
+		assertTrue(nodes.stream().anyMatch(node -> node.get("id").asText().equals("GET /api/v1/graph")));
+		// nothing outside of the packages asked for
+		assertTrue(nodes.stream().noneMatch(node -> node.get("id").asText().equals("requestMappingHandlerMapping")));
+
+		assertTrue(edges.stream().anyMatch(edge -> edge.get("from").asText().equals("graphController")
+				&& edge.get("to").asText().equals("graphExporter") && edge.get("kind").asText().equals("depends")));
+		assertTrue(edges.stream().anyMatch(edge -> edge.get("from").asText().equals("graphController")
+				&& edge.get("to").asText().equals("GET /api/v1/graph") && edge.get("kind").asText().equals("handles")));
+	}
+
+	private static List<JsonNode> toList(JsonNode array) {
+		List<JsonNode> list = new ArrayList<>();
+		array.forEach(list::add);
+		return list;
+	}
+}
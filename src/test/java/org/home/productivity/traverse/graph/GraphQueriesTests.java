@@ -0,0 +1,127 @@
+package org.home.productivity.traverse.graph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.home.productivity.traverse.graph.ComponentGraph.NodeKind;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GraphQueriesTests {
+
+	// a -> b -> c -> d, b -> e -> b, f alone
+	private final ComponentGraph graph = graph(new String[] { "a", "b", "c", "d", "e", "f" },
+			new String[][] { { "a", "b" }, { "b", "c" }, { "c", "d" }, { "b", "e" }, { "e", "b" } });
+
+	@Test
+	void findsTransitiveDependenciesAndDependents() {
+		assertEquals(bits("b", "c", "d", "e"), GraphQueries.reachable(graph, graph.node("a"), false));
+		assertEquals(bits("a", "b", "e"), GraphQueries.reachable(graph, graph.node("c"), true));
+		assertEquals(bits(), GraphQueries.reachable(graph, graph.node("f"), true));
+	}
+
+	@Test
+	void findsShortestPath() {
+		assertArrayEquals(nodes("a", "b", "c", "d"), GraphQueries.shortestPath(graph, graph.node("a"), graph.node("d")));
+		assertArrayEquals(nodes("e", "b"), GraphQueries.shortestPath(graph, graph.node("e"), graph.node("b")));
+		assertArrayEquals(nodes(), GraphQueries.shortestPath(graph, graph.node("d"), graph.node("a")));
+	}
+
+	@Test
+	void findsCycles() {
+		var cycles = GraphQueries.cycles(graph);
+
+		assertEquals(1, cycles.size());
+		assertArrayEquals(nodes("b", "e"), cycles.get(0));
+	}
+
+	@Test
+	void describesDependents() {
+		var meterRegistry = new SimpleMeterRegistry();
+		var service = new GraphQueryService(meterRegistry, 16);
+		var first = service.dependents(graph, graph.node("d"));
+
+		assertEquals(List.of("a", "b", "c", "e"), first.stream().map(NodeDTO::getId).toList());
+		assertEquals(first, service.dependents(graph, graph.node("d")));
+		// the second lookup comes out of the cache
+		assertEquals(1, meterRegistry.get("traverse.cache.requests").tag("result", "hit").counter().count());
+		assertEquals(1, meterRegistry.get("traverse.graph.query").tag("query", "dependents").timer().count());
+	}
+
+	@Test
+	void walksLargeGraphs() {
+		// layered graph of 20k nodes, every node depending on a few in the next layer. How fast
+		// queries are is up to GraphBenchmark, this is about them being right
+		var random = new Random(42);
+		var builder = ComponentGraph.builder();
+		var nodeCount = 20_000;
+		for (var i = 0; i < nodeCount; i++) {
+			builder.node("bean" + i, NodeKind.BEAN, "com.example.Bean" + i);
+		}
+		List<List<Integer>> dependencies = new ArrayList<>();
+		for (var i = 0; i < nodeCount; i++) {
+			dependencies.add(new ArrayList<>());
+			for (var j = 0; i < nodeCount - 100 && j < 3; j++) {
+				var dependency = i + 1 + random.nextInt(99);
+				builder.edge(i, dependency);
+				dependencies.get(i).add(dependency);
+			}
+		}
+		var large = builder.build();
+
+		for (var i = 0; i < 20; i++) {
+			var node = random.nextInt(nodeCount);
+			var reachable = GraphQueries.reachable(large, node, false);
+			assertEquals(walk(dependencies, node), reachable);
+			reachable.stream().limit(5).forEach(
+					dependency -> assertTrue(GraphQueries.reachable(large, dependency, true).get(node)));
+		}
+	}
+
+	/**
+	 * Everything reachable from node, the plain way
+	 */
+	private static BitSet walk(List<List<Integer>> dependencies, int node) {
+		var reached = new BitSet();
+		Deque<Integer> queue = new ArrayDeque<>(dependencies.get(node));
+		while (!queue.isEmpty()) {
+			var next = queue.poll();
+			if (!reached.get(next)) {
+				reached.set(next);
+				queue.addAll(dependencies.get(next));
+			}
+		}
+		return reached;
+	}
+
+	private int[] nodes(String... names) {
+		return Arrays.stream(names).mapToInt(graph::node).toArray();
+	}
+
+	private BitSet bits(String... names) {
+		var bits = new BitSet();
+		Arrays.stream(names).mapToInt(graph::node).forEach(bits::set);
+		return bits;
+	}
+
+	private static ComponentGraph graph(String[] names, String[][] edges) {
+		var builder = ComponentGraph.builder();
+		for (var name : names) {
+			builder.node(name, NodeKind.BEAN, null);
+		}
+		for (var edge : edges) {
+			builder.edge(builder.node(edge[0]), builder.node(edge[1]));
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,326 @@
+package org.home.productivity.traverse.scan;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.home.productivity.callfixture.AuditClient;
+import org.home.productivity.callfixture.Auditor;
+import org.home.productivity.callfixture.OrderController;
+import org.home.productivity.callfixture.OrderRepository;
+import org.home.productivity.callfixture.OrderService;
+import org.home.productivity.scanfixture.FixtureConfig;
+import org.home.productivity.scanfixture.FixtureService;
+import org.home.productivity.scanfixture.FixtureStereotype;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint.Kind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ClassScannerTests {
+
+	private static final PackageMatcher FIXTURES = PackageMatcher
+			.of(new String[] { "org.home.productivity.scanfixture" }, null);
+
+	private static final PackageMatcher CALL_FIXTURES = PackageMatcher
+			.of(new String[] { "org.home.productivity.callfixture" }, null);
+
+	private final ClassScanner classScanner = new ClassScanner(2);
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void scansComponentsFromClassesDirectory() throws URISyntaxException {
+		var result = classScanner.scan(classesDirectory(), FIXTURES);
+
+		assertFixtures(byName(result));
+		assertTrue(result.getClassesParsed() >= 3);
+		// FixtureConfig.NotAComponent has no annotations at all
+		assertTrue(result.getClassesSkipped() >= 1);
+	}
+
+	@Test
+	void scansComponentsFromMappedFatJar() throws Exception {
+		// nested jars stored uncompressed the way Spring Boot does it, and one
+		// compressed the way it shouldn't be
+		var storedLib = jar(Map.of(entryName(FixtureService.class), classBytes(FixtureService.class)),
+				ZipEntry.DEFLATED);
+		var deflatedLib = jar(Map.of(entryName(FixtureStereotype.class), classBytes(FixtureStereotype.class)),
+				ZipEntry.DEFLATED);
+		var fatJar = tempDir.resolve("fat.jar");
+		try (var zipOut = new ZipOutputStream(Files.newOutputStream(fatJar))) {
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureConfig.class), classBytes(FixtureConfig.class),
+					ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureConfig.NotAComponent.class),
+					classBytes(FixtureConfig.NotAComponent.class), ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/lib/stored.jar", storedLib, ZipEntry.STORED);
+			writeEntry(zipOut, "BOOT-INF/lib/deflated.jar", deflatedLib, ZipEntry.DEFLATED);
+		}
+
+		var result = classScanner.scan(fatJar, FIXTURES);
+
+		var components = byName(result);
+		assertFixtures(components);
+		assertTrue(components.get(FixtureService.class.getName()).getSource().endsWith("!/BOOT-INF/lib/stored.jar"));
+		assertEquals(3, result.getArchivesRead());
+		assertEquals(3, result.getClassesParsed());
+		assertEquals(1, result.getClassesSkipped());
+		assertEquals(Files.size(fatJar), result.getBytesMapped());
+		assertTrue(result.getBytesInflated() > 0);
+	}
+
+	@Test
+	void scansClassesStoredUncompressed() throws Exception {
+		var storedJar = tempDir.resolve("stored.jar");
+		Files.write(storedJar, jar(Map.of(entryName(FixtureConfig.class), classBytes(FixtureConfig.class),
+				entryName(FixtureConfig.NotAComponent.class), classBytes(FixtureConfig.NotAComponent.class),
+				entryName(FixtureService.class), classBytes(FixtureService.class),
+				entryName(FixtureStereotype.class), classBytes(FixtureStereotype.class)), ZipEntry.STORED));
+
+		var result = classScanner.scan(storedJar, FIXTURES);
+
+		assertFixtures(byName(result));
+		assertEquals(3, result.getClassesParsed());
+		assertEquals(1, result.getClassesSkipped());
+		assertEquals(0, result.getBytesInflated());
+	}
+
+	@Test
+	void rescanReusesUnchangedEntries() throws Exception {
+		var lib = jar(Map.of(entryName(FixtureService.class), classBytes(FixtureService.class)), ZipEntry.DEFLATED);
+		var fatJar = tempDir.resolve("fat.jar");
+		try (var zipOut = new ZipOutputStream(Files.newOutputStream(fatJar))) {
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureConfig.class), classBytes(FixtureConfig.class),
+					ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureStereotype.class),
+					classBytes(FixtureStereotype.class), ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/lib/lib.jar", lib, ZipEntry.STORED);
+		}
+		var first = classScanner.scan(fatJar, FIXTURES);
+
+		var result = classScanner.scan(fatJar, FIXTURES, new PreviousScan(first.getEntries()));
+
+		assertFixtures(byName(result));
+		assertEquals(0, result.getClassesParsed());
+		assertEquals(3, result.getClassesReused());
+		// the nested jar is reused as a whole without being opened
+		assertEquals(1, result.getArchivesRead());
+		assertEquals(first.getEntries().size(), result.getEntries().size());
+	}
+
+	@Test
+	void reportsProgressAndStopsWhenCancelled() throws URISyntaxException {
+		var progress = new ScanProgress();
+		var result = classScanner.scan(classesDirectory(), FIXTURES, PreviousScan.NONE, progress);
+		assertTrue(progress.getClassesFound() > 0);
+		assertEquals(progress.getClassesFound(),
+				result.getClassesParsed() + result.getClassesSkipped() + result.getClassesFailed());
+		assertEquals(progress.getClassesFound(), progress.getClassesDone());
+
+		var cancelled = new ScanProgress();
+		cancelled.cancel();
+		assertThrows(CancellationException.class,
+				() -> classScanner.scan(classesDirectory(), FIXTURES, PreviousScan.NONE, cancelled));
+	}
+
+	@Test
+	void rescanParsesChangedEntries() throws Exception {
+		var first = classScanner.scan(classesDirectory(), FIXTURES);
+		var key = entryName(FixtureService.class);
+		var previous = new PreviousScan(first.getEntries().stream()
+				.map(entry -> (entry.getKey().equals(key)
+						? new ScannedEntry(key, entry.getContentHash() + 1, false, entry.getScannedClass(), false)
+						: entry))
+				.toList());
+
+		var result = classScanner.scan(classesDirectory(), FIXTURES, previous);
+
+		assertFixtures(byName(result));
+		assertEquals(1, result.getClassesParsed());
+		assertEquals(first.getEntries().size() - 1, result.getClassesReused());
+	}
+
+	@Test
+	void reusesCachedJarsAcrossTargets() throws Exception {
+		var jarCache = new JarCache(new SimpleMeterRegistry(), tempDir.resolve("cache").toString(),
+				DataSize.ofMegabytes(1));
+		var cachingScanner = new ClassScanner(2, jarCache);
+		var lib = jar(Map.of(entryName(FixtureService.class), classBytes(FixtureService.class)), ZipEntry.DEFLATED);
+		var first = fatJar("first.jar", lib);
+		var second = fatJar("second.jar", lib);
+
+		var firstResult = cachingScanner.scan(first, FIXTURES);
+		var result = cachingScanner.scan(second, FIXTURES);
+
+		assertFixtures(byName(firstResult));
+		assertFixtures(byName(result));
+		assertEquals(0, firstResult.getClassesReused());
+		assertEquals(1, result.getClassesReused());
+		assertTrue(byName(result).get(FixtureService.class.getName()).getSource()
+				.startsWith(second + "!/BOOT-INF/lib/"));
+		assertEquals(1, jarCache.getStats().getHits());
+		// recorded as if read, for the next incremental scan
+		assertTrue(result.getEntries().stream()
+				.anyMatch(entry -> entry.getKey().equals("BOOT-INF/lib/lib.jar!/" + entryName(FixtureService.class))
+						&& !entry.isReused()));
+
+		var rescan = cachingScanner.scan(second, FIXTURES, new PreviousScan(result.getEntries()));
+		assertFixtures(byName(rescan));
+		assertEquals(1, jarCache.getStats().getHits());
+		cachingScanner.shutdown();
+	}
+
+	@Test
+	void scansCallsFromHandlersToComponents() throws URISyntaxException {
+		var callGraph = classScanner.scanCalls(classesDirectory(), CALL_FIXTURES);
+
+		assertCallFixtures(callGraph);
+		assertTrue(callGraph.getClasses() >= 6);
+		assertTrue(callGraph.getMethods() > callGraph.getClasses());
+	}
+
+	@Test
+	void scansEndpointsOfControllers() throws URISyntaxException {
+		var controller = classScanner.scanClassFile(classesDirectory().resolve(entryName(OrderController.class)));
+
+		var handler = OrderController.class.getName() + "#";
+		assertEquals(List.of(new ScannedClass.Endpoint("GET /fixture/orders", handler + "orders(String)"),
+				new ScannedClass.Endpoint("POST /fixture/audit", handler + "audit(String)"),
+				new ScannedClass.Endpoint("GET /fixture/ping", handler + "ping()")), controller.getEndpoints());
+		assertEquals(List.of(), classScanner.scanClassFile(classesDirectory().resolve(entryName(OrderService.class)))
+				.getEndpoints());
+	}
+
+	@Test
+	void scansCallsFromMappedFatJar() throws Exception {
+		// the client implementation comes from a library, still in scope by package
+		var lib = jar(Map.of(entryName(AuditClient.class), classBytes(AuditClient.class)), ZipEntry.DEFLATED);
+		var fatJar = tempDir.resolve("fat.jar");
+		try (var zipOut = new ZipOutputStream(Files.newOutputStream(fatJar))) {
+			for (var type : List.of(OrderController.class, OrderController.OrderQuery.class, OrderService.class,
+					OrderRepository.class, Auditor.class)) {
+				writeEntry(zipOut, "BOOT-INF/classes/" + entryName(type), classBytes(type), ZipEntry.DEFLATED);
+			}
+			// annotated but out of scope, read for its annotations only
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureService.class),
+					classBytes(FixtureService.class), ZipEntry.STORED);
+			writeEntry(zipOut, "BOOT-INF/lib/lib.jar", lib, ZipEntry.STORED);
+		}
+
+		var callGraph = classScanner.scanCalls(fatJar, CALL_FIXTURES);
+
+		assertCallFixtures(callGraph);
+		assertEquals(6, callGraph.getClasses());
+	}
+
+	private Path fatJar(String name, byte[] lib) throws IOException, URISyntaxException {
+		var fatJar = tempDir.resolve(name);
+		try (var zipOut = new ZipOutputStream(Files.newOutputStream(fatJar))) {
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureConfig.class), classBytes(FixtureConfig.class),
+					ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureStereotype.class),
+					classBytes(FixtureStereotype.class), ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/lib/lib.jar", lib, ZipEntry.STORED);
+		}
+		return fatJar;
+	}
+
+	private static void assertCallFixtures(CallGraph callGraph) {
+		var endpoints = callGraph.getEndpoints().stream()
+				.collect(Collectors.toMap(CallGraph.EndpointCalls::getEndpoint, Function.identity()));
+		assertEquals(3, endpoints.size(), endpoints.keySet().toString());
+
+		var orders = endpoints.get("GET /fixture/orders");
+		assertEquals(OrderController.class.getName() + "#orders(String)", orders.getHandler());
+		assertEquals(List.of(OrderRepository.class.getName(), OrderService.class.getName()), orders.getComponents());
+
+		var audit = endpoints.get("POST /fixture/audit");
+		assertEquals(List.of(AuditClient.class.getName()), audit.getComponents());
+
+		var ping = endpoints.get("GET /fixture/ping");
+		assertEquals(OrderController.class.getName() + "#ping()", ping.getHandler());
+		assertEquals(List.of(), ping.getComponents());
+	}
+
+	private static void assertFixtures(Map<String, ScannedClass> components) {
+		assertEquals(2, components.size(), components.keySet().toString());
+
+		var service = components.get(FixtureService.class.getName());
+		assertEquals(FixtureStereotype.class.getName(), service.getStereotype());
+		assertEquals(2, service.getInjectionPoints().size());
+		var field = service.getInjectionPoints().stream().filter(point -> point.getKind() == Kind.FIELD).findFirst()
+				.orElseThrow();
+		assertEquals("${fixture.name}", field.getValue());
+		var constructor = service.getInjectionPoints().stream().filter(point -> point.getKind() == Kind.CONSTRUCTOR)
+				.findFirst().orElseThrow();
+		assertEquals("org.springframework.core.env.Environment", constructor.getType());
+
+		var config = components.get(FixtureConfig.class.getName());
+		assertEquals(1, config.getBeanMethods().size());
+		var beanMethod = config.getBeanMethods().get(0);
+		assertArrayEquals(new String[] { "first", "second" }, beanMethod.getNames());
+		assertEquals("java.lang.StringBuilder", beanMethod.getReturnType());
+		assertArrayEquals(new String[] { FixtureService.class.getName() }, beanMethod.getParameterTypes());
+	}
+
+	private static Map<String, ScannedClass> byName(ScanResult result) {
+		return result.getComponents().stream().collect(Collectors.toMap(ScannedClass::getName, Function.identity()));
+	}
+
+	private static Path classesDirectory() throws URISyntaxException {
+		return Path.of(FixtureConfig.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+	}
+
+	private static String entryName(Class<?> type) {
+		return type.getName().replace('.', '/') + ".class";
+	}
+
+	private static byte[] classBytes(Class<?> type) throws IOException, URISyntaxException {
+		return Files.readAllBytes(classesDirectory().resolve(entryName(type)));
+	}
+
+	private static byte[] jar(Map<String, byte[]> entries, int method) throws IOException {
+		var bytes = new ByteArrayOutputStream();
+		try (var zipOut = new ZipOutputStream(bytes)) {
+			for (var entry : entries.entrySet()) {
+				writeEntry(zipOut, entry.getKey(), entry.getValue(), method);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeEntry(ZipOutputStream zipOut, String name, byte[] bytes, int method) throws IOException {
+		var entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			var crc = new CRC32();
+			crc.update(bytes);
+			entry.setSize(bytes.length);
+			entry.setCompressedSize(bytes.length);
+			entry.setCrc(crc.getValue());
+		}
+		zipOut.putNextEntry(entry);
+		zipOut.write(bytes);
+		zipOut.closeEntry();
+	}
+
+}
@@ -0,0 +1,103 @@
+package org.home.productivity.traverse.scan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.home.productivity.traverse.scan.ScannedClass.BeanMethod;
+import org.home.productivity.traverse.scan.ScannedClass.Endpoint;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint;
+import org.home.productivity.traverse.scan.ScannedClass.InjectionPoint.Kind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JarCacheTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void keepsJarsAcrossRestarts() {
+		var jar = new JarCache.Jar(3, List.of(new JarCache.CachedClass(42, scannedClass("com.example.Service"))));
+		var first = jarCache(DataSize.ofMegabytes(1));
+		assertNull(first.get("a", "lib.jar"));
+		first.put("a", jar);
+
+		var restarted = jarCache(DataSize.ofMegabytes(1));
+		var cached = restarted.get("a", "other.jar!/lib.jar");
+
+		assertNotNull(cached);
+		assertEquals(3, cached.classFiles);
+		assertEquals(42, cached.classes.get(0).contentHash);
+		assertEquals("com/example/Service.class", cached.classes.get(0).entryName());
+		var expected = scannedClass("com.example.Service");
+		var actual = cached.classes.get(0).scannedClass;
+		var expectedFromOtherJar = new ScannedClass(expected.getName(), expected.getSuperName(),
+				expected.getInterfaces(), expected.getAccess(), expected.getAnnotations(), expected.getBeanMethods(),
+				expected.getInjectionPoints(), "other.jar!/lib.jar");
+		expectedFromOtherJar.setEndpoints(expected.getEndpoints());
+		assertEquals(expectedFromOtherJar, actual);
+		var stats = restarted.getStats();
+		assertEquals(1, stats.getJars());
+		assertEquals(1, stats.getHits());
+		assertEquals(0, stats.getMisses());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedJars() {
+		var jar = new JarCache.Jar(1, List.of(new JarCache.CachedClass(1, scannedClass("com.example.Service"))));
+		var size = JarCache.write(jar).length;
+		var jarCache = jarCache(DataSize.ofBytes(size * 2L));
+		jarCache.put("a", jar);
+		jarCache.put("b", jar);
+		assertNotNull(jarCache.get("a", "lib.jar"));
+
+		jarCache.put("c", jar);
+
+		assertNotNull(jarCache.get("a", "lib.jar"));
+		assertNull(jarCache.get("b", "lib.jar"));
+		assertNotNull(jarCache.get("c", "lib.jar"));
+		assertFalse(Files.exists(tempDir.resolve("b.jarscan")));
+		assertEquals(1, jarCache.getStats().getEvictions());
+		assertEquals(size * 2L, jarCache.getSize());
+	}
+
+	@Test
+	void damagedFilesAreMisses() throws IOException {
+		Files.write(tempDir.resolve("a.jarscan"), new byte[] { 1, 2, 3 });
+		var jarCache = jarCache(DataSize.ofMegabytes(1));
+
+		assertNull(jarCache.get("a", "lib.jar"));
+		assertFalse(Files.exists(tempDir.resolve("a.jarscan")));
+		assertEquals(0, jarCache.getSize());
+		assertEquals(1, jarCache.getStats().getMisses());
+	}
+
+	private JarCache jarCache(DataSize maxSize) {
+		return new JarCache(new SimpleMeterRegistry(), tempDir.toString(), maxSize);
+	}
+
+	private static ScannedClass scannedClass(String name) {
+		var scannedClass = new ScannedClass(name, "java.lang.Object", new String[] { "java.io.Serializable" }, 1,
+				new String[] { "org.springframework.stereotype.Service" },
+				List.of(new BeanMethod("bean", new String[] { "bean" }, "java.lang.String",
+						new String[] { "java.lang.Integer" })),
+				List.of(new InjectionPoint(Kind.FIELD, "name", "java.lang.String",
+						"org.springframework.beans.factory.annotation.Value", "${name}"),
+						new InjectionPoint(Kind.CONSTRUCTOR, "<init>", "java.lang.Integer",
+								"org.springframework.beans.factory.annotation.Autowired", null)),
+				"lib.jar");
+		scannedClass.setEndpoints(List.of(new Endpoint("GET /services", name + "#list()")));
+		return scannedClass;
+	}
+}
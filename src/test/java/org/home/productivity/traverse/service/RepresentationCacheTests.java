@@ -0,0 +1,162 @@
+package org.home.productivity.traverse.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RepresentationCacheTests {
+
+	private final byte[] body = ("{\"nodes\":[" + "{\"id\":\"com.example.Service\",\"kind\":\"bean\"},".repeat(50)
+			+ "],\"edges\":[]}").getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void answersNotModifiedToMatchingEtagWithoutWritingAgain() {
+		var meterRegistry = new SimpleMeterRegistry();
+		var cache = new RepresentationCache(meterRegistry, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+		var writes = new AtomicInteger();
+		RepresentationCache.BodyWriter writer = out -> {
+			writes.incrementAndGet();
+			out.write(body);
+		};
+
+		var first = cache.get("graph", MediaType.APPLICATION_JSON, writer);
+		var response = first.toResponse(null, null);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertArrayEquals(body, response.getBody());
+		var etag = response.getHeaders().getETag();
+		assertEquals(first.getEtag(), etag);
+		// the same content hashes the same, whenever and wherever it was written
+		assertEquals(etag, cache(1).put("other", MediaType.APPLICATION_JSON, body.clone()).getEtag());
+
+		var second = cache.get("graph", MediaType.APPLICATION_JSON, writer);
+		assertSame(first, second);
+		assertEquals(1, writes.get());
+		var notModified = second.toResponse(etag, "gzip");
+		assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+		assertNull(notModified.getBody());
+		assertEquals(HttpHeaders.ACCEPT_ENCODING, notModified.getHeaders().getFirst(HttpHeaders.VARY));
+		// weak comparison, and the ETag of a compressed form, match too
+		assertEquals(HttpStatus.NOT_MODIFIED, second.toResponse("\"x\", W/" + etag, null).getStatusCode());
+		var gzipEtag = second.toResponse(null, "gzip").getHeaders().getETag();
+		assertEquals(HttpStatus.NOT_MODIFIED, second.toResponse(gzipEtag, null).getStatusCode());
+		assertEquals(HttpStatus.OK, second.toResponse("\"x\"", null).getStatusCode());
+		assertEquals(1, meterRegistry.get("traverse.cache.requests").tag("result", "hit").counter().count());
+	}
+
+	@Test
+	void servesPrecompressedFormsAccepted() throws IOException {
+		var cache = cache(1);
+		var representation = cache.put("graph", MediaType.APPLICATION_JSON, body);
+
+		var gzip = representation.toResponse(null, "deflate, gzip;q=0.8");
+		assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(body, new GZIPInputStream(new ByteArrayInputStream(gzip.getBody())).readAllBytes());
+		var deflate = representation.toResponse(null, "gzip;q=0, deflate");
+		assertEquals("deflate", deflate.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(body, new InflaterInputStream(new ByteArrayInputStream(deflate.getBody())).readAllBytes());
+		var identity = representation.toResponse(null, "br");
+		assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(body, identity.getBody());
+		assertEquals(body.length, identity.getHeaders().getContentLength());
+
+		// not worth compressing, sent as is whatever is accepted
+		var tiny = cache.put("tiny", MediaType.APPLICATION_JSON, "{}".getBytes(StandardCharsets.UTF_8));
+		assertNull(tiny.toResponse(null, "gzip, deflate").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	void dropsLeastRecentlyUsedBeyondSize() {
+		var one = cache(1).put("one", MediaType.APPLICATION_JSON, body);
+		var cache = new RepresentationCache(new SimpleMeterRegistry(), DataSize.ofBytes(one.size() * 2),
+				DataSize.ofBytes(one.size() * 2));
+		cache.put("one", MediaType.APPLICATION_JSON, body);
+		cache.put("two", MediaType.APPLICATION_JSON, body);
+		assertNotNull(cache.getIfPresent("one"));
+		cache.put("three", MediaType.APPLICATION_JSON, body);
+
+		assertNull(cache.getIfPresent("two"));
+		assertNotNull(cache.getIfPresent("one"));
+		assertNotNull(cache.getIfPresent("three"));
+		assertEquals(one.size() * 2, cache.getSize());
+	}
+
+	@Test
+	void streamsBodiesAndCachesOnlySmallOnes() throws IOException {
+		var cache = new RepresentationCache(new SimpleMeterRegistry(), DataSize.ofMegabytes(1),
+				DataSize.ofBytes(body.length));
+		var writes = new AtomicInteger();
+		RepresentationCache.BodyWriter writer = out -> {
+			writes.incrementAndGet();
+			// the way exporters write, a bit at a time
+			for (var i = 0; i < body.length; i += 100) {
+				out.write(body, i, Math.min(100, body.length - i));
+			}
+		};
+
+		var streamed = cache.stream("graph|1", MediaType.APPLICATION_JSON, null, null, writer);
+		assertEquals(HttpStatus.OK, streamed.getStatusCode());
+		assertNull(streamed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(body, write(streamed));
+		var etag = streamed.getHeaders().getETag();
+		assertEquals(etag, cache.getIfPresent("graph|1").getEtag());
+
+		var gzip = cache.stream("graph|1", MediaType.APPLICATION_JSON, null, "gzip", writer);
+		assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(body, new GZIPInputStream(new ByteArrayInputStream(write(gzip))).readAllBytes());
+		assertEquals(1, writes.get());
+
+		// too big to cache, streamed every time
+		RepresentationCache.BodyWriter bigWriter = out -> {
+			writes.incrementAndGet();
+			out.write(body);
+			out.write('\n');
+		};
+		var big = cache.stream("big|1", MediaType.APPLICATION_JSON, null, null, bigWriter);
+		assertEquals(body.length + 1, write(big).length);
+		assertNull(cache.getIfPresent("big|1"));
+		assertEquals(body.length + 1, write(cache.stream("big|1", MediaType.APPLICATION_JSON, null, null, bigWriter))
+				.length);
+		assertEquals(3, writes.get());
+
+		// the ETag comes from the key, so known bodies need no writing cached or not
+		var notModified = cache.stream("big|1", MediaType.APPLICATION_JSON, big.getHeaders().getETag(), null,
+				bigWriter);
+		assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+		assertNull(notModified.getBody());
+		assertEquals(3, writes.get());
+		assertEquals(HttpStatus.OK,
+				cache.stream("big|2", MediaType.APPLICATION_JSON, big.getHeaders().getETag(), null, bigWriter)
+						.getStatusCode());
+	}
+
+	private static byte[] write(ResponseEntity<StreamingResponseBody> response) throws IOException {
+		var out = new ByteArrayOutputStream();
+		response.getBody().writeTo(out);
+		return out.toByteArray();
+	}
+
+	private static RepresentationCache cache(int megabytes) {
+		return new RepresentationCache(new SimpleMeterRegistry(), DataSize.ofMegabytes(megabytes),
+				DataSize.ofMegabytes(megabytes));
+	}
+}
@@ -0,0 +1,77 @@
+package org.home.productivity.traverse.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.home.productivity.traverse.graph.GraphDelta;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.home.productivity.traverse.service.ScanEventPublisher.ScanEvent;
+import org.home.productivity.traverse.service.ScanEventPublisher.Subscriber;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class ScanEventPublisherTests {
+
+	@Test
+	void batchesComponentsAndCoalescesProgress() {
+		var job = new ScanJob("job", "/apps/demo.jar", new String[] { "com.example" });
+		job.start();
+		for (var i = 0; i < 1_200; i++) {
+			job.found(component("com.example.Service" + i));
+		}
+		// filtered out by the job's packages
+		job.found(component("org.other.Service"));
+		var subscriber = new Subscriber(job, 500, new SseEmitter());
+
+		var first = subscriber.poll();
+		assertEquals(List.of("delta", "progress"), names(first));
+		assertEquals(500, ((GraphDelta) first.get(0).getData()).getNodes().size());
+		// progress did not change, it is not sent again
+		assertEquals(List.of("delta"), names(subscriber.poll()));
+		var third = subscriber.poll();
+		assertEquals(List.of("delta"), names(third));
+		assertEquals(200, ((GraphDelta) third.get(0).getData()).getNodes().size());
+		assertTrue(subscriber.poll().isEmpty());
+
+		job.found(component("com.example.Late"));
+		job.succeed(new ScanResult("/apps/demo.jar", 0, 0, 0, 0, 0, 0, 0, 0, 0, List.of(), List.of()));
+		var last = subscriber.poll();
+		assertEquals(List.of("delta", "done"), names(last));
+		assertSame(job, last.get(1).getData());
+		assertTrue(subscriber.isFinished());
+		assertTrue(subscriber.poll().isEmpty());
+	}
+
+	@Test
+	void describesComponentsAsGraphDelta() {
+		var injectionPoint = new ScannedClass.InjectionPoint(ScannedClass.InjectionPoint.Kind.FIELD, "repository",
+				"com.example.Repository", "org.springframework.beans.factory.annotation.Autowired", null);
+		var value = new ScannedClass.InjectionPoint(ScannedClass.InjectionPoint.Kind.FIELD, "url", "java.lang.String",
+				"org.springframework.beans.factory.annotation.Value", "${url}");
+		var beanMethod = new ScannedClass.BeanMethod("client", new String[0], "com.example.Client", new String[0]);
+		var component = new ScannedClass("com.example.Config", "java.lang.Object", new String[0], 0,
+				new String[] { "org.springframework.context.annotation.Configuration" }, List.of(beanMethod),
+				List.of(injectionPoint, value), "/apps/demo.jar");
+
+		var delta = GraphDelta.of(List.of(component));
+
+		assertEquals(List.of("com.example.Config", "com.example.Config#client"),
+				delta.getNodes().stream().map(node -> node.getId()).toList());
+		assertEquals(2, delta.getEdges().size());
+		assertEquals("com.example.Config", delta.getEdges().get(0).getTo());
+		assertEquals("com.example.Repository", delta.getEdges().get(1).getTo());
+	}
+
+	private static ScannedClass component(String name) {
+		return new ScannedClass(name, "java.lang.Object", new String[0], 0,
+				new String[] { "org.springframework.stereotype.Service" }, List.of(), List.of(), "/apps/demo.jar");
+	}
+
+	private static List<String> names(List<ScanEvent> events) {
+		return events.stream().map(ScanEvent::getName).toList();
+	}
+}
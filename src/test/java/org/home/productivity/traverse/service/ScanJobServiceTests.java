@@ -0,0 +1,127 @@
+package org.home.productivity.traverse.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.home.productivity.traverse.scan.CallGraph;
+import org.home.productivity.traverse.scan.ScanProgress;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.service.ScanJob.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ScanJobServiceTests {
+
+	private final ScanResult result = new ScanResult("target", 0, 0, 0, 0, 0, 0, 0, 0, 0, List.of(), List.of());
+
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private ScanService scanService;
+
+	private ScanJobService scanJobService;
+
+	@BeforeEach
+	void setUp() {
+		// scans run until released, or cancelled
+		scanService = mock(ScanService.class);
+		when(scanService.scan(any(), any(), any())).thenAnswer(invocation -> {
+			ScanProgress progress = invocation.getArgument(2);
+			started.countDown();
+			while (!release.await(5, TimeUnit.MILLISECONDS)) {
+				progress.throwIfCancelled();
+			}
+			return result;
+		});
+		scanJobService = new ScanJobService(scanService, new SimpleMeterRegistry(), 1, 1, Duration.ofHours(1), false);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		scanJobService.shutdown();
+	}
+
+	@Test
+	void mergesIdenticalScansInFlight() {
+		var first = scanJobService.submit(Path.of("/apps/demo.jar"), new String[] { "com.b", "com.a" });
+		var second = scanJobService.submit(Path.of("/apps/../apps/demo.jar"), new String[] { "com.a", "com.b" });
+		var other = scanJobService.submit(Path.of("/apps/demo.jar"), null);
+
+		assertSame(first, second);
+		assertTrue(first != other);
+		release.countDown();
+		assertSame(result, first.await());
+		assertEquals(Status.SUCCEEDED, first.getStatus());
+		assertSame(result, first.getResult());
+		other.await();
+		verify(scanService, times(2)).scan(any(), any(), any());
+	}
+
+	@Test
+	void rejectsScansBeyondQueueCapacity() throws InterruptedException {
+		var running = scanJobService.submit(Path.of("/apps/one.jar"), null);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		var queued = scanJobService.submit(Path.of("/apps/two.jar"), null);
+
+		assertEquals(Status.RUNNING, running.getStatus());
+		assertEquals(Status.QUEUED, queued.getStatus());
+		assertThrows(RejectedExecutionException.class,
+				() -> scanJobService.submit(Path.of("/apps/three.jar"), null));
+		assertEquals(2, scanJobService.getJobs().size());
+	}
+
+	@Test
+	void scansCallsUnderTheSameLimits() throws InterruptedException {
+		var callGraph = new CallGraph("target", 0, 0, 0, 0, 0, List.of());
+		when(scanService.scanCalls(any(), any())).thenReturn(callGraph);
+		var running = scanJobService.submit(Path.of("/apps/one.jar"), null);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		var queued = scanJobService.submit(Path.of("/apps/two.jar"), null);
+
+		assertThrows(RejectedExecutionException.class,
+				() -> scanJobService.scanCalls(Path.of("/apps/three.jar"), null));
+		release.countDown();
+		running.await();
+		queued.await();
+		assertSame(callGraph, scanJobService.scanCalls(Path.of("/apps/three.jar"), null));
+	}
+
+	@Test
+	void cancelsQueuedAndRunningScans() throws InterruptedException {
+		var running = scanJobService.submit(Path.of("/apps/one.jar"), null);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		var queued = scanJobService.submit(Path.of("/apps/two.jar"), null);
+
+		scanJobService.cancel(queued.getId());
+		assertEquals(Status.CANCELLED, queued.getStatus());
+		scanJobService.cancel(running.getId());
+		assertThrows(CancellationException.class, running::await);
+		assertEquals(Status.CANCELLED, running.getStatus());
+		// the queue has room again and the cancelled target can be scanned anew
+		var again = scanJobService.submit(Path.of("/apps/two.jar"), null);
+		assertTrue(again != queued);
+		release.countDown();
+		assertSame(result, again.await());
+		verify(scanService, times(2)).scan(any(), any(), any());
+	}
+}
@@ -0,0 +1,188 @@
+package org.home.productivity.traverse.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.home.productivity.scanfixture.FixtureConfig;
+import org.home.productivity.scanfixture.FixtureService;
+import org.home.productivity.scanfixture.FixtureStereotype;
+import org.home.productivity.traverse.commons.PackageMatcher;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.home.productivity.traverse.repository.ClassRecordRepository;
+import org.home.productivity.traverse.repository.ScanTargetRepository;
+import org.home.productivity.traverse.scan.ScanResult;
+import org.home.productivity.traverse.scan.ScannedClass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:scanservice")
+class ScanServiceTests {
+
+	private static final PackageMatcher FIXTURES = PackageMatcher
+			.of(new String[] { "org.home.productivity.scanfixture" }, null);
+
+	@TempDir
+	static Path tempDir;
+
+	@Autowired
+	private ScanService scanService;
+
+	@Autowired
+	private ScanTargetRepository scanTargetRepository;
+
+	@Autowired
+	private ClassRecordRepository classRecordRepository;
+
+	@Autowired
+	private GraphStore graphStore;
+
+	@DynamicPropertySource
+	static void jarCache(DynamicPropertyRegistry registry) {
+		registry.add("application.scan.cache.directory", () -> tempDir.resolve("jar-cache").toString());
+	}
+
+	@Test
+	void rescanReusesStoredClasses() throws Exception {
+		var target = Path.of(FixtureConfig.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+		var first = scanService.scan(target, FIXTURES);
+		var second = scanService.scan(target, FIXTURES);
+
+		assertTrue(first.getClassesParsed() >= 3);
+		assertEquals(0, second.getClassesParsed());
+		assertEquals(first.getClassesParsed() + first.getClassesSkipped(), second.getClassesReused());
+		assertEquals(first.getComponents(), second.getComponents());
+		var service = second.getComponents().stream()
+				.filter(component -> component.getName().equals(FixtureService.class.getName())).findFirst()
+				.orElseThrow();
+		assertEquals(FixtureStereotype.class.getName(), service.getStereotype());
+
+		var scanTarget = scanTargetRepository.findByPath(target.toAbsolutePath().normalize().toString())
+				.orElseThrow();
+		assertEquals(first.getEntries().size(), classRecordRepository.findByTargetId(scanTarget.getId()).size());
+	}
+
+	@Test
+	void storesClassesOfCachedJars() throws Exception {
+		var lib = new ByteArrayOutputStream();
+		try (var zipOut = new ZipOutputStream(lib)) {
+			writeEntry(zipOut, entryName(FixtureService.class), classBytes(FixtureService.class), ZipEntry.DEFLATED);
+		}
+		var first = fatJar("first.jar", lib.toByteArray());
+		var second = fatJar("second.jar", lib.toByteArray());
+		scanService.scan(first, FIXTURES);
+
+		// the jar within comes from the jar cache, its classes still have to be stored
+		var cached = scanService.scan(second, FIXTURES);
+		var rescan = scanService.scan(second, FIXTURES);
+
+		assertTrue(names(cached).contains(FixtureService.class.getName()));
+		assertEquals(names(cached), names(rescan));
+		assertEquals(0, rescan.getClassesParsed());
+		assertTrue(scanService.diff(first, second, FIXTURES).getDifferences().isEmpty());
+	}
+
+	@Test
+	void graphsEveryComponentWhateverThePackages() throws Exception {
+		var lib = new ByteArrayOutputStream();
+		try (var zipOut = new ZipOutputStream(lib)) {
+			writeEntry(zipOut, entryName(FixtureService.class), classBytes(FixtureService.class), ZipEntry.DEFLATED);
+		}
+		var target = fatJar("filtered.jar", lib.toByteArray());
+		var others = PackageMatcher.of(new String[] { "org.home.productivity.traverse" }, null);
+
+		var result = scanService.scan(target, others);
+
+		assertTrue(result.getComponents().isEmpty());
+		var graph = graphStore.getTargetGraph(target.toAbsolutePath().normalize().toString());
+		assertTrue(graph.node(FixtureService.class.getName()) >= 0);
+		assertTrue(graph.node(FixtureConfig.class.getName()) >= 0);
+		assertEquals(Set.of(FixtureConfig.class.getName(), FixtureService.class.getName()),
+				names(scanService.scan(target, FIXTURES)));
+	}
+
+	@Test
+	void scansTheSameTargetOneAtATime() throws Exception {
+		var lib = new ByteArrayOutputStream();
+		try (var zipOut = new ZipOutputStream(lib)) {
+			writeEntry(zipOut, entryName(FixtureService.class), classBytes(FixtureService.class), ZipEntry.DEFLATED);
+		}
+		var target = fatJar("concurrent.jar", lib.toByteArray());
+		var others = PackageMatcher.of(new String[] { "org.home.productivity.traverse" }, null);
+
+		var executor = Executors.newFixedThreadPool(4);
+		try {
+			var scans = new CompletableFuture<?>[8];
+			for (var i = 0; i < scans.length; i++) {
+				var packageMatcher = (i % 2 == 0 ? FIXTURES : others);
+				scans[i] = CompletableFuture.supplyAsync(() -> scanService.scan(target, packageMatcher), executor);
+			}
+			CompletableFuture.allOf(scans).join();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		var rescan = scanService.scan(target, FIXTURES);
+		assertEquals(0, rescan.getClassesParsed());
+		var scanTarget = scanTargetRepository.findByPath(target.toAbsolutePath().normalize().toString())
+				.orElseThrow();
+		assertEquals(rescan.getEntries().size(), classRecordRepository.findByTargetId(scanTarget.getId()).size());
+	}
+
+	private static Set<String> names(ScanResult result) {
+		return result.getComponents().stream().map(ScannedClass::getName).collect(Collectors.toSet());
+	}
+
+	private static Path fatJar(String name, byte[] lib) throws IOException, URISyntaxException {
+		var fatJar = tempDir.resolve(name);
+		try (var zipOut = new ZipOutputStream(Files.newOutputStream(fatJar))) {
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureConfig.class), classBytes(FixtureConfig.class),
+					ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/classes/" + entryName(FixtureStereotype.class),
+					classBytes(FixtureStereotype.class), ZipEntry.DEFLATED);
+			writeEntry(zipOut, "BOOT-INF/lib/lib.jar", lib, ZipEntry.STORED);
+		}
+		return fatJar;
+	}
+
+	private static String entryName(Class<?> type) {
+		return type.getName().replace('.', '/') + ".class";
+	}
+
+	private static byte[] classBytes(Class<?> type) throws IOException, URISyntaxException {
+		var classesDirectory = Path.of(FixtureConfig.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		return Files.readAllBytes(classesDirectory.resolve(entryName(type)));
+	}
+
+	private static void writeEntry(ZipOutputStream zipOut, String name, byte[] bytes, int method) throws IOException {
+		var entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			var crc = new CRC32();
+			crc.update(bytes);
+			entry.setSize(bytes.length);
+			entry.setCompressedSize(bytes.length);
+			entry.setCrc(crc.getValue());
+		}
+		zipOut.putNextEntry(entry);
+		zipOut.write(bytes);
+		zipOut.closeEntry();
+	}
+}
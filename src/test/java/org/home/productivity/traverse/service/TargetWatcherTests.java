@@ -0,0 +1,120 @@
+package org.home.productivity.traverse.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipOutputStream;
+
+import org.home.productivity.scanfixture.FixtureConfig;
+import org.home.productivity.scanfixture.FixtureService;
+import org.home.productivity.scanfixture.FixtureStereotype;
+import org.home.productivity.traverse.graph.GraphStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:targetwatcher",
+		"application.scan.watch.debounce=50ms" })
+class TargetWatcherTests {
+
+	private static final String[] FIXTURES = { "org.home.productivity.scanfixture" };
+
+	@Autowired
+	private TargetWatcher targetWatcher;
+
+	@Autowired
+	private GraphStore graphStore;
+
+	@Autowired
+	private ScanJobService scanJobService;
+
+	@TempDir
+	private Path classes;
+
+	@AfterEach
+	void tearDown() {
+		targetWatcher.unwatch(classes.toString());
+	}
+
+	@Test
+	void patchesGraphAsClassFilesChange() throws Exception {
+		copy(FixtureStereotype.class);
+		copy(FixtureConfig.class);
+		var target = classes.toAbsolutePath().normalize().toString();
+
+		var watch = targetWatcher.watch(classes, FIXTURES);
+		assertSame(watch, targetWatcher.watch(classes, FIXTURES));
+		var initial = graphStore.getTargetGraph(target);
+		assertTrue(initial.node(FixtureConfig.class.getName()) >= 0);
+		assertTrue(initial.node(FixtureService.class.getName()) < 0);
+
+		// a new package, then a class in it
+		copy(FixtureService.class);
+		var added = awaitUpdate(watch, 0);
+		assertEquals(1, added.getChanged());
+		assertFalse(added.isRescanned());
+		var patched = graphStore.getTargetGraph(target);
+		assertEquals(added.getVersion(), patched.getVersion());
+		assertTrue(patched.getVersion() > initial.getVersion());
+		assertTrue(patched.node(FixtureService.class.getName()) >= 0);
+
+		Files.delete(classFile(FixtureService.class));
+		var removed = awaitUpdate(watch, 1);
+		assertEquals(1, removed.getRemoved());
+		assertTrue(graphStore.getTargetGraph(target).node(FixtureService.class.getName()) < 0);
+
+		assertSame(watch, targetWatcher.unwatch(target));
+		assertNull(targetWatcher.getWatch(target));
+	}
+
+	@Test
+	void rescansAsAJobWhenAJarChanges() throws Exception {
+		copy(FixtureStereotype.class);
+		copy(FixtureConfig.class);
+		var target = classes.toAbsolutePath().normalize().toString();
+		var watch = targetWatcher.watch(classes, FIXTURES);
+		assertEquals(1, jobsOf(target));
+
+		try (var zipOut = new ZipOutputStream(Files.newOutputStream(classes.resolve("lib.jar")))) {
+			zipOut.setComment("empty");
+		}
+		var rescanned = awaitUpdate(watch, 0);
+
+		assertTrue(rescanned.isRescanned());
+		assertEquals(2, jobsOf(target));
+		assertTrue(graphStore.getTargetGraph(target).node(FixtureConfig.class.getName()) >= 0);
+	}
+
+	private long jobsOf(String target) {
+		return scanJobService.getJobs().stream().filter(job -> job.getTarget().equals(target)).count();
+	}
+
+	private TargetWatch.Update awaitUpdate(TargetWatch watch, long updates) throws InterruptedException {
+		// polling WatchServices can take a few seconds to notice
+		for (var i = 0; i < 300 && watch.getUpdates() == updates; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(updates + 1, watch.getUpdates());
+		return watch.getLastUpdate();
+	}
+
+	private void copy(Class<?> type) throws Exception {
+		var file = classFile(type);
+		Files.createDirectories(file.getParent());
+		var name = type.getName().replace('.', '/') + ".class";
+		try (var in = type.getClassLoader().getResourceAsStream(name)) {
+			Files.copy(in, file);
+		}
+	}
+
+	private Path classFile(Class<?> type) {
+		return classes.resolve(type.getName().replace('.', '/') + ".class");
+	}
+}